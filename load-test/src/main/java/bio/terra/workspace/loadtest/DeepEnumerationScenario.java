@@ -0,0 +1,75 @@
+package bio.terra.workspace.loadtest;
+
+import bio.terra.workspace.loadtest.WorkspaceManagerClient.Fixture;
+import bio.terra.workspace.loadtest.WorkspaceManagerClient.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Clients reading every reference in a large workspace, a page at a time. Each user has one
+ * workspace with deepReferences references. Besides each page, the whole walk is recorded as
+ * enumerateAllReferences, so later pages costing more than early ones shows up in both.
+ */
+public class DeepEnumerationScenario implements Scenario {
+  private final Map<User, String> workspaces = new HashMap<>();
+
+  @Override
+  public void setup(ScenarioContext context) {
+    LoadTestConfig config = context.getConfig();
+    WorkspaceManagerClient client = context.getClient();
+    // One workspace per user, then their references all in parallel.
+    for (Fixture fixture : context.createFixtures(1, 0)) {
+      workspaces.put(fixture.getUser(), fixture.getWorkspaceId());
+    }
+    List<Callable<String>> tasks = new ArrayList<>();
+    for (Map.Entry<User, String> workspace : workspaces.entrySet()) {
+      for (int i = 0; i < config.getDeepReferences(); i++) {
+        String name = "ref_" + i;
+        tasks.add(
+            () ->
+                client.createSnapshotReference(
+                    "setup.createDataReference", workspace.getKey(), workspace.getValue(), name));
+      }
+    }
+    context.parallel(tasks);
+  }
+
+  @Override
+  public boolean iterate(Worker worker) {
+    User user = worker.getUser();
+    String path = "/api/v1/workspaces/" + workspaces.get(user) + "/datareferences";
+    int pageSize = worker.getConfig().getPageSize();
+    long start = System.nanoTime();
+    int status = 200;
+    int seen = 0;
+    for (int offset = 0; ; offset += pageSize) {
+      Response page =
+          worker
+              .getClient()
+              .call(
+                  "enumerateReferences",
+                  user,
+                  "GET",
+                  path + "?offset=" + offset + "&limit=" + pageSize,
+                  null);
+      if (!page.isSuccess()) {
+        status = page.getStatus();
+        break;
+      }
+      int size = page.getBody().path("resources").size();
+      seen += size;
+      if (size < pageSize) {
+        break;
+      }
+    }
+    if (status == 200 && seen != worker.getConfig().getDeepReferences()) {
+      // Recorded as a failure: the walk did not see every reference exactly once.
+      status = 0;
+    }
+    worker.getClient().record("enumerateAllReferences", System.nanoTime() - start, status);
+    return true;
+  }
+}
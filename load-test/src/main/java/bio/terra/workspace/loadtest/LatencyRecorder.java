@@ -0,0 +1,127 @@
+package bio.terra.workspace.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the latency and status of every call made while recording is on, by operation. Every
+ * sample is kept, so percentiles are exact rather than estimated from buckets; a run of a million
+ * calls needs about 8MB.
+ */
+public class LatencyRecorder {
+  private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+  private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+  private volatile boolean recording;
+  private volatile long startedAt;
+  private volatile long stoppedAt;
+
+  public void start() {
+    startedAt = System.nanoTime();
+    recording = true;
+  }
+
+  public void stop() {
+    recording = false;
+    stoppedAt = System.nanoTime();
+  }
+
+  /** Record a call. The status is the HTTP status, or -1 if there was no response. */
+  public void record(String operation, long elapsedNanos, int status) {
+    if (recording) {
+      operations.computeIfAbsent(operation, o -> new Operation()).add(elapsedNanos, status);
+    }
+  }
+
+  /** Per-operation and overall counts, error counts, throughput and latency percentiles. */
+  public Map<String, Object> summarize() {
+    double seconds = (stoppedAt - startedAt) / 1e9;
+    Map<String, Object> byOperation = new TreeMap<>();
+    Operation total = new Operation();
+    for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+      Operation operation = entry.getValue();
+      synchronized (operation) {
+        byOperation.put(entry.getKey(), operation.summarize(seconds));
+        total.addAll(operation);
+      }
+    }
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("measuredSeconds", seconds);
+    summary.put("total", total.summarize(seconds));
+    summary.put("operations", byOperation);
+    return summary;
+  }
+
+  /** The value at the percentile of the sorted values, by the nearest-rank method. */
+  static long percentile(long[] sorted, int count, double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100 * count);
+    return sorted[Math.max(0, Math.min(count, rank) - 1)];
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private static class Operation {
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+    private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+    synchronized void add(long elapsedNanos, int status) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = elapsedNanos;
+      statuses.merge(status, 1, Integer::sum);
+      if (status < 200 || status >= 400) {
+        errors++;
+      }
+    }
+
+    void addAll(Operation other) {
+      for (int i = 0; i < other.count; i++) {
+        if (count == latencies.length) {
+          latencies = Arrays.copyOf(latencies, Math.max(count * 2, other.count));
+        }
+        latencies[count++] = other.latencies[i];
+      }
+      errors += other.errors;
+      other.statuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+    }
+
+    Map<String, Object> summarize(double seconds) {
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      long sum = 0;
+      for (long latency : sorted) {
+        sum += latency;
+      }
+      Map<String, Object> latency = new LinkedHashMap<>();
+      latency.put("min", count == 0 ? 0 : millis(sorted[0]));
+      latency.put("mean", count == 0 ? 0 : millis(sum / count));
+      for (double p : PERCENTILES) {
+        String name = "p" + (p == Math.rint(p) ? "" + (int) p : ("" + p).replace(".", ""));
+        latency.put(name, millis(percentile(sorted, count, p)));
+      }
+      latency.put("max", count == 0 ? 0 : millis(sorted[count - 1]));
+
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("count", count);
+      summary.put("errors", errors);
+      summary.put("throughputPerSecond", seconds > 0 ? count / seconds : 0);
+      summary.put("latencyMillis", latency);
+      Map<String, Integer> statusCounts = new LinkedHashMap<>();
+      statuses.forEach((status, n) -> statusCounts.put(String.valueOf(status), n));
+      summary.put("statuses", statusCounts);
+      return summary;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package bio.terra.workspace.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings for a run, read from properties prefixed with {@code loadtest.}. Every setting is
+ * written into the results, so a run can be repeated from its results file.
+ */
+public class LoadTestConfig {
+  private static final String PREFIX = "loadtest.";
+
+  // The service under test.
+  private String baseUrl = "http://127.0.0.1:8080";
+  // The Data Repo instance data references point at, normally the stand-in.
+  private String dataRepoUrl = "http://127.0.0.1:8091";
+  private String scenario = "read-heavy-dashboard";
+  // Workers issuing requests at once; each waits for its response before sending the next.
+  private int concurrency = 16;
+  // Distinct users the workers act as. Workers are assigned to users in turn.
+  private int users = 4;
+  private int warmupSeconds = 10;
+  private int durationSeconds = 60;
+  // Seeds the workers' choices, so two runs with the same settings send the same mix of calls.
+  private long seed = 1;
+  private String outputDir = "results";
+  // Whether to delete the workspaces a run created once it is done.
+  private boolean cleanup = true;
+
+  // Scenario parameters.
+  private int workspacesPerUser = 20;
+  private int referencesPerWorkspace = 10;
+  private int burstSize = 200;
+  private int deepReferences = 1000;
+  private int pageSize = 100;
+  private int jobPollMillis = 100;
+  private int jobTimeoutSeconds = 60;
+
+  public static LoadTestConfig fromProperties(Properties properties) {
+    LoadTestConfig config = new LoadTestConfig();
+    config.baseUrl = properties.getProperty(PREFIX + "baseUrl", config.baseUrl);
+    config.dataRepoUrl = properties.getProperty(PREFIX + "dataRepoUrl", config.dataRepoUrl);
+    config.scenario = properties.getProperty(PREFIX + "scenario", config.scenario);
+    config.concurrency = intProperty(properties, "concurrency", config.concurrency);
+    config.users = intProperty(properties, "users", config.users);
+    config.warmupSeconds = intProperty(properties, "warmupSeconds", config.warmupSeconds);
+    config.durationSeconds = intProperty(properties, "durationSeconds", config.durationSeconds);
+    config.seed = Long.parseLong(properties.getProperty(PREFIX + "seed", "" + config.seed));
+    config.outputDir = properties.getProperty(PREFIX + "outputDir", config.outputDir);
+    config.cleanup =
+        Boolean.parseBoolean(properties.getProperty(PREFIX + "cleanup", "" + config.cleanup));
+    config.workspacesPerUser =
+        intProperty(properties, "workspacesPerUser", config.workspacesPerUser);
+    config.referencesPerWorkspace =
+        intProperty(properties, "referencesPerWorkspace", config.referencesPerWorkspace);
+    config.burstSize = intProperty(properties, "burstSize", config.burstSize);
+    config.deepReferences = intProperty(properties, "deepReferences", config.deepReferences);
+    config.pageSize = intProperty(properties, "pageSize", config.pageSize);
+    config.jobPollMillis = intProperty(properties, "jobPollMillis", config.jobPollMillis);
+    config.jobTimeoutSeconds =
+        intProperty(properties, "jobTimeoutSeconds", config.jobTimeoutSeconds);
+    if (config.concurrency < 1 || config.users < 1) {
+      throw new IllegalArgumentException("concurrency and users must be at least 1");
+    }
+    return config;
+  }
+
+  private static int intProperty(Properties properties, String name, int defaultValue) {
+    return Integer.parseInt(properties.getProperty(PREFIX + name, "" + defaultValue));
+  }
+
+  /** The settings, for the results file. */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("baseUrl", baseUrl);
+    map.put("dataRepoUrl", dataRepoUrl);
+    map.put("scenario", scenario);
+    map.put("concurrency", concurrency);
+    map.put("users", users);
+    map.put("warmupSeconds", warmupSeconds);
+    map.put("durationSeconds", durationSeconds);
+    map.put("seed", seed);
+    map.put("cleanup", cleanup);
+    map.put("workspacesPerUser", workspacesPerUser);
+    map.put("referencesPerWorkspace", referencesPerWorkspace);
+    map.put("burstSize", burstSize);
+    map.put("deepReferences", deepReferences);
+    map.put("pageSize", pageSize);
+    map.put("jobPollMillis", jobPollMillis);
+    map.put("jobTimeoutSeconds", jobTimeoutSeconds);
+    return map;
+  }
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  public String getDataRepoUrl() {
+    return dataRepoUrl;
+  }
+
+  public String getScenario() {
+    return scenario;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public int getUsers() {
+    return users;
+  }
+
+  public int getWarmupSeconds() {
+    return warmupSeconds;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public String getOutputDir() {
+    return outputDir;
+  }
+
+  public boolean isCleanup() {
+    return cleanup;
+  }
+
+  public int getWorkspacesPerUser() {
+    return workspacesPerUser;
+  }
+
+  public int getReferencesPerWorkspace() {
+    return referencesPerWorkspace;
+  }
+
+  public int getBurstSize() {
+    return burstSize;
+  }
+
+  public int getDeepReferences() {
+    return deepReferences;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public int getJobPollMillis() {
+    return jobPollMillis;
+  }
+
+  public int getJobTimeoutSeconds() {
+    return jobTimeoutSeconds;
+  }
+}
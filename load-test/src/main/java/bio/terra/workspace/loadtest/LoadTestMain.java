@@ -0,0 +1,185 @@
+package bio.terra.workspace.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one scenario against a running service and writes the results as JSON to
+ * outputDir/SCENARIO-TIMESTAMP.json, and to stdout. Settings are read from the properties file
+ * given as the only argument, if any, overridden by system properties; see {@link LoadTestConfig}.
+ *
+ * <p>A run has four phases: setup, which is not recorded; warmup, which is not recorded either;
+ * the measured phase; and cleanup, which deletes the workspaces the run created.
+ */
+public class LoadTestMain {
+  private static final DateTimeFormatter FILE_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  public static void main(String[] args) throws Exception {
+    Properties properties = new Properties();
+    if (args.length > 0) {
+      try (InputStream in = new FileInputStream(args[0])) {
+        properties.load(in);
+      }
+    }
+    properties.putAll(System.getProperties());
+    LoadTestConfig config = LoadTestConfig.fromProperties(properties);
+    // Keep a connection per worker alive between calls; the default keeps only five.
+    System.setProperty("http.maxConnections", Integer.toString(config.getConcurrency()));
+
+    Map<String, Object> results = run(config);
+    String json =
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(results);
+    System.out.println(json);
+    File outputDir = new File(config.getOutputDir());
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      throw new IOException("Unable to create " + outputDir);
+    }
+    File output =
+        new File(
+            outputDir,
+            config.getScenario() + "-" + FILE_TIMESTAMP.format(Instant.now()) + ".json");
+    Files.write(output.toPath(), json.getBytes(StandardCharsets.UTF_8));
+    System.err.println("Results written to " + output);
+  }
+
+  static Scenario scenario(String name) {
+    switch (name) {
+      case "provisioning-burst":
+        return new ProvisioningBurstScenario();
+      case "read-heavy-dashboard":
+        return new ReadHeavyDashboardScenario();
+      case "deep-enumeration":
+        return new DeepEnumerationScenario();
+      case "mixed-job-polling":
+        return new MixedJobPollingScenario();
+      default:
+        throw new IllegalArgumentException(
+            "Unknown scenario "
+                + name
+                + "; expected provisioning-burst, read-heavy-dashboard, deep-enumeration"
+                + " or mixed-job-polling");
+    }
+  }
+
+  private static Map<String, Object> run(LoadTestConfig config) throws Exception {
+    Scenario scenario = scenario(config.getScenario());
+    LatencyRecorder recorder = new LatencyRecorder();
+    WorkspaceManagerClient client =
+        new WorkspaceManagerClient(config.getBaseUrl(), config.getDataRepoUrl(), recorder);
+    List<User> users = new ArrayList<>();
+    for (int i = 0; i < config.getUsers(); i++) {
+      users.add(new User(i));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency());
+    ScenarioContext context = new ScenarioContext(config, client, users, executor);
+    try {
+      log("Setting up " + config.getScenario());
+      scenario.setup(context);
+
+      AtomicBoolean stopped = new AtomicBoolean();
+      AtomicLong failedIterations = new AtomicLong();
+      List<Callable<Void>> workers = new ArrayList<>();
+      for (int i = 0; i < config.getConcurrency(); i++) {
+        Worker worker =
+            new Worker(i, users.get(i % users.size()), config.getSeed() + i, context);
+        workers.add(() -> runWorker(scenario, worker, stopped, failedIterations));
+      }
+
+      Instant startedAt = Instant.now();
+      if (scenario.isFinite()) {
+        recorder.start();
+      }
+      List<Future<Void>> running = new ArrayList<>();
+      for (Callable<Void> worker : workers) {
+        running.add(executor.submit(worker));
+      }
+      if (!scenario.isFinite()) {
+        log("Warming up for " + config.getWarmupSeconds() + "s");
+        TimeUnit.SECONDS.sleep(config.getWarmupSeconds());
+        recorder.start();
+      }
+      log("Measuring for up to " + config.getDurationSeconds() + "s");
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+      for (Future<Void> worker : running) {
+        long remaining = deadline - System.nanoTime();
+        try {
+          worker.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          stopped.set(true);
+        }
+      }
+      stopped.set(true);
+      for (Future<Void> worker : running) {
+        worker.get();
+      }
+      recorder.stop();
+
+      Map<String, Object> results = new LinkedHashMap<>();
+      results.put("scenario", config.getScenario());
+      results.put("startedAt", startedAt.toString());
+      results.put("config", config.toMap());
+      results.put("failedIterations", failedIterations.get());
+      results.putAll(recorder.summarize());
+
+      if (config.isCleanup()) {
+        log("Cleaning up " + context.getCreated().size() + " workspaces");
+        List<Callable<Void>> deletes = new ArrayList<>();
+        for (WorkspaceManagerClient.Fixture fixture : context.getCreated()) {
+          deletes.add(
+              () -> {
+                client.deleteWorkspace("cleanup", fixture.getUser(), fixture.getWorkspaceId());
+                return null;
+              });
+        }
+        context.parallel(deletes);
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Void runWorker(
+      Scenario scenario, Worker worker, AtomicBoolean stopped, AtomicLong failedIterations) {
+    while (!stopped.get()) {
+      try {
+        if (!scenario.iterate(worker)) {
+          break;
+        }
+      } catch (RuntimeException e) {
+        // The failed call is already recorded; carry on as a real client would.
+        if (failedIterations.getAndIncrement() == 0) {
+          log("Worker " + worker.getIndex() + " iteration failed: " + e.getMessage());
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void log(String message) {
+    System.err.println(Instant.now() + " " + message);
+  }
+}
@@ -0,0 +1,87 @@
+package bio.terra.workspace.loadtest;
+
+import bio.terra.workspace.loadtest.WorkspaceManagerClient.Fixture;
+import bio.terra.workspace.loadtest.WorkspaceManagerClient.Response;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reads mixed with workspaces being created, deleted and their purge jobs polled until done, as a
+ * client waiting on a delete would. The time from the delete to the job finishing is recorded as
+ * purgeCompletion.
+ *
+ * <p>The service must run with workspace.backgroundDeleteEnabled=true; otherwise there is no job
+ * to poll, and every pollJob is recorded as a 404.
+ */
+public class MixedJobPollingScenario implements Scenario {
+  private static final String PURGE_JOB_PREFIX = "purge-workspace-";
+
+  private final Map<User, List<Fixture>> fixtures = new HashMap<>();
+
+  @Override
+  public void setup(ScenarioContext context) {
+    LoadTestConfig config = context.getConfig();
+    fixtures.putAll(
+        context
+            .createFixtures(config.getWorkspacesPerUser(), config.getReferencesPerWorkspace())
+            .stream()
+            .collect(Collectors.groupingBy(Fixture::getUser)));
+  }
+
+  @Override
+  public boolean iterate(Worker worker) {
+    User user = worker.getUser();
+    WorkspaceManagerClient client = worker.getClient();
+    int roll = worker.getRandom().nextInt(100);
+    if (roll < 25) {
+      createDeleteAndPoll(worker);
+      return true;
+    }
+    String workspacePath = "/api/v1/workspaces/" + worker.pick(fixtures.get(user)).getWorkspaceId();
+    if (roll < 65) {
+      client.call("getWorkspace", user, "GET", workspacePath, null);
+    } else {
+      client.call(
+          "enumerateReferences", user, "GET", workspacePath + "/datareferences?limit=10", null);
+    }
+    return true;
+  }
+
+  private void createDeleteAndPoll(Worker worker) {
+    User user = worker.getUser();
+    WorkspaceManagerClient client = worker.getClient();
+    Fixture fixture =
+        client.createFixture("", user, worker.getConfig().getReferencesPerWorkspace());
+    long start = System.nanoTime();
+    Response deleted = client.deleteWorkspace("deleteWorkspace", user, fixture.getWorkspaceId());
+    if (!deleted.isSuccess()) {
+      worker.getContext().track(fixture);
+      return;
+    }
+    String jobPath = "/api/v1/jobs/" + PURGE_JOB_PREFIX + fixture.getWorkspaceId();
+    long deadline =
+        start + TimeUnit.SECONDS.toNanos(worker.getConfig().getJobTimeoutSeconds());
+    int status;
+    while (true) {
+      status = client.call("pollJob", user, "GET", jobPath, null).getStatus();
+      if (status != 202) {
+        break;
+      }
+      if (System.nanoTime() > deadline) {
+        // Recorded as a failure: the job did not finish in time.
+        status = 0;
+        break;
+      }
+      try {
+        Thread.sleep(worker.getConfig().getJobPollMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    client.record("purgeCompletion", System.nanoTime() - start, status);
+  }
+}
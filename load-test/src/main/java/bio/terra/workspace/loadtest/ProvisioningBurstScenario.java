@@ -0,0 +1,37 @@
+package bio.terra.workspace.loadtest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A burst of new workspaces, as when a class or a study onboards at once: burstSize workspaces,
+ * each with referencesPerWorkspace references, created as fast as the workers can. Creates run
+ * Stairway flights, so this mostly measures the flight executor and the database.
+ */
+public class ProvisioningBurstScenario implements Scenario {
+  private final AtomicInteger remaining = new AtomicInteger();
+
+  @Override
+  public void setup(ScenarioContext context) {
+    remaining.set(context.getConfig().getBurstSize());
+  }
+
+  @Override
+  public boolean iterate(Worker worker) {
+    if (remaining.getAndDecrement() <= 0) {
+      return false;
+    }
+    worker
+        .getContext()
+        .track(
+            worker
+                .getClient()
+                .createFixture(
+                    "", worker.getUser(), worker.getConfig().getReferencesPerWorkspace()));
+    return true;
+  }
+
+  @Override
+  public boolean isFinite() {
+    return true;
+  }
+}
@@ -0,0 +1,61 @@
+package bio.terra.workspace.loadtest;
+
+import bio.terra.workspace.loadtest.WorkspaceManagerClient.Fixture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A dashboard's traffic: users repeatedly open their workspaces and browse the references in them.
+ * Mostly single gets, with some listing, enumeration and batch gets.
+ */
+public class ReadHeavyDashboardScenario implements Scenario {
+  private static final int BATCH_SIZE = 10;
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<User, List<Fixture>> fixtures = new HashMap<>();
+
+  @Override
+  public void setup(ScenarioContext context) {
+    LoadTestConfig config = context.getConfig();
+    fixtures.putAll(
+        context
+            .createFixtures(config.getWorkspacesPerUser(), config.getReferencesPerWorkspace())
+            .stream()
+            .collect(Collectors.groupingBy(Fixture::getUser)));
+  }
+
+  @Override
+  public boolean iterate(Worker worker) {
+    User user = worker.getUser();
+    List<Fixture> own = fixtures.get(user);
+    Fixture fixture = worker.pick(own);
+    String workspacePath = "/api/v1/workspaces/" + fixture.getWorkspaceId();
+    WorkspaceManagerClient client = worker.getClient();
+    int roll = worker.getRandom().nextInt(100);
+    if (roll < 40) {
+      client.call("getWorkspace", user, "GET", workspacePath, null);
+    } else if (roll < 60) {
+      client.call(
+          "enumerateReferences", user, "GET", workspacePath + "/datareferences?limit=10", null);
+    } else if (roll < 80 && !fixture.getReferenceIds().isEmpty()) {
+      String referenceId = worker.pick(fixture.getReferenceIds());
+      client.call(
+          "getDataReference", user, "GET", workspacePath + "/datareferences/" + referenceId, null);
+    } else if (roll < 90) {
+      client.call("listWorkspaces", user, "GET", "/api/v1/workspaces?limit=10", null);
+    } else {
+      ObjectNode body = objectMapper.createObjectNode();
+      ArrayNode ids = body.putArray("ids");
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        ids.add(worker.pick(own).getWorkspaceId());
+      }
+      client.call("batchGetWorkspaces", user, "POST", "/api/v1/workspaces/batchGet", body);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,22 @@
+package bio.terra.workspace.loadtest;
+
+/**
+ * A scripted workload. Setup creates whatever the measured calls need; then each worker calls
+ * {@link #iterate} in a loop until the run ends.
+ */
+public interface Scenario {
+  /** Create what the measured phase needs. Calls made here are not recorded. */
+  void setup(ScenarioContext context);
+
+  /** Make one round of calls as the worker. Returns false once there is no more work. */
+  boolean iterate(Worker worker);
+
+  /**
+   * Whether the scenario is a fixed amount of work rather than a rate sustained for the duration.
+   * Finite scenarios are recorded from the first call, with no warmup, and the duration only caps
+   * them.
+   */
+  default boolean isFinite() {
+    return false;
+  }
+}
@@ -0,0 +1,86 @@
+package bio.terra.workspace.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/** What scenarios share: the settings, the client, the users and the workspaces to clean up. */
+public class ScenarioContext {
+  private final LoadTestConfig config;
+  private final WorkspaceManagerClient client;
+  private final List<User> users;
+  private final ExecutorService executor;
+  private final List<WorkspaceManagerClient.Fixture> created =
+      Collections.synchronizedList(new ArrayList<>());
+
+  ScenarioContext(
+      LoadTestConfig config,
+      WorkspaceManagerClient client,
+      List<User> users,
+      ExecutorService executor) {
+    this.config = config;
+    this.client = client;
+    this.users = users;
+    this.executor = executor;
+  }
+
+  public LoadTestConfig getConfig() {
+    return config;
+  }
+
+  public WorkspaceManagerClient getClient() {
+    return client;
+  }
+
+  public List<User> getUsers() {
+    return users;
+  }
+
+  /** Remember a workspace so it is deleted at the end of the run. */
+  public void track(WorkspaceManagerClient.Fixture fixture) {
+    created.add(fixture);
+  }
+
+  public List<WorkspaceManagerClient.Fixture> getCreated() {
+    synchronized (created) {
+      return new ArrayList<>(created);
+    }
+  }
+
+  /** Run the tasks on the worker threads and return their results in order. */
+  public <T> List<T> parallel(List<Callable<T>> tasks) {
+    try {
+      List<T> results = new ArrayList<>(tasks.size());
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Setup failed: " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  /** Create workspaces for every user, each with the given number of references, in parallel. */
+  public List<WorkspaceManagerClient.Fixture> createFixtures(int perUser, int references) {
+    List<Callable<WorkspaceManagerClient.Fixture>> tasks = new ArrayList<>();
+    for (User user : users) {
+      for (int i = 0; i < perUser; i++) {
+        tasks.add(
+            () -> {
+              WorkspaceManagerClient.Fixture fixture =
+                  client.createFixture("setup.", user, references);
+              track(fixture);
+              return fixture;
+            });
+      }
+    }
+    return parallel(tasks);
+  }
+}
@@ -0,0 +1,27 @@
+package bio.terra.workspace.loadtest;
+
+/**
+ * A user the load test acts as. Requests carry the headers the auth proxy would add. The token is
+ * the email, which is what the Sam stand-in expects.
+ */
+public class User {
+  private final String email;
+  private final String subjectId;
+
+  public User(int index) {
+    this.email = "loadtest-user-" + index + "@loadtest.example.com";
+    this.subjectId = "loadtest-user-" + index;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getSubjectId() {
+    return subjectId;
+  }
+
+  public String getToken() {
+    return email;
+  }
+}
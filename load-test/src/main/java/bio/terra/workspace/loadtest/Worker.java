@@ -0,0 +1,47 @@
+package bio.terra.workspace.loadtest;
+
+import java.util.List;
+import java.util.Random;
+
+/** One of the threads issuing requests, with the user it acts as and its own seeded random. */
+public class Worker {
+  private final int index;
+  private final User user;
+  private final Random random;
+  private final ScenarioContext context;
+
+  Worker(int index, User user, long seed, ScenarioContext context) {
+    this.index = index;
+    this.user = user;
+    this.random = new Random(seed);
+    this.context = context;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public User getUser() {
+    return user;
+  }
+
+  public Random getRandom() {
+    return random;
+  }
+
+  public ScenarioContext getContext() {
+    return context;
+  }
+
+  public WorkspaceManagerClient getClient() {
+    return context.getClient();
+  }
+
+  public LoadTestConfig getConfig() {
+    return context.getConfig();
+  }
+
+  public <T> T pick(List<T> items) {
+    return items.get(random.nextInt(items.size()));
+  }
+}
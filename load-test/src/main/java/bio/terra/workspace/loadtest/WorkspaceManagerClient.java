@@ -0,0 +1,203 @@
+package bio.terra.workspace.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Calls the Workspace Manager HTTP API and records each call. This is deliberately plain
+ * HttpURLConnection and Jackson trees rather than the generated client, so that what is measured
+ * is the service and not client-side model mapping. Connections are kept alive between calls.
+ */
+public class WorkspaceManagerClient {
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final String baseUrl;
+  private final String dataRepoUrl;
+  private final LatencyRecorder recorder;
+
+  public WorkspaceManagerClient(String baseUrl, String dataRepoUrl, LatencyRecorder recorder) {
+    this.baseUrl = baseUrl;
+    this.dataRepoUrl = dataRepoUrl;
+    this.recorder = recorder;
+  }
+
+  /** A response: the HTTP status, or -1 if the call failed, and the JSON body if there was one. */
+  public static class Response {
+    private final int status;
+    private final JsonNode body;
+
+    Response(int status, JsonNode body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    public int getStatus() {
+      return status;
+    }
+
+    public JsonNode getBody() {
+      return body;
+    }
+
+    public boolean isSuccess() {
+      return status >= 200 && status < 300;
+    }
+  }
+
+  /** Make a call and record it under the operation name. */
+  public Response call(String operation, User user, String method, String path, Object body) {
+    long start = System.nanoTime();
+    Response response = send(user, method, path, body);
+    recorder.record(operation, System.nanoTime() - start, response.getStatus());
+    return response;
+  }
+
+  /** Record something made of several calls, such as a walk through every page of a listing. */
+  public void record(String operation, long elapsedNanos, int status) {
+    recorder.record(operation, elapsedNanos, status);
+  }
+
+  public String createWorkspace(String operation, User user) {
+    String id = UUID.randomUUID().toString();
+    ObjectNode body = objectMapper.createObjectNode();
+    body.put("id", id);
+    body.put("authToken", user.getToken());
+    return require(call(operation, user, "POST", "/api/v1/workspaces", body), operation)
+        .getBody()
+        .path("id")
+        .asText(id);
+  }
+
+  public String createSnapshotReference(
+      String operation, User user, String workspaceId, String name) {
+    ObjectNode body = objectMapper.createObjectNode();
+    body.put("name", name);
+    body.put("referenceType", "DataRepoSnapshot");
+    body.put("cloningInstructions", "COPY_NOTHING");
+    ObjectNode reference = body.putObject("reference");
+    reference.put("instance", dataRepoUrl);
+    reference.put("snapshot", UUID.randomUUID().toString());
+    String path = "/api/v1/workspaces/" + workspaceId + "/datareferences";
+    return require(call(operation, user, "POST", path, body), operation)
+        .getBody()
+        .path("referenceId")
+        .asText();
+  }
+
+  public Response deleteWorkspace(String operation, User user, String workspaceId) {
+    ObjectNode body = objectMapper.createObjectNode();
+    body.put("authToken", user.getToken());
+    return call(operation, user, "DELETE", "/api/v1/workspaces/" + workspaceId, body);
+  }
+
+  /** Create a workspace holding the given number of snapshot references. */
+  public Fixture createFixture(String operationPrefix, User user, int references) {
+    String workspaceId = createWorkspace(operationPrefix + "createWorkspace", user);
+    List<String> referenceIds = new ArrayList<>(references);
+    for (int i = 0; i < references; i++) {
+      referenceIds.add(
+          createSnapshotReference(
+              operationPrefix + "createDataReference", user, workspaceId, "ref_" + i));
+    }
+    return new Fixture(user, workspaceId, referenceIds);
+  }
+
+  /** A workspace set up for a scenario and the references in it. */
+  public static class Fixture {
+    private final User user;
+    private final String workspaceId;
+    private final List<String> referenceIds;
+
+    Fixture(User user, String workspaceId, List<String> referenceIds) {
+      this.user = user;
+      this.workspaceId = workspaceId;
+      this.referenceIds = referenceIds;
+    }
+
+    public User getUser() {
+      return user;
+    }
+
+    public String getWorkspaceId() {
+      return workspaceId;
+    }
+
+    public List<String> getReferenceIds() {
+      return referenceIds;
+    }
+  }
+
+  private static Response require(Response response, String operation) {
+    if (!response.isSuccess()) {
+      throw new IllegalStateException(
+          operation + " failed with status " + response.getStatus() + ": " + response.getBody());
+    }
+    return response;
+  }
+
+  private Response send(User user, String method, String path, Object body) {
+    HttpURLConnection connection = null;
+    try {
+      connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+      connection.setRequestMethod(method);
+      connection.setRequestProperty("Accept", "application/json");
+      connection.setRequestProperty("Authorization", "Bearer " + user.getToken());
+      connection.setRequestProperty("OIDC_CLAIM_email", user.getEmail());
+      connection.setRequestProperty("OIDC_CLAIM_user_id", user.getSubjectId());
+      if (body != null) {
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+          objectMapper.writeValue(out, body);
+        }
+      }
+      int status = connection.getResponseCode();
+      // Read the whole body, even of errors, so the connection can be reused.
+      byte[] bytes =
+          readFully(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+      return new Response(status, parse(bytes));
+    } catch (IOException e) {
+      if (connection != null) {
+        connection.disconnect();
+      }
+      return new Response(-1, null);
+    }
+  }
+
+  private static JsonNode parse(byte[] bytes) {
+    if (bytes.length == 0) {
+      return null;
+    }
+    try {
+      return objectMapper.readTree(bytes);
+    } catch (IOException e) {
+      // Not JSON, for instance an error page from a proxy.
+      return null;
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    if (in == null) {
+      return new byte[0];
+    }
+    try (InputStream stream = in) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = stream.read(buffer)) > 0) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package bio.terra.workspace.loadtest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class LatencyRecorderTest {
+  @Test
+  public void percentilesUseNearestRank() {
+    long[] sorted = new long[100];
+    for (int i = 0; i < sorted.length; i++) {
+      sorted[i] = i + 1;
+    }
+    assertThat(LatencyRecorder.percentile(sorted, 100, 50), equalTo(50L));
+    assertThat(LatencyRecorder.percentile(sorted, 100, 99), equalTo(99L));
+    assertThat(LatencyRecorder.percentile(sorted, 100, 99.9), equalTo(100L));
+    assertThat(LatencyRecorder.percentile(sorted, 1, 99), equalTo(1L));
+    assertThat(LatencyRecorder.percentile(sorted, 0, 50), equalTo(0L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void onlyCallsWhileRecordingAreCounted() {
+    LatencyRecorder recorder = new LatencyRecorder();
+    recorder.record("get", TimeUnit.MILLISECONDS.toNanos(5), 200);
+    recorder.start();
+    recorder.record("get", TimeUnit.MILLISECONDS.toNanos(10), 200);
+    recorder.record("get", TimeUnit.MILLISECONDS.toNanos(20), 503);
+    recorder.record("create", TimeUnit.MILLISECONDS.toNanos(30), -1);
+    recorder.stop();
+    recorder.record("get", TimeUnit.MILLISECONDS.toNanos(5), 200);
+
+    Map<String, Object> summary = recorder.summarize();
+    Map<String, Object> total = (Map<String, Object>) summary.get("total");
+    assertThat(total.get("count"), equalTo(3));
+    assertThat(total.get("errors"), equalTo(2));
+    Map<String, Object> get =
+        (Map<String, Object>) ((Map<String, Object>) summary.get("operations")).get("get");
+    assertThat(get.get("count"), equalTo(2));
+    assertThat(((Map<String, Object>) get.get("latencyMillis")).get("max"), equalTo(20.0));
+  }
+}
@@ -0,0 +1,10 @@
+-- pgbench script: one page of a random workspace's references, in the shape of
+-- DataReferenceDao.enumerateDataReferences.
+\set ws random(1, :workspaces)
+\set page random(0, 9)
+SELECT workspace_id, reference_id, name, cloning_instructions, reference_type, reference
+FROM workspace_data_reference
+WHERE workspace_id = 'ws-' || :ws
+ORDER BY reference_id
+OFFSET :page * 10
+LIMIT 10;
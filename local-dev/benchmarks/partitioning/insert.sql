@@ -0,0 +1,7 @@
+-- pgbench script: add one reference to a random workspace, as CreateDataReferenceStep does.
+\set ws random(1, :workspaces)
+INSERT INTO workspace_data_reference
+  (workspace_id, reference_id, name, cloning_instructions, reference_type, reference)
+VALUES
+  ('ws-' || :ws, md5(random()::text || clock_timestamp()::text), 'bench', 'COPY_NOTHING',
+   'DataRepoSnapshot', '{"instance": "https://data.terra.bio", "snapshot": "bench"}');
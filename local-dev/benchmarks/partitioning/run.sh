@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Compare insert and enumerate throughput on the unpartitioned and hash-partitioned layouts.
+# Assumes setup.sql has been loaded into the database named by the usual libpq environment
+# variables (PGHOST, PGDATABASE, PGUSER, ...). Raw output is written to ./results, and a summary
+# of the run is appended to ./RESULTS.md, which is meant to be committed.
+set -euo pipefail
+
+WORKSPACES=${WORKSPACES:-500000}
+CLIENTS=${CLIENTS:-16}
+DURATION=${DURATION:-120}
+HERE=$(cd "$(dirname "$0")" && pwd)
+RESULTS="$HERE/results"
+mkdir -p "$RESULTS"
+
+for schema in bench_plain bench_hash; do
+  export PGOPTIONS="-c search_path=$schema"
+
+  echo "== $schema: plan for a workspace-scoped lookup" | tee "$RESULTS/$schema-plan.txt"
+  psql -X -c "EXPLAIN SELECT * FROM workspace_data_reference
+              WHERE workspace_id = 'ws-1' AND reference_id = 'x'" | tee -a "$RESULTS/$schema-plan.txt"
+
+  for script in enumerate insert; do
+    echo "== $schema: $script, $CLIENTS clients for ${DURATION}s"
+    pgbench -n -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" -D workspaces="$WORKSPACES" \
+      -f "$HERE/$script.sql" -r | tee "$RESULTS/$schema-$script.txt"
+  done
+done
+
+tps() {
+  # pgbench 13 and later words the line differently.
+  sed -n 's/^tps = \([0-9.]*\) (\(excluding connections establishing\|without initial connection time\))$/\1/p' \
+    "$RESULTS/$1-$2.txt"
+}
+
+partitions() {
+  { grep -o 'workspace_data_reference_p[0-9]*' "$RESULTS/$1-plan.txt" || true; } | sort -u | wc -l
+}
+
+{
+  echo
+  echo "## $(date -u +%Y-%m-%d) on $(hostname)"
+  echo
+  echo "$(psql -X -A -t -c 'SELECT version()'), $(nproc) cores."
+  echo "$WORKSPACES workspaces, $CLIENTS clients, ${DURATION}s per script."
+  echo
+  echo "| Layout | enumerate tps | insert tps | Partitions in lookup plan |"
+  echo "|---|---|---|---|"
+  for schema in bench_plain bench_hash; do
+    echo "| $schema | $(tps $schema enumerate) | $(tps $schema insert) | $(partitions $schema) |"
+  done
+} | tee -a "$HERE/RESULTS.md"
@@ -0,0 +1,57 @@
+-- Builds two copies of the data reference schema, one unpartitioned and one hash partitioned on
+-- workspace_id, and loads the same rows into each. Run with psql, e.g.
+--   psql -v workspaces=500000 -v refs_per_workspace=100 -f setup.sql
+-- which loads 50M references per schema.
+
+\set ON_ERROR_STOP on
+
+DROP SCHEMA IF EXISTS bench_plain CASCADE;
+DROP SCHEMA IF EXISTS bench_hash CASCADE;
+CREATE SCHEMA bench_plain;
+CREATE SCHEMA bench_hash;
+
+-- Unpartitioned: the layout before the partitioning changesets.
+CREATE TABLE bench_plain.workspace (workspace_id text PRIMARY KEY);
+CREATE TABLE bench_plain.workspace_data_reference (
+  workspace_id text NOT NULL REFERENCES bench_plain.workspace (workspace_id) ON DELETE CASCADE,
+  reference_id text PRIMARY KEY,
+  name text NOT NULL,
+  cloning_instructions text NOT NULL,
+  reference_type text,
+  reference json
+);
+-- Enumeration filters on workspace_id; without an index it would be a sequential scan, which
+-- would make the comparison meaningless.
+CREATE INDEX ON bench_plain.workspace_data_reference (workspace_id, reference_id);
+
+-- Partitioned: the layout after the partitioning changesets.
+CREATE TABLE bench_hash.workspace (workspace_id text PRIMARY KEY);
+CREATE TABLE bench_hash.workspace_data_reference (
+  workspace_id text NOT NULL REFERENCES bench_hash.workspace (workspace_id) ON DELETE CASCADE,
+  reference_id text NOT NULL,
+  name text NOT NULL,
+  cloning_instructions text NOT NULL,
+  reference_type text,
+  reference json,
+  PRIMARY KEY (workspace_id, reference_id)
+) PARTITION BY HASH (workspace_id);
+
+SELECT format(
+    'CREATE TABLE bench_hash.workspace_data_reference_p%s PARTITION OF bench_hash.workspace_data_reference FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+    r, r)
+FROM generate_series(0, 15) AS r
+\gexec
+
+INSERT INTO bench_plain.workspace
+SELECT 'ws-' || w FROM generate_series(1, :workspaces) AS w;
+INSERT INTO bench_hash.workspace SELECT workspace_id FROM bench_plain.workspace;
+
+INSERT INTO bench_plain.workspace_data_reference
+SELECT 'ws-' || w, md5(w || '/' || r), 'ref-' || r, 'COPY_NOTHING', 'DataRepoSnapshot',
+  '{"instance": "https://data.terra.bio", "snapshot": "bench"}'::json
+FROM generate_series(1, :workspaces) AS w, generate_series(1, :refs_per_workspace) AS r;
+INSERT INTO bench_hash.workspace_data_reference
+SELECT * FROM bench_plain.workspace_data_reference;
+
+VACUUM ANALYZE bench_plain.workspace_data_reference;
+VACUUM ANALYZE bench_hash.workspace_data_reference;
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Measure time to first request for Workspace Manager.
+#
+# Builds the boot jar, then starts it RUNS times against the databases configured through the
+# usual environment variables (see DEVELOPMENT.md). Each run is timed from launching the JVM until
+# the port answers an HTTP request; any status code counts. The service's own "Startup timing" log
+# lines are kept alongside, so a slow run can be attributed to a phase.
+#
+# Usage: ./measure_startup.sh [RUNS]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+HERE=$(cd "$(dirname "$0")" && pwd)
+ROOT=$(cd "$HERE/../../.." && pwd)
+RESULTS="$HERE/results"
+mkdir -p "$RESULTS"
+STAMP=$(date +%Y%m%d-%H%M%S)
+SUMMARY="$RESULTS/startup-$STAMP.txt"
+
+(cd "$ROOT" && ./gradlew -q bootJar)
+JAR=$(ls "$ROOT"/build/libs/*.jar | head -1)
+
+now_ms() { date +%s%3N; }
+
+for run in $(seq 1 "$RUNS"); do
+  LOG="$RESULTS/startup-$STAMP-run$run.log"
+  start=$(now_ms)
+  java -jar "$JAR" --server.port="$PORT" > "$LOG" 2>&1 &
+  pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/status")" != "000" ]; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "run $run: service exited during startup; see $LOG" | tee -a "$SUMMARY"
+      exit 1
+    fi
+    sleep 0.1
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" || true
+
+  echo "run $run: first response after ${elapsed} ms" | tee -a "$SUMMARY"
+  grep "Startup timing" "$LOG" | sed 's/^.*Startup timing: /    /' | tee -a "$SUMMARY"
+done
+
+echo "Summary written to $SUMMARY"
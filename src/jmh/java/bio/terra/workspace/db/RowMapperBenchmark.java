@@ -0,0 +1,119 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import bio.terra.workspace.generated.model.WorkspaceDescription;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Maps one page of an enumeration: rows from one workspace, some of them controlled references
+ * with their resource's columns. Run with the gc profiler (the default in build.gradle) to see the
+ * allocation per page as well as the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+  private static final String[] ENUMERATE_LABELS = {
+    "workspace_id",
+    "reference_id",
+    "name",
+    "resource_id",
+    "credential_id",
+    "cloning_instructions",
+    "reference_type",
+    "reference",
+    "resource_id",
+    "associated_app",
+    "is_visible",
+    "owner",
+    "attributes"
+  };
+
+  @Param({"10", "100"})
+  public int rows;
+
+  private List<Object[]> referenceRows;
+  private List<Object[]> workspaceRows;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(1);
+    String workspaceId = new UUID(random.nextLong(), random.nextLong()).toString();
+    referenceRows = new ArrayList<>();
+    workspaceRows = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      String snapshot = new UUID(random.nextLong(), random.nextLong()).toString();
+      String reference =
+          "{\"instance\":\"https://data.terra.bio\",\"snapshot\":\"" + snapshot + "\"}";
+      // Every tenth reference is controlled, so the resource columns are mapped too.
+      String resourceId =
+          i % 10 == 0 ? new UUID(random.nextLong(), random.nextLong()).toString() : null;
+      referenceRows.add(
+          new Object[] {
+            workspaceId,
+            new UUID(random.nextLong(), random.nextLong()).toString(),
+            "reference_" + i,
+            resourceId,
+            null,
+            "COPY_NOTHING",
+            "DataRepoSnapshot",
+            reference,
+            resourceId,
+            null,
+            resourceId == null ? null : Boolean.TRUE,
+            resourceId == null ? null : "owner@example.com",
+            null
+          });
+      workspaceRows.add(
+          new Object[] {
+            new UUID(random.nextLong(), random.nextLong()).toString(),
+            i % 2 == 0 ? null : new UUID(random.nextLong(), random.nextLong()).toString()
+          });
+    }
+  }
+
+  @Benchmark
+  public List<DataReferenceDescription> legacyDataReferenceMapper() throws SQLException {
+    return map(
+        FakeResultSet.of(ENUMERATE_LABELS, referenceRows), new LegacyDataReferenceMapper());
+  }
+
+  @Benchmark
+  public List<DataReferenceDescription> dataReferenceMapper() throws SQLException {
+    return map(
+        FakeResultSet.of(ENUMERATE_LABELS, referenceRows),
+        new DataReferenceDao.DataReferenceMapper());
+  }
+
+  @Benchmark
+  public List<WorkspaceDescription> workspaceMapper() throws SQLException {
+    return map(
+        FakeResultSet.of(new String[] {"workspace_id", "spend_profile"}, workspaceRows),
+        new WorkspaceDao.WorkspaceMapper());
+  }
+
+  // What JdbcTemplate's RowMapperResultSetExtractor does.
+  private static <T> List<T> map(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+    List<T> results = new ArrayList<>();
+    int rowNum = 0;
+    while (rs.next()) {
+      results.add(mapper.mapRow(rs, rowNum++));
+    }
+    return results;
+  }
+}
@@ -0,0 +1,66 @@
+package bio.terra.workspace.service.datareference;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import bio.terra.workspace.generated.model.DataReferenceList;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Writes an enumeration page and a single reference with the service's ObjectMapper. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DataReferenceSerializationBenchmark {
+  @Param({"10", "100"})
+  public int references;
+
+  private ObjectMapper objectMapper;
+  private DataReferenceList page;
+  private DataReferenceDescription single;
+
+  @Setup
+  public void setup() {
+    objectMapper = new ApplicationConfiguration().objectMapper();
+    Random random = new Random(1);
+    UUID workspaceId = new UUID(random.nextLong(), random.nextLong());
+    List<DataReferenceDescription> resources = new ArrayList<>();
+    for (int i = 0; i < references; i++) {
+      UUID snapshot = new UUID(random.nextLong(), random.nextLong());
+      resources.add(
+          new DataReferenceDescription()
+              .workspaceId(workspaceId)
+              .referenceId(new UUID(random.nextLong(), random.nextLong()))
+              .name("reference_" + i)
+              .cloningInstructions(
+                  DataReferenceDescription.CloningInstructionsEnum.fromValue("COPY_NOTHING"))
+              .referenceType(DataReferenceDescription.ReferenceTypeEnum.DATAREPOSNAPSHOT)
+              .reference(
+                  "{\"instance\":\"https://data.terra.bio\",\"snapshot\":\"" + snapshot + "\"}"));
+    }
+    page = new DataReferenceList().resources(resources);
+    single = resources.get(0);
+  }
+
+  @Benchmark
+  public byte[] enumerationPage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] singleReference() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(single);
+  }
+}
@@ -0,0 +1,110 @@
+package bio.terra.workspace.service.job;
+
+import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.generated.model.CreateDataReferenceRequestBody;
+import bio.terra.workspace.generated.model.JobModel;
+import bio.terra.workspace.service.datareference.flight.DataReferenceFlightMapKeys;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The encoding every job goes through: its parameters into a FlightMap and back out in the steps,
+ * onto and off the flight queue, and its JobModel to JSON when it is polled. The parameters are
+ * those of a data reference create, the most frequent job.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JobEncodingBenchmark {
+  private ObjectMapper objectMapper;
+  private JobParameterSerializer parameterSerializer;
+  private Map<String, Object> parameters;
+  private FlightMap flightMap;
+  private String serializedParameters;
+  private JobModel jobModel;
+
+  @Setup
+  public void setup() {
+    objectMapper = new ApplicationConfiguration().objectMapper();
+    parameterSerializer = new JobParameterSerializer(objectMapper);
+    UUID workspaceId = UUID.fromString("5f3c7a9e-2b41-4d8a-9c1e-7a6b5d4c3b2a");
+    UUID referenceId = UUID.fromString("0e1d2c3b-4a59-4687-a5b4-c3d2e1f00112");
+    String reference =
+        "{\"instance\":\"https://data.terra.bio\","
+            + "\"snapshot\":\"9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d\"}";
+    CreateDataReferenceRequestBody request =
+        new CreateDataReferenceRequestBody()
+            .name("reference_1")
+            .referenceType("DataRepoSnapshot")
+            .reference(Collections.singletonMap("snapshot", "9a8b7c6d"))
+            .cloningInstructions("COPY_NOTHING");
+    AuthenticatedUserRequest userReq =
+        new AuthenticatedUserRequest("user@example.com", "1234567890", Optional.of("token"));
+
+    parameters = new LinkedHashMap<>();
+    parameters.put(JobMapKeys.DESCRIPTION.getKeyName(), "Create data reference " + referenceId);
+    parameters.put(JobMapKeys.REQUEST.getKeyName(), request);
+    parameters.put(JobMapKeys.AUTH_USER_INFO.getKeyName(), userReq);
+    parameters.put(JobMapKeys.SUBJECT_ID.getKeyName(), userReq.getSubjectId());
+    parameters.put(DataReferenceFlightMapKeys.REFERENCE_ID, referenceId);
+    parameters.put(DataReferenceFlightMapKeys.WORKSPACE_ID, workspaceId);
+    parameters.put(DataReferenceFlightMapKeys.REFERENCE, reference);
+
+    flightMap = toFlightMap();
+    serializedParameters = parameterSerializer.serialize(parameters);
+    jobModel =
+        new JobModel()
+            .id(UUID.randomUUID().toString())
+            .description("Create data reference " + referenceId)
+            .status(JobModel.StatusEnum.SUCCEEDED)
+            .statusCode(200)
+            .submitted("2020-01-01T00:00:00Z")
+            .completed("2020-01-01T00:00:01Z");
+  }
+
+  @Benchmark
+  public FlightMap toFlightMap() {
+    FlightMap map = new FlightMap();
+    parameters.forEach(map::put);
+    return map;
+  }
+
+  @Benchmark
+  public Object readFlightMap() {
+    // What CreateDataReferenceStep reads.
+    flightMap.get(DataReferenceFlightMapKeys.REFERENCE_ID, UUID.class);
+    flightMap.get(DataReferenceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    flightMap.get(DataReferenceFlightMapKeys.REFERENCE, String.class);
+    return flightMap.get(JobMapKeys.REQUEST.getKeyName(), CreateDataReferenceRequestBody.class);
+  }
+
+  @Benchmark
+  public String serializeQueuedParameters() {
+    return parameterSerializer.serialize(parameters);
+  }
+
+  @Benchmark
+  public Map<String, Object> deserializeQueuedParameters() {
+    return parameterSerializer.deserialize(serializedParameters);
+  }
+
+  @Benchmark
+  public byte[] jobModel() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(jobModel);
+  }
+}
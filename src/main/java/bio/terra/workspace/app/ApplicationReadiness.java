@@ -0,0 +1,51 @@
+package bio.terra.workspace.app;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether this instance has finished startup initialization and can serve requests. It becomes
+ * ready once every phase in StartupInitializer has completed, and stops being ready when shutdown
+ * begins. It also records how long the JVM took to reach readiness and to serve its first request.
+ */
+@Component
+public class ApplicationReadiness {
+  private static final Logger logger = LoggerFactory.getLogger(ApplicationReadiness.class);
+
+  private volatile boolean ready;
+  private volatile long readyAtMillis;
+  private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    readyAtMillis = System.currentTimeMillis();
+    ready = true;
+    logger.info("Startup timing: ready {} ms after JVM start", millisSinceJvmStart(readyAtMillis));
+  }
+
+  public void markNotReady() {
+    ready = false;
+    logger.info("No longer ready: shutting down");
+  }
+
+  /** Called at the end of every request; only the first one is logged. */
+  void recordRequest() {
+    if (firstRequestSeen.compareAndSet(false, true)) {
+      long now = System.currentTimeMillis();
+      logger.info(
+          "Startup timing: first request served {} ms after JVM start ({} ms after ready)",
+          millisSinceJvmStart(now),
+          ready ? now - readyAtMillis : -1);
+    }
+  }
+
+  private static long millisSinceJvmStart(long millis) {
+    return millis - ManagementFactory.getRuntimeMXBean().getStartTime();
+  }
+}
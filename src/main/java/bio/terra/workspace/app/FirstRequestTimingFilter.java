@@ -0,0 +1,32 @@
+package bio.terra.workspace.app;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/** Reports the time to first request for startup benchmarking. */
+@Component
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+  private final ApplicationReadiness readiness;
+
+  @Autowired
+  public FirstRequestTimingFilter(ApplicationReadiness readiness) {
+    this.readiness = readiness;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      readiness.recordRequest();
+    }
+  }
+}
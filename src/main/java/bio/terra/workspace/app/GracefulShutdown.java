@@ -0,0 +1,50 @@
+package bio.terra.workspace.app;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.service.job.JobService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains this instance when it is asked to stop, for example by the SIGTERM that starts a pod's
+ * termination during a deploy. Spring publishes the ContextClosedEvent from its shutdown hook
+ * before any bean is destroyed and while the web server is still taking requests, so this runs
+ * first: it fails readiness so traffic moves elsewhere, then lets the JobService wind down its
+ * flights. Only after that are the database pools and the web server closed; the JobService is
+ * destroyed before them and gives flights that outlived the drain up to another drain timeout.
+ *
+ * <p>The drain timeout should leave some of the pod's termination grace period for the rest of
+ * shutdown. Flights still running if the pod is killed first are recovered by another instance.
+ */
+@Component
+public class GracefulShutdown implements ApplicationListener<ContextClosedEvent> {
+  private static final Logger logger = LoggerFactory.getLogger(GracefulShutdown.class);
+
+  private final ApplicationReadiness readiness;
+  private final JobService jobService;
+  private final ApplicationConfiguration appConfig;
+
+  @Autowired
+  public GracefulShutdown(
+      ApplicationReadiness readiness, JobService jobService, ApplicationConfiguration appConfig) {
+    this.readiness = readiness;
+    this.jobService = jobService;
+    this.appConfig = appConfig;
+  }
+
+  @Override
+  public void onApplicationEvent(ContextClosedEvent event) {
+    long start = System.nanoTime();
+    readiness.markNotReady();
+    boolean finished = jobService.drain(appConfig.getDrainTimeoutSeconds());
+    logger.info(
+        "Shutdown timing: drain took {} ms; {}",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        finished ? "all running flights finished" : "unfinished flights left for recovery");
+  }
+}
@@ -9,6 +9,20 @@ import org.springframework.context.annotation.ComponentScan;
 @ComponentScan(basePackages = "bio.terra.workspace")
 public class Main {
   public static void main(String[] args) {
+    checkFlightRecorder();
     SpringApplication.run(Main.class, args);
   }
+
+  // The events in common/jfr extend jdk.jfr.Event, which JDK 8 only has from 8u262. Without it the
+  // first Sam call or query would fail with NoClassDefFoundError, so refuse to start instead.
+  private static void checkFlightRecorder() {
+    try {
+      Class.forName("jdk.jfr.Event");
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(
+          "Workspace Manager needs JDK 8u262 or later, or JDK 11 or later; this is "
+              + System.getProperty("java.version"),
+          e);
+    }
+  }
 }
@@ -0,0 +1,36 @@
+package bio.terra.workspace.app;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.common.utils.RequestDeadline;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/** Starts the request's deadline on the thread serving it; see {@link RequestDeadline}. */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+  private final ApplicationConfiguration appConfig;
+
+  @Autowired
+  public RequestDeadlineFilter(ApplicationConfiguration appConfig) {
+    this.appConfig = appConfig;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestDeadline.start(appConfig.getRequestTimeoutSeconds(), TimeUnit.SECONDS);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      RequestDeadline.clear();
+    }
+  }
+}
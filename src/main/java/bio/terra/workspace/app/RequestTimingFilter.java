@@ -0,0 +1,120 @@
+package bio.terra.workspace.app;
+
+import bio.terra.workspace.app.configuration.RequestTimingConfiguration;
+import bio.terra.workspace.common.utils.RequestTiming;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * When enabled, times each request with a {@link RequestTiming} and returns the breakdown in a
+ * Server-Timing header. A sample of requests, and every slow one, are also logged.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+  private static final Logger logger = LoggerFactory.getLogger(RequestTimingFilter.class);
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  private final RequestTimingConfiguration configuration;
+
+  @Autowired
+  public RequestTimingFilter(RequestTimingConfiguration configuration) {
+    this.configuration = configuration;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!configuration.isEnabled()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    RequestTiming timing = RequestTiming.start();
+    ServerTimingResponse timedResponse = new ServerTimingResponse(response, timing);
+    try {
+      filterChain.doFilter(request, timedResponse);
+      // Responses with no body may not have been committed yet.
+      timedResponse.addServerTiming();
+    } finally {
+      RequestTiming.clear();
+      if (timing.getElapsedMillis() > configuration.getLogSlowerThanMillis()
+          || ThreadLocalRandom.current().nextDouble() < configuration.getLogSampleRate()) {
+        Object path = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        logger.info(
+            "Request timing: method={} path={} status={} {}",
+            request.getMethod(),
+            path != null ? path : request.getRequestURI(),
+            response.getStatus(),
+            timing.toLogFields());
+      }
+    }
+  }
+
+  // Headers cannot be added once the response is committed, so the header goes on just before
+  // anything that can commit it: getting the body, flushing, or sending an error or redirect.
+  private static class ServerTimingResponse extends HttpServletResponseWrapper {
+    private final RequestTiming timing;
+    private boolean headerAdded;
+
+    ServerTimingResponse(HttpServletResponse response, RequestTiming timing) {
+      super(response);
+      this.timing = timing;
+    }
+
+    void addServerTiming() {
+      if (!headerAdded && !isCommitted()) {
+        headerAdded = true;
+        setHeader(SERVER_TIMING_HEADER, timing.toServerTiming());
+      }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addServerTiming();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addServerTiming();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addServerTiming();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addServerTiming();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addServerTiming();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      addServerTiming();
+      super.sendRedirect(location);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package bio.terra.workspace.app;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import bio.terra.workspace.app.configuration.StairwayJdbcConfiguration;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.CircuitBreaker;
+import bio.terra.workspace.common.utils.LocalCache;
+import bio.terra.workspace.common.utils.SingleFlight;
+import bio.terra.workspace.common.utils.SpeculativeRead;
+import bio.terra.workspace.db.Shard;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceCache;
+import bio.terra.workspace.service.iam.AclMirror;
+import bio.terra.workspace.service.iam.CapabilityService;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.job.JobService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.ToDoubleFunction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges and counters over what the service already keeps count of: the connection pools, the
+ * Stairway threads, the Sam circuit breaker and bulkheads, the ACL mirror, capabilities,
+ * speculative reads and the workspace cache. Each reads the live value when it is scraped, so none
+ * of them add work to requests.
+ *
+ * <p>This is not a MeterBinder: binders are created with the registry, and several of these
+ * components need the registry themselves.
+ */
+@Component
+public class ServiceMetrics {
+  private final MeterRegistry registry;
+
+  @Autowired
+  public ServiceMetrics(
+      MeterRegistry registry,
+      ShardRouter shardRouter,
+      StairwayJdbcConfiguration stairwayJdbcConfiguration,
+      JobService jobService,
+      ApplicationConfiguration appConfig,
+      SamService samService,
+      @Qualifier("samBulkhead") Bulkhead samBulkhead,
+      @Qualifier("dataRepoBulkhead") Bulkhead dataRepoBulkhead,
+      AclMirror aclMirror,
+      CapabilityService capabilityService,
+      SpeculativeRead speculativeRead,
+      WorkspaceCache workspaceCache) {
+    this.registry = registry;
+
+    for (Shard shard : shardRouter.getShards()) {
+      String pool = shard.getIndex() == 0 ? "workspace" : "workspace" + shard.getIndex();
+      bindPool(pool, shard.getJdbcConfiguration());
+    }
+    bindPool("stairway", stairwayJdbcConfiguration);
+
+    gauge("workspace.flights.active", jobService, JobService::getActiveFlightCount);
+    gauge("workspace.flights.queued", jobService, JobService::getQueuedFlightCount);
+    gauge("workspace.flights.threads", jobService, JobService::getFlightThreadCount);
+    gauge(
+        "workspace.flights.threads.max", appConfig, ApplicationConfiguration::getMaxStairwayThreads);
+    gauge("workspace.flights.recovered", jobService, JobService::getRecoveredFlightCount);
+    gauge("workspace.flights.recovery.seconds", jobService, JobService::getRecoverySeconds);
+    gauge("workspace.flights.withheld", jobService, JobService::getWithheldFlightCount);
+
+    bindBreaker(samService.getCircuitBreaker());
+    counter("workspace.sam.stale.decisions", samService, SamService::getStaleDecisionCount);
+    SingleFlight<?, ?> authorizationCalls = samService.getAuthorizationCalls();
+    counter(
+        "workspace.sam.authorization.calls",
+        authorizationCalls,
+        SingleFlight::getExecutionCount,
+        "result",
+        "executed");
+    counter(
+        "workspace.sam.authorization.calls",
+        authorizationCalls,
+        SingleFlight::getSharedCount,
+        "result",
+        "shared");
+
+    bindBulkhead("sam", samBulkhead);
+    bindBulkhead("datarepo", dataRepoBulkhead);
+
+    counter("workspace.acl.mirror.checks", aclMirror, AclMirror::getHitCount, "result", "hit");
+    counter("workspace.acl.mirror.checks", aclMirror, AclMirror::getMissCount, "result", "miss");
+    gauge("workspace.acl.mirror.workspaces", aclMirror, AclMirror::getWorkspaceCount);
+
+    counter("workspace.capabilities.issued", capabilityService, CapabilityService::getIssuedCount);
+    counter(
+        "workspace.capabilities.presented",
+        capabilityService,
+        CapabilityService::getHonouredCount,
+        "result",
+        "honoured");
+    counter(
+        "workspace.capabilities.presented",
+        capabilityService,
+        CapabilityService::getIgnoredCount,
+        "result",
+        "ignored");
+
+    counter(
+        "workspace.speculative.reads", speculativeRead, SpeculativeRead::getSpeculatedCount);
+    counter(
+        "workspace.speculative.reads.wasted", speculativeRead, SpeculativeRead::getWastedCount);
+
+    bindCache("workspace", workspaceCache.getWorkspaceCache());
+    bindCache("dataReference", workspaceCache.getDataReferenceCache());
+  }
+
+  private void bindPool(String pool, JdbcConfiguration jdbcConfiguration) {
+    gauge(
+        "workspace.db.pool.active",
+        jdbcConfiguration,
+        c -> c.getConnectionPool().getNumActive(),
+        "pool",
+        pool);
+    gauge(
+        "workspace.db.pool.idle",
+        jdbcConfiguration,
+        c -> c.getConnectionPool().getNumIdle(),
+        "pool",
+        pool);
+    // Threads blocked waiting for a connection; anything above zero means the pool is too small.
+    gauge(
+        "workspace.db.pool.waiting",
+        jdbcConfiguration,
+        c -> c.getConnectionPool().getNumWaiters(),
+        "pool",
+        pool);
+  }
+
+  private void bindBreaker(CircuitBreaker breaker) {
+    counter(
+        "workspace.sam.breaker.calls",
+        breaker,
+        CircuitBreaker::getSuccessCount,
+        "result",
+        "success");
+    counter(
+        "workspace.sam.breaker.calls",
+        breaker,
+        CircuitBreaker::getFailureCount,
+        "result",
+        "failure");
+    counter(
+        "workspace.sam.breaker.calls",
+        breaker,
+        CircuitBreaker::getRejectedCount,
+        "result",
+        "rejected");
+    counter("workspace.sam.breaker.slow.calls", breaker, CircuitBreaker::getSlowCallCount);
+    for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+      counter(
+          "workspace.sam.breaker.transitions",
+          breaker,
+          b -> b.getTransitionCount(state),
+          "state",
+          state.name());
+      // 1 for the state the breaker is in, 0 for the others.
+      gauge(
+          "workspace.sam.breaker.state",
+          breaker,
+          b -> b.getState() == state ? 1 : 0,
+          "state",
+          state.name());
+    }
+  }
+
+  private void bindBulkhead(String bulkhead, Bulkhead pool) {
+    gauge("workspace.bulkhead.active", pool, Bulkhead::getActiveCount, "bulkhead", bulkhead);
+    gauge("workspace.bulkhead.queued", pool, Bulkhead::getQueuedCount, "bulkhead", bulkhead);
+  }
+
+  private void bindCache(String cache, LocalCache<?, ?> localCache) {
+    counter(
+        "workspace.cache.requests",
+        localCache,
+        LocalCache::getHitCount,
+        "cache",
+        cache,
+        "result",
+        "hit");
+    counter(
+        "workspace.cache.requests",
+        localCache,
+        LocalCache::getMissCount,
+        "cache",
+        cache,
+        "result",
+        "miss");
+    gauge("workspace.cache.size", localCache, LocalCache::size, "cache", cache);
+    gauge("workspace.cache.hit.ratio", localCache, LocalCache::getHitRatio, "cache", cache);
+  }
+
+  private <T> void gauge(String name, T source, ToDoubleFunction<T> value, String... tags) {
+    Gauge.builder(name, source, value).tags(tags).register(registry);
+  }
+
+  private <T> void counter(String name, T source, ToDoubleFunction<T> value, String... tags) {
+    FunctionCounter.builder(name, source, value).tags(tags).register(registry);
+  }
+}
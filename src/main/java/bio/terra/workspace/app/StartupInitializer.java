@@ -1,8 +1,27 @@
 package bio.terra.workspace.app;
 
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import bio.terra.workspace.app.configuration.ShardConfiguration;
+import bio.terra.workspace.app.configuration.StairwayJdbcConfiguration;
 import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import bio.terra.workspace.common.utils.ErrorReportUtils;
+import bio.terra.workspace.db.Shard;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceCache;
+import bio.terra.workspace.service.iam.AclMirror;
 import bio.terra.workspace.service.job.JobService;
 import bio.terra.workspace.service.migrate.MigrateService;
+import bio.terra.workspace.service.status.StatusService;
+import bio.terra.workspace.service.workspace.TombstoneSweeper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
@@ -12,25 +31,144 @@ public final class StartupInitializer {
   private static final String changelogPath = "db/changelog.xml";
 
   public static void initialize(ApplicationContext applicationContext) {
+    long start = System.nanoTime();
     // Initialize or upgrade the database depending on the configuration
     MigrateService migrateService = (MigrateService) applicationContext.getBean("migrateService");
     WorkspaceManagerJdbcConfiguration workspaceManagerJdbcConfiguration =
         (WorkspaceManagerJdbcConfiguration)
             applicationContext.getBean("workspaceManagerJdbcConfiguration");
+    StairwayJdbcConfiguration stairwayJdbcConfiguration =
+        (StairwayJdbcConfiguration) applicationContext.getBean("stairwayJdbcConfiguration");
     JobService jobService = (JobService) applicationContext.getBean("jobService");
+    WorkspaceCache workspaceCache = (WorkspaceCache) applicationContext.getBean("workspaceCache");
+    ShardRouter shardRouter = (ShardRouter) applicationContext.getBean("shardRouter");
+    ShardConfiguration shardConfiguration =
+        (ShardConfiguration) applicationContext.getBean("shardConfiguration");
+    ApplicationReadiness readiness =
+        (ApplicationReadiness) applicationContext.getBean("applicationReadiness");
+    StatusService statusService = (StatusService) applicationContext.getBean("statusService");
+    AclMirror aclMirror = (AclMirror) applicationContext.getBean("aclMirror");
+    TombstoneSweeper tombstoneSweeper =
+        (TombstoneSweeper) applicationContext.getBean("tombstoneSweeper");
 
-    if (workspaceManagerJdbcConfiguration.isInitializeOnStart()) {
-      migrateService.initialize(changelogPath, workspaceManagerJdbcConfiguration.getDataSource());
-    } else if (workspaceManagerJdbcConfiguration.isUpgradeOnStart()) {
-      migrateService.upgrade(changelogPath, workspaceManagerJdbcConfiguration.getDataSource());
+    // The workspace databases and the Stairway database are independent, so their setup runs
+    // concurrently, along with opening the pools' idle connections. Only Stairway's recovery waits
+    // for the workspace migration, since it needs the flight owners on the primary database.
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          Thread thread = new Thread(runnable, "startup-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    ExecutorService startupExecutor =
+        Executors.newFixedThreadPool(shardRouter.getShards().size() + 2, threadFactory);
+    List<CompletableFuture<Void>> phases = new ArrayList<>();
+    try {
+      CompletableFuture<Void> migration =
+          runPhase(
+              "workspace database migration",
+              () -> {
+                // Every shard has the same schema. The db.workspace settings apply to all of them.
+                for (Shard shard : shardRouter.getShards()) {
+                  migrateShard(migrateService, workspaceManagerJdbcConfiguration, shard);
+                }
+                if (shardConfiguration.isPinOnStart()) {
+                  shardRouter.pinMisplacedWorkspaces();
+                }
+              },
+              startupExecutor);
+      phases.add(migration);
+
+      // The JobService initialization also handles Stairway initialization.
+      CompletableFuture<Void> stairwayPool =
+          runPhase(
+              "stairway pool warmup", () -> warmPool(stairwayJdbcConfiguration), startupExecutor);
+      phases.add(
+          CompletableFuture.allOf(migration, stairwayPool)
+              .thenCompose(
+                  ready ->
+                      runPhase(
+                          "job service initialization", jobService::initialize, startupExecutor)));
+
+      for (Shard shard : shardRouter.getShards()) {
+        phases.add(
+            runPhase(
+                "pool warmup for shard " + shard.getIndex(),
+                () -> warmPool(shard.getJdbcConfiguration()),
+                startupExecutor));
+      }
+
+      CompletableFuture.allOf(phases.toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException e) {
+      Throwable cause = ErrorReportUtils.unwrap(e);
+      throw (cause instanceof RuntimeException)
+          ? (RuntimeException) cause
+          : new IllegalStateException("Startup initialization failed", cause);
+    } finally {
+      startupExecutor.shutdownNow();
     }
 
-    // The JobService initialization also handles Stairway initialization.
-    jobService.initialize();
+    // Start listening for cache invalidations and workspace deletes from other instances. This is
+    // a no-op if the cache is disabled and nothing has registered for deletes.
+    workspaceCache.startListener();
+
+    // Take the first status snapshot now, so probes have real answers as soon as we are ready.
+    statusService.startRefresh();
+
+    // Start mirroring workspace ACLs, if enabled. The first sync runs in the background; until it
+    // completes, checks go to Sam.
+    aclMirror.startRefresh();
+
+    // Start submitting the purges of workspaces tombstoned by an instance that died before it
+    // could, if the sweep is enabled.
+    tombstoneSweeper.startSweep();
 
     // TODO: Fill in this method with any other initialization that needs to happen
     //  between the point of having the entire application initialized and
     //  the point of opening the port to start accepting REST requests.
 
+    logPhase("startup initialization total", start);
+    readiness.markReady();
+  }
+
+  private static CompletableFuture<Void> runPhase(
+      String phase, Runnable work, ExecutorService executor) {
+    return CompletableFuture.runAsync(
+        () -> {
+          long phaseStart = System.nanoTime();
+          work.run();
+          logPhase(phase, phaseStart);
+        },
+        executor);
+  }
+
+  private static void warmPool(JdbcConfiguration jdbcConfiguration) {
+    try {
+      jdbcConfiguration.warmPool();
+    } catch (Exception e) {
+      // Not fatal: the pool opens connections on demand anyway.
+      logger.warn("Unable to warm connection pool for {}", jdbcConfiguration, e);
+    }
+  }
+
+  private static void logPhase(String phase, long startNanos) {
+    logger.info(
+        "Startup timing: {} took {} ms",
+        phase,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+
+  private static void migrateShard(
+      MigrateService migrateService,
+      WorkspaceManagerJdbcConfiguration workspaceManagerJdbcConfiguration,
+      Shard shard) {
+    if (workspaceManagerJdbcConfiguration.isInitializeOnStart()) {
+      logger.info("Initializing {}", shard);
+      migrateService.initialize(changelogPath, shard.getJdbcConfiguration().getDataSource());
+    } else if (workspaceManagerJdbcConfiguration.isUpgradeOnStart()) {
+      logger.info("Upgrading {}", shard);
+      migrateService.upgrade(changelogPath, shard.getJdbcConfiguration().getDataSource());
+    }
   }
 }
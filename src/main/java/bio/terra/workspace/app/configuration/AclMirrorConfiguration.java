@@ -0,0 +1,88 @@
+package bio.terra.workspace.app.configuration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for the local mirror of workspace ACLs; see AclMirror. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "sam.acl-mirror")
+public class AclMirrorConfiguration {
+  // When false, every workspace authorization check goes to Sam.
+  private boolean enabled;
+  // File holding an access token for an account that can read the policies of every workspace.
+  // It is read again on each sync, so it can be rotated in place.
+  private String tokenFile;
+  private int refreshIntervalSeconds = 30;
+  // Workspaces whose policies are fetched from Sam on each refresh; those never synced go first,
+  // then those synced longest ago.
+  private int refreshBatchSize = 200;
+  // A workspace not synced for this long is answered by Sam again, so this bounds how long revoked
+  // access is still honoured. It matches the circuit breaker's staleDecisionSeconds. Every
+  // workspace must come round for a sync within it; startup fails if refreshBatchSize and
+  // refreshIntervalSeconds cannot manage that for the current number of workspaces.
+  private int maxStalenessSeconds = 300;
+  // The actions each Sam role on a workspace grants.
+  private Map<String, List<String>> roleActions = defaultRoleActions();
+
+  private static Map<String, List<String>> defaultRoleActions() {
+    Map<String, List<String>> roleActions = new HashMap<>();
+    roleActions.put("owner", Arrays.asList("read", "write", "delete"));
+    roleActions.put("writer", Arrays.asList("read", "write"));
+    roleActions.put("reader", Arrays.asList("read"));
+    return roleActions;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getTokenFile() {
+    return tokenFile;
+  }
+
+  public void setTokenFile(String tokenFile) {
+    this.tokenFile = tokenFile;
+  }
+
+  public int getRefreshIntervalSeconds() {
+    return refreshIntervalSeconds;
+  }
+
+  public void setRefreshIntervalSeconds(int refreshIntervalSeconds) {
+    this.refreshIntervalSeconds = refreshIntervalSeconds;
+  }
+
+  public int getRefreshBatchSize() {
+    return refreshBatchSize;
+  }
+
+  public void setRefreshBatchSize(int refreshBatchSize) {
+    this.refreshBatchSize = refreshBatchSize;
+  }
+
+  public int getMaxStalenessSeconds() {
+    return maxStalenessSeconds;
+  }
+
+  public void setMaxStalenessSeconds(int maxStalenessSeconds) {
+    this.maxStalenessSeconds = maxStalenessSeconds;
+  }
+
+  public Map<String, List<String>> getRoleActions() {
+    return roleActions;
+  }
+
+  public void setRoleActions(Map<String, List<String>> roleActions) {
+    this.roleActions = roleActions;
+  }
+}
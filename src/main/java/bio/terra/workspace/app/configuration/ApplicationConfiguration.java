@@ -25,6 +25,28 @@ public class ApplicationConfiguration {
   private int maxStairwayThreads;
   private int stairwayTimeoutSeconds;
   private String resourceId;
+  private int maxBatchGetSize;
+  // When true, deleting a workspace hides it immediately and purges its rows in a background job.
+  private boolean backgroundDeleteEnabled;
+  private int purgeBatchSize;
+  // How often to look for tombstoned workspaces whose purge was never submitted, and how long a
+  // tombstone must have existed before it counts. Zero or less turns the sweep off.
+  private int tombstoneSweepIntervalSeconds;
+  private int tombstoneSweepGraceSeconds;
+  // How long a shutting-down instance waits for running flights to finish before leaving them to
+  // be recovered by another instance.
+  private int drainTimeoutSeconds;
+  // How often each instance records that it is alive, and how long after its last heartbeat other
+  // instances take over the flights it was running. The timeout must cover pauses long enough to
+  // delay a heartbeat, or a flight can end up running on two instances at once.
+  private int flightHeartbeatSeconds;
+  private int flightOwnerTimeoutSeconds;
+  // Time a request has to be answered. Outbound calls and database statements made while serving
+  // it are given at most what is left.
+  private int requestTimeoutSeconds;
+  private int maxListLimit;
+  // How long a user's workspace listing, and the Sam id list behind it, are reused.
+  private int listCacheSeconds;
 
   // Not a property
   private PoolingDataSource<PoolableConnection> dataSource;
@@ -53,6 +75,94 @@ public class ApplicationConfiguration {
     this.resourceId = resourceId;
   }
 
+  public int getMaxBatchGetSize() {
+    return maxBatchGetSize;
+  }
+
+  public void setMaxBatchGetSize(int maxBatchGetSize) {
+    this.maxBatchGetSize = maxBatchGetSize;
+  }
+
+  public boolean isBackgroundDeleteEnabled() {
+    return backgroundDeleteEnabled;
+  }
+
+  public void setBackgroundDeleteEnabled(boolean backgroundDeleteEnabled) {
+    this.backgroundDeleteEnabled = backgroundDeleteEnabled;
+  }
+
+  public int getPurgeBatchSize() {
+    return purgeBatchSize;
+  }
+
+  public void setPurgeBatchSize(int purgeBatchSize) {
+    this.purgeBatchSize = purgeBatchSize;
+  }
+
+  public int getTombstoneSweepIntervalSeconds() {
+    return tombstoneSweepIntervalSeconds;
+  }
+
+  public void setTombstoneSweepIntervalSeconds(int tombstoneSweepIntervalSeconds) {
+    this.tombstoneSweepIntervalSeconds = tombstoneSweepIntervalSeconds;
+  }
+
+  public int getTombstoneSweepGraceSeconds() {
+    return tombstoneSweepGraceSeconds;
+  }
+
+  public void setTombstoneSweepGraceSeconds(int tombstoneSweepGraceSeconds) {
+    this.tombstoneSweepGraceSeconds = tombstoneSweepGraceSeconds;
+  }
+
+  public int getDrainTimeoutSeconds() {
+    return drainTimeoutSeconds;
+  }
+
+  public void setDrainTimeoutSeconds(int drainTimeoutSeconds) {
+    this.drainTimeoutSeconds = drainTimeoutSeconds;
+  }
+
+  public int getFlightHeartbeatSeconds() {
+    return flightHeartbeatSeconds;
+  }
+
+  public void setFlightHeartbeatSeconds(int flightHeartbeatSeconds) {
+    this.flightHeartbeatSeconds = flightHeartbeatSeconds;
+  }
+
+  public int getFlightOwnerTimeoutSeconds() {
+    return flightOwnerTimeoutSeconds;
+  }
+
+  public void setFlightOwnerTimeoutSeconds(int flightOwnerTimeoutSeconds) {
+    this.flightOwnerTimeoutSeconds = flightOwnerTimeoutSeconds;
+  }
+
+  public int getRequestTimeoutSeconds() {
+    return requestTimeoutSeconds;
+  }
+
+  public void setRequestTimeoutSeconds(int requestTimeoutSeconds) {
+    this.requestTimeoutSeconds = requestTimeoutSeconds;
+  }
+
+  public int getMaxListLimit() {
+    return maxListLimit;
+  }
+
+  public void setMaxListLimit(int maxListLimit) {
+    this.maxListLimit = maxListLimit;
+  }
+
+  public int getListCacheSeconds() {
+    return listCacheSeconds;
+  }
+
+  public void setListCacheSeconds(int listCacheSeconds) {
+    this.listCacheSeconds = listCacheSeconds;
+  }
+
   @Bean("jdbcTemplate")
   public NamedParameterJdbcTemplate getNamedParameterJdbcTemplate(
       WorkspaceManagerJdbcConfiguration config) {
@@ -0,0 +1,43 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for signed workspace capabilities; see CapabilityService. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.capability")
+public class CapabilityConfiguration {
+  // When false, capabilities are neither issued nor honoured.
+  private boolean enabled;
+  // Base64 HMAC-SHA256 key, at least 32 bytes. Every instance must have the same key.
+  private String signingKey;
+  // How long an issued capability is honoured. This is also how long a user removed from a
+  // workspace in Sam may keep using one, so keep it short.
+  private int ttlSeconds = 300;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public String getSigningKey() {
+    return signingKey;
+  }
+
+  public void setSigningKey(String signingKey) {
+    this.signingKey = signingKey;
+  }
+
+  public int getTtlSeconds() {
+    return ttlSeconds;
+  }
+
+  public void setTtlSeconds(int ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+}
@@ -0,0 +1,48 @@
+package bio.terra.workspace.app.configuration;
+
+import bio.terra.workspace.common.utils.Bulkhead;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "datarepo")
+public class DataRepoConfiguration {
+  // Number of Data Repo calls that may be outstanding at once, across all requests.
+  private int maxConcurrentCalls = 8;
+  // Calls that may wait for a free thread before further calls are turned away with a 503.
+  private int maxQueuedCalls = 64;
+  // Longest a single Data Repo call may take before it fails with a 504.
+  private int timeoutSeconds = 10;
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  public int getMaxQueuedCalls() {
+    return maxQueuedCalls;
+  }
+
+  public void setMaxQueuedCalls(int maxQueuedCalls) {
+    this.maxQueuedCalls = maxQueuedCalls;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @Bean(name = "dataRepoBulkhead", destroyMethod = "shutdown")
+  public Bulkhead dataRepoBulkhead() {
+    return new Bulkhead("datarepo", maxConcurrentCalls, maxQueuedCalls, timeoutSeconds * 1000L);
+  }
+}
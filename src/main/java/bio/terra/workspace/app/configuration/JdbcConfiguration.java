@@ -8,7 +8,6 @@ import org.apache.commons.dbcp2.PoolableConnectionFactory;
 import org.apache.commons.dbcp2.PoolingDataSource;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 
 /** Base class for accessing JDBC configuration properties. */
@@ -16,9 +15,12 @@ public class JdbcConfiguration {
   private String uri;
   private String username;
   private String password;
+  // Connections the pool keeps open when idle. They are opened up front by warmPool.
+  private int minIdle;
 
   // Not a property
   private PoolingDataSource<PoolableConnection> dataSource;
+  private GenericObjectPool<PoolableConnection> connectionPool;
 
   public String getUri() {
     return uri;
@@ -32,6 +34,10 @@ public class JdbcConfiguration {
     return password;
   }
 
+  public int getMinIdle() {
+    return minIdle;
+  }
+
   // NOTE: even though the setters appear unused, the Spring infrastructure uses them to populate
   // the properties.
   public void setUri(String uri) {
@@ -46,8 +52,13 @@ public class JdbcConfiguration {
     this.password = password;
   }
 
-  // Main use of the configuration is this pooling data source object.
-  public PoolingDataSource<PoolableConnection> getDataSource() {
+  public void setMinIdle(int minIdle) {
+    this.minIdle = minIdle;
+  }
+
+  // Main use of the configuration is this pooling data source object. Synchronized because startup
+  // touches the pools from several threads.
+  public synchronized PoolingDataSource<PoolableConnection> getDataSource() {
     // Lazy allocation of the data source
     if (dataSource == null) {
       configureDataSource();
@@ -55,6 +66,21 @@ public class JdbcConfiguration {
     return dataSource;
   }
 
+  /** The pool behind the data source, for its connection counts. */
+  public synchronized GenericObjectPool<PoolableConnection> getConnectionPool() {
+    getDataSource();
+    return connectionPool;
+  }
+
+  /**
+   * Open minIdle connections now, so the first requests do not pay for connection setup. Called
+   * during startup; it does nothing when minIdle is 0.
+   */
+  public void warmPool() throws Exception {
+    getDataSource();
+    connectionPool.preparePool();
+  }
+
   private void configureDataSource() {
     Properties props = new Properties();
     props.setProperty("user", getUsername());
@@ -65,8 +91,8 @@ public class JdbcConfiguration {
     PoolableConnectionFactory poolableConnectionFactory =
         new PoolableConnectionFactory(connectionFactory, null);
 
-    ObjectPool<PoolableConnection> connectionPool =
-        new GenericObjectPool<>(poolableConnectionFactory);
+    connectionPool = new GenericObjectPool<>(poolableConnectionFactory);
+    connectionPool.setMinIdle(minIdle);
 
     poolableConnectionFactory.setPool(connectionPool);
 
@@ -78,6 +104,7 @@ public class JdbcConfiguration {
     return new ToStringBuilder(this, ToStringStyle.JSON_STYLE)
         .append("uri", uri)
         .append("username", username)
+        .append("minIdle", minIdle)
         // .append("password", password) NOTE: password is not printed; that avoids it showing up in
         // logs
         .toString();
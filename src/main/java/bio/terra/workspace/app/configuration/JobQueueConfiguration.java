@@ -0,0 +1,43 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.job-queue")
+public class JobQueueConfiguration {
+  // When true, submitted jobs go to the shared flight_queue table and are run by whichever
+  // instance has a free Stairway thread. When false, jobs run on the instance that submitted them.
+  private boolean enabled;
+  // How often an instance with free threads looks for queued jobs.
+  private int pollMillis = 200;
+  // Base64 AES-256 key that queued job parameters, which include the user's token, are encrypted
+  // with. Required when the queue is enabled; every instance must have the same key.
+  private String parameterKey;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getPollMillis() {
+    return pollMillis;
+  }
+
+  public void setPollMillis(int pollMillis) {
+    this.pollMillis = pollMillis;
+  }
+
+  public String getParameterKey() {
+    return parameterKey;
+  }
+
+  public void setParameterKey(String parameterKey) {
+    this.parameterKey = parameterKey;
+  }
+}
@@ -0,0 +1,63 @@
+package bio.terra.workspace.app.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.aspectj.lang.Signature;
+import org.springframework.boot.actuate.metrics.web.servlet.DefaultWebMvcTagsProvider;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Metrics, scraped by Prometheus from /actuator/prometheus. Besides what Spring Boot records on its
+ * own, such as JVM and Tomcat metrics:
+ *
+ * <ul>
+ *   <li>every request is timed as http.server.requests, which is tagged here with the API
+ *       operation that served it
+ *   <li>methods annotated with {@code @Timed}, such as the DAO queries, are timed under the
+ *       annotation's name and tagged with their class and method
+ *   <li>the meters registered by {@link bio.terra.workspace.app.ServiceMetrics}
+ * </ul>
+ */
+@Configuration
+public class MetricsConfiguration {
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry registry) {
+    return new TimedAspect(
+        registry,
+        joinPoint -> {
+          Signature signature = joinPoint.getStaticPart().getSignature();
+          return Tags.of(
+              "class", signature.getDeclaringType().getSimpleName(),
+              "method", signature.getName());
+        });
+  }
+
+  // Every request gets the tag, since Prometheus needs all timers of a name to have the same tags.
+  // Replaces the default provider, which Spring Boot only creates when there is none.
+  @Bean
+  public WebMvcTagsProvider operationTagsProvider() {
+    return new DefaultWebMvcTagsProvider() {
+      @Override
+      public Iterable<Tag> getTags(
+          HttpServletRequest request,
+          HttpServletResponse response,
+          Object handler,
+          Throwable exception) {
+        String operation =
+            (handler instanceof HandlerMethod)
+                ? ((HandlerMethod) handler).getMethod().getName()
+                : "none";
+        return Tags.of(super.getTags(request, response, handler, exception))
+            .and("operation", operation);
+      }
+    };
+  }
+}
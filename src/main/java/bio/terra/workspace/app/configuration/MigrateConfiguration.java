@@ -0,0 +1,42 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "db.migrate")
+public class MigrateConfiguration {
+  // When true, an upgrade is skipped if the changelog fingerprint built into the jar matches the
+  // one recorded by the last successful upgrade. Set to false to always run Liquibase.
+  private boolean fastPathEnabled = true;
+  // How long an instance waits for another instance's migration to finish before failing startup.
+  private int lockWaitSeconds = 600;
+  // How often a waiting instance retries the migration lock.
+  private int lockPollMillis = 500;
+
+  public boolean isFastPathEnabled() {
+    return fastPathEnabled;
+  }
+
+  public void setFastPathEnabled(boolean fastPathEnabled) {
+    this.fastPathEnabled = fastPathEnabled;
+  }
+
+  public int getLockWaitSeconds() {
+    return lockWaitSeconds;
+  }
+
+  public void setLockWaitSeconds(int lockWaitSeconds) {
+    this.lockWaitSeconds = lockWaitSeconds;
+  }
+
+  public int getLockPollMillis() {
+    return lockPollMillis;
+  }
+
+  public void setLockPollMillis(int lockPollMillis) {
+    this.lockPollMillis = lockPollMillis;
+  }
+}
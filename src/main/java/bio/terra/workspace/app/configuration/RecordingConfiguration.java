@@ -0,0 +1,53 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for Flight Recorder recordings started through the admin API; see RecordingService. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.recording")
+public class RecordingConfiguration {
+  // The JDK's event settings to record with: "default", or "profile" for more detail at a little
+  // more overhead. The workspace manager's own events are always included.
+  private String settings = "profile";
+  // How much history a recording keeps; a dump holds at most this many minutes of events.
+  private int maxAgeMinutes = 30;
+  // A recording stops by itself after this long, in case nobody stops it.
+  private int maxDurationMinutes = 120;
+  // Where dumps are written, on the instance that served the request.
+  private String dumpDirectory = System.getProperty("java.io.tmpdir");
+
+  public String getSettings() {
+    return settings;
+  }
+
+  public void setSettings(String settings) {
+    this.settings = settings;
+  }
+
+  public int getMaxAgeMinutes() {
+    return maxAgeMinutes;
+  }
+
+  public void setMaxAgeMinutes(int maxAgeMinutes) {
+    this.maxAgeMinutes = maxAgeMinutes;
+  }
+
+  public int getMaxDurationMinutes() {
+    return maxDurationMinutes;
+  }
+
+  public void setMaxDurationMinutes(int maxDurationMinutes) {
+    this.maxDurationMinutes = maxDurationMinutes;
+  }
+
+  public String getDumpDirectory() {
+    return dumpDirectory;
+  }
+
+  public void setDumpDirectory(String dumpDirectory) {
+    this.dumpDirectory = dumpDirectory;
+  }
+}
@@ -0,0 +1,42 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for per-request timing; see RequestTiming. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.request-timing")
+public class RequestTimingConfiguration {
+  // When false, requests are not timed and responses have no Server-Timing header.
+  private boolean enabled;
+  // Fraction of timed requests whose timing is also logged, between 0 and 1.
+  private double logSampleRate = 0.01;
+  // Timed requests that take longer than this are always logged.
+  private long logSlowerThanMillis = 2000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public double getLogSampleRate() {
+    return logSampleRate;
+  }
+
+  public void setLogSampleRate(double logSampleRate) {
+    this.logSampleRate = logSampleRate;
+  }
+
+  public long getLogSlowerThanMillis() {
+    return logSlowerThanMillis;
+  }
+
+  public void setLogSlowerThanMillis(long logSlowerThanMillis) {
+    this.logSlowerThanMillis = logSlowerThanMillis;
+  }
+}
@@ -0,0 +1,109 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for the circuit breaker around Sam calls; see CircuitBreaker. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "sam.circuit-breaker")
+public class SamCircuitBreakerConfiguration {
+  // Number of recent calls the failure and slow-call rates are measured over.
+  private int windowSize = 50;
+  // Calls that must be seen before the breaker can trip.
+  private int minimumCalls = 20;
+  private int failureRatePercent = 50;
+  private int slowCallRatePercent = 80;
+  // A call that succeeds but takes at least this long counts as slow.
+  private int slowCallMillis = 2000;
+  // How long the breaker stays open before letting probe calls through.
+  private int openSeconds = 30;
+  // Probe calls that must succeed before the breaker closes.
+  private int halfOpenProbes = 3;
+  // When true, a workspace read that Sam allowed within the last staleDecisionSeconds is allowed
+  // again while the breaker is open, instead of failing. Refusals are never reused.
+  private boolean staleDecisionFallbackEnabled;
+  private int staleDecisionSeconds = 300;
+  private int staleDecisionMaxEntries = 10000;
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public void setWindowSize(int windowSize) {
+    this.windowSize = windowSize;
+  }
+
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public void setMinimumCalls(int minimumCalls) {
+    this.minimumCalls = minimumCalls;
+  }
+
+  public int getFailureRatePercent() {
+    return failureRatePercent;
+  }
+
+  public void setFailureRatePercent(int failureRatePercent) {
+    this.failureRatePercent = failureRatePercent;
+  }
+
+  public int getSlowCallRatePercent() {
+    return slowCallRatePercent;
+  }
+
+  public void setSlowCallRatePercent(int slowCallRatePercent) {
+    this.slowCallRatePercent = slowCallRatePercent;
+  }
+
+  public int getSlowCallMillis() {
+    return slowCallMillis;
+  }
+
+  public void setSlowCallMillis(int slowCallMillis) {
+    this.slowCallMillis = slowCallMillis;
+  }
+
+  public int getOpenSeconds() {
+    return openSeconds;
+  }
+
+  public void setOpenSeconds(int openSeconds) {
+    this.openSeconds = openSeconds;
+  }
+
+  public int getHalfOpenProbes() {
+    return halfOpenProbes;
+  }
+
+  public void setHalfOpenProbes(int halfOpenProbes) {
+    this.halfOpenProbes = halfOpenProbes;
+  }
+
+  public boolean isStaleDecisionFallbackEnabled() {
+    return staleDecisionFallbackEnabled;
+  }
+
+  public void setStaleDecisionFallbackEnabled(boolean staleDecisionFallbackEnabled) {
+    this.staleDecisionFallbackEnabled = staleDecisionFallbackEnabled;
+  }
+
+  public int getStaleDecisionSeconds() {
+    return staleDecisionSeconds;
+  }
+
+  public void setStaleDecisionSeconds(int staleDecisionSeconds) {
+    this.staleDecisionSeconds = staleDecisionSeconds;
+  }
+
+  public int getStaleDecisionMaxEntries() {
+    return staleDecisionMaxEntries;
+  }
+
+  public void setStaleDecisionMaxEntries(int staleDecisionMaxEntries) {
+    this.staleDecisionMaxEntries = staleDecisionMaxEntries;
+  }
+}
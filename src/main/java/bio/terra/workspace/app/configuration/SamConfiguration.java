@@ -1,7 +1,9 @@
 package bio.terra.workspace.app.configuration;
 
+import bio.terra.workspace.common.utils.Bulkhead;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
@@ -9,6 +11,15 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "sam")
 public class SamConfiguration {
   private String basePath;
+  // Number of Sam calls that may be outstanding at once, across all requests.
+  private int maxConcurrentCalls = 16;
+  // Calls that may wait for a free thread before further calls are turned away with a 503.
+  private int maxQueuedCalls = 256;
+  // Longest a single Sam call may take before it fails with a 504.
+  private int timeoutSeconds = 10;
+  // When true, identical authorization checks made at the same time, by the same user, share one
+  // call to Sam. Turn it off to compare Sam's load without it.
+  private boolean coalesceAuthorizationChecks = true;
 
   public String getBasePath() {
     return basePath;
@@ -17,4 +28,43 @@ public class SamConfiguration {
   public void setBasePath(String basePath) {
     this.basePath = basePath;
   }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  public int getMaxQueuedCalls() {
+    return maxQueuedCalls;
+  }
+
+  public void setMaxQueuedCalls(int maxQueuedCalls) {
+    this.maxQueuedCalls = maxQueuedCalls;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  public boolean isCoalesceAuthorizationChecks() {
+    return coalesceAuthorizationChecks;
+  }
+
+  public void setCoalesceAuthorizationChecks(boolean coalesceAuthorizationChecks) {
+    this.coalesceAuthorizationChecks = coalesceAuthorizationChecks;
+  }
+
+  // Every Sam call runs here, so a slow Sam cannot tie up the request threads. Independent checks,
+  // e.g. for batch gets, are fanned out on it too.
+  @Bean(name = "samBulkhead", destroyMethod = "shutdown")
+  public Bulkhead samBulkhead() {
+    return new Bulkhead("sam", maxConcurrentCalls, maxQueuedCalls, timeoutSeconds * 1000L);
+  }
 }
@@ -0,0 +1,80 @@
+package bio.terra.workspace.app.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Databases that workspaces are spread across. The db.workspace database is always shard 0 and
+ * holds the placement table; the databases listed here are shards 1, 2, ... in order. Shards may
+ * only be appended: the index is part of each shard's position on the hash ring.
+ */
+@Component
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "db.shard")
+public class ShardConfiguration {
+  // Configured as db.shard.additional[0].uri, db.shard.additional[0].username, ...
+  private List<JdbcConfiguration> additional = new ArrayList<>();
+  // Points per shard on the hash ring. More points give a more even spread.
+  private int virtualNodes = 128;
+  // How long a resolved workspace placement is cached before it is looked up again.
+  private int placementCacheSeconds = 60;
+  private int placementCacheMaxEntries = 10000;
+  // When true, startup pins every existing workspace to the shard it is stored on if the ring
+  // would now route it elsewhere. Turn this on in the rollout that lifts holdOnPrimary.
+  private boolean pinOnStart;
+  // While true, workspaces without a placement row are looked up on the primary and new ones are
+  // created there, pinned if the ring would put them elsewhere. Set it while a shard is being
+  // added, until no instance is left that runs without the new shard; see DEVELOPMENT.md.
+  private boolean holdOnPrimary;
+
+  public List<JdbcConfiguration> getAdditional() {
+    return additional;
+  }
+
+  public void setAdditional(List<JdbcConfiguration> additional) {
+    this.additional = additional;
+  }
+
+  public int getVirtualNodes() {
+    return virtualNodes;
+  }
+
+  public void setVirtualNodes(int virtualNodes) {
+    this.virtualNodes = virtualNodes;
+  }
+
+  public int getPlacementCacheSeconds() {
+    return placementCacheSeconds;
+  }
+
+  public void setPlacementCacheSeconds(int placementCacheSeconds) {
+    this.placementCacheSeconds = placementCacheSeconds;
+  }
+
+  public int getPlacementCacheMaxEntries() {
+    return placementCacheMaxEntries;
+  }
+
+  public void setPlacementCacheMaxEntries(int placementCacheMaxEntries) {
+    this.placementCacheMaxEntries = placementCacheMaxEntries;
+  }
+
+  public boolean isPinOnStart() {
+    return pinOnStart;
+  }
+
+  public void setPinOnStart(boolean pinOnStart) {
+    this.pinOnStart = pinOnStart;
+  }
+
+  public boolean isHoldOnPrimary() {
+    return holdOnPrimary;
+  }
+
+  public void setHoldOnPrimary(boolean holdOnPrimary) {
+    this.holdOnPrimary = holdOnPrimary;
+  }
+}
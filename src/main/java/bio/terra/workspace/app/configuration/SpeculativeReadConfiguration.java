@@ -0,0 +1,63 @@
+package bio.terra.workspace.app.configuration;
+
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.SpeculativeRead;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Settings for running reads alongside their authorization checks; see SpeculativeRead. */
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.speculative-read")
+public class SpeculativeReadConfiguration {
+  // When false, reads start only after their authorization check has passed.
+  private boolean enabled;
+  // Reads that may run at once. Each holds a database connection, so keep this well below the
+  // pool size.
+  private int maxConcurrentReads = 8;
+  // Reads that may wait for a thread; beyond this, reads run after their check as usual.
+  private int maxQueuedReads = 32;
+  private int timeoutSeconds = 30;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxConcurrentReads() {
+    return maxConcurrentReads;
+  }
+
+  public void setMaxConcurrentReads(int maxConcurrentReads) {
+    this.maxConcurrentReads = maxConcurrentReads;
+  }
+
+  public int getMaxQueuedReads() {
+    return maxQueuedReads;
+  }
+
+  public void setMaxQueuedReads(int maxQueuedReads) {
+    this.maxQueuedReads = maxQueuedReads;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @Bean(name = "speculativeRead", destroyMethod = "shutdown")
+  public SpeculativeRead speculativeRead() {
+    return new SpeculativeRead(
+        enabled,
+        new Bulkhead(
+            "speculative-read", maxConcurrentReads, maxQueuedReads, timeoutSeconds * 1000L));
+  }
+}
@@ -0,0 +1,51 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.status-check")
+public class StatusCheckConfiguration {
+  // How often the dependencies are checked in the background.
+  private int pollingIntervalSeconds = 10;
+  // How long a single dependency check may take before it is reported as failed.
+  private int checkTimeoutSeconds = 5;
+  // A snapshot older than this is reported as not ok: the checker itself has stopped working.
+  private int stalenessThresholdSeconds = 60;
+  // Flights waiting for a Stairway thread beyond which the executor is reported as saturated.
+  private int maxQueuedFlights = 100;
+
+  public int getPollingIntervalSeconds() {
+    return pollingIntervalSeconds;
+  }
+
+  public void setPollingIntervalSeconds(int pollingIntervalSeconds) {
+    this.pollingIntervalSeconds = pollingIntervalSeconds;
+  }
+
+  public int getCheckTimeoutSeconds() {
+    return checkTimeoutSeconds;
+  }
+
+  public void setCheckTimeoutSeconds(int checkTimeoutSeconds) {
+    this.checkTimeoutSeconds = checkTimeoutSeconds;
+  }
+
+  public int getStalenessThresholdSeconds() {
+    return stalenessThresholdSeconds;
+  }
+
+  public void setStalenessThresholdSeconds(int stalenessThresholdSeconds) {
+    this.stalenessThresholdSeconds = stalenessThresholdSeconds;
+  }
+
+  public int getMaxQueuedFlights() {
+    return maxQueuedFlights;
+  }
+
+  public void setMaxQueuedFlights(int maxQueuedFlights) {
+    this.maxQueuedFlights = maxQueuedFlights;
+  }
+}
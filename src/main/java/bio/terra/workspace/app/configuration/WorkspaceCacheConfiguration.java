@@ -0,0 +1,60 @@
+package bio.terra.workspace.app.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "workspace.cache")
+public class WorkspaceCacheConfiguration {
+  // Kill switch: when false, every lookup goes to the database and no listener is started.
+  private boolean enabled;
+  private int maxEntries = 10000;
+  // Upper bound on staleness if an invalidation notification is ever missed.
+  private int ttlSeconds = 60;
+  // How often the listener connection is polled for invalidation notifications.
+  private int notifyPollMillis = 100;
+  // How often the hit ratio is written to the log.
+  private int statsLogIntervalSeconds = 300;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public int getTtlSeconds() {
+    return ttlSeconds;
+  }
+
+  public void setTtlSeconds(int ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  public int getNotifyPollMillis() {
+    return notifyPollMillis;
+  }
+
+  public void setNotifyPollMillis(int notifyPollMillis) {
+    this.notifyPollMillis = notifyPollMillis;
+  }
+
+  public int getStatsLogIntervalSeconds() {
+    return statsLogIntervalSeconds;
+  }
+
+  public void setStatsLogIntervalSeconds(int statsLogIntervalSeconds) {
+    this.statsLogIntervalSeconds = statsLogIntervalSeconds;
+  }
+}
@@ -0,0 +1,78 @@
+package bio.terra.workspace.app.controller;
+
+import bio.terra.workspace.common.utils.ControllerValidationUtils;
+import bio.terra.workspace.generated.controller.AdminApi;
+import bio.terra.workspace.generated.model.JobModel;
+import bio.terra.workspace.generated.model.MoveWorkspaceShardRequestBody;
+import bio.terra.workspace.generated.model.RecordingStatus;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.workspace.service.job.JobService;
+import bio.terra.workspace.service.recording.RecordingService;
+import bio.terra.workspace.service.workspace.WorkspaceService;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+
+@Controller
+public class AdminApiController implements AdminApi {
+  private final RecordingService recordingService;
+  private final WorkspaceService workspaceService;
+  private final JobService jobService;
+  private final AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+  private final HttpServletRequest request;
+
+  @Autowired
+  public AdminApiController(
+      RecordingService recordingService,
+      WorkspaceService workspaceService,
+      JobService jobService,
+      AuthenticatedUserRequestFactory authenticatedUserRequestFactory,
+      HttpServletRequest request) {
+    this.recordingService = recordingService;
+    this.workspaceService = workspaceService;
+    this.jobService = jobService;
+    this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+    this.request = request;
+  }
+
+  private AuthenticatedUserRequest getAuthenticatedInfo() {
+    return authenticatedUserRequestFactory.from(request);
+  }
+
+  @Override
+  public ResponseEntity<RecordingStatus> getRecording() {
+    return ResponseEntity.ok(recordingService.getRecording(getAuthenticatedInfo()));
+  }
+
+  @Override
+  public ResponseEntity<RecordingStatus> startRecording() {
+    return ResponseEntity.ok(recordingService.startRecording(getAuthenticatedInfo()));
+  }
+
+  @Override
+  public ResponseEntity<RecordingStatus> dumpRecording() {
+    return ResponseEntity.ok(recordingService.dumpRecording(getAuthenticatedInfo()));
+  }
+
+  @Override
+  public ResponseEntity<RecordingStatus> stopRecording() {
+    return ResponseEntity.ok(recordingService.stopRecording(getAuthenticatedInfo()));
+  }
+
+  @Override
+  public ResponseEntity<JobModel> moveWorkspaceShard(
+      @PathVariable("id") String id, @RequestBody MoveWorkspaceShardRequestBody body) {
+    UUID workspaceId = ControllerValidationUtils.validateWorkspaceId(id);
+    ControllerValidationUtils.validateTargetShard(body.getTargetShard());
+    AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+    String jobId =
+        workspaceService.moveWorkspaceToShard(workspaceId, body.getTargetShard(), userReq);
+    return new ResponseEntity<>(jobService.retrieveJob(jobId, userReq), HttpStatus.ACCEPTED);
+  }
+}
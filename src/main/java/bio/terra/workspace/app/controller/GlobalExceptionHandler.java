@@ -5,6 +5,7 @@ import bio.terra.workspace.generated.model.ErrorReport;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -36,6 +37,12 @@ public class GlobalExceptionHandler {
     return buildErrorReport(ex, HttpStatus.BAD_REQUEST, null);
   }
 
+  // -- database statement cancelled at the request deadline
+  @ExceptionHandler(QueryTimeoutException.class)
+  public ResponseEntity<ErrorReport> queryTimeoutHandler(QueryTimeoutException ex) {
+    return buildErrorReport(ex, HttpStatus.GATEWAY_TIMEOUT, null);
+  }
+
   // -- catchall - log so we can understand what we have missed in the handlers above
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorReport> catchallHandler(Exception ex) {
@@ -0,0 +1,35 @@
+package bio.terra.workspace.app.controller;
+
+import bio.terra.workspace.generated.controller.UnauthenticatedApi;
+import bio.terra.workspace.generated.model.SystemStatus;
+import bio.terra.workspace.service.status.StatusService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+
+@Controller
+public class UnauthenticatedApiController implements UnauthenticatedApi {
+  private final StatusService statusService;
+
+  @Autowired
+  public UnauthenticatedApiController(StatusService statusService) {
+    this.statusService = statusService;
+  }
+
+  // Answers from the snapshot StatusService keeps, so probes never wait on a dependency.
+  @Override
+  public ResponseEntity<SystemStatus> serviceStatus() {
+    return toResponse(statusService.getCurrentStatus());
+  }
+
+  @Override
+  public ResponseEntity<SystemStatus> serviceLiveness() {
+    return toResponse(statusService.getLiveness());
+  }
+
+  private static ResponseEntity<SystemStatus> toResponse(SystemStatus status) {
+    HttpStatus httpStatus = status.getOk() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR;
+    return new ResponseEntity<>(status, httpStatus);
+  }
+}
@@ -1,5 +1,6 @@
 package bio.terra.workspace.app.controller;
 
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
 import bio.terra.workspace.common.utils.ControllerValidationUtils;
 import bio.terra.workspace.generated.controller.WorkspaceApi;
 import bio.terra.workspace.generated.model.*;
@@ -26,6 +27,7 @@ public class WorkspaceApiController implements WorkspaceApi {
   private DataReferenceService dataReferenceService;
   private JobService jobService;
   private AuthenticatedUserRequestFactory authenticatedUserRequestFactory;
+  private ApplicationConfiguration appConfig;
   private final HttpServletRequest request;
 
   @Autowired
@@ -34,11 +36,13 @@ public class WorkspaceApiController implements WorkspaceApi {
       DataReferenceService dataReferenceService,
       JobService jobService,
       AuthenticatedUserRequestFactory authenticatedUserRequestFactory,
+      ApplicationConfiguration appConfig,
       HttpServletRequest request) {
     this.workspaceService = workspaceService;
     this.dataReferenceService = dataReferenceService;
     this.jobService = jobService;
     this.authenticatedUserRequestFactory = authenticatedUserRequestFactory;
+    this.appConfig = appConfig;
     this.request = request;
   }
 
@@ -56,6 +60,15 @@ public class WorkspaceApiController implements WorkspaceApi {
     return new ResponseEntity<>(workspaceService.createWorkspace(body, userReq), HttpStatus.OK);
   }
 
+  @Override
+  public ResponseEntity<WorkspaceList> listWorkspaces(
+      @Valid @RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit,
+      @Valid @RequestParam(value = "pageToken", required = false) String pageToken) {
+    ControllerValidationUtils.validateListLimit(limit, appConfig.getMaxListLimit());
+    AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+    return ResponseEntity.ok(workspaceService.listWorkspaces(limit, pageToken, userReq));
+  }
+
   @Override
   public ResponseEntity<WorkspaceDescription> getWorkspace(@PathVariable("id") String id) {
     AuthenticatedUserRequest userReq = getAuthenticatedInfo();
@@ -64,13 +77,35 @@ public class WorkspaceApiController implements WorkspaceApi {
     return new ResponseEntity<WorkspaceDescription>(desc, HttpStatus.OK);
   }
 
+  @Override
+  public ResponseEntity<WorkspaceBatchResultList> batchGetWorkspaces(
+      @RequestBody BatchGetRequestBody body) {
+    ControllerValidationUtils.validateBatchIds(body.getIds(), appConfig.getMaxBatchGetSize());
+    AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+    return ResponseEntity.ok(workspaceService.getWorkspaces(body.getIds(), userReq));
+  }
+
+  @Override
+  public ResponseEntity<CreatedCapability> createCapability(
+      @PathVariable("id") String id, @RequestBody CreateCapabilityRequestBody body) {
+    ControllerValidationUtils.validateCapabilityActions(body.getActions());
+    AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+    return ResponseEntity.ok(workspaceService.createCapability(id, body.getActions(), userReq));
+  }
+
   @Override
   public ResponseEntity<Void> deleteWorkspace(
       @PathVariable("id") String id, DeleteWorkspaceRequestBody body) {
-    // Note: we do NOT use getAuthenticatedInfo here, as the request's authentication info comes
-    // from the folder manager, not the requesting user.
-    String userToken = body.getAuthToken();
-    workspaceService.deleteWorkspace(id, userToken);
+    // Note: the token comes from the body, not getAuthenticatedInfo, as the request's token is the
+    // folder manager's rather than the user's. The caller's identity is kept, so that the delete's
+    // jobs belong to whoever asked for it and can be polled by them.
+    AuthenticatedUserRequest caller = getAuthenticatedInfo();
+    AuthenticatedUserRequest userReq =
+        new AuthenticatedUserRequest()
+            .email(caller.getEmail())
+            .subjectId(caller.getSubjectId())
+            .token(Optional.of(body.getAuthToken()));
+    workspaceService.deleteWorkspace(id, userReq);
     return new ResponseEntity<>(HttpStatus.valueOf(204));
   }
 
@@ -93,6 +128,15 @@ public class WorkspaceApiController implements WorkspaceApi {
     return new ResponseEntity<DataReferenceDescription>(ref, HttpStatus.OK);
   }
 
+  @Override
+  public ResponseEntity<DataReferenceBatchResultList> batchGetDataReferences(
+      @PathVariable("id") String workspaceId, @RequestBody BatchGetRequestBody body) {
+    ControllerValidationUtils.validateBatchIds(body.getIds(), appConfig.getMaxBatchGetSize());
+    AuthenticatedUserRequest userReq = getAuthenticatedInfo();
+    return ResponseEntity.ok(
+        dataReferenceService.getDataReferences(workspaceId, body.getIds(), userReq));
+  }
+
   @Override
   public ResponseEntity<Void> deleteDataReference(
       @PathVariable("id") String workspaceId, @PathVariable("referenceId") String referenceId) {
@@ -0,0 +1,11 @@
+package bio.terra.workspace.common.exception;
+
+public class BulkheadFullException extends ServiceUnavailableException {
+  public BulkheadFullException(String message) {
+    super(message);
+  }
+
+  public BulkheadFullException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,7 @@
+package bio.terra.workspace.common.exception;
+
+public class CircuitOpenException extends ServiceUnavailableException {
+  public CircuitOpenException(String message) {
+    super(message);
+  }
+}
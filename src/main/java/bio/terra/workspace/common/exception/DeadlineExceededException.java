@@ -0,0 +1,11 @@
+package bio.terra.workspace.common.exception;
+
+public class DeadlineExceededException extends GatewayTimeoutException {
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+
+  public DeadlineExceededException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
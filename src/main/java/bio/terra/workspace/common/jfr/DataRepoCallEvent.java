@@ -0,0 +1,23 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A call to a Data Repo instance, including any wait for a Data Repo bulkhead thread. */
+@Name("bio.terra.workspace.DataRepoCall")
+@Label("Data Repo Call")
+@Category({"Workspace Manager", "Downstream Calls"})
+public class DataRepoCallEvent extends Event {
+  @Label("Instance")
+  public String instance;
+
+  @Label("Operation")
+  public String operation;
+
+  @Label("Outcome")
+  @Description("success, or the simple name of the exception the call failed with")
+  public String outcome;
+}
@@ -0,0 +1,23 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A statement run by a workspace DAO, including the wait for its connection. The event's stack
+ * trace shows the DAO method that ran it.
+ */
+@Name("bio.terra.workspace.DatabaseQuery")
+@Label("Database Query")
+@Category({"Workspace Manager", "Database"})
+public class DatabaseQueryEvent extends Event {
+  @Label("SQL")
+  public String sql;
+
+  @Label("Outcome")
+  @Description("success, or the simple name of the exception the statement failed with")
+  public String outcome;
+}
@@ -0,0 +1,29 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight running on a Stairway thread, from when the thread picks it up until it completes. A
+ * flight resumed by recovery is recorded from when it resumes.
+ */
+@Name("bio.terra.workspace.Flight")
+@Label("Flight")
+@Category({"Workspace Manager", "Flights"})
+public class FlightEvent extends Event {
+  @Label("Flight Id")
+  public String flightId;
+
+  @Label("Flight Class")
+  public String flightClass;
+
+  @Label("Status")
+  @Description("The flight's status in Stairway once it stopped running")
+  public String status;
+
+  @Label("Steps Undone")
+  public int stepsUndone;
+}
@@ -0,0 +1,40 @@
+package bio.terra.workspace.common.jfr;
+
+/**
+ * The {@link FlightEvent} of the flight running on each Stairway thread. JobService starts and
+ * ends it around each flight, and the flight's {@link RecordedStep}s fill in which flight it is.
+ */
+public final class FlightEvents {
+  private static final ThreadLocal<FlightEvent> running = new ThreadLocal<>();
+
+  private FlightEvents() {}
+
+  /** Called on a Stairway thread just before it runs a flight. */
+  public static void flightStarting() {
+    FlightEvent event = new FlightEvent();
+    if (event.isEnabled()) {
+      event.begin();
+      running.set(event);
+    }
+  }
+
+  /**
+   * Called on a Stairway thread once its flight has stopped running.
+   *
+   * @return the flight's event, to be completed and committed, or null if it is not being recorded
+   */
+  public static FlightEvent flightFinished() {
+    FlightEvent event = running.get();
+    if (event == null) {
+      return null;
+    }
+    running.remove();
+    event.end();
+    return event.shouldCommit() ? event : null;
+  }
+
+  /** The event of the flight running on this thread, or null if it is not being recorded. */
+  static FlightEvent current() {
+    return running.get();
+  }
+}
@@ -0,0 +1,30 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One run of a flight step, doing or undoing it; see {@link RecordedStep}. */
+@Name("bio.terra.workspace.FlightStep")
+@Label("Flight Step")
+@Category({"Workspace Manager", "Flights"})
+public class FlightStepEvent extends Event {
+  @Label("Flight Id")
+  public String flightId;
+
+  @Label("Flight Class")
+  public String flightClass;
+
+  @Label("Step")
+  public String step;
+
+  @Label("Direction")
+  @Description("do or undo")
+  public String direction;
+
+  @Label("Outcome")
+  @Description("The step's result status, or the simple name of the exception it threw")
+  public String outcome;
+}
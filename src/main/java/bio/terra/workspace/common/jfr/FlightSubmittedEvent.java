@@ -0,0 +1,27 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A job handed to Stairway, or to the flight queue when that is enabled. */
+@Name("bio.terra.workspace.FlightSubmitted")
+@Label("Flight Submitted")
+@Category({"Workspace Manager", "Flights"})
+public class FlightSubmittedEvent extends Event {
+  @Label("Job Id")
+  public String jobId;
+
+  @Label("Flight Class")
+  public String flightClass;
+
+  @Label("Queued")
+  @Description("Whether the job went to the flight queue rather than straight to Stairway")
+  public boolean queued;
+
+  @Label("Outcome")
+  @Description("success, or the simple name of the exception the submission failed with")
+  public String outcome;
+}
@@ -0,0 +1,73 @@
+package bio.terra.workspace.common.jfr;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.exception.RetryException;
+
+/**
+ * A step that records each time it is done or undone as a {@link FlightStepEvent}. Flights wrap
+ * their steps in this as they add them.
+ */
+public class RecordedStep implements Step {
+  private static final String DO = "do";
+  private static final String UNDO = "undo";
+
+  private final Step step;
+
+  public RecordedStep(Step step) {
+    this.step = step;
+  }
+
+  @Override
+  public StepResult doStep(FlightContext flightContext)
+      throws InterruptedException, RetryException {
+    FlightStepEvent event = begin(flightContext, DO);
+    try {
+      return end(event, step.doStep(flightContext));
+    } catch (InterruptedException | RetryException | RuntimeException e) {
+      fail(event, e);
+      throw e;
+    }
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext flightContext) throws InterruptedException {
+    FlightStepEvent event = begin(flightContext, UNDO);
+    try {
+      return end(event, step.undoStep(flightContext));
+    } catch (InterruptedException | RuntimeException e) {
+      fail(event, e);
+      throw e;
+    }
+  }
+
+  private FlightStepEvent begin(FlightContext flightContext, String direction) {
+    FlightEvent flight = FlightEvents.current();
+    if (flight != null) {
+      flight.flightId = flightContext.getFlightId();
+      flight.flightClass = flightContext.getFlightClassName();
+      if (UNDO.equals(direction)) {
+        flight.stepsUndone++;
+      }
+    }
+    FlightStepEvent event = new FlightStepEvent();
+    event.flightId = flightContext.getFlightId();
+    event.flightClass = flightContext.getFlightClassName();
+    event.step = step.getClass().getSimpleName();
+    event.direction = direction;
+    event.begin();
+    return event;
+  }
+
+  private static StepResult end(FlightStepEvent event, StepResult result) {
+    event.outcome = result.getStepStatus().name();
+    event.commit();
+    return result;
+  }
+
+  private static void fail(FlightStepEvent event, Exception e) {
+    event.outcome = e.getClass().getSimpleName();
+    event.commit();
+  }
+}
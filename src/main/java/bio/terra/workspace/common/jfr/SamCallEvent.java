@@ -0,0 +1,20 @@
+package bio.terra.workspace.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A call to Sam, including any wait for a Sam bulkhead thread. */
+@Name("bio.terra.workspace.SamCall")
+@Label("Sam Call")
+@Category({"Workspace Manager", "Downstream Calls"})
+public class SamCallEvent extends Event {
+  @Label("Operation")
+  public String operation;
+
+  @Label("Outcome")
+  @Description("success, or the simple name of the exception the call failed with")
+  public String outcome;
+}
@@ -0,0 +1,139 @@
+package bio.terra.workspace.common.utils;
+
+import bio.terra.workspace.common.exception.BulkheadFullException;
+import bio.terra.workspace.common.exception.DeadlineExceededException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of threads for the calls to one downstream service. Calls run on the pool rather
+ * than on the request thread, and wait for at most the call timeout or what is left of the
+ * request's deadline, whichever is sooner. A slow downstream therefore ties up only its own pool:
+ * once that and its queue are full, further calls fail at once with a 503 instead of occupying
+ * servlet threads, and calls that take too long fail with a 504.
+ *
+ * <p>Work already running on the pool that calls back into the same bulkhead runs inline. Queueing
+ * it would have a pool thread waiting for another pool thread, which deadlocks once every thread
+ * is doing it.
+ *
+ * <p>Work on the pool counts towards the submitting request's {@link RequestTiming}.
+ */
+public class Bulkhead {
+  private final String name;
+  private final long timeoutMillis;
+  private final ThreadPoolExecutor executor;
+  private final ThreadLocal<Boolean> onPoolThread = ThreadLocal.withInitial(() -> false);
+
+  public Bulkhead(String name, int maxConcurrentCalls, int maxQueuedCalls, long timeoutMillis) {
+    this.name = name;
+    this.timeoutMillis = timeoutMillis;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            maxConcurrentCalls,
+            maxConcurrentCalls,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxQueuedCalls),
+            runnable -> {
+              Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Run the work on the pool and wait for its result. */
+  public <T> T call(Callable<T> work) {
+    if (onPoolThread.get()) {
+      return callInline(work);
+    }
+    return await(submit(work));
+  }
+
+  /**
+   * Start the work on the pool without waiting, for callers that fan out several calls. Collect the
+   * results with {@link #await}, so that the timeouts apply.
+   */
+  public <T> Future<T> submit(Callable<T> work) {
+    checkDeadline();
+    RequestTiming timing = RequestTiming.current();
+    try {
+      return executor.submit(
+          () -> {
+            onPoolThread.set(true);
+            RequestTiming.attach(timing);
+            try {
+              return work.call();
+            } finally {
+              onPoolThread.remove();
+              RequestTiming.clear();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      throw new BulkheadFullException(
+          "Too many calls to " + name + " are in progress; please retry later", e);
+    }
+  }
+
+  public <T> T await(Future<T> future) {
+    long waitMillis = Math.min(timeoutMillis, RequestDeadline.remainingMillis());
+    try {
+      return future.get(Math.max(0, waitMillis), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new DeadlineExceededException("Call to " + name + " timed out", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new DeadlineExceededException("Interrupted waiting for " + name, e);
+    } catch (ExecutionException e) {
+      throw rethrow(ErrorReportUtils.unwrap(e));
+    }
+  }
+
+  /** Calls running on the pool. */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  /** Calls waiting for a pool thread. */
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T callInline(Callable<T> work) {
+    try {
+      return work.call();
+    } catch (Exception e) {
+      throw rethrow(e);
+    }
+  }
+
+  private void checkDeadline() {
+    if (RequestDeadline.remainingMillis() <= 0) {
+      throw new DeadlineExceededException("The request deadline passed before calling " + name);
+    }
+  }
+
+  // The work converts client exceptions into ours, so anything checked here is unexpected.
+  private RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IllegalStateException("Unexpected exception calling " + name, cause);
+  }
+}
@@ -0,0 +1,236 @@
+package bio.terra.workspace.common.utils;
+
+import bio.terra.workspace.common.exception.CircuitOpenException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops calling a dependency that is failing, so that its callers fail fast and the dependency is
+ * spared their retries while it recovers.
+ *
+ * <p>While CLOSED, the outcomes of the last windowSize calls are kept. Once at least minimumCalls
+ * have been seen, the breaker trips to OPEN if the share of failures or of slow calls reaches its
+ * threshold. While OPEN every call is refused with a 503. After openDuration the breaker goes
+ * HALF_OPEN and lets halfOpenProbes calls through: if they all succeed promptly it closes again,
+ * and if any of them fails or is slow it opens for another openDuration.
+ *
+ * <p>Which exceptions count as failures is up to the caller; a refusal from the dependency, such as
+ * a 403, is an answer rather than a failure.
+ */
+public class CircuitBreaker {
+  private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final byte OK = 0;
+  private static final byte SLOW = 1;
+  private static final byte FAILED = 2;
+
+  private final String name;
+  private final int minimumCalls;
+  private final int failureRatePercent;
+  private final int slowCallRatePercent;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final int halfOpenProbes;
+  private final Predicate<RuntimeException> isFailure;
+
+  // The state and window are guarded by this.
+  private State state = State.CLOSED;
+  private final byte[] window;
+  private int windowCount;
+  private int windowNext;
+  private int failures;
+  private int slowCalls;
+  private long openedAt;
+  private int probesStarted;
+  private int probesSucceeded;
+
+  private final AtomicLong successCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong slowCallCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final Map<State, AtomicLong> transitionCounts = new EnumMap<>(State.class);
+
+  public CircuitBreaker(
+      String name,
+      int windowSize,
+      int minimumCalls,
+      int failureRatePercent,
+      int slowCallRatePercent,
+      long slowCallMillis,
+      long openMillis,
+      int halfOpenProbes,
+      Predicate<RuntimeException> isFailure) {
+    this.name = name;
+    this.window = new byte[windowSize];
+    this.minimumCalls = Math.min(minimumCalls, windowSize);
+    this.failureRatePercent = failureRatePercent;
+    this.slowCallRatePercent = slowCallRatePercent;
+    this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.halfOpenProbes = halfOpenProbes;
+    this.isFailure = isFailure;
+    for (State s : State.values()) {
+      transitionCounts.put(s, new AtomicLong());
+    }
+  }
+
+  public <T> T call(Supplier<T> work) {
+    boolean probe = acquirePermission();
+    long start = System.nanoTime();
+    try {
+      T result = work.get();
+      record(probe, false, System.nanoTime() - start);
+      return result;
+    } catch (RuntimeException e) {
+      record(probe, isFailure.test(e), System.nanoTime() - start);
+      throw e;
+    } catch (Error e) {
+      record(probe, true, System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public long getSuccessCount() {
+    return successCount.get();
+  }
+
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  public long getSlowCallCount() {
+    return slowCallCount.get();
+  }
+
+  /** Calls refused because the breaker was open. */
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  /** Number of times the breaker has entered the given state. */
+  public long getTransitionCount(State toState) {
+    return transitionCounts.get(toState).get();
+  }
+
+  // Returns true if the call is a half-open probe.
+  private synchronized boolean acquirePermission() {
+    if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+      transition(State.HALF_OPEN);
+    }
+    switch (state) {
+      case CLOSED:
+        return false;
+      case HALF_OPEN:
+        if (probesStarted < halfOpenProbes) {
+          probesStarted++;
+          return true;
+        }
+        break;
+      default:
+        break;
+    }
+    rejectedCount.incrementAndGet();
+    throw new CircuitOpenException(
+        "Calls to " + name + " are suspended after repeated failures; please retry later");
+  }
+
+  private synchronized void record(boolean probe, boolean failed, long elapsedNanos) {
+    boolean slow = !failed && elapsedNanos >= slowCallNanos;
+    if (failed) {
+      failureCount.incrementAndGet();
+    } else {
+      successCount.incrementAndGet();
+      if (slow) {
+        slowCallCount.incrementAndGet();
+      }
+    }
+
+    if (probe) {
+      if (state != State.HALF_OPEN) {
+        return;
+      }
+      if (failed || slow) {
+        transition(State.OPEN);
+      } else if (++probesSucceeded >= halfOpenProbes) {
+        transition(State.CLOSED);
+      }
+      return;
+    }
+    // Calls that started before the breaker opened tell us nothing new.
+    if (state != State.CLOSED) {
+      return;
+    }
+    addToWindow(failed ? FAILED : slow ? SLOW : OK);
+    if (windowCount >= minimumCalls
+        && (failures * 100 >= failureRatePercent * windowCount
+            || slowCalls * 100 >= slowCallRatePercent * windowCount)) {
+      logger.warn(
+          "Circuit breaker {}: {} failed and {} slow of the last {} calls",
+          name,
+          failures,
+          slowCalls,
+          windowCount);
+      transition(State.OPEN);
+    }
+  }
+
+  private void addToWindow(byte outcome) {
+    if (windowCount == window.length) {
+      forget(window[windowNext]);
+    } else {
+      windowCount++;
+    }
+    window[windowNext] = outcome;
+    windowNext = (windowNext + 1) % window.length;
+    if (outcome == FAILED) {
+      failures++;
+    } else if (outcome == SLOW) {
+      slowCalls++;
+    }
+  }
+
+  private void forget(byte outcome) {
+    if (outcome == FAILED) {
+      failures--;
+    } else if (outcome == SLOW) {
+      slowCalls--;
+    }
+  }
+
+  private void transition(State toState) {
+    logger.warn("Circuit breaker {}: {} -> {}", name, state, toState);
+    state = toState;
+    transitionCounts.get(toState).incrementAndGet();
+    switch (toState) {
+      case OPEN:
+        openedAt = System.nanoTime();
+        break;
+      case HALF_OPEN:
+        probesStarted = 0;
+        probesSucceeded = 0;
+        break;
+      case CLOSED:
+        windowCount = 0;
+        windowNext = 0;
+        failures = 0;
+        slowCalls = 0;
+        break;
+    }
+  }
+}
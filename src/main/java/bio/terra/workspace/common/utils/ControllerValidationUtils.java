@@ -2,7 +2,9 @@ package bio.terra.workspace.common.utils;
 
 import bio.terra.workspace.common.exception.ValidationException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 public final class ControllerValidationUtils {
 
@@ -18,4 +20,48 @@ public final class ControllerValidationUtils {
       throw new ValidationException("Invalid pagination parameters.", errors);
     }
   }
+
+  public static void validateBatchIds(List<String> ids, int maxBatchSize) {
+    List<String> errors = new ArrayList<>();
+    if (ids == null || ids.isEmpty()) {
+      errors.add("ids must contain at least one id.");
+    } else if (ids.size() > maxBatchSize) {
+      errors.add("ids must contain at most " + maxBatchSize + " ids.");
+    }
+    if (!errors.isEmpty()) {
+      throw new ValidationException("Invalid batch request.", errors);
+    }
+  }
+
+  public static void validateListLimit(int limit, int maxLimit) {
+    if (limit < 1 || limit > maxLimit) {
+      throw new ValidationException(
+          "Invalid list request.",
+          Collections.singletonList("limit must be between 1 and " + maxLimit + "."));
+    }
+  }
+
+  public static void validateCapabilityActions(List<String> actions) {
+    if (actions == null || actions.isEmpty()) {
+      throw new ValidationException(
+          "Invalid capability request.",
+          Collections.singletonList("actions must contain at least one action."));
+    }
+  }
+
+  public static UUID validateWorkspaceId(String id) {
+    try {
+      return UUID.fromString(id);
+    } catch (IllegalArgumentException e) {
+      throw new ValidationException(
+          "Invalid workspace id.", Collections.singletonList("id must be a UUID."));
+    }
+  }
+
+  public static void validateTargetShard(Integer targetShard) {
+    if (targetShard == null) {
+      throw new ValidationException(
+          "Invalid move request.", Collections.singletonList("targetShard is required."));
+    }
+  }
 }
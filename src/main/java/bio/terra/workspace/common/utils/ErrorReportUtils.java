@@ -0,0 +1,41 @@
+package bio.terra.workspace.common.utils;
+
+import bio.terra.workspace.common.exception.ErrorReportException;
+import bio.terra.workspace.generated.model.ErrorReport;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Builds ErrorReport models for errors that are returned inside a successful response, such as the
+ * per-item results of a batch call. The mapping matches GlobalExceptionHandler.
+ */
+public final class ErrorReportUtils {
+  private ErrorReportUtils() {}
+
+  public static ErrorReport buildErrorReport(Throwable ex) {
+    Throwable cause = unwrap(ex);
+    if (cause instanceof ErrorReportException) {
+      ErrorReportException errorReportException = (ErrorReportException) cause;
+      return new ErrorReport()
+          .message(errorReportException.getMessage())
+          .statusCode(errorReportException.getStatusCode().value())
+          .causes(errorReportException.getCauses());
+    }
+    HttpStatus statusCode =
+        (cause instanceof IllegalArgumentException)
+            ? HttpStatus.BAD_REQUEST
+            : HttpStatus.INTERNAL_SERVER_ERROR;
+    return new ErrorReport().message(cause.getMessage()).statusCode(statusCode.value());
+  }
+
+  /** Strip the wrappers that futures put around the exception thrown by the task. */
+  public static Throwable unwrap(Throwable ex) {
+    Throwable cause = ex;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+}
@@ -0,0 +1,148 @@
+package bio.terra.workspace.common.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A small in-process LRU cache with a time-to-live on each entry. It is intended for caching
+ * results of cheap-to-describe but expensive-to-fetch lookups (database rows, Sam decisions) for a
+ * short time. Hit and miss counts are kept so callers can report a hit ratio.
+ *
+ * <p>All operations synchronize on the cache. Loaders passed to {@link #get(Object, Function)} run
+ * outside of the lock, so two threads missing on the same key at the same time may both load.
+ *
+ * <p>A value loaded while anything was invalidated is returned but not cached, since it may have
+ * been read before the change that caused the invalidation. Callers that load on their own can do
+ * the same with {@link #getVersion} and {@link #putIfUnchanged}.
+ */
+public class LocalCache<K, V> {
+  private final long ttlNanos;
+  private final LinkedHashMap<K, Entry<V>> map;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  // Bumped by every invalidation. Guarded by this.
+  private long version;
+
+  public LocalCache(int maxEntries, long ttl, TimeUnit ttlUnit) {
+    this.ttlNanos = ttlUnit.toNanos(ttl);
+    // Access-ordered map, so the eldest entry is the least recently used one.
+    this.map =
+        new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > maxEntries;
+          }
+        };
+  }
+
+  /** Return the cached value for the key, or null if it is missing or expired. */
+  public V getIfPresent(K key) {
+    long now = System.nanoTime();
+    synchronized (this) {
+      Entry<V> entry = map.get(key);
+      if (entry != null) {
+        if (entry.expiresAt - now > 0) {
+          hits.incrementAndGet();
+          return entry.value;
+        }
+        map.remove(key);
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Return the cached value for the key, loading and caching it if it is missing or expired. A
+   * null value from the loader is returned but not cached. Exceptions from the loader propagate to
+   * the caller and nothing is cached.
+   */
+  public V get(K key, Function<K, V> loader) {
+    V value = getIfPresent(key);
+    if (value == null) {
+      long loadVersion = getVersion();
+      value = loader.apply(key);
+      if (value != null) {
+        putIfUnchanged(key, value, loadVersion);
+      }
+    }
+    return value;
+  }
+
+  public synchronized void put(K key, V value) {
+    map.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+  }
+
+  /** Changes whenever an entry is invalidated. Read it before loading a value to cache. */
+  public synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Cache the value unless something was invalidated since the version was read.
+   *
+   * @return true if the value was cached
+   */
+  public synchronized boolean putIfUnchanged(K key, V value, long loadVersion) {
+    if (version != loadVersion) {
+      return false;
+    }
+    put(key, value);
+    return true;
+  }
+
+  public synchronized void invalidate(K key) {
+    version++;
+    map.remove(key);
+  }
+
+  /** Remove every entry whose value matches the predicate. This scans the whole cache. */
+  public synchronized void invalidateIf(Predicate<V> predicate) {
+    version++;
+    Iterator<Entry<V>> iterator = map.values().iterator();
+    while (iterator.hasNext()) {
+      if (predicate.test(iterator.next().value)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void invalidateAll() {
+    version++;
+    map.clear();
+  }
+
+  public synchronized int size() {
+    return map.size();
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** Fraction of lookups served from the cache; 0 if there have been no lookups. */
+  public double getHitRatio() {
+    long hitCount = hits.get();
+    long total = hitCount + misses.get();
+    return total == 0 ? 0.0 : (double) hitCount / total;
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final long expiresAt;
+
+    Entry(V value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package bio.terra.workspace.common.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time by which the request being served on this thread must be answered. RequestDeadlineFilter
+ * sets it when a request arrives; outbound calls and database statements made on the thread then
+ * limit their own timeouts to what is left of it. Threads that are not serving a request, such as
+ * Stairway's, have no deadline.
+ */
+public final class RequestDeadline {
+  /** Returned by {@link #remainingMillis} when the thread has no deadline. */
+  public static final long NONE = Long.MAX_VALUE;
+
+  private static final ThreadLocal<Long> deadlineNanos = new ThreadLocal<>();
+
+  private RequestDeadline() {}
+
+  public static void start(long timeout, TimeUnit unit) {
+    deadlineNanos.set(System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  public static void clear() {
+    deadlineNanos.remove();
+  }
+
+  /** Milliseconds left before the deadline, which may be negative, or NONE. */
+  public static long remainingMillis() {
+    Long deadline = deadlineNanos.get();
+    if (deadline == null) {
+      return NONE;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+  }
+}
@@ -0,0 +1,128 @@
+package bio.terra.workspace.common.utils;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time of the request being served on this thread went: Sam, Data Repo, SQL, and waiting
+ * for a flight to be started and to finish. RequestTimingFilter starts it when timing is enabled;
+ * the layers that do that work add to it, and the filter sends the totals back in a Server-Timing
+ * header.
+ *
+ * <p>With no timing started, {@link #begin} and {@link #end} do no more than a thread-local read.
+ * Work fanned out to a {@link Bulkhead} still counts towards the request, so phases can overlap
+ * and add up to more than the total.
+ */
+public final class RequestTiming {
+  public enum Phase {
+    SAM("sam"),
+    DATA_REPO("datarepo"),
+    DB("db"),
+    QUEUE("queue"),
+    FLIGHT("flight");
+
+    private final String metricName;
+
+    Phase(String metricName) {
+      this.metricName = metricName;
+    }
+  }
+
+  private static final ThreadLocal<RequestTiming> current = new ThreadLocal<>();
+  // Returned by begin when the thread's request is not being timed.
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private final long startNanos = System.nanoTime();
+  private final long[] phaseNanos = new long[Phase.values().length];
+  private final int[] phaseCounts = new int[Phase.values().length];
+
+  private RequestTiming() {}
+
+  public static RequestTiming start() {
+    RequestTiming timing = new RequestTiming();
+    current.set(timing);
+    return timing;
+  }
+
+  public static void clear() {
+    current.remove();
+  }
+
+  /** The timing of this thread's request, or null if it is not being timed. */
+  public static RequestTiming current() {
+    return current.get();
+  }
+
+  /** Count work on this thread towards the given request's timing, or towards none if null. */
+  public static void attach(RequestTiming timing) {
+    if (timing == null) {
+      current.remove();
+    } else {
+      current.set(timing);
+    }
+  }
+
+  /** Mark the start of a phase; pass the result to {@link #end}. */
+  public static long begin() {
+    return current.get() == null ? NOT_TIMED : System.nanoTime();
+  }
+
+  public static void end(Phase phase, long begin) {
+    if (begin == NOT_TIMED) {
+      return;
+    }
+    RequestTiming timing = current.get();
+    if (timing != null) {
+      timing.add(phase, System.nanoTime() - begin);
+    }
+  }
+
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  private synchronized void add(Phase phase, long nanos) {
+    phaseNanos[phase.ordinal()] += nanos;
+    phaseCounts[phase.ordinal()]++;
+  }
+
+  /** The value of a Server-Timing header: each phase that occurred, then the total so far. */
+  public synchronized String toServerTiming() {
+    StringBuilder header = new StringBuilder();
+    for (Phase phase : Phase.values()) {
+      int count = phaseCounts[phase.ordinal()];
+      if (count > 0) {
+        header
+            .append(phase.metricName)
+            .append(";dur=")
+            .append(millis(phaseNanos[phase.ordinal()]))
+            .append(";desc=\"")
+            .append(count)
+            .append(count == 1 ? " call\", " : " calls\", ");
+      }
+    }
+    return header.append("total;dur=").append(millis(System.nanoTime() - startNanos)).toString();
+  }
+
+  /** The total and each phase as key=value pairs, with durations in ms and call counts. */
+  public synchronized String toLogFields() {
+    StringBuilder fields =
+        new StringBuilder("total=").append(millis(System.nanoTime() - startNanos));
+    for (Phase phase : Phase.values()) {
+      fields
+          .append(' ')
+          .append(phase.metricName)
+          .append('=')
+          .append(millis(phaseNanos[phase.ordinal()]))
+          .append(' ')
+          .append(phase.metricName)
+          .append("Calls=")
+          .append(phaseCounts[phase.ordinal()]);
+    }
+    return fields.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+  }
+}
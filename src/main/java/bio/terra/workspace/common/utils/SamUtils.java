@@ -7,6 +7,8 @@ public class SamUtils {
   public static String SAM_WORKSPACE_MANAGER_RESOURCE = "mc-workspace-manager";
   public static String SAM_WORKSPACE_MANAGER_LIST_JOBS_ACTION = "list-job";
   public static String SAM_WORKSPACE_MANAGER_DELETE_JOBS_ACTION = "delete-job";
+  public static String SAM_WORKSPACE_MANAGER_RECORD_ACTION = "record";
+  public static String SAM_WORKSPACE_MANAGER_MOVE_WORKSPACE_ACTION = "move-workspace";
   public static String SAM_WORKSPACE_READ_ACTION = "read";
   public static String SAM_WORKSPACE_WRITE_ACTION = "write";
   public static String SAM_WORKSPACE_DELETE_ACTION = "delete";
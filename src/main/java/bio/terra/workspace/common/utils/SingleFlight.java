@@ -0,0 +1,63 @@
+package bio.terra.workspace.common.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls. The first caller for a key runs the work; callers that
+ * arrive with the same key while it is running wait for it and get the same result, or the same
+ * exception, instead of running it again. Nothing is kept once the call finishes, so unlike a
+ * cache this never returns a result older than the call it joined.
+ */
+public class SingleFlight<K, V> {
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong executionCount = new AtomicLong();
+  private final AtomicLong sharedCount = new AtomicLong();
+
+  public V execute(K key, Supplier<V> work) {
+    CompletableFuture<V> call = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+    if (existing != null) {
+      sharedCount.incrementAndGet();
+      return await(existing);
+    }
+    executionCount.incrementAndGet();
+    try {
+      V result = work.get();
+      call.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  /** Calls that ran the work. */
+  public long getExecutionCount() {
+    return executionCount.get();
+  }
+
+  /** Calls that joined one already running instead of running the work themselves. */
+  public long getSharedCount() {
+    return sharedCount.get();
+  }
+
+  private V await(CompletableFuture<V> call) {
+    try {
+      return call.join();
+    } catch (RuntimeException e) {
+      Throwable cause = ErrorReportUtils.unwrap(e);
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
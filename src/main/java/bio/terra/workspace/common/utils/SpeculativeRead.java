@@ -0,0 +1,79 @@
+package bio.terra.workspace.common.utils;
+
+import bio.terra.workspace.common.exception.BulkheadFullException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Starts a read at the same time as the authorization check that guards it, so that a request
+ * waits for the slower of the two rather than for both in turn. Nothing from the read, result or
+ * error, reaches the caller until the check has passed. If the check fails the read is cancelled
+ * and counted as wasted, and the caller sees only the check's error, exactly as when the two run
+ * in order.
+ *
+ * <p>When disabled, or when the pool is full, the check and the read run in order on the caller's
+ * thread.
+ */
+public class SpeculativeRead {
+  private final boolean enabled;
+  private final Bulkhead bulkhead;
+  private final AtomicLong speculatedCount = new AtomicLong();
+  private final AtomicLong wastedCount = new AtomicLong();
+
+  public SpeculativeRead(boolean enabled, Bulkhead bulkhead) {
+    this.enabled = enabled;
+    this.bulkhead = bulkhead;
+  }
+
+  public <T> T read(Runnable authorize, Supplier<T> read) {
+    if (!enabled) {
+      authorize.run();
+      return read.get();
+    }
+    // Database statements on the pool thread are held to this request's deadline too.
+    long remainingMillis = RequestDeadline.remainingMillis();
+    Future<T> future;
+    try {
+      future = bulkhead.submit(() -> withDeadline(remainingMillis, read));
+    } catch (BulkheadFullException e) {
+      authorize.run();
+      return read.get();
+    }
+    speculatedCount.incrementAndGet();
+    try {
+      authorize.run();
+    } catch (RuntimeException | Error e) {
+      future.cancel(true);
+      wastedCount.incrementAndGet();
+      throw e;
+    }
+    return bulkhead.await(future);
+  }
+
+  /** Reads started alongside their check. */
+  public long getSpeculatedCount() {
+    return speculatedCount.get();
+  }
+
+  /** Speculative reads thrown away because the check failed. */
+  public long getWastedCount() {
+    return wastedCount.get();
+  }
+
+  public void shutdown() {
+    bulkhead.shutdown();
+  }
+
+  private static <T> T withDeadline(long remainingMillis, Supplier<T> read) {
+    if (remainingMillis != RequestDeadline.NONE) {
+      RequestDeadline.start(remainingMillis, TimeUnit.MILLISECONDS);
+    }
+    try {
+      return read.get();
+    } finally {
+      RequestDeadline.clear();
+    }
+  }
+}
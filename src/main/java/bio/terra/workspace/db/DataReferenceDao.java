@@ -1,13 +1,14 @@
 package bio.terra.workspace.db;
 
-import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
 import bio.terra.workspace.common.exception.DataReferenceNotFoundException;
 import bio.terra.workspace.generated.model.DataReferenceDescription;
 import bio.terra.workspace.generated.model.DataReferenceList;
 import bio.terra.workspace.generated.model.ResourceDescription;
+import io.micrometer.core.annotation.Timed;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,13 +26,21 @@ import org.springframework.stereotype.Component;
 @Component
 public class DataReferenceDao {
 
-  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final ShardRouter shardRouter;
+  private final WorkspaceCache workspaceCache;
 
   @Autowired
-  public DataReferenceDao(WorkspaceManagerJdbcConfiguration jdbcConfiguration) {
-    this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcConfiguration.getDataSource());
+  public DataReferenceDao(ShardRouter shardRouter, WorkspaceCache workspaceCache) {
+    this.shardRouter = shardRouter;
+    this.workspaceCache = workspaceCache;
   }
 
+  // Data references live on their workspace's shard.
+  private NamedParameterJdbcTemplate jdbcTemplateFor(UUID workspaceId) {
+    return shardRouter.shardFor(workspaceId).getJdbcTemplate();
+  }
+
+  @Timed("workspace.db.query")
   public String createDataReference(
       UUID referenceId,
       UUID workspaceId,
@@ -55,47 +64,120 @@ public class DataReferenceDao {
     paramMap.put("reference_type", referenceType.orElse(null));
     paramMap.put("reference", reference.orElse(null));
 
-    jdbcTemplate.update(sql, paramMap);
+    jdbcTemplateFor(workspaceId).update(sql, paramMap);
     return referenceId.toString();
   }
 
-  public DataReferenceDescription getDataReference(UUID referenceId) {
+  // workspace_data_reference is hash partitioned on workspace_id. Every query here filters on
+  // workspace_id so that Postgres only has to look in one partition.
+  @Timed("workspace.db.query")
+  public DataReferenceDescription getDataReference(UUID workspaceId, UUID referenceId) {
+    DataReferenceDescription ref =
+        workspaceCache.getDataReference(
+            referenceId, id -> getDataReferenceFromDb(workspaceId, id));
+    // A cached reference may have been loaded through a different workspace.
+    if (!workspaceId.equals(ref.getWorkspaceId())) {
+      throw new DataReferenceNotFoundException("Data Reference not found.");
+    }
+    return ref;
+  }
+
+  private DataReferenceDescription getDataReferenceFromDb(UUID workspaceId, UUID referenceId) {
     String sql =
-        "SELECT workspace_id, reference_id, name, resource_id, credential_id, cloning_instructions, reference_type, reference from workspace_data_reference where reference_id = :id";
+        "SELECT workspace_id, reference_id, name, resource_id, credential_id, cloning_instructions, reference_type, reference from workspace_data_reference"
+            + " WHERE workspace_id = :workspace_id AND reference_id = :id";
 
     Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("workspace_id", workspaceId.toString());
     paramMap.put("id", referenceId.toString());
 
     try {
-      return jdbcTemplate.queryForObject(sql, paramMap, new DataReferenceMapper());
+      return jdbcTemplateFor(workspaceId).queryForObject(sql, paramMap, new DataReferenceMapper());
     } catch (EmptyResultDataAccessException e) {
       throw new DataReferenceNotFoundException("Data Reference not found.");
     }
   }
 
-  public boolean isControlled(UUID referenceId) {
+  /**
+   * Look up several data references in one workspace with a single query. References that do not
+   * exist in the workspace are absent from the returned map.
+   */
+  @Timed("workspace.db.query")
+  public Map<UUID, DataReferenceDescription> getDataReferences(
+      UUID workspaceId, Collection<UUID> referenceIds) {
+    Map<UUID, DataReferenceDescription> result = new HashMap<>();
+    List<String> misses = new ArrayList<>();
+    long cacheVersion = workspaceCache.getDataReferenceVersion();
+    for (UUID referenceId : referenceIds) {
+      DataReferenceDescription cached = workspaceCache.getCachedDataReference(referenceId);
+      if (cached != null && workspaceId.equals(cached.getWorkspaceId())) {
+        result.put(referenceId, cached);
+      } else {
+        misses.add(referenceId.toString());
+      }
+    }
+    if (misses.isEmpty()) {
+      return result;
+    }
+
+    String sql =
+        "SELECT workspace_id, reference_id, name, resource_id, credential_id, cloning_instructions, reference_type, reference from workspace_data_reference"
+            + " WHERE workspace_id = :workspace_id AND reference_id IN (:ids)";
+    MapSqlParameterSource params = new MapSqlParameterSource();
+    params.addValue("workspace_id", workspaceId.toString());
+    params.addValue("ids", misses);
+    List<DataReferenceDescription> refs =
+        jdbcTemplateFor(workspaceId).query(sql, params, new DataReferenceMapper());
+    for (DataReferenceDescription ref : refs) {
+      workspaceCache.cacheDataReference(ref, cacheVersion);
+      result.put(ref.getReferenceId(), ref);
+    }
+    return result;
+  }
+
+  @Timed("workspace.db.query")
+  public boolean isControlled(UUID workspaceId, UUID referenceId) {
     String sql =
-        "SELECT CASE WHEN resource_id IS NULL THEN 'false' ELSE 'true' END FROM workspace_data_reference where reference_id = :id";
+        "SELECT CASE WHEN resource_id IS NULL THEN 'false' ELSE 'true' END FROM workspace_data_reference"
+            + " WHERE workspace_id = :workspace_id AND reference_id = :id";
 
     Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("workspace_id", workspaceId.toString());
     paramMap.put("id", referenceId.toString());
 
     try {
-      return jdbcTemplate.queryForObject(sql, paramMap, Boolean.class).booleanValue();
+      return jdbcTemplateFor(workspaceId)
+          .queryForObject(sql, paramMap, Boolean.class)
+          .booleanValue();
     } catch (EmptyResultDataAccessException e) {
       throw new DataReferenceNotFoundException("Data Reference not found.");
     }
   }
 
-  public boolean deleteDataReference(UUID referenceId) {
+  @Timed("workspace.db.query")
+  public boolean deleteDataReference(UUID workspaceId, UUID referenceId) {
+    Shard shard = shardRouter.shardFor(workspaceId);
     Map<String, Object> paramMap = new HashMap<String, Object>();
+    paramMap.put("workspace_id", workspaceId.toString());
     paramMap.put("id", referenceId.toString());
-    int rowsAffected =
-        jdbcTemplate.update(
-            "DELETE FROM workspace_data_reference WHERE reference_id = :id", paramMap);
-    return rowsAffected > 0;
+    return shard
+        .getTransactionTemplate()
+        .execute(
+            status -> {
+              NamedParameterJdbcTemplate jdbcTemplate = shard.getJdbcTemplate();
+              int rowsAffected =
+                  jdbcTemplate.update(
+                      "DELETE FROM workspace_data_reference"
+                          + " WHERE workspace_id = :workspace_id AND reference_id = :id",
+                      paramMap);
+              if (rowsAffected > 0) {
+                workspaceCache.notifyDataReferenceChanged(jdbcTemplate, referenceId);
+              }
+              return rowsAffected > 0;
+            });
   }
 
+  @Timed("workspace.db.query")
   public DataReferenceList enumerateDataReferences(
       String workspaceId, String owner, int offset, int limit) {
     List<String> whereClauses = new ArrayList<>();
@@ -117,39 +199,116 @@ public class DataReferenceDao {
     params.addValue("offset", offset);
     params.addValue("limit", limit);
     List<DataReferenceDescription> resultList =
-        jdbcTemplate.query(sql, params, new DataReferenceMapper());
+        shardRouter
+            .shardFor(workspaceId)
+            .getJdbcTemplate()
+            .query(sql, params, new DataReferenceMapper());
     return new DataReferenceList().resources(resultList);
   }
 
-  private static class ResourceDescriptionMapper implements RowMapper<ResourceDescription> {
-    public ResourceDescription mapRow(ResultSet rs, int rowNum) throws SQLException {
-      return new ResourceDescription()
-          .workspaceId(UUID.fromString(rs.getString("workspace_id")))
-          .resourceId(UUID.fromString(rs.getString("resource_id")))
-          .isVisible(rs.getBoolean("is_visible"))
-          .owner(rs.getString("owner"))
-          .attributes(rs.getString("attributes"));
-    }
-  }
+  /**
+   * Maps data reference rows, with their resource's columns when the query joins them. This runs
+   * once per row of an enumeration, so it avoids per-row work that does not depend on the row:
+   * column positions are looked up on the first row rather than by name on every row, consecutive
+   * rows from one workspace share one workspace UUID, and enum values come from a map instead of a
+   * scan over a fresh copy of values(). A new mapper must be used for each query.
+   */
+  static class DataReferenceMapper implements RowMapper<DataReferenceDescription> {
+    private static final Map<String, DataReferenceDescription.CloningInstructionsEnum>
+        CLONING_INSTRUCTIONS = byValue(DataReferenceDescription.CloningInstructionsEnum.values());
+    private static final Map<String, DataReferenceDescription.ReferenceTypeEnum> REFERENCE_TYPES =
+        byValue(DataReferenceDescription.ReferenceTypeEnum.values());
+
+    private int workspaceIdColumn;
+    private int referenceIdColumn;
+    private int nameColumn;
+    private int resourceIdColumn;
+    private int credentialIdColumn;
+    private int cloningInstructionsColumn;
+    private int referenceTypeColumn;
+    private int referenceColumn;
+    // Resolved on the first row with a resource, since only some queries select these.
+    private int isVisibleColumn;
+    private int ownerColumn;
+    private int attributesColumn;
+    private boolean resolved;
+    private boolean resourceColumnsResolved;
+
+    private String lastWorkspaceIdString;
+    private UUID lastWorkspaceId;
 
-  private static class DataReferenceMapper implements RowMapper<DataReferenceDescription> {
     public DataReferenceDescription mapRow(ResultSet rs, int rowNum) throws SQLException {
-      ResourceDescriptionMapper resourceDescriptionMapper = new ResourceDescriptionMapper();
+      if (!resolved) {
+        workspaceIdColumn = rs.findColumn("workspace_id");
+        referenceIdColumn = rs.findColumn("reference_id");
+        nameColumn = rs.findColumn("name");
+        // Enumeration selects resource_id from both tables; like getString by name, this finds
+        // the reference's.
+        resourceIdColumn = rs.findColumn("resource_id");
+        credentialIdColumn = rs.findColumn("credential_id");
+        cloningInstructionsColumn = rs.findColumn("cloning_instructions");
+        referenceTypeColumn = rs.findColumn("reference_type");
+        referenceColumn = rs.findColumn("reference");
+        resolved = true;
+      }
+      UUID workspaceId = workspaceId(rs.getString(workspaceIdColumn));
+      String resourceId = rs.getString(resourceIdColumn);
       return new DataReferenceDescription()
-          .workspaceId(UUID.fromString(rs.getString("workspace_id")))
-          .referenceId(UUID.fromString(rs.getString("reference_id")))
-          .name(rs.getString("name"))
+          .workspaceId(workspaceId)
+          .referenceId(UUID.fromString(rs.getString(referenceIdColumn)))
+          .name(rs.getString(nameColumn))
           .resourceDescription(
-              rs.getString("resource_id") == null
-                  ? null
-                  : resourceDescriptionMapper.mapRow(rs, rowNum))
-          .credentialId(rs.getString("credential_id"))
-          .cloningInstructions(
-              DataReferenceDescription.CloningInstructionsEnum.fromValue(
-                  rs.getString("cloning_instructions")))
-          .referenceType(
-              DataReferenceDescription.ReferenceTypeEnum.fromValue(rs.getString("reference_type")))
-          .reference(rs.getString("reference"));
+              resourceId == null ? null : mapResource(rs, workspaceId, UUID.fromString(resourceId)))
+          .credentialId(rs.getString(credentialIdColumn))
+          .cloningInstructions(cloningInstructions(rs.getString(cloningInstructionsColumn)))
+          .referenceType(referenceType(rs.getString(referenceTypeColumn)))
+          .reference(rs.getString(referenceColumn));
+    }
+
+    private ResourceDescription mapResource(ResultSet rs, UUID workspaceId, UUID resourceId)
+        throws SQLException {
+      if (!resourceColumnsResolved) {
+        isVisibleColumn = rs.findColumn("is_visible");
+        ownerColumn = rs.findColumn("owner");
+        attributesColumn = rs.findColumn("attributes");
+        resourceColumnsResolved = true;
+      }
+      return new ResourceDescription()
+          .workspaceId(workspaceId)
+          .resourceId(resourceId)
+          .isVisible(rs.getBoolean(isVisibleColumn))
+          .owner(rs.getString(ownerColumn))
+          .attributes(rs.getString(attributesColumn));
+    }
+
+    private UUID workspaceId(String value) {
+      if (!value.equals(lastWorkspaceIdString)) {
+        lastWorkspaceId = UUID.fromString(value);
+        lastWorkspaceIdString = value;
+      }
+      return lastWorkspaceId;
+    }
+
+    // Values the maps do not hold, including null, go to fromValue so they fail the same way.
+    private static DataReferenceDescription.CloningInstructionsEnum cloningInstructions(
+        String value) {
+      DataReferenceDescription.CloningInstructionsEnum result = CLONING_INSTRUCTIONS.get(value);
+      return result != null
+          ? result
+          : DataReferenceDescription.CloningInstructionsEnum.fromValue(value);
+    }
+
+    private static DataReferenceDescription.ReferenceTypeEnum referenceType(String value) {
+      DataReferenceDescription.ReferenceTypeEnum result = REFERENCE_TYPES.get(value);
+      return result != null ? result : DataReferenceDescription.ReferenceTypeEnum.fromValue(value);
+    }
+
+    private static <E extends Enum<E>> Map<String, E> byValue(E[] values) {
+      Map<String, E> map = new HashMap<>();
+      for (E value : values) {
+        map.put(value.toString(), value);
+      }
+      return map;
     }
   }
 
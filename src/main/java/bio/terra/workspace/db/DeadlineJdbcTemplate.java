@@ -0,0 +1,101 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.common.exception.DeadlineExceededException;
+import bio.terra.workspace.common.jfr.DatabaseQueryEvent;
+import bio.terra.workspace.common.utils.RequestDeadline;
+import bio.terra.workspace.common.utils.RequestTiming;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.StatementCallback;
+
+/**
+ * A JdbcTemplate whose statements time out at the request's deadline, so a slow database fails the
+ * request with a 504 rather than holding its thread. Statements run outside a request, such as in
+ * flights, have no timeout, as before.
+ *
+ * <p>Statements, including the wait for their connection, also count towards the request's {@link
+ * RequestTiming}. Reads answered by the workspace cache run no statement, so they add nothing.
+ * Each one is recorded as a {@link DatabaseQueryEvent} for Flight Recorder, in and out of requests.
+ */
+class DeadlineJdbcTemplate extends JdbcTemplate {
+  // Postgres reports a statement cancelled by its timeout with this SQLSTATE (query_canceled).
+  private static final String QUERY_CANCELED = "57014";
+
+  DeadlineJdbcTemplate(DataSource dataSource) {
+    super(dataSource);
+  }
+
+  @Override
+  public <T> T execute(StatementCallback<T> action) {
+    long timingStart = RequestTiming.begin();
+    DatabaseQueryEvent event = new DatabaseQueryEvent();
+    event.begin();
+    String outcome = "success";
+    try {
+      return super.execute(action);
+    } catch (RuntimeException e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      RequestTiming.end(RequestTiming.Phase.DB, timingStart);
+      commit(event, action, outcome);
+    }
+  }
+
+  @Override
+  public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action) {
+    long timingStart = RequestTiming.begin();
+    DatabaseQueryEvent event = new DatabaseQueryEvent();
+    event.begin();
+    String outcome = "success";
+    try {
+      return super.execute(psc, action);
+    } catch (RuntimeException e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      RequestTiming.end(RequestTiming.Phase.DB, timingStart);
+      commit(event, psc, outcome);
+    }
+  }
+
+  // Only look up the SQL when a recording wants the event; JdbcTemplate's own statement
+  // callbacks and creators all provide it.
+  private static void commit(DatabaseQueryEvent event, Object statement, String outcome) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.sql = statement instanceof SqlProvider ? ((SqlProvider) statement).getSql() : null;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  @Override
+  protected void applyStatementSettings(Statement stmt) throws SQLException {
+    super.applyStatementSettings(stmt);
+    long remainingMillis = RequestDeadline.remainingMillis();
+    if (remainingMillis == RequestDeadline.NONE) {
+      return;
+    }
+    if (remainingMillis <= 0) {
+      throw new DeadlineExceededException("The request deadline passed before a database query");
+    }
+    // JDBC timeouts are whole seconds; round up so a short remainder is not turned into none.
+    stmt.setQueryTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+  }
+
+  @Override
+  protected DataAccessException translateException(String task, String sql, SQLException ex) {
+    if (QUERY_CANCELED.equals(ex.getSQLState())) {
+      return new QueryTimeoutException(task + " timed out at the request deadline", ex);
+    }
+    return super.translateException(task, sql, ex);
+  }
+}
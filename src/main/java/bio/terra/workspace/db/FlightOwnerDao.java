@@ -0,0 +1,97 @@
+package bio.terra.workspace.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which instance is running each Stairway flight, and which instances are alive. Both live on the
+ * primary workspace database, which every instance can reach. An instance is alive while its
+ * heartbeat is younger than the timeout the caller passes; one that stopped cleanly has no row.
+ */
+@Component
+public class FlightOwnerDao {
+  private final ShardRouter shardRouter;
+
+  @Autowired
+  public FlightOwnerDao(ShardRouter shardRouter) {
+    this.shardRouter = shardRouter;
+  }
+
+  private NamedParameterJdbcTemplate jdbcTemplate() {
+    return shardRouter.getPrimary().getJdbcTemplate();
+  }
+
+  /** Record that the instance is alive, registering it if this is its first heartbeat. */
+  public void heartbeat(String instanceId) {
+    jdbcTemplate()
+        .update(
+            "INSERT INTO workspace_instance (instance_id) VALUES (:instance_id)"
+                + " ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = now()",
+            new MapSqlParameterSource().addValue("instance_id", instanceId));
+  }
+
+  /**
+   * Forget instances that are already dead. A missing row means the same as a stale one, so this
+   * only keeps the table small.
+   */
+  public int forgetDeadInstances(int timeoutSeconds) {
+    return jdbcTemplate()
+        .update(
+            "DELETE FROM workspace_instance"
+                + " WHERE heartbeat_at < now() - :timeout_seconds * interval '1 second'",
+            new MapSqlParameterSource().addValue("timeout_seconds", timeoutSeconds));
+  }
+
+  /** Remove a stopped instance, so the flights it still owns can be taken over straight away. */
+  public void deregister(String instanceId) {
+    jdbcTemplate()
+        .update(
+            "DELETE FROM workspace_instance WHERE instance_id = :instance_id",
+            new MapSqlParameterSource().addValue("instance_id", instanceId));
+  }
+
+  /**
+   * Make the instance the owner of the flight, if the flight has no owner, already belongs to it,
+   * or belongs to a dead instance. Concurrent claims of the same flight are serialized on its row,
+   * so at most one of them succeeds while the winner is alive.
+   *
+   * @return true if the instance now owns the flight
+   */
+  public boolean claim(String flightId, String instanceId, int timeoutSeconds) {
+    String sql =
+        "INSERT INTO flight_owner (flight_id, instance_id) VALUES (:flight_id, :instance_id)"
+            + " ON CONFLICT (flight_id) DO UPDATE"
+            + " SET instance_id = EXCLUDED.instance_id, claimed_at = now()"
+            + " WHERE flight_owner.instance_id = EXCLUDED.instance_id"
+            + " OR NOT EXISTS (SELECT 1 FROM workspace_instance i"
+            + " WHERE i.instance_id = flight_owner.instance_id"
+            + " AND i.heartbeat_at >= now() - :timeout_seconds * interval '1 second')";
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("flight_id", flightId)
+            .addValue("instance_id", instanceId)
+            .addValue("timeout_seconds", timeoutSeconds);
+    return jdbcTemplate().update(sql, params) == 1;
+  }
+
+  /** Drop the instance's ownership of a flight that has stopped running. */
+  public void release(String flightId, String instanceId) {
+    jdbcTemplate()
+        .update(
+            "DELETE FROM flight_owner WHERE flight_id = :flight_id AND instance_id = :instance_id",
+            new MapSqlParameterSource()
+                .addValue("flight_id", flightId)
+                .addValue("instance_id", instanceId));
+  }
+
+  /** The instance that owns the flight, or null if no instance does. */
+  public String getOwner(String flightId) {
+    return jdbcTemplate()
+        .query(
+            "SELECT instance_id FROM flight_owner WHERE flight_id = :flight_id",
+            new MapSqlParameterSource().addValue("flight_id", flightId),
+            rs -> rs.next() ? rs.getString("instance_id") : null);
+  }
+}
@@ -0,0 +1,258 @@
+package bio.terra.workspace.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The shared queue of submitted jobs that no instance has started yet. It lives on the primary
+ * workspace database, which every instance can reach. Jobs that could not be started are moved to
+ * flight_queue_failed, so they neither block the queue nor leave their callers waiting.
+ */
+@Component
+public class FlightQueueDao {
+  private static final Logger logger = LoggerFactory.getLogger(FlightQueueDao.class);
+  // Enough of the failure to diagnose it, without letting one bad job fill the table.
+  private static final int MAX_FAILURE_LENGTH = 2000;
+
+  private final ShardRouter shardRouter;
+
+  @Autowired
+  public FlightQueueDao(ShardRouter shardRouter) {
+    this.shardRouter = shardRouter;
+  }
+
+  private NamedParameterJdbcTemplate jdbcTemplate() {
+    return shardRouter.getPrimary().getJdbcTemplate();
+  }
+
+  public void enqueue(QueuedFlight flight) {
+    String sql =
+        "INSERT INTO flight_queue (job_id, flight_class, subject_id, description, parameters)"
+            + " VALUES (:job_id, :flight_class, :subject_id, :description, :parameters)";
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("job_id", flight.getJobId())
+            .addValue("flight_class", flight.getFlightClass())
+            .addValue("subject_id", flight.getSubjectId())
+            .addValue("description", flight.getDescription())
+            .addValue("parameters", flight.getParameters());
+    jdbcTemplate().update(sql, params);
+  }
+
+  /**
+   * The job with this id if it is still queued, or if it could not be started (see {@link
+   * QueuedFlight#getFailure}); null if it was started or was never queued.
+   */
+  public QueuedFlight getQueuedFlight(String jobId) {
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue("job_id", jobId);
+    List<QueuedFlight> flights =
+        jdbcTemplate()
+            .query(
+                "SELECT * FROM flight_queue WHERE job_id = :job_id",
+                params,
+                new QueuedFlightMapper());
+    if (flights.isEmpty()) {
+      flights =
+          jdbcTemplate()
+              .query(
+                  "SELECT * FROM flight_queue_failed WHERE job_id = :job_id",
+                  params,
+                  new FailedFlightMapper());
+    }
+    return flights.isEmpty() ? null : flights.get(0);
+  }
+
+  /** True while the job is waiting to be started. */
+  public boolean isQueued(String jobId) {
+    QueuedFlight flight = getQueuedFlight(jobId);
+    return flight != null && flight.getFailure() == null;
+  }
+
+  /** Remove the job, whether it is queued or failed. */
+  public boolean delete(String jobId) {
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue("job_id", jobId);
+    int deleted = jdbcTemplate().update("DELETE FROM flight_queue WHERE job_id = :job_id", params);
+    deleted +=
+        jdbcTemplate().update("DELETE FROM flight_queue_failed WHERE job_id = :job_id", params);
+    return deleted > 0;
+  }
+
+  /**
+   * Claim up to limit of the oldest queued jobs and pass each to the starter. Each job is claimed
+   * in its own transaction, which keeps its row locked while the starter runs and deletes it only
+   * once the starter has returned. Until then the job is still visible in the queue, so anyone
+   * looking for it finds it either here or wherever the starter put it, and other instances skip
+   * it rather than wait for it, so concurrent claimers never block each other.
+   *
+   * <p>If the starter throws, the job is moved to flight_queue_failed with the error, in the same
+   * transaction, and the claim carries on with the next job. If this instance dies before the
+   * claim commits, its transaction is rolled back and the job goes back to the queue; the starter
+   * must then cope with a job it may already have started.
+   *
+   * @return the number of jobs started
+   */
+  public int claim(int limit, Consumer<QueuedFlight> starter) {
+    int started = 0;
+    for (int i = 0; i < limit; i++) {
+      Boolean claimed = claimOne(starter);
+      if (claimed == null) {
+        break;
+      }
+      if (claimed) {
+        started++;
+      }
+    }
+    return started;
+  }
+
+  // Whether the job was started, or null if there was nothing to claim.
+  private Boolean claimOne(Consumer<QueuedFlight> starter) {
+    Shard primary = shardRouter.getPrimary();
+    return primary
+        .getTransactionTemplate()
+        .execute(
+            status -> {
+              NamedParameterJdbcTemplate jdbcTemplate = primary.getJdbcTemplate();
+              List<QueuedFlight> claimed =
+                  jdbcTemplate.query(
+                      "SELECT * FROM flight_queue ORDER BY submitted_at"
+                          + " LIMIT 1 FOR UPDATE SKIP LOCKED",
+                      new MapSqlParameterSource(),
+                      new QueuedFlightMapper());
+              if (claimed.isEmpty()) {
+                return null;
+              }
+              QueuedFlight flight = claimed.get(0);
+              // The starter may use this database too; if it fails part way, undo just its work.
+              Object beforeStart = status.createSavepoint();
+              boolean started;
+              try {
+                starter.accept(flight);
+                started = true;
+              } catch (RuntimeException e) {
+                logger.error(
+                    "Unable to start queued job {}; marking it failed", flight.getJobId(), e);
+                status.rollbackToSavepoint(beforeStart);
+                markFailed(jdbcTemplate, flight, e);
+                started = false;
+              }
+              jdbcTemplate.update(
+                  "DELETE FROM flight_queue WHERE job_id = :job_id",
+                  new MapSqlParameterSource().addValue("job_id", flight.getJobId()));
+              return started;
+            });
+  }
+
+  private void markFailed(
+      NamedParameterJdbcTemplate jdbcTemplate, QueuedFlight flight, RuntimeException failure) {
+    String sql =
+        "INSERT INTO flight_queue_failed (job_id, flight_class, subject_id, description, failure)"
+            + " VALUES (:job_id, :flight_class, :subject_id, :description, :failure)"
+            + " ON CONFLICT (job_id) DO NOTHING";
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("job_id", flight.getJobId())
+            .addValue("flight_class", flight.getFlightClass())
+            .addValue("subject_id", flight.getSubjectId())
+            .addValue("description", flight.getDescription())
+            .addValue("failure", describe(failure));
+    jdbcTemplate.update(sql, params);
+  }
+
+  private static String describe(RuntimeException failure) {
+    String description =
+        failure.getMessage() == null
+            ? failure.getClass().getSimpleName()
+            : failure.getClass().getSimpleName() + ": " + failure.getMessage();
+    return description.length() > MAX_FAILURE_LENGTH
+        ? description.substring(0, MAX_FAILURE_LENGTH)
+        : description;
+  }
+
+  public static class QueuedFlight {
+    private final String jobId;
+    private final String flightClass;
+    private final String subjectId;
+    private final String description;
+    private final String parameters;
+    private final String failure;
+
+    public QueuedFlight(
+        String jobId, String flightClass, String subjectId, String description, String parameters) {
+      this(jobId, flightClass, subjectId, description, parameters, null);
+    }
+
+    private QueuedFlight(
+        String jobId,
+        String flightClass,
+        String subjectId,
+        String description,
+        String parameters,
+        String failure) {
+      this.jobId = jobId;
+      this.flightClass = flightClass;
+      this.subjectId = subjectId;
+      this.description = description;
+      this.parameters = parameters;
+      this.failure = failure;
+    }
+
+    public String getJobId() {
+      return jobId;
+    }
+
+    public String getFlightClass() {
+      return flightClass;
+    }
+
+    public String getSubjectId() {
+      return subjectId;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    /** The serialized parameters; null for a failed job, whose parameters are not kept. */
+    public String getParameters() {
+      return parameters;
+    }
+
+    /** Why the job could not be started, or null if it is still queued. */
+    public String getFailure() {
+      return failure;
+    }
+  }
+
+  private static class QueuedFlightMapper implements RowMapper<QueuedFlight> {
+    public QueuedFlight mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new QueuedFlight(
+          rs.getString("job_id"),
+          rs.getString("flight_class"),
+          rs.getString("subject_id"),
+          rs.getString("description"),
+          rs.getString("parameters"));
+    }
+  }
+
+  private static class FailedFlightMapper implements RowMapper<QueuedFlight> {
+    public QueuedFlight mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new QueuedFlight(
+          rs.getString("job_id"),
+          rs.getString("flight_class"),
+          rs.getString("subject_id"),
+          rs.getString("description"),
+          null,
+          rs.getString("failure"));
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One workspace database. Because workspaces live in different databases, the DAOs run their
+ * transactions through the shard's templates rather than with @Transactional, which is bound to
+ * the single transactionManager bean. Statements made while serving a request time out at the
+ * request's deadline.
+ */
+public class Shard {
+  private final int index;
+  private final JdbcConfiguration jdbcConfiguration;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate serializableTransactionTemplate;
+
+  public Shard(int index, JdbcConfiguration jdbcConfiguration) {
+    this.index = index;
+    this.jdbcConfiguration = jdbcConfiguration;
+    this.jdbcTemplate =
+        new NamedParameterJdbcTemplate(new DeadlineJdbcTemplate(jdbcConfiguration.getDataSource()));
+    DataSourceTransactionManager transactionManager =
+        new DataSourceTransactionManager(jdbcConfiguration.getDataSource());
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.serializableTransactionTemplate = new TransactionTemplate(transactionManager);
+    serializableTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public JdbcConfiguration getJdbcConfiguration() {
+    return jdbcConfiguration;
+  }
+
+  public NamedParameterJdbcTemplate getJdbcTemplate() {
+    return jdbcTemplate;
+  }
+
+  public TransactionTemplate getTransactionTemplate() {
+    return transactionTemplate;
+  }
+
+  public TransactionTemplate getSerializableTransactionTemplate() {
+    return serializableTransactionTemplate;
+  }
+
+  @Override
+  public String toString() {
+    return "shard " + index + " " + jdbcConfiguration;
+  }
+}
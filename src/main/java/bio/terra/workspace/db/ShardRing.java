@@ -0,0 +1,54 @@
+package bio.terra.workspace.db;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring over shard indexes. Each shard is placed at several points on the ring; a
+ * key belongs to the shard owning the first point at or after the key's hash. Adding a shard only
+ * moves the keys that fall just before its new points, roughly 1/N of them, rather than
+ * reshuffling everything the way hash-mod-N would.
+ */
+public class ShardRing {
+  private final TreeMap<Long, Integer> ring = new TreeMap<>();
+  private final int shardCount;
+
+  public ShardRing(int shardCount, int virtualNodes) {
+    if (shardCount < 1 || virtualNodes < 1) {
+      throw new IllegalArgumentException("A shard ring needs at least one shard and one node");
+    }
+    this.shardCount = shardCount;
+    for (int shard = 0; shard < shardCount; shard++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        ring.put(hash("shard-" + shard + "#" + node), shard);
+      }
+    }
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public int shardFor(String key) {
+    if (shardCount == 1) {
+      return 0;
+    }
+    Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  // The hash is persisted implicitly in where rows live, so it must never change. MD5 is used for
+  // its spread, not for security.
+  private static long hash(String key) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      return ByteBuffer.wrap(digest.digest(key.getBytes(StandardCharsets.UTF_8))).getLong();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+}
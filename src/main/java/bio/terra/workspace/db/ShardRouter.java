@@ -0,0 +1,184 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import bio.terra.workspace.app.configuration.ShardConfiguration;
+import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import bio.terra.workspace.common.exception.ValidationException;
+import bio.terra.workspace.common.utils.LocalCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps a workspace id to the database holding its rows. A workspace normally lives on the shard
+ * the {@link ShardRing} assigns it. Workspaces that were moved, or that were created before a
+ * shard was added, have a row in the workspace_shard_placement table on the primary shard, which
+ * takes precedence. Resolved placements are cached; moving a workspace invalidates the entry
+ * through the workspace cache's invalidation channel.
+ *
+ * <p>With no additional shards configured, every workspace is on the primary and no lookups are
+ * made. While a shard is being added, {@link ShardConfiguration#isHoldOnPrimary()} keeps routing
+ * the way an instance without the new shard does, so both kinds of instance agree.
+ */
+@Component
+public class ShardRouter {
+  private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+  private final List<Shard> shards;
+  private final ShardRing ring;
+  private final LocalCache<String, Integer> placements;
+  private final boolean holdOnPrimary;
+
+  @Autowired
+  public ShardRouter(
+      WorkspaceManagerJdbcConfiguration primaryJdbcConfiguration,
+      ShardConfiguration shardConfiguration) {
+    List<Shard> shardList = new ArrayList<>();
+    shardList.add(new Shard(0, primaryJdbcConfiguration));
+    for (JdbcConfiguration additional : shardConfiguration.getAdditional()) {
+      shardList.add(new Shard(shardList.size(), additional));
+    }
+    this.shards = Collections.unmodifiableList(shardList);
+    this.ring = new ShardRing(shards.size(), shardConfiguration.getVirtualNodes());
+    this.placements =
+        new LocalCache<>(
+            shardConfiguration.getPlacementCacheMaxEntries(),
+            shardConfiguration.getPlacementCacheSeconds(),
+            TimeUnit.SECONDS);
+    this.holdOnPrimary = shardConfiguration.isHoldOnPrimary();
+  }
+
+  public List<Shard> getShards() {
+    return shards;
+  }
+
+  /** The db.workspace database. It holds the placement table. */
+  public Shard getPrimary() {
+    return shards.get(0);
+  }
+
+  public Shard getShard(int index) {
+    if (index < 0 || index >= shards.size()) {
+      throw new ValidationException(
+          "Shard " + index + " does not exist; there are " + shards.size() + " shards");
+    }
+    return shards.get(index);
+  }
+
+  public Shard shardFor(UUID workspaceId) {
+    return shardFor(workspaceId.toString());
+  }
+
+  public Shard shardFor(String workspaceId) {
+    if (shards.size() == 1) {
+      return getPrimary();
+    }
+    return shards.get(placements.get(workspaceId, this::loadPlacement));
+  }
+
+  /** The shard the hash ring assigns the workspace to, ignoring any placement override. */
+  public int ringShardIndex(String workspaceId) {
+    return ring.shardFor(workspaceId);
+  }
+
+  /**
+   * Whether workspaces are being held on the primary while a shard is added. New workspaces are
+   * then created on the primary, and must be pinned there with {@link #setPlacement}.
+   */
+  public boolean isHoldingOnPrimary() {
+    return holdOnPrimary;
+  }
+
+  public void invalidatePlacement(String workspaceId) {
+    placements.invalidate(workspaceId);
+  }
+
+  /**
+   * Record that the workspace lives on the given shard. This must run on the primary shard's
+   * template, normally inside a transaction that also notifies the workspace cache so other
+   * instances drop their cached placement.
+   */
+  void setPlacement(NamedParameterJdbcTemplate primaryTemplate, String workspaceId, int index) {
+    MapSqlParameterSource params =
+        new MapSqlParameterSource().addValue("id", workspaceId).addValue("shard_index", index);
+    if (index == ringShardIndex(workspaceId)) {
+      // Back where the ring puts it, so no override is needed.
+      primaryTemplate.update(
+          "DELETE FROM workspace_shard_placement WHERE workspace_id = :id", params);
+    } else {
+      primaryTemplate.update(
+          "INSERT INTO workspace_shard_placement (workspace_id, shard_index)"
+              + " VALUES (:id, :shard_index)"
+              + " ON CONFLICT (workspace_id) DO UPDATE SET shard_index = EXCLUDED.shard_index",
+          params);
+    }
+    invalidatePlacement(workspaceId);
+  }
+
+  private Integer loadPlacement(String workspaceId) {
+    List<Integer> override =
+        getPrimary()
+            .getJdbcTemplate()
+            .queryForList(
+                "SELECT shard_index FROM workspace_shard_placement WHERE workspace_id = :id",
+                new MapSqlParameterSource().addValue("id", workspaceId),
+                Integer.class);
+    if (override.isEmpty()) {
+      return holdOnPrimary ? getPrimary().getIndex() : ringShardIndex(workspaceId);
+    }
+    int index = override.get(0);
+    if (index >= shards.size()) {
+      throw new IllegalStateException(
+          "Workspace "
+              + workspaceId
+              + " is placed on shard "
+              + index
+              + ", which is not configured");
+    }
+    return index;
+  }
+
+  /**
+   * Pin every workspace that the ring would now route away from the shard it is stored on. Run
+   * after adding a shard, before serving requests, so existing workspaces stay reachable; they can
+   * then be moved with the workspace move flight at leisure. Workspaces created later by an
+   * instance that does not know the new shard are not pinned, which is why a shard is added in
+   * two rollouts; see DEVELOPMENT.md.
+   *
+   * @return the number of workspaces pinned
+   */
+  public int pinMisplacedWorkspaces() {
+    int pinned = 0;
+    for (Shard shard : shards) {
+      List<String> ids =
+          shard
+              .getJdbcTemplate()
+              .queryForList(
+                  "SELECT workspace_id FROM workspace", new MapSqlParameterSource(), String.class);
+      for (String id : ids) {
+        if (ringShardIndex(id) != shard.getIndex()) {
+          int rows =
+              getPrimary()
+                  .getJdbcTemplate()
+                  .update(
+                      "INSERT INTO workspace_shard_placement (workspace_id, shard_index)"
+                          + " VALUES (:id, :shard_index) ON CONFLICT (workspace_id) DO NOTHING",
+                      new MapSqlParameterSource()
+                          .addValue("id", id)
+                          .addValue("shard_index", shard.getIndex()));
+          pinned += rows;
+        }
+      }
+    }
+    logger.info("Pinned {} workspaces to their current shard", pinned);
+    return pinned;
+  }
+}
@@ -0,0 +1,388 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import bio.terra.workspace.app.configuration.WorkspaceCacheConfiguration;
+import bio.terra.workspace.common.utils.LocalCache;
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import bio.terra.workspace.generated.model.ResourceDescription;
+import bio.terra.workspace.generated.model.WorkspaceDescription;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process cache of workspace and data reference lookups, keyed by id.
+ *
+ * <p>Every replica keeps its own copy, so deletes must reach all of them. The DAOs call the
+ * notify methods here in the same transaction as the delete; Postgres delivers the NOTIFY to every
+ * session LISTENing on the channel when that transaction commits. Each replica runs a listener on
+ * a dedicated connection (outside the pool) and drops the named entries as notifications arrive.
+ * If the listener connection is lost, the caches are cleared and the listener reconnects; the TTL
+ * bounds staleness in the meantime.
+ *
+ * <p>Notifications are published on the shard the change was made on, so there is one listener
+ * per shard. Workspace notifications also drop the {@link ShardRouter}'s cached placement.
+ *
+ * <p>Local entries are dropped both when a change is made and again when its transaction commits:
+ * a read racing the change can load the old row after the first invalidation, but {@link
+ * LocalCache} does not cache a value loaded across an invalidation, so the second one removes it
+ * or keeps it from being cached. Batch reads that cache rows themselves take the cache version
+ * before they query, for the same reason.
+ *
+ * <p>The generated models are mutable, so callers get copies of cached values and what they do
+ * with them cannot change what the next caller sees.
+ *
+ * <p>Workspace deletes are also passed to any registered {@link DeletionListener}. Registering one
+ * turns on notifications even if the cache itself is disabled.
+ */
+@Component
+public class WorkspaceCache {
+  private static final Logger logger = LoggerFactory.getLogger(WorkspaceCache.class);
+
+  static final String CHANNEL = "workspace_cache_invalidation";
+  private static final String WORKSPACE_PREFIX = "workspace:";
+  private static final String REFERENCE_PREFIX = "reference:";
+  private static final String DELETED_PREFIX = "workspace-deleted:";
+  private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+  private final WorkspaceCacheConfiguration cacheConfig;
+  private final ShardRouter shardRouter;
+  private final LocalCache<String, WorkspaceDescription> workspaces;
+  private final LocalCache<UUID, DataReferenceDescription> references;
+
+  private volatile boolean running;
+  private final List<Thread> listenerThreads = new ArrayList<>();
+  private final List<DeletionListener> deletionListeners = new CopyOnWriteArrayList<>();
+
+  /** Told about workspace deletes made on any instance. */
+  public interface DeletionListener {
+    void workspaceDeleted(String workspaceId);
+
+    /** The notification connection was lost, so deletes made meanwhile were not reported. */
+    void deletionsMissed();
+  }
+
+  @Autowired
+  public WorkspaceCache(WorkspaceCacheConfiguration cacheConfig, ShardRouter shardRouter) {
+    this.cacheConfig = cacheConfig;
+    this.shardRouter = shardRouter;
+    this.workspaces =
+        new LocalCache<>(
+            cacheConfig.getMaxEntries(), cacheConfig.getTtlSeconds(), TimeUnit.SECONDS);
+    this.references =
+        new LocalCache<>(
+            cacheConfig.getMaxEntries(), cacheConfig.getTtlSeconds(), TimeUnit.SECONDS);
+  }
+
+  public boolean isEnabled() {
+    return cacheConfig.isEnabled();
+  }
+
+  /** Register a listener. Call this before {@link #startListener}. */
+  public void addDeletionListener(DeletionListener listener) {
+    deletionListeners.add(listener);
+  }
+
+  private boolean isNotifying() {
+    return isEnabled() || !deletionListeners.isEmpty();
+  }
+
+  public WorkspaceDescription getWorkspace(
+      String workspaceId, Function<String, WorkspaceDescription> loader) {
+    if (!isEnabled()) {
+      return loader.apply(workspaceId);
+    }
+    return copy(workspaces.get(workspaceId, loader));
+  }
+
+  /** Return the cached workspace, or null if it is not cached or the cache is disabled. */
+  public WorkspaceDescription getCachedWorkspace(String workspaceId) {
+    return isEnabled() ? copy(workspaces.getIfPresent(workspaceId)) : null;
+  }
+
+  /** Read before querying for rows to pass to {@link #cacheWorkspace}. */
+  public long getWorkspaceVersion() {
+    return workspaces.getVersion();
+  }
+
+  /** Cache a workspace read at the given version, unless a workspace was invalidated since. */
+  public void cacheWorkspace(WorkspaceDescription workspace, long version) {
+    if (isEnabled()) {
+      workspaces.putIfUnchanged(workspace.getId().toString(), copy(workspace), version);
+    }
+  }
+
+  /** Return the cached data reference, or null if it is not cached or the cache is disabled. */
+  public DataReferenceDescription getCachedDataReference(UUID referenceId) {
+    return isEnabled() ? copy(references.getIfPresent(referenceId)) : null;
+  }
+
+  /** Read before querying for rows to pass to {@link #cacheDataReference}. */
+  public long getDataReferenceVersion() {
+    return references.getVersion();
+  }
+
+  /** Cache a data reference read at the given version, unless one was invalidated since. */
+  public void cacheDataReference(DataReferenceDescription reference, long version) {
+    if (isEnabled()) {
+      references.putIfUnchanged(reference.getReferenceId(), copy(reference), version);
+    }
+  }
+
+  public DataReferenceDescription getDataReference(
+      UUID referenceId, Function<UUID, DataReferenceDescription> loader) {
+    if (!isEnabled()) {
+      return loader.apply(referenceId);
+    }
+    return copy(references.get(referenceId, loader));
+  }
+
+  /**
+   * Drop the workspace and all of its data references from the local cache, and notify the other
+   * replicas when the current transaction commits. Deleting a workspace cascades to its references,
+   * so they are dropped along with it.
+   */
+  public void notifyWorkspaceChanged(NamedParameterJdbcTemplate jdbcTemplate, String workspaceId) {
+    invalidateNowAndOnCommit(() -> invalidateWorkspace(workspaceId));
+    publish(jdbcTemplate, WORKSPACE_PREFIX + workspaceId);
+  }
+
+  /**
+   * As {@link #notifyWorkspaceChanged}, and also tell the deletion listeners here and on the other
+   * replicas. The plain change is published too, for replicas that do not know this notification.
+   */
+  public void notifyWorkspaceDeleted(NamedParameterJdbcTemplate jdbcTemplate, String workspaceId) {
+    notifyWorkspaceChanged(jdbcTemplate, workspaceId);
+    workspaceDeleted(workspaceId);
+    publish(jdbcTemplate, DELETED_PREFIX + workspaceId);
+  }
+
+  /** Drop the data reference locally and notify the other replicas on commit. */
+  public void notifyDataReferenceChanged(
+      NamedParameterJdbcTemplate jdbcTemplate, UUID referenceId) {
+    invalidateNowAndOnCommit(() -> invalidateDataReference(referenceId));
+    publish(jdbcTemplate, REFERENCE_PREFIX + referenceId);
+  }
+
+  public LocalCache<String, WorkspaceDescription> getWorkspaceCache() {
+    return workspaces;
+  }
+
+  public LocalCache<UUID, DataReferenceDescription> getDataReferenceCache() {
+    return references;
+  }
+
+  private static void invalidateNowAndOnCommit(Runnable invalidation) {
+    invalidation.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              invalidation.run();
+            }
+          });
+    }
+  }
+
+  private void invalidateWorkspace(String workspaceId) {
+    shardRouter.invalidatePlacement(workspaceId);
+    workspaces.invalidate(workspaceId);
+    references.invalidateIf(ref -> workspaceId.equals(String.valueOf(ref.getWorkspaceId())));
+  }
+
+  private void invalidateDataReference(UUID referenceId) {
+    references.invalidate(referenceId);
+  }
+
+  private static WorkspaceDescription copy(WorkspaceDescription workspace) {
+    if (workspace == null) {
+      return null;
+    }
+    WorkspaceDescription copy = new WorkspaceDescription().id(workspace.getId());
+    copy.setSpendProfile(workspace.getSpendProfile());
+    return copy;
+  }
+
+  private static DataReferenceDescription copy(DataReferenceDescription reference) {
+    if (reference == null) {
+      return null;
+    }
+    DataReferenceDescription copy =
+        new DataReferenceDescription()
+            .referenceId(reference.getReferenceId())
+            .name(reference.getName())
+            .workspaceId(reference.getWorkspaceId())
+            .cloningInstructions(reference.getCloningInstructions());
+    // JsonNullable is immutable, so the nullable fields can be shared.
+    copy.setReferenceType(reference.getReferenceType());
+    copy.setReference(reference.getReference());
+    copy.setCredentialId(reference.getCredentialId());
+    JsonNullable<ResourceDescription> resource = reference.getResourceDescription();
+    if (resource.isPresent() && resource.get() != null) {
+      copy.setResourceDescription(JsonNullable.of(copy(resource.get())));
+    } else {
+      copy.setResourceDescription(resource);
+    }
+    return copy;
+  }
+
+  private static ResourceDescription copy(ResourceDescription resource) {
+    ResourceDescription copy =
+        new ResourceDescription()
+            .resourceId(resource.getResourceId())
+            .workspaceId(resource.getWorkspaceId());
+    copy.setIsVisible(resource.getIsVisible());
+    copy.setApplicationId(resource.getApplicationId());
+    copy.setOwner(resource.getOwner());
+    copy.setAttributes(resource.getAttributes());
+    return copy;
+  }
+
+  private void workspaceDeleted(String workspaceId) {
+    for (DeletionListener listener : deletionListeners) {
+      listener.workspaceDeleted(workspaceId);
+    }
+  }
+
+  private void publish(NamedParameterJdbcTemplate jdbcTemplate, String payload) {
+    if (!isNotifying()) {
+      return;
+    }
+    Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("channel", CHANNEL);
+    paramMap.put("payload", payload);
+    jdbcTemplate.execute(
+        "SELECT pg_notify(:channel, :payload)", paramMap, PreparedStatement::execute);
+  }
+
+  void handleNotification(String payload) {
+    if (payload.startsWith(WORKSPACE_PREFIX)) {
+      invalidateWorkspace(payload.substring(WORKSPACE_PREFIX.length()));
+    } else if (payload.startsWith(DELETED_PREFIX)) {
+      workspaceDeleted(payload.substring(DELETED_PREFIX.length()));
+    } else if (payload.startsWith(REFERENCE_PREFIX)) {
+      invalidateDataReference(UUID.fromString(payload.substring(REFERENCE_PREFIX.length())));
+    } else {
+      logger.warn("Ignoring unrecognized cache invalidation: {}", payload);
+    }
+  }
+
+  /**
+   * Start the invalidation listeners, one per shard. This is called from StartupInitializer, after
+   * the databases are migrated, so that bean initialization does not touch the database.
+   */
+  public synchronized void startListener() {
+    if (!isNotifying() || running) {
+      return;
+    }
+    running = true;
+    for (Shard shard : shardRouter.getShards()) {
+      Thread listenerThread =
+          new Thread(
+              () -> listen(shard.getJdbcConfiguration(), shard.getIndex() == 0),
+              "workspace-cache-listener-" + shard.getIndex());
+      listenerThread.setDaemon(true);
+      listenerThread.start();
+      listenerThreads.add(listenerThread);
+    }
+  }
+
+  @PreDestroy
+  public synchronized void stopListener() {
+    running = false;
+    for (Thread listenerThread : listenerThreads) {
+      listenerThread.interrupt();
+    }
+    listenerThreads.clear();
+  }
+
+  private void listen(JdbcConfiguration jdbcConfiguration, boolean logsStats) {
+    long lastStatsLog = System.nanoTime();
+    while (running) {
+      try (Connection connection = openListenerConnection(jdbcConfiguration);
+          Statement statement = connection.createStatement()) {
+        statement.execute("LISTEN " + CHANNEL);
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        logger.info("Workspace cache listening for invalidations on {}", CHANNEL);
+
+        while (running) {
+          // The driver only reads notifications off the socket while a query is running, so
+          // poll with a trivial statement.
+          statement.execute("SELECT 1");
+          PGNotification[] notifications = pgConnection.getNotifications();
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handleNotification(notification.getParameter());
+            }
+          }
+
+          if (logsStats
+              && System.nanoTime() - lastStatsLog
+              > TimeUnit.SECONDS.toNanos(cacheConfig.getStatsLogIntervalSeconds())) {
+            logStats();
+            lastStatsLog = System.nanoTime();
+          }
+          Thread.sleep(cacheConfig.getNotifyPollMillis());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (SQLException | RuntimeException e) {
+        // We may have missed invalidations while disconnected, so start over from empty.
+        logger.warn("Workspace cache listener failed; clearing caches and reconnecting", e);
+        workspaces.invalidateAll();
+        references.invalidateAll();
+        for (DeletionListener listener : deletionListeners) {
+          listener.deletionsMissed();
+        }
+        try {
+          Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private Connection openListenerConnection(JdbcConfiguration jdbcConfiguration)
+      throws SQLException {
+    Properties props = new Properties();
+    props.setProperty("user", jdbcConfiguration.getUsername());
+    props.setProperty("password", jdbcConfiguration.getPassword());
+    return DriverManager.getConnection(jdbcConfiguration.getUri(), props);
+  }
+
+  private void logStats() {
+    logger.info(
+        String.format(
+            "Workspace cache: workspace hit ratio %.3f (%d entries), reference hit ratio %.3f (%d entries)",
+            workspaces.getHitRatio(),
+            workspaces.size(),
+            references.getHitRatio(),
+            references.size()));
+  }
+}
@@ -0,0 +1,29 @@
+package bio.terra.workspace.db;
+
+/**
+ * Tables holding rows that belong to a workspace, in the order they must be purged so that no
+ * foreign key is left pointing at a deleted row: data references point at resources, and resources
+ * point at applications.
+ */
+public enum WorkspaceChildTable {
+  DATA_REFERENCE("workspace_data_reference", "reference_id"),
+  RESOURCE("workspace_resource", "resource_id"),
+  APPLICATION("workspace_application", "application_id"),
+  CLOUD_CONTEXT("workspace_cloud_context", "cloud_type");
+
+  private final String tableName;
+  private final String keyColumn;
+
+  WorkspaceChildTable(String tableName, String keyColumn) {
+    this.tableName = tableName;
+    this.keyColumn = keyColumn;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public String getKeyColumn() {
+    return keyColumn;
+  }
+}
@@ -1,32 +1,51 @@
 package bio.terra.workspace.db;
 
-import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
 import bio.terra.workspace.common.exception.DuplicateWorkspaceException;
 import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
 import bio.terra.workspace.generated.model.WorkspaceDescription;
+import io.micrometer.core.annotation.Timed;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.openapitools.jackson.nullable.JsonNullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Workspace rows are spread across shards by {@link ShardRouter}. Every method starts by finding
+ * the workspace's shard and then works only on that database.
+ *
+ * <p>Public methods are timed as workspace.db.query, as are DataReferenceDao's. Reads answered by
+ * the workspace cache are included, so a low median with a long tail usually means a good hit rate.
+ */
 @Component
 public class WorkspaceDao {
-  private final NamedParameterJdbcTemplate jdbcTemplate;
+  // The most ids listWorkspaces looks up at once.
+  private static final int MAX_LIST_WINDOW = 1000;
+
+  private final ShardRouter shardRouter;
+  private final WorkspaceCache workspaceCache;
 
   @Autowired
-  public WorkspaceDao(WorkspaceManagerJdbcConfiguration jdbcConfiguration) {
-    jdbcTemplate = new NamedParameterJdbcTemplate(jdbcConfiguration.getDataSource());
+  public WorkspaceDao(ShardRouter shardRouter, WorkspaceCache workspaceCache) {
+    this.shardRouter = shardRouter;
+    this.workspaceCache = workspaceCache;
   }
 
-  @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+  @Timed("workspace.db.query")
   public String createWorkspace(UUID workspaceId, JsonNullable<UUID> spendProfile) {
     String sql =
         "INSERT INTO workspace (workspace_id, spend_profile, profile_settable) values "
@@ -38,7 +57,21 @@ public class WorkspaceDao {
     paramMap.put("spend_profile_settable", !spendProfile.isPresent());
 
     try {
-      jdbcTemplate.update(sql, paramMap);
+      if (shardRouter.isHoldingOnPrimary()) {
+        // Pinned in the same transaction, so that no instance routes it by the ring first.
+        Shard primary = shardRouter.getPrimary();
+        primary
+            .getTransactionTemplate()
+            .execute(
+                status -> {
+                  primary.getJdbcTemplate().update(sql, paramMap);
+                  shardRouter.setPlacement(
+                      primary.getJdbcTemplate(), workspaceId.toString(), primary.getIndex());
+                  return null;
+                });
+      } else {
+        shardRouter.shardFor(workspaceId).getJdbcTemplate().update(sql, paramMap);
+      }
     } catch (DuplicateKeyException e) {
       throw new DuplicateWorkspaceException(
           "Workspace " + workspaceId.toString() + " already exists.", e);
@@ -46,37 +79,237 @@ public class WorkspaceDao {
     return workspaceId.toString();
   }
 
-  @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.SERIALIZABLE)
+  @Timed("workspace.db.query")
   public boolean deleteWorkspace(UUID workspaceId) {
+    Shard shard = shardRouter.shardFor(workspaceId);
     Map<String, Object> paramMap = new HashMap<String, Object>();
     paramMap.put("id", workspaceId.toString());
-    int rowsAffected =
-        jdbcTemplate.update("DELETE FROM workspace WHERE workspace_id = :id", paramMap);
-    return rowsAffected > 0;
+    return shard
+        .getSerializableTransactionTemplate()
+        .execute(
+            status -> {
+              NamedParameterJdbcTemplate jdbcTemplate = shard.getJdbcTemplate();
+              int rowsAffected =
+                  jdbcTemplate.update("DELETE FROM workspace WHERE workspace_id = :id", paramMap);
+              if (rowsAffected > 0) {
+                workspaceCache.notifyWorkspaceDeleted(jdbcTemplate, workspaceId.toString());
+              }
+              return rowsAffected > 0;
+            });
+  }
+
+  /**
+   * Mark a workspace as deleting. It immediately disappears from reads, but its row and child rows
+   * stay in place until they are purged by {@link #purgeChildRows} and {@link #deleteWorkspace}.
+   *
+   * @return true if the workspace exists and was not already marked
+   */
+  @Timed("workspace.db.query")
+  public boolean tombstoneWorkspace(UUID workspaceId) {
+    return setDeleting(workspaceId, true);
+  }
+
+  /** Undo {@link #tombstoneWorkspace}, making the workspace visible again. */
+  @Timed("workspace.db.query")
+  public boolean untombstoneWorkspace(UUID workspaceId) {
+    return setDeleting(workspaceId, false);
+  }
+
+  private boolean setDeleting(UUID workspaceId, boolean deleting) {
+    Shard shard = shardRouter.shardFor(workspaceId);
+    Map<String, Object> paramMap = new HashMap<>();
+    paramMap.put("id", workspaceId.toString());
+    paramMap.put("deleting", deleting);
+    return shard
+        .getTransactionTemplate()
+        .execute(
+            status -> {
+              NamedParameterJdbcTemplate jdbcTemplate = shard.getJdbcTemplate();
+              int rowsAffected =
+                  jdbcTemplate.update(
+                      "UPDATE workspace SET deleting = :deleting,"
+                          + " tombstoned_at = CASE WHEN :deleting THEN now() END"
+                          + " WHERE workspace_id = :id AND deleting <> :deleting",
+                      paramMap);
+              if (rowsAffected > 0 && deleting) {
+                workspaceCache.notifyWorkspaceDeleted(jdbcTemplate, workspaceId.toString());
+              } else if (rowsAffected > 0) {
+                workspaceCache.notifyWorkspaceChanged(jdbcTemplate, workspaceId.toString());
+              }
+              return rowsAffected > 0;
+            });
+  }
+
+  /**
+   * Delete up to batchSize rows belonging to the workspace from one child table. Each call is its
+   * own short transaction, so purging a large workspace never holds locks for long. Callers repeat
+   * until this returns 0.
+   *
+   * @return the number of rows deleted
+   */
+  @Timed("workspace.db.query")
+  public int purgeChildRows(WorkspaceChildTable table, UUID workspaceId, int batchSize) {
+    // Postgres has no DELETE ... LIMIT, so pick the batch by key in a subquery.
+    String sql =
+        String.format(
+            "DELETE FROM %1$s WHERE workspace_id = :id AND %2$s IN"
+                + " (SELECT %2$s FROM %1$s WHERE workspace_id = :id LIMIT :limit)",
+            table.getTableName(), table.getKeyColumn());
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("id", workspaceId.toString())
+            .addValue("limit", batchSize);
+    return shardRouter.shardFor(workspaceId).getJdbcTemplate().update(sql, params);
   }
 
+  /**
+   * Ids of the workspaces on every shard that were marked deleting at least graceSeconds ago, or
+   * before the time was recorded. A purge is normally submitted right after the tombstone, so
+   * these are the ones whose purge may never have been.
+   */
+  @Timed("workspace.db.query")
+  public List<UUID> getStaleTombstones(int graceSeconds) {
+    String sql =
+        "SELECT workspace_id FROM workspace WHERE deleting AND (tombstoned_at IS NULL"
+            + " OR tombstoned_at < now() - make_interval(secs => :grace))";
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue("grace", graceSeconds);
+    List<UUID> ids = new ArrayList<>();
+    for (Shard shard : shardRouter.getShards()) {
+      for (String id : shard.getJdbcTemplate().queryForList(sql, params, String.class)) {
+        ids.add(UUID.fromString(id));
+      }
+    }
+    return ids;
+  }
+
+  @Timed("workspace.db.query")
   public WorkspaceDescription getWorkspace(String id) {
-    String sql = "SELECT * FROM workspace where workspace_id = (:id)";
+    return workspaceCache.getWorkspace(id, this::getWorkspaceFromDb);
+  }
+
+  /**
+   * Look up several workspaces with one query per shard involved. Ids that do not exist are absent
+   * from the returned map. Workspaces already in the cache are not re-read.
+   */
+  @Timed("workspace.db.query")
+  public Map<String, WorkspaceDescription> getWorkspaces(Collection<String> ids) {
+    Map<String, WorkspaceDescription> result = new HashMap<>();
+    Map<Shard, List<String>> missesByShard = new LinkedHashMap<>();
+    long cacheVersion = workspaceCache.getWorkspaceVersion();
+    for (String id : ids) {
+      WorkspaceDescription cached = workspaceCache.getCachedWorkspace(id);
+      if (cached != null) {
+        result.put(id, cached);
+      } else {
+        missesByShard.computeIfAbsent(shardRouter.shardFor(id), s -> new ArrayList<>()).add(id);
+      }
+    }
+
+    String sql =
+        "SELECT workspace_id, spend_profile FROM workspace"
+            + " WHERE workspace_id IN (:ids) AND NOT deleting";
+    for (Map.Entry<Shard, List<String>> misses : missesByShard.entrySet()) {
+      MapSqlParameterSource params = new MapSqlParameterSource().addValue("ids", misses.getValue());
+      List<WorkspaceDescription> found =
+          misses.getKey().getJdbcTemplate().query(sql, params, new WorkspaceMapper());
+      for (WorkspaceDescription desc : found) {
+        workspaceCache.cacheWorkspace(desc, cacheVersion);
+        result.put(desc.getId().toString(), desc);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * One page of the given workspaces, in id order: those with ids after the given one (or from the
+   * start, if it is null), at most limit of them. The ids must be sorted as strings, and only the
+   * ones that can be on this page are looked up, a window at a time. A window has one query per
+   * shard holding any of its ids, with the shards' rows merged in Java, so the order does not
+   * depend on the database collation.
+   */
+  @Timed("workspace.db.query")
+  public List<WorkspaceDescription> listWorkspaces(
+      List<String> sortedIds, String afterId, int limit) {
+    int next = 0;
+    if (afterId != null) {
+      int position = Collections.binarySearch(sortedIds, afterId);
+      next = position >= 0 ? position + 1 : -position - 1;
+    }
+
+    List<WorkspaceDescription> page = new ArrayList<>();
+    int windowSize = limit;
+    while (page.size() < limit && next < sortedIds.size()) {
+      List<String> window = sortedIds.subList(next, Math.min(sortedIds.size(), next + windowSize));
+      next += window.size();
+      List<WorkspaceDescription> found = readListWindow(window);
+      page.addAll(found.subList(0, Math.min(found.size(), limit - page.size())));
+      // Sam can list workspaces that are gone from the database, leaving the window short. Look
+      // further ahead each time, so a run of them does not take a query per id.
+      windowSize = Math.min(windowSize * 2, MAX_LIST_WINDOW);
+    }
+    return page;
+  }
+
+  private List<WorkspaceDescription> readListWindow(List<String> ids) {
+    Map<Shard, List<String>> idsByShard = new LinkedHashMap<>();
+    for (String id : ids) {
+      idsByShard.computeIfAbsent(shardRouter.shardFor(id), s -> new ArrayList<>()).add(id);
+    }
+    String sql =
+        "SELECT workspace_id, spend_profile FROM workspace"
+            + " WHERE workspace_id IN (:ids) AND NOT deleting";
+    List<WorkspaceDescription> found = new ArrayList<>();
+    for (Map.Entry<Shard, List<String>> shardIds : idsByShard.entrySet()) {
+      MapSqlParameterSource params =
+          new MapSqlParameterSource().addValue("ids", shardIds.getValue());
+      found.addAll(shardIds.getKey().getJdbcTemplate().query(sql, params, new WorkspaceMapper()));
+    }
+    found.sort(Comparator.comparing(desc -> desc.getId().toString()));
+    return found;
+  }
+
+  /** Ids of the workspaces on every shard, other than those being deleted. */
+  @Timed("workspace.db.query")
+  public List<String> getWorkspaceIds() {
+    String sql = "SELECT workspace_id FROM workspace WHERE NOT deleting";
+    List<String> ids = new ArrayList<>();
+    for (Shard shard : shardRouter.getShards()) {
+      ids.addAll(
+          shard.getJdbcTemplate().queryForList(sql, new MapSqlParameterSource(), String.class));
+    }
+    return ids;
+  }
+
+  private WorkspaceDescription getWorkspaceFromDb(String id) {
+    String sql =
+        "SELECT workspace_id, spend_profile FROM workspace"
+            + " WHERE workspace_id = :id AND NOT deleting";
 
     Map<String, Object> paramMap = new HashMap<>();
     paramMap.put("id", id);
 
     try {
-      Map<String, Object> queryOutput = jdbcTemplate.queryForMap(sql, paramMap);
+      return shardRouter
+          .shardFor(id)
+          .getJdbcTemplate()
+          .queryForObject(sql, paramMap, new WorkspaceMapper());
+    } catch (EmptyResultDataAccessException e) {
+      throw new WorkspaceNotFoundException("Workspace not found.");
+    }
+  }
 
-      WorkspaceDescription desc = new WorkspaceDescription();
-      desc.setId(UUID.fromString(queryOutput.get("workspace_id").toString()));
+  static class WorkspaceMapper implements RowMapper<WorkspaceDescription> {
+    public WorkspaceDescription mapRow(ResultSet rs, int rowNum) throws SQLException {
+      WorkspaceDescription desc =
+          new WorkspaceDescription().id(UUID.fromString(rs.getString("workspace_id")));
 
-      if (queryOutput.getOrDefault("spend_profile", null) == null) {
+      String spendProfile = rs.getString("spend_profile");
+      if (spendProfile == null) {
         desc.setSpendProfile(JsonNullable.undefined());
       } else {
-        desc.setSpendProfile(
-            JsonNullable.of(UUID.fromString(queryOutput.get("spend_profile").toString())));
+        desc.setSpendProfile(JsonNullable.of(UUID.fromString(spendProfile)));
       }
-
       return desc;
-    } catch (EmptyResultDataAccessException e) {
-      throw new WorkspaceNotFoundException("Workspace not found.");
     }
   }
 }
@@ -0,0 +1,182 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves a workspace and all of its rows from one shard to another.
+ *
+ * <p>The move holds a transaction on the source shard throughout. It starts by locking the
+ * workspace row and every child row FOR UPDATE, which blocks writers to the workspace: inserting
+ * a child row needs a key-share lock on the workspace row, and deleting one needs the child row.
+ * With writers held off, the rows are copied to the target in one transaction and counted there,
+ * the placement is switched on the primary, and only then are the source rows deleted and the
+ * source transaction committed. Writers that were blocked then fail against the now-missing rows
+ * instead of writing to a database nobody reads any more.
+ *
+ * <p>A move that fails before the placement is switched leaves the workspace where it was. One
+ * that fails after the switch has only the cleanup of the source left, which re-running the move
+ * with the same source and target finishes.
+ */
+@Component
+public class WorkspaceShardMover {
+  private static final Logger logger = LoggerFactory.getLogger(WorkspaceShardMover.class);
+
+  private final ShardRouter shardRouter;
+  private final WorkspaceCache workspaceCache;
+
+  @Autowired
+  public WorkspaceShardMover(ShardRouter shardRouter, WorkspaceCache workspaceCache) {
+    this.shardRouter = shardRouter;
+    this.workspaceCache = workspaceCache;
+  }
+
+  /**
+   * Move the workspace from the source shard to the target shard.
+   *
+   * @return the number of rows copied, including the workspace row; 0 if the workspace was already
+   *     on the target
+   */
+  public int moveWorkspace(UUID workspaceId, int sourceIndex, int targetIndex) {
+    Shard source = shardRouter.getShard(sourceIndex);
+    Shard target = shardRouter.getShard(targetIndex);
+    String id = workspaceId.toString();
+
+    shardRouter.invalidatePlacement(id);
+    if (shardRouter.shardFor(id) == target) {
+      // An earlier attempt switched the placement; make sure nothing was left behind.
+      if (source != target) {
+        source.getTransactionTemplate().execute(status -> deleteRows(source, id));
+      }
+      return 0;
+    }
+    if (shardRouter.shardFor(id) != source) {
+      throw new IllegalStateException(
+          "Workspace " + id + " is not on shard " + sourceIndex + " or shard " + targetIndex);
+    }
+
+    return source
+        .getTransactionTemplate()
+        .execute(
+            status -> {
+              Map<String, List<Map<String, Object>>> rows = lockAndReadRows(source, id);
+              int copied = copyRows(target, id, rows);
+              try {
+                Shard primary = shardRouter.getPrimary();
+                primary
+                    .getTransactionTemplate()
+                    .execute(
+                        primaryStatus -> {
+                          shardRouter.setPlacement(primary.getJdbcTemplate(), id, targetIndex);
+                          workspaceCache.notifyWorkspaceChanged(primary.getJdbcTemplate(), id);
+                          return null;
+                        });
+              } catch (RuntimeException e) {
+                // The copy is not reachable yet; remove it so a retry starts from scratch.
+                target.getTransactionTemplate().execute(targetStatus -> deleteRows(target, id));
+                throw e;
+              }
+              deleteRows(source, id);
+              logger.info(
+                  "Moved workspace {} from shard {} to shard {} ({} rows)",
+                  id,
+                  sourceIndex,
+                  targetIndex,
+                  copied);
+              return copied;
+            });
+  }
+
+  // Parents are read and copied before children so that foreign keys are satisfied on insert.
+  private Map<String, List<Map<String, Object>>> lockAndReadRows(Shard source, String id) {
+    NamedParameterJdbcTemplate jdbcTemplate = source.getJdbcTemplate();
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+    Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+
+    List<Map<String, Object>> workspace =
+        jdbcTemplate.queryForList(
+            "SELECT * FROM workspace WHERE workspace_id = :id FOR UPDATE", params);
+    if (workspace.isEmpty()) {
+      throw new WorkspaceNotFoundException("Workspace not found.");
+    }
+    rows.put("workspace", workspace);
+    for (String table : tablesParentsFirst()) {
+      rows.put(
+          table,
+          jdbcTemplate.queryForList(
+              "SELECT * FROM " + table + " WHERE workspace_id = :id FOR UPDATE", params));
+    }
+    return rows;
+  }
+
+  private int copyRows(Shard target, String id, Map<String, List<Map<String, Object>>> rows) {
+    return target
+        .getTransactionTemplate()
+        .execute(
+            status -> {
+              NamedParameterJdbcTemplate jdbcTemplate = target.getJdbcTemplate();
+              // Clear out anything left by an earlier failed attempt.
+              deleteRows(target, id);
+
+              int copied = 0;
+              for (Map.Entry<String, List<Map<String, Object>>> table : rows.entrySet()) {
+                for (Map<String, Object> row : table.getValue()) {
+                  jdbcTemplate.update(insertSql(table.getKey(), row), row);
+                  copied++;
+                }
+                Integer count =
+                    jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM " + table.getKey() + " WHERE workspace_id = :id",
+                        new MapSqlParameterSource().addValue("id", id),
+                        Integer.class);
+                if (count == null || count != table.getValue().size()) {
+                  throw new IllegalStateException(
+                      String.format(
+                          "Copy of workspace %s to shard %d has %s rows in %s, expected %d",
+                          id, target.getIndex(), count, table.getKey(), table.getValue().size()));
+                }
+              }
+              return copied;
+            });
+  }
+
+  private Object deleteRows(Shard shard, String id) {
+    NamedParameterJdbcTemplate jdbcTemplate = shard.getJdbcTemplate();
+    MapSqlParameterSource params = new MapSqlParameterSource().addValue("id", id);
+    for (WorkspaceChildTable table : WorkspaceChildTable.values()) {
+      jdbcTemplate.update(
+          "DELETE FROM " + table.getTableName() + " WHERE workspace_id = :id", params);
+    }
+    jdbcTemplate.update("DELETE FROM workspace WHERE workspace_id = :id", params);
+    return null;
+  }
+
+  private static List<String> tablesParentsFirst() {
+    List<String> tables = new ArrayList<>();
+    WorkspaceChildTable[] childrenFirst = WorkspaceChildTable.values();
+    for (int i = childrenFirst.length - 1; i >= 0; i--) {
+      tables.add(childrenFirst[i].getTableName());
+    }
+    return tables;
+  }
+
+  // Column values are passed back as read, so driver types such as json survive the round trip.
+  private static String insertSql(String table, Map<String, Object> row) {
+    return String.format(
+        "INSERT INTO %s (%s) VALUES (%s)",
+        table,
+        String.join(", ", row.keySet()),
+        row.keySet().stream().map(column -> ":" + column).collect(Collectors.joining(", ")));
+  }
+}
@@ -1,11 +1,16 @@
 package bio.terra.workspace.service.datareference;
 
 import bio.terra.workspace.common.exception.*;
+import bio.terra.workspace.common.utils.ErrorReportUtils;
 import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.common.utils.SpeculativeRead;
 import bio.terra.workspace.db.DataReferenceDao;
 import bio.terra.workspace.generated.model.CreateDataReferenceRequestBody;
+import bio.terra.workspace.generated.model.DataReferenceBatchResult;
+import bio.terra.workspace.generated.model.DataReferenceBatchResultList;
 import bio.terra.workspace.generated.model.DataReferenceDescription;
 import bio.terra.workspace.generated.model.DataReferenceList;
+import bio.terra.workspace.generated.model.ErrorReport;
 import bio.terra.workspace.service.datareference.exception.ControlledResourceNotImplementedException;
 import bio.terra.workspace.service.datareference.exception.InvalidDataReferenceException;
 import bio.terra.workspace.service.datareference.flight.*;
@@ -14,8 +19,15 @@ import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.SamService;
 import bio.terra.workspace.service.job.JobBuilder;
 import bio.terra.workspace.service.job.JobService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -24,25 +36,74 @@ public class DataReferenceService {
   private final SamService samService;
   private final JobService jobService;
   private final DataReferenceValidationUtils validationUtils;
+  private final SpeculativeRead speculativeRead;
 
   @Autowired
   public DataReferenceService(
       DataReferenceDao dataReferenceDao,
       SamService samService,
       JobService jobService,
-      DataReferenceValidationUtils validationUtils) {
+      DataReferenceValidationUtils validationUtils,
+      @Qualifier("speculativeRead") SpeculativeRead speculativeRead) {
     this.dataReferenceDao = dataReferenceDao;
     this.samService = samService;
     this.jobService = jobService;
     this.validationUtils = validationUtils;
+    this.speculativeRead = speculativeRead;
   }
 
   public DataReferenceDescription getDataReference(
       String workspaceId, String referenceId, AuthenticatedUserRequest userReq) {
+    return speculativeRead.read(
+        () -> samService.workspaceAuthz(userReq, workspaceId, SamUtils.SAM_WORKSPACE_READ_ACTION),
+        () ->
+            dataReferenceDao.getDataReference(
+                UUID.fromString(workspaceId), UUID.fromString(referenceId)));
+  }
+
+  /**
+   * Get several data references from one workspace. The workspace is authorized once and the
+   * references are fetched with one query. Each id gets its own result, so a malformed or missing
+   * reference id is reported in its entry rather than failing the whole request.
+   */
+  public DataReferenceBatchResultList getDataReferences(
+      String workspaceId, List<String> referenceIds, AuthenticatedUserRequest userReq) {
 
     samService.workspaceAuthz(userReq, workspaceId, SamUtils.SAM_WORKSPACE_READ_ACTION);
 
-    return dataReferenceDao.getDataReference(UUID.fromString(referenceId));
+    // Preserve request order but only look up each id once.
+    Set<String> uniqueIds = new LinkedHashSet<>(referenceIds);
+    Map<String, UUID> parsedIds = new HashMap<>();
+    Map<String, ErrorReport> errors = new HashMap<>();
+    for (String id : uniqueIds) {
+      try {
+        parsedIds.put(id, UUID.fromString(id));
+      } catch (IllegalArgumentException e) {
+        errors.put(id, ErrorReportUtils.buildErrorReport(e));
+      }
+    }
+
+    Map<UUID, DataReferenceDescription> references =
+        parsedIds.isEmpty()
+            ? new HashMap<>()
+            : dataReferenceDao.getDataReferences(
+                UUID.fromString(workspaceId), parsedIds.values());
+
+    List<DataReferenceBatchResult> results = new ArrayList<>();
+    for (String id : uniqueIds) {
+      DataReferenceBatchResult result = new DataReferenceBatchResult().id(id);
+      if (errors.containsKey(id)) {
+        result.error(errors.get(id));
+      } else if (references.containsKey(parsedIds.get(id))) {
+        result.dataReference(references.get(parsedIds.get(id)));
+      } else {
+        result.error(
+            ErrorReportUtils.buildErrorReport(
+                new DataReferenceNotFoundException("Data Reference not found.")));
+      }
+      results.add(result);
+    }
+    return new DataReferenceBatchResultList().results(results);
   }
 
   public DataReferenceDescription createDataReference(
@@ -83,14 +144,16 @@ public class DataReferenceService {
 
     createJob.submitAndWait(String.class);
 
-    return dataReferenceDao.getDataReference(referenceId);
+    return dataReferenceDao.getDataReference(UUID.fromString(workspaceId), referenceId);
   }
 
   public DataReferenceList enumerateDataReferences(
       String workspaceId, int offset, int limit, AuthenticatedUserRequest userReq) {
-    samService.workspaceAuthz(userReq, workspaceId, SamUtils.SAM_WORKSPACE_READ_ACTION);
-    return dataReferenceDao.enumerateDataReferences(
-        workspaceId, userReq.getReqId().toString(), offset, limit);
+    return speculativeRead.read(
+        () -> samService.workspaceAuthz(userReq, workspaceId, SamUtils.SAM_WORKSPACE_READ_ACTION),
+        () ->
+            dataReferenceDao.enumerateDataReferences(
+                workspaceId, userReq.getReqId().toString(), offset, limit));
   }
 
   public void deleteDataReference(
@@ -98,12 +161,14 @@ public class DataReferenceService {
 
     samService.workspaceAuthz(userReq, workspaceId, SamUtils.SAM_WORKSPACE_WRITE_ACTION);
 
-    if (dataReferenceDao.isControlled(UUID.fromString(referenceId))) {
+    UUID workspaceUuid = UUID.fromString(workspaceId);
+    UUID referenceUuid = UUID.fromString(referenceId);
+    if (dataReferenceDao.isControlled(workspaceUuid, referenceUuid)) {
       throw new ControlledResourceNotImplementedException(
           "Unable to delete controlled resource. This functionality will be implemented in the future.");
     }
 
-    if (!dataReferenceDao.deleteDataReference(UUID.fromString(referenceId))) {
+    if (!dataReferenceDao.deleteDataReference(workspaceUuid, referenceUuid)) {
       throw new DataReferenceNotFoundException("Data Reference not found.");
     }
   }
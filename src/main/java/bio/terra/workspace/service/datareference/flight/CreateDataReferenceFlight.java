@@ -2,6 +2,7 @@ package bio.terra.workspace.service.datareference.flight;
 
 import bio.terra.stairway.Flight;
 import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
 import bio.terra.workspace.db.DataReferenceDao;
 import org.springframework.context.ApplicationContext;
 
@@ -13,6 +14,6 @@ public class CreateDataReferenceFlight extends Flight {
     ApplicationContext appContext = (ApplicationContext) applicationContext;
     DataReferenceDao dataReferenceDao = (DataReferenceDao) appContext.getBean("dataReferenceDao");
 
-    addStep(new CreateDataReferenceStep(dataReferenceDao));
+    addStep(new RecordedStep(new CreateDataReferenceStep(dataReferenceDao)));
   }
 }
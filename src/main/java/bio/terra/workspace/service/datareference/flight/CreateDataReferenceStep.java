@@ -48,8 +48,9 @@ public class CreateDataReferenceStep implements Step {
   @Override
   public StepResult undoStep(FlightContext flightContext) {
     FlightMap inputMap = flightContext.getInputParameters();
-    UUID workspaceId = inputMap.get(DataReferenceFlightMapKeys.REFERENCE_ID, UUID.class);
-    dataReferenceDao.deleteDataReference(workspaceId);
+    UUID referenceId = inputMap.get(DataReferenceFlightMapKeys.REFERENCE_ID, UUID.class);
+    UUID workspaceId = inputMap.get(DataReferenceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    dataReferenceDao.deleteDataReference(workspaceId, referenceId);
     return StepResult.getStepResultSuccess();
   }
 }
@@ -3,15 +3,45 @@ package bio.terra.workspace.service.datarepo;
 import bio.terra.datarepo.api.RepositoryApi;
 import bio.terra.datarepo.client.ApiClient;
 import bio.terra.datarepo.client.ApiException;
+import bio.terra.workspace.app.configuration.DataRepoConfiguration;
+import bio.terra.workspace.common.jfr.DataRepoCallEvent;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.RequestTiming;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+/**
+ * Calls to Data Repo instances. Like Sam calls, they run in their own bulkhead, so a slow Data Repo
+ * cannot hold request threads. Each call is timed as workspace.datarepo.call, tagged with the
+ * operation and its outcome, and recorded as a {@link DataRepoCallEvent} for Flight Recorder.
+ */
 @Component
 public class DataRepoService {
+  private final DataRepoConfiguration dataRepoConfig;
+  private final Bulkhead dataRepoBulkhead;
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public DataRepoService(
+      DataRepoConfiguration dataRepoConfig,
+      @Qualifier("dataRepoBulkhead") Bulkhead dataRepoBulkhead,
+      MeterRegistry meterRegistry) {
+    this.dataRepoConfig = dataRepoConfig;
+    this.dataRepoBulkhead = dataRepoBulkhead;
+    this.meterRegistry = meterRegistry;
+  }
 
   private ApiClient getApiClient(String accessToken) {
     ApiClient client = new ApiClient();
     client.setAccessToken(accessToken);
+    // The bulkhead stops waiting at the timeout; this also frees its thread.
+    int timeoutMillis = dataRepoConfig.getTimeoutSeconds() * 1000;
+    client.setConnectTimeout(timeoutMillis);
+    client.setReadTimeout(timeoutMillis);
     return client;
   }
 
@@ -22,12 +52,39 @@ public class DataRepoService {
   public boolean snapshotExists(
       String instance, String snapshotId, AuthenticatedUserRequest userReq) {
     RepositoryApi repositoryApi = repositoryApi(instance, userReq);
-
+    Timer.Sample sample = Timer.start(meterRegistry);
+    long timingStart = RequestTiming.begin();
+    DataRepoCallEvent event = new DataRepoCallEvent();
+    event.begin();
+    String outcome = "success";
     try {
-      repositoryApi.retrieveSnapshot(snapshotId);
-      return true;
-    } catch (ApiException e) {
-      return false;
+      boolean exists =
+          dataRepoBulkhead.call(
+              () -> {
+                try {
+                  repositoryApi.retrieveSnapshot(snapshotId);
+                  return true;
+                } catch (ApiException e) {
+                  return false;
+                }
+              });
+      // Any error answer, usually not found, is taken to mean the snapshot does not exist.
+      if (!exists) {
+        outcome = "ApiException";
+      }
+      return exists;
+    } catch (RuntimeException e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      RequestTiming.end(RequestTiming.Phase.DATA_REPO, timingStart);
+      sample.stop(
+          meterRegistry.timer(
+              "workspace.datarepo.call", "operation", "retrieveSnapshot", "outcome", outcome));
+      event.instance = instance;
+      event.operation = "retrieveSnapshot";
+      event.outcome = outcome;
+      event.commit();
     }
   }
 }
@@ -0,0 +1,320 @@
+package bio.terra.workspace.service.iam;
+
+import bio.terra.workspace.app.configuration.AclMirrorConfiguration;
+import bio.terra.workspace.db.WorkspaceDao;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A local copy of who may do what on each workspace, so that most workspace authorization checks
+ * are answered in-process instead of by a Sam round trip.
+ *
+ * <p>A background thread syncs a batch of workspaces from Sam on each refresh: first any it has
+ * never synced, then those synced longest ago. Workspaces that no longer exist are dropped. After
+ * each refresh the lookup index is rebuilt from the synced ACLs and swapped in, so lookups never
+ * wait for a refresh.
+ *
+ * <p>Only positive answers are trusted. A subject the mirror does not list, for instance because
+ * access comes through a group or was granted since the last sync, is checked by Sam as before.
+ * Revoked access, on the other hand, is honoured only once the workspace is synced again, and a
+ * workspace not synced for maxStalenessSeconds goes back to Sam. The mirror trusts the email the
+ * auth proxy passes on rather than the token, so it is off by default.
+ */
+@Component
+public class AclMirror {
+  private static final Logger logger = LoggerFactory.getLogger(AclMirror.class);
+
+  // Masks are ints, so at most this many distinct actions are mirrored.
+  private static final int MAX_ACTIONS = Integer.SIZE;
+
+  private final AclMirrorConfiguration configuration;
+  private final SamPolicySource policySource;
+  private final WorkspaceDao workspaceDao;
+  private final long maxStalenessNanos;
+  private final ScheduledExecutorService scheduler;
+
+  // Only the refresh thread touches the synced ACLs.
+  private final Map<String, WorkspaceAcl> acls = new HashMap<>();
+  private final Map<String, Integer> actionBits = new ConcurrentHashMap<>();
+  private volatile Index index = Index.EMPTY;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  @Autowired
+  public AclMirror(
+      AclMirrorConfiguration configuration,
+      SamPolicySource policySource,
+      WorkspaceDao workspaceDao) {
+    this.configuration = configuration;
+    this.policySource = policySource;
+    this.workspaceDao = workspaceDao;
+    this.maxStalenessNanos = TimeUnit.SECONDS.toNanos(configuration.getMaxStalenessSeconds());
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "acl-mirror");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Start syncing in the background. This is a no-op if the mirror is disabled.
+   *
+   * @throws IllegalStateException if a full sync of the existing workspaces would take longer than
+   *     maxStalenessSeconds
+   */
+  public void startRefresh() {
+    if (!configuration.isEnabled()) {
+      return;
+    }
+    checkSyncCycle(workspaceDao.getWorkspaceIds().size());
+    scheduler.scheduleWithFixedDelay(
+        () -> {
+          try {
+            refresh(workspaceDao.getWorkspaceIds());
+          } catch (RuntimeException e) {
+            logger.warn("ACL mirror refresh failed", e);
+          }
+        },
+        0,
+        configuration.getRefreshIntervalSeconds(),
+        TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopRefresh() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * True if the mirror knows the subject may perform the action on the workspace. False means
+   * only that the mirror cannot say, and the caller should ask Sam.
+   */
+  public boolean isAllowed(String email, String workspaceId, String action) {
+    if (!configuration.isEnabled() || email == null) {
+      return false;
+    }
+    Index current = index;
+    Integer bit = actionBits.get(action);
+    Integer subject = current.subjects.get(email.toLowerCase(Locale.ROOT));
+    Integer workspace = current.workspaces.get(workspaceId);
+    if (bit != null
+        && subject != null
+        && workspace != null
+        && System.nanoTime() - current.syncedAt[workspace] <= maxStalenessNanos) {
+      int i = Arrays.binarySearch(current.subjectWorkspaces[subject], workspace);
+      if (i >= 0 && (current.subjectMasks[subject][i] & (1 << bit)) != 0) {
+        hitCount.incrementAndGet();
+        return true;
+      }
+    }
+    missCount.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Fail if syncing every workspace takes at least maxStalenessSeconds. Entries would then go stale
+   * before they come round again, and the mirror would pass part of every cycle's checks to Sam.
+   */
+  void checkSyncCycle(int workspaceCount) {
+    int batchSize = configuration.getRefreshBatchSize();
+    long batches = Math.max(1, (workspaceCount + (long) batchSize - 1) / batchSize);
+    long cycleSeconds = batches * configuration.getRefreshIntervalSeconds();
+    if (cycleSeconds >= configuration.getMaxStalenessSeconds()) {
+      throw new IllegalStateException(
+          String.format(
+              "Syncing %d workspaces takes %d s with sam.acl-mirror.refreshBatchSize=%d and"
+                  + " refreshIntervalSeconds=%d, which is not within maxStalenessSeconds=%d;"
+                  + " raise refreshBatchSize",
+              workspaceCount,
+              cycleSeconds,
+              batchSize,
+              configuration.getRefreshIntervalSeconds(),
+              configuration.getMaxStalenessSeconds()));
+    }
+  }
+
+  /** Checks the mirror answered. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Checks the mirror passed on to Sam. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** Number of workspaces currently mirrored. */
+  public int getWorkspaceCount() {
+    return index.syncedAt.length;
+  }
+
+  /** Sync the next batch of the given workspaces from Sam and rebuild the index. */
+  void refresh(Collection<String> workspaceIds) {
+    Set<String> live = new HashSet<>(workspaceIds);
+    acls.keySet().retainAll(live);
+
+    List<String> due = new ArrayList<>();
+    for (String workspaceId : live) {
+      if (!acls.containsKey(workspaceId)) {
+        due.add(workspaceId);
+      }
+    }
+    if (due.size() < configuration.getRefreshBatchSize()) {
+      List<Map.Entry<String, WorkspaceAcl>> synced = new ArrayList<>(acls.entrySet());
+      synced.sort(Comparator.comparingLong(e -> e.getValue().syncedAt));
+      for (Map.Entry<String, WorkspaceAcl> entry : synced) {
+        due.add(entry.getKey());
+      }
+    }
+    if (due.size() > configuration.getRefreshBatchSize()) {
+      due = due.subList(0, configuration.getRefreshBatchSize());
+    }
+
+    int failures = 0;
+    for (String workspaceId : due) {
+      try {
+        Map<String, Set<String>> acl = policySource.getWorkspaceAcl(workspaceId);
+        acls.put(workspaceId, new WorkspaceAcl(toMasks(acl), System.nanoTime()));
+      } catch (RuntimeException e) {
+        // Keep what we had; it goes back to Sam once it is too old.
+        if (failures++ == 0) {
+          logger.warn("Unable to sync ACL of workspace {}", workspaceId, e);
+        }
+      }
+    }
+    index = Index.build(acls);
+    logger.debug(
+        "ACL mirror synced {} workspaces ({} failed); {} mirrored",
+        due.size() - failures,
+        failures,
+        acls.size());
+  }
+
+  private Map<String, Integer> toMasks(Map<String, Set<String>> acl) {
+    Map<String, Integer> masks = new HashMap<>();
+    for (Map.Entry<String, Set<String>> member : acl.entrySet()) {
+      int mask = 0;
+      for (String action : member.getValue()) {
+        Integer bit = bitFor(action);
+        if (bit != null) {
+          mask |= 1 << bit;
+        }
+      }
+      if (mask != 0) {
+        masks.put(member.getKey(), mask);
+      }
+    }
+    return masks;
+  }
+
+  // Called only from the refresh thread, so numbering new actions needs no locking.
+  private Integer bitFor(String action) {
+    Integer bit = actionBits.get(action);
+    if (bit == null && actionBits.size() < MAX_ACTIONS) {
+      bit = actionBits.size();
+      actionBits.put(action, bit);
+    }
+    return bit;
+  }
+
+  private static class WorkspaceAcl {
+    private final Map<String, Integer> masks;
+    private final long syncedAt;
+
+    WorkspaceAcl(Map<String, Integer> masks, long syncedAt) {
+      this.masks = masks;
+      this.syncedAt = syncedAt;
+    }
+  }
+
+  /**
+   * The synced ACLs in a compact form for lookups. Subjects and workspaces are numbered, so each
+   * email and workspace id is held once however many entries refer to it. Each subject has a
+   * sorted array of its workspace numbers, searched by binary search, and a parallel array of
+   * action masks.
+   */
+  private static class Index {
+    static final Index EMPTY = build(new HashMap<>());
+
+    private final Map<String, Integer> subjects;
+    private final Map<String, Integer> workspaces;
+    private final long[] syncedAt;
+    private final int[][] subjectWorkspaces;
+    private final int[][] subjectMasks;
+
+    private Index(
+        Map<String, Integer> subjects,
+        Map<String, Integer> workspaces,
+        long[] syncedAt,
+        int[][] subjectWorkspaces,
+        int[][] subjectMasks) {
+      this.subjects = subjects;
+      this.workspaces = workspaces;
+      this.syncedAt = syncedAt;
+      this.subjectWorkspaces = subjectWorkspaces;
+      this.subjectMasks = subjectMasks;
+    }
+
+    static Index build(Map<String, WorkspaceAcl> acls) {
+      // Number the workspaces and subjects, and count each subject's entries.
+      Map<String, Integer> workspaces = new HashMap<>();
+      long[] syncedAt = new long[acls.size()];
+      Map<String, Integer> subjects = new HashMap<>();
+      List<Integer> entryCounts = new ArrayList<>();
+      List<WorkspaceAcl> ordered = new ArrayList<>(acls.size());
+      for (Map.Entry<String, WorkspaceAcl> entry : acls.entrySet()) {
+        int workspace = ordered.size();
+        workspaces.put(entry.getKey(), workspace);
+        syncedAt[workspace] = entry.getValue().syncedAt;
+        ordered.add(entry.getValue());
+        for (String email : entry.getValue().masks.keySet()) {
+          Integer subject = subjects.putIfAbsent(email, subjects.size());
+          if (subject == null) {
+            entryCounts.add(1);
+          } else {
+            entryCounts.set(subject, entryCounts.get(subject) + 1);
+          }
+        }
+      }
+
+      // Workspaces are visited in number order, so each subject's array comes out sorted.
+      int[][] subjectWorkspaces = new int[subjects.size()][];
+      int[][] subjectMasks = new int[subjects.size()][];
+      for (int s = 0; s < subjects.size(); s++) {
+        subjectWorkspaces[s] = new int[entryCounts.get(s)];
+        subjectMasks[s] = new int[entryCounts.get(s)];
+      }
+      int[] filled = new int[subjects.size()];
+      for (int workspace = 0; workspace < ordered.size(); workspace++) {
+        for (Map.Entry<String, Integer> member : ordered.get(workspace).masks.entrySet()) {
+          int subject = subjects.get(member.getKey());
+          subjectWorkspaces[subject][filled[subject]] = workspace;
+          subjectMasks[subject][filled[subject]] = member.getValue();
+          filled[subject]++;
+        }
+      }
+      return new Index(subjects, workspaces, syncedAt, subjectWorkspaces, subjectMasks);
+    }
+  }
+}
@@ -5,7 +5,8 @@ public enum AuthHeaderKeys {
   OIDC_ACCESS_TOKEN("OIDC_ACCESS_token"),
   AUTHORIZATION("Authorization"),
   OIDC_CLAIM_EMAIL("OIDC_CLAIM_email"),
-  OIDC_CLAIM_USER_ID("OIDC_CLAIM_user_id");
+  OIDC_CLAIM_USER_ID("OIDC_CLAIM_user_id"),
+  WORKSPACE_CAPABILITY("Workspace-Capability");
 
   private String keyName;
 
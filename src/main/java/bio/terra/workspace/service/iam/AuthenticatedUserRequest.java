@@ -11,6 +11,7 @@ public class AuthenticatedUserRequest {
   private String subjectId;
   private Optional<String> token;
   private UUID reqId;
+  private Capability capability;
 
   public AuthenticatedUserRequest() {
     this.reqId = UUID.randomUUID();
@@ -65,4 +66,15 @@ public class AuthenticatedUserRequest {
     this.reqId = reqId;
     return this;
   }
+
+  // Only good for the request it came with, so it is not kept in job parameters.
+  @JsonIgnore
+  public Capability getCapability() {
+    return capability;
+  }
+
+  public AuthenticatedUserRequest capability(Capability capability) {
+    this.capability = capability;
+    return this;
+  }
 }
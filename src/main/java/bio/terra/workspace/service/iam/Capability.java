@@ -0,0 +1,60 @@
+package bio.terra.workspace.service.iam;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+
+/** A verified capability: what its subject may do on one workspace, until it expires. */
+public class Capability {
+  private final String subjectId;
+  private final String email;
+  private final String workspaceId;
+  private final Set<String> actions;
+  private final Instant issuedAt;
+  private final Instant expiresAt;
+
+  public Capability(
+      String subjectId,
+      String email,
+      String workspaceId,
+      Set<String> actions,
+      Instant issuedAt,
+      Instant expiresAt) {
+    this.subjectId = subjectId;
+    this.email = email;
+    this.workspaceId = workspaceId;
+    this.actions = Collections.unmodifiableSet(actions);
+    this.issuedAt = issuedAt;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getSubjectId() {
+    return subjectId;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getWorkspaceId() {
+    return workspaceId;
+  }
+
+  public Set<String> getActions() {
+    return actions;
+  }
+
+  public Instant getIssuedAt() {
+    return issuedAt;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+
+  public boolean allows(String workspaceId, String action) {
+    return this.workspaceId.equals(workspaceId)
+        && actions.contains(action)
+        && Instant.now().isBefore(expiresAt);
+  }
+}
@@ -0,0 +1,204 @@
+package bio.terra.workspace.service.iam;
+
+import bio.terra.workspace.app.configuration.CapabilityConfiguration;
+import bio.terra.workspace.common.utils.LocalCache;
+import bio.terra.workspace.db.WorkspaceCache;
+import bio.terra.workspace.generated.model.CreatedCapability;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and verifies capabilities: short-lived, HMAC-signed statements that a subject may perform
+ * some actions on a workspace. A caller that makes many requests against one workspace gets a
+ * capability once, after the usual Sam check, and sends it with each request; requests it covers
+ * are then authorized without calling Sam.
+ *
+ * <p>A capability is a base64url payload and its base64url HMAC-SHA256, joined by a dot. The
+ * payload holds the subject id, email, workspace id, actions and issue and expiry times.
+ *
+ * <p>Capabilities for a workspace are revoked when it is deleted, on every instance, through the
+ * workspace cache's notifications. If an instance loses its notification connection it cannot
+ * know what it missed, so it stops honouring every capability issued before then. A capability
+ * that is not honoured is simply ignored, and the request is authorized by Sam as usual.
+ */
+@Component
+public class CapabilityService implements WorkspaceCache.DeletionListener {
+  private static final Logger logger = LoggerFactory.getLogger(CapabilityService.class);
+
+  private static final String VERSION = "1";
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int MIN_KEY_BYTES = 32;
+  private static final int MAX_REVOKED_WORKSPACES = 100000;
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final CapabilityConfiguration configuration;
+  private final ThreadLocal<Mac> mac;
+  // A capability lasts at most the TTL, so revocations need to be remembered no longer than that.
+  private final LocalCache<String, Boolean> revokedWorkspaces;
+  private volatile Instant notBefore = Instant.EPOCH;
+
+  private final AtomicLong issuedCount = new AtomicLong();
+  private final AtomicLong honouredCount = new AtomicLong();
+  private final AtomicLong ignoredCount = new AtomicLong();
+
+  @Autowired
+  public CapabilityService(CapabilityConfiguration configuration, WorkspaceCache workspaceCache) {
+    this.configuration = configuration;
+    this.revokedWorkspaces =
+        new LocalCache<>(MAX_REVOKED_WORKSPACES, configuration.getTtlSeconds(), TimeUnit.SECONDS);
+    if (!configuration.isEnabled()) {
+      this.mac = null;
+      return;
+    }
+    if (configuration.getSigningKey() == null) {
+      throw new IllegalStateException("workspace.capability.signingKey is not set");
+    }
+    byte[] key = Base64.getDecoder().decode(configuration.getSigningKey());
+    if (key.length < MIN_KEY_BYTES) {
+      throw new IllegalStateException(
+          "workspace.capability.signingKey must be at least " + MIN_KEY_BYTES + " bytes");
+    }
+    SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+    this.mac =
+        ThreadLocal.withInitial(
+            () -> {
+              try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+              } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM, e);
+              }
+            });
+    workspaceCache.addDeletionListener(this);
+  }
+
+  public boolean isEnabled() {
+    return configuration.isEnabled();
+  }
+
+  /**
+   * Issue a capability for the user. The caller must already have checked that the user may
+   * perform every one of the actions on the workspace.
+   */
+  public CreatedCapability issue(
+      AuthenticatedUserRequest userReq, String workspaceId, Collection<String> actions) {
+    Instant issuedAt = Instant.now();
+    Instant expiresAt = issuedAt.plusSeconds(configuration.getTtlSeconds());
+    String payload =
+        String.join(
+            "\n",
+            VERSION,
+            Objects.toString(userReq.getSubjectId(), ""),
+            Objects.toString(userReq.getEmail(), ""),
+            workspaceId,
+            String.join(",", new TreeSet<>(actions)),
+            Long.toString(issuedAt.toEpochMilli()),
+            Long.toString(expiresAt.toEpochMilli()));
+    String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    issuedCount.incrementAndGet();
+    return new CreatedCapability()
+        .token(encoded + "." + ENCODER.encodeToString(sign(encoded)))
+        .expiresAt(expiresAt.toString());
+  }
+
+  /**
+   * The capability in the token, or null if it should not be honoured: capabilities are disabled,
+   * or the token is malformed, forged, expired or revoked.
+   */
+  public Capability verify(String token) {
+    if (!isEnabled()) {
+      return null;
+    }
+    Capability capability = parse(token);
+    if (capability == null) {
+      ignoredCount.incrementAndGet();
+      return null;
+    }
+    if (!Instant.now().isBefore(capability.getExpiresAt())
+        || !capability.getIssuedAt().isAfter(notBefore)
+        || revokedWorkspaces.getIfPresent(capability.getWorkspaceId()) != null) {
+      ignoredCount.incrementAndGet();
+      return null;
+    }
+    honouredCount.incrementAndGet();
+    return capability;
+  }
+
+  public long getIssuedCount() {
+    return issuedCount.get();
+  }
+
+  /** Capabilities presented with a request and used to authorize it. */
+  public long getHonouredCount() {
+    return honouredCount.get();
+  }
+
+  /** Capabilities presented with a request but not honoured. */
+  public long getIgnoredCount() {
+    return ignoredCount.get();
+  }
+
+  @Override
+  public void workspaceDeleted(String workspaceId) {
+    revokedWorkspaces.put(workspaceId, true);
+  }
+
+  @Override
+  public void deletionsMissed() {
+    notBefore = Instant.now();
+    logger.warn("Workspace deletes may have been missed; ignoring capabilities issued before now");
+  }
+
+  private Capability parse(String token) {
+    int dot = token.indexOf('.');
+    if (dot < 0) {
+      return null;
+    }
+    String encoded = token.substring(0, dot);
+    try {
+      byte[] signature = DECODER.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(signature, sign(encoded))) {
+        logger.info("Ignoring a capability with an invalid signature");
+        return null;
+      }
+      String[] fields = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split("\n", -1);
+      if (fields.length != 7 || !VERSION.equals(fields[0])) {
+        return null;
+      }
+      Set<String> actions = new HashSet<>(Arrays.asList(fields[4].split(",")));
+      return new Capability(
+          fields[1].isEmpty() ? null : fields[1],
+          fields[2].isEmpty() ? null : fields[2],
+          fields[3],
+          actions,
+          Instant.ofEpochMilli(Long.parseLong(fields[5])),
+          Instant.ofEpochMilli(Long.parseLong(fields[6])));
+    } catch (IllegalArgumentException e) {
+      // Bad base64 or a bad number; NumberFormatException is an IllegalArgumentException.
+      return null;
+    }
+  }
+
+  private byte[] sign(String encodedPayload) {
+    return mac.get().doFinal(encodedPayload.getBytes(StandardCharsets.UTF_8));
+  }
+}
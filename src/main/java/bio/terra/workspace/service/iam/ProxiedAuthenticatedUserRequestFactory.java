@@ -1,12 +1,20 @@
 package bio.terra.workspace.service.iam;
 
+import java.util.Objects;
 import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ProxiedAuthenticatedUserRequestFactory implements AuthenticatedUserRequestFactory {
+  private final CapabilityService capabilityService;
+
+  @Autowired
+  public ProxiedAuthenticatedUserRequestFactory(CapabilityService capabilityService) {
+    this.capabilityService = capabilityService;
+  }
 
   // Method to build an AuthenticatedUserRequest from data available to the controller
   public AuthenticatedUserRequest from(HttpServletRequest servletRequest) {
@@ -18,9 +26,28 @@ public class ProxiedAuthenticatedUserRequestFactory implements AuthenticatedUser
                       servletRequest.getHeader(AuthHeaderKeys.AUTHORIZATION.getKeyName());
                   return StringUtils.substring(authHeader, "Bearer:".length());
                 });
-    return new AuthenticatedUserRequest()
-        .email(servletRequest.getHeader(AuthHeaderKeys.OIDC_CLAIM_EMAIL.getKeyName()))
-        .subjectId(servletRequest.getHeader(AuthHeaderKeys.OIDC_CLAIM_USER_ID.getKeyName()))
-        .token(Optional.ofNullable(token));
+    AuthenticatedUserRequest userReq =
+        new AuthenticatedUserRequest()
+            .email(servletRequest.getHeader(AuthHeaderKeys.OIDC_CLAIM_EMAIL.getKeyName()))
+            .subjectId(servletRequest.getHeader(AuthHeaderKeys.OIDC_CLAIM_USER_ID.getKeyName()))
+            .token(Optional.ofNullable(token));
+
+    // A capability is verified here, without calling Sam. It is only used if it was issued to the
+    // user the proxy authenticated; it is never a credential by itself, so without a subject from
+    // the proxy it is ignored, and the request's identity always comes from the proxy.
+    String capabilityToken =
+        servletRequest.getHeader(AuthHeaderKeys.WORKSPACE_CAPABILITY.getKeyName());
+    if (capabilityToken != null) {
+      Capability capability = capabilityService.verify(capabilityToken);
+      if (capability != null && isIssuedTo(capability, userReq)) {
+        userReq.capability(capability);
+      }
+    }
+    return userReq;
+  }
+
+  private static boolean isIssuedTo(Capability capability, AuthenticatedUserRequest userReq) {
+    return userReq.getSubjectId() != null
+        && Objects.equals(userReq.getSubjectId(), capability.getSubjectId());
   }
 }
@@ -0,0 +1,114 @@
+package bio.terra.workspace.service.iam;
+
+import bio.terra.workspace.app.configuration.AclMirrorConfiguration;
+import bio.terra.workspace.app.configuration.SamConfiguration;
+import bio.terra.workspace.common.exception.SamApiException;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.SamUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.broadinstitute.dsde.workbench.client.sam.model.AccessPolicyMembership;
+import org.broadinstitute.dsde.workbench.client.sam.model.AccessPolicyResponseEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads workspace policies from Sam for the ACL mirror, as the account whose token is in the
+ * configured file. Calls share the Sam bulkhead with request traffic but not the circuit breaker:
+ * a background sync should not be what trips it.
+ *
+ * <p>Roles are expanded into actions using the configured role table. Members that are groups
+ * are kept under the group's email, which no user has, so their users are still checked by Sam.
+ */
+@Component
+public class SamApiPolicySource implements SamPolicySource {
+  private final SamConfiguration samConfig;
+  private final AclMirrorConfiguration mirrorConfig;
+  private final Bulkhead samBulkhead;
+
+  @Autowired
+  public SamApiPolicySource(
+      SamConfiguration samConfig,
+      AclMirrorConfiguration mirrorConfig,
+      @Qualifier("samBulkhead") Bulkhead samBulkhead) {
+    this.samConfig = samConfig;
+    this.mirrorConfig = mirrorConfig;
+    this.samBulkhead = samBulkhead;
+  }
+
+  @Override
+  public Map<String, Set<String>> getWorkspaceAcl(String workspaceId) {
+    ResourcesApi resourcesApi = new ResourcesApi(getApiClient());
+    List<AccessPolicyResponseEntry> policies =
+        samBulkhead.call(
+            () -> {
+              try {
+                return resourcesApi.listResourcePolicies(
+                    SamUtils.SAM_WORKSPACE_RESOURCE, workspaceId);
+              } catch (ApiException apiException) {
+                if (apiException.getCode() == HttpStatus.NOT_FOUND.value()) {
+                  return Collections.<AccessPolicyResponseEntry>emptyList();
+                }
+                throw new SamApiException(apiException);
+              }
+            });
+
+    Map<String, Set<String>> acl = new HashMap<>();
+    for (AccessPolicyResponseEntry entry : policies) {
+      AccessPolicyMembership policy = entry.getPolicy();
+      if (policy == null || policy.getMemberEmails() == null) {
+        continue;
+      }
+      Set<String> actions = new HashSet<>();
+      if (policy.getActions() != null) {
+        actions.addAll(policy.getActions());
+      }
+      if (policy.getRoles() != null) {
+        for (String role : policy.getRoles()) {
+          actions.addAll(
+              mirrorConfig.getRoleActions().getOrDefault(role, Collections.emptyList()));
+        }
+      }
+      for (String member : policy.getMemberEmails()) {
+        acl.computeIfAbsent(member.toLowerCase(Locale.ROOT), m -> new HashSet<>())
+            .addAll(actions);
+      }
+    }
+    return acl;
+  }
+
+  private ApiClient getApiClient() {
+    ApiClient client = new ApiClient();
+    client.setAccessToken(readToken());
+    int timeoutMillis = samConfig.getTimeoutSeconds() * 1000;
+    client.setConnectTimeout(timeoutMillis);
+    client.setReadTimeout(timeoutMillis);
+    return client.setBasePath(samConfig.getBasePath());
+  }
+
+  private String readToken() {
+    String tokenFile = mirrorConfig.getTokenFile();
+    if (tokenFile == null || tokenFile.isEmpty()) {
+      throw new IllegalStateException("sam.acl-mirror.tokenFile is not set");
+    }
+    try {
+      return new String(Files.readAllBytes(Paths.get(tokenFile)), StandardCharsets.UTF_8).trim();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the ACL mirror token from " + tokenFile, e);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package bio.terra.workspace.service.iam;
+
+import java.util.Map;
+import java.util.Set;
+
+/** Where the ACL mirror reads workspace policies from. */
+public interface SamPolicySource {
+
+  /**
+   * The actions each direct member of the workspace's policies may perform, keyed by lower-case
+   * member email. A workspace Sam does not know has no members.
+   */
+  Map<String, Set<String>> getWorkspaceAcl(String workspaceId);
+}
@@ -1,64 +1,306 @@
 package bio.terra.workspace.service.iam;
 
+import bio.terra.workspace.app.configuration.SamCircuitBreakerConfiguration;
 import bio.terra.workspace.app.configuration.SamConfiguration;
+import bio.terra.workspace.common.exception.CircuitOpenException;
+import bio.terra.workspace.common.exception.DeadlineExceededException;
 import bio.terra.workspace.common.exception.SamApiException;
 import bio.terra.workspace.common.exception.SamUnauthorizedException;
+import bio.terra.workspace.common.jfr.SamCallEvent;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.CircuitBreaker;
+import bio.terra.workspace.common.utils.LocalCache;
+import bio.terra.workspace.common.utils.RequestTiming;
 import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.common.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
 import org.broadinstitute.dsde.workbench.client.sam.ApiException;
 import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.broadinstitute.dsde.workbench.client.sam.api.StatusApi;
+import org.broadinstitute.dsde.workbench.client.sam.model.ResourceAndAccessPolicy;
+import org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+/**
+ * Calls to Sam. Each one runs in the Sam bulkhead, so it is bounded by the Sam timeout and the
+ * request's deadline, and cannot hold a request thread while Sam is slow. All of them also go
+ * through a circuit breaker, so that while Sam is failing we answer 503 straight away instead of
+ * adding to its load.
+ *
+ * <p>The calls flight steps make are the exception. They run on the flight's own thread, bounded
+ * only by the Sam timeout, and skip the breaker: a flight has no one waiting on a quick 503, and
+ * failing it while the breaker is open would only start an undo that needs Sam just the same. The
+ * status check's call to Sam runs the same way, so that it reports Sam's health rather than the
+ * state of our own breaker.
+ *
+ * <p>Identical authorization checks made at the same time share one Sam call. A page load fires
+ * several requests for the same workspace at once, and each would otherwise ask Sam the same
+ * question with the same token.
+ *
+ * <p>Workspace checks covered by a capability the request carries (see {@link CapabilityService})
+ * are allowed without asking Sam.
+ *
+ * <p>Optionally, workspace checks are first answered from the {@link AclMirror}, and only those it
+ * cannot allow go to Sam.
+ *
+ * <p>Optionally, workspace reads Sam recently allowed are allowed again while the breaker is open.
+ * This trades a few minutes of staleness in revoked read access for staying up during a Sam
+ * incident, so it is off by default.
+ *
+ * <p>Each call is timed as workspace.sam.call, tagged with the operation and its outcome. The time
+ * includes any wait for a bulkhead thread, since the request waits for that too. It is also
+ * recorded as a {@link SamCallEvent} for Flight Recorder.
+ */
 @Component
 public class SamService {
+  private static final Logger logger = LoggerFactory.getLogger(SamService.class);
+
   private final SamConfiguration samConfig;
+  private final Bulkhead samBulkhead;
+  private final CircuitBreaker circuitBreaker;
+  private final boolean staleDecisionFallbackEnabled;
+  private final LocalCache<DecisionKey, Boolean> recentReadDecisions;
+  private final AtomicLong staleDecisionCount = new AtomicLong();
+  private final SingleFlight<DecisionKey, Boolean> authorizationCalls = new SingleFlight<>();
+  private final AclMirror aclMirror;
+  private final MeterRegistry meterRegistry;
 
   @Autowired
-  public SamService(SamConfiguration samConfig) {
+  public SamService(
+      SamConfiguration samConfig,
+      SamCircuitBreakerConfiguration breakerConfig,
+      @Qualifier("samBulkhead") Bulkhead samBulkhead,
+      AclMirror aclMirror,
+      MeterRegistry meterRegistry) {
     this.samConfig = samConfig;
+    this.samBulkhead = samBulkhead;
+    this.aclMirror = aclMirror;
+    this.meterRegistry = meterRegistry;
+    this.circuitBreaker =
+        new CircuitBreaker(
+            "sam",
+            breakerConfig.getWindowSize(),
+            breakerConfig.getMinimumCalls(),
+            breakerConfig.getFailureRatePercent(),
+            breakerConfig.getSlowCallRatePercent(),
+            breakerConfig.getSlowCallMillis(),
+            TimeUnit.SECONDS.toMillis(breakerConfig.getOpenSeconds()),
+            breakerConfig.getHalfOpenProbes(),
+            SamService::isSamFailure);
+    this.staleDecisionFallbackEnabled = breakerConfig.isStaleDecisionFallbackEnabled();
+    this.recentReadDecisions =
+        new LocalCache<>(
+            breakerConfig.getStaleDecisionMaxEntries(),
+            breakerConfig.getStaleDecisionSeconds(),
+            TimeUnit.SECONDS);
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /** Coalescing of concurrent identical isAuthorized calls. */
+  public SingleFlight<?, ?> getAuthorizationCalls() {
+    return authorizationCalls;
+  }
+
+  /** Number of reads allowed from a recent decision because the breaker was open. */
+  public long getStaleDecisionCount() {
+    return staleDecisionCount.get();
+  }
+
+  private <T> T callSam(String operation, Callable<T> work) {
+    return recordSamCall(operation, () -> circuitBreaker.call(() -> samBulkhead.call(work)));
+  }
+
+  // Calls made by flight steps and the status check, on the caller's thread; see the class comment.
+  private <T> T callSamDirectly(String operation, Supplier<T> work) {
+    return recordSamCall(operation, work);
+  }
+
+  private <T> T recordSamCall(String operation, Supplier<T> call) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    long timingStart = RequestTiming.begin();
+    SamCallEvent event = new SamCallEvent();
+    event.begin();
+    String outcome = "success";
+    try {
+      return call.get();
+    } catch (RuntimeException e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      RequestTiming.end(RequestTiming.Phase.SAM, timingStart);
+      sample.stop(
+          meterRegistry.timer("workspace.sam.call", "operation", operation, "outcome", outcome));
+      event.operation = operation;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  // Sam answering no, or not found, is a working Sam. Only errors on its side, and calls it did
+  // not answer in time, count against it; a full bulkhead or a deadline that passed before the
+  // call was made are our own limits, not Sam's.
+  private static boolean isSamFailure(RuntimeException e) {
+    if (e instanceof SamApiException) {
+      HttpStatus status = ((SamApiException) e).getStatusCode();
+      return status == null || status.is5xxServerError();
+    }
+    return e instanceof DeadlineExceededException && e.getCause() instanceof TimeoutException;
   }
 
   private ApiClient getApiClient(String accessToken) {
     ApiClient client = new ApiClient();
     client.setAccessToken(accessToken);
-    return client.setBasePath(samConfig.getBasePath());
+    return withTimeouts(client).setBasePath(samConfig.getBasePath());
+  }
+
+  // The bulkhead stops waiting at the timeout; this also frees its thread.
+  private ApiClient withTimeouts(ApiClient client) {
+    int timeoutMillis = samConfig.getTimeoutSeconds() * 1000;
+    client.setConnectTimeout(timeoutMillis);
+    client.setReadTimeout(timeoutMillis);
+    return client;
   }
 
   private ResourcesApi samResourcesApi(String accessToken) {
     return new ResourcesApi(getApiClient(accessToken));
   }
 
+  /**
+   * Sam's own view of its health, asked whatever the state of the breaker. The status endpoint is
+   * unauthenticated.
+   */
+  public SystemStatus getSystemStatus() {
+    StatusApi statusApi =
+        new StatusApi(withTimeouts(new ApiClient()).setBasePath(samConfig.getBasePath()));
+    return callSamDirectly(
+        "getSystemStatus",
+        () -> {
+          try {
+            return statusApi.getSystemStatus();
+          } catch (ApiException apiException) {
+            throw new SamApiException(apiException);
+          }
+        });
+  }
+
+  /** Called from flight steps only. */
   public void createWorkspaceWithDefaults(String authToken, UUID id) {
     ResourcesApi resourceApi = samResourcesApi(authToken);
-    try {
-      resourceApi.createResourceWithDefaults(SamUtils.SAM_WORKSPACE_RESOURCE, id.toString());
-    } catch (ApiException apiException) {
-      throw new SamApiException(apiException);
-    }
+    callSamDirectly(
+        "createResourceWithDefaults",
+        () -> {
+          try {
+            resourceApi.createResourceWithDefaults(SamUtils.SAM_WORKSPACE_RESOURCE, id.toString());
+          } catch (ApiException apiException) {
+            throw new SamApiException(apiException);
+          }
+          return null;
+        });
   }
 
+  /** Called from flight steps only. */
   public void deleteWorkspace(String authToken, UUID id) {
     ResourcesApi resourceApi = samResourcesApi(authToken);
-    try {
-      resourceApi.deleteResource(SamUtils.SAM_WORKSPACE_RESOURCE, id.toString());
-    } catch (ApiException apiException) {
-      throw new SamApiException(apiException);
-    }
+    callSamDirectly(
+        "deleteResource",
+        () -> {
+          try {
+            resourceApi.deleteResource(SamUtils.SAM_WORKSPACE_RESOURCE, id.toString());
+          } catch (ApiException apiException) {
+            throw new SamApiException(apiException);
+          }
+          return null;
+        });
+  }
+
+  /** Ids of the workspaces the user has any access to, in one call. */
+  public List<String> listWorkspaceIds(String accessToken) {
+    ResourcesApi resourceApi = samResourcesApi(accessToken);
+    List<ResourceAndAccessPolicy> resources =
+        callSam(
+            "listResourcesAndPolicies",
+            () -> {
+              try {
+                return resourceApi.listResourcesAndPolicies(SamUtils.SAM_WORKSPACE_RESOURCE);
+              } catch (ApiException apiException) {
+                throw new SamApiException(apiException);
+              }
+            });
+    // A workspace appears once for each of the user's policies on it.
+    return resources.stream()
+        .map(ResourceAndAccessPolicy::getResourceId)
+        .distinct()
+        .collect(Collectors.toList());
   }
 
   public boolean isAuthorized(
       String accessToken, String iamResourceType, String resourceId, String action) {
     ResourcesApi resourceApi = samResourcesApi(accessToken);
+    DecisionKey key = new DecisionKey(accessToken, iamResourceType, resourceId, action);
+    Supplier<Boolean> check =
+        () ->
+            callSam(
+                "resourceAction",
+                () -> {
+                  try {
+                    return resourceApi.resourceAction(iamResourceType, resourceId, action);
+                  } catch (ApiException samException) {
+                    throw new SamApiException(samException);
+                  }
+                });
+    boolean authorized;
     try {
-      return resourceApi.resourceAction(iamResourceType, resourceId, action);
-    } catch (ApiException samException) {
-      throw new SamApiException(samException);
+      authorized =
+          samConfig.isCoalesceAuthorizationChecks()
+              ? authorizationCalls.execute(key, check)
+              : check.get();
+    } catch (CircuitOpenException e) {
+      if (staleDecisionFallbackEnabled && recentReadDecisions.getIfPresent(key) != null) {
+        staleDecisionCount.incrementAndGet();
+        logger.info(
+            "Sam circuit is open; allowing {} on {} from a recent decision", action, resourceId);
+        return true;
+      }
+      throw e;
+    }
+    if (authorized && staleDecisionFallbackEnabled && isWorkspaceRead(iamResourceType, action)) {
+      recentReadDecisions.put(key, true);
     }
+    return authorized;
+  }
+
+  private static boolean isWorkspaceRead(String iamResourceType, String action) {
+    return SamUtils.SAM_WORKSPACE_RESOURCE.equals(iamResourceType)
+        && SamUtils.SAM_WORKSPACE_READ_ACTION.equals(action);
   }
 
   public void workspaceAuthz(AuthenticatedUserRequest userReq, String workspaceId, String action) {
+    Capability capability = userReq.getCapability();
+    if (capability != null && capability.allows(workspaceId, action)) {
+      return;
+    }
+    if (aclMirror.isAllowed(userReq.getEmail(), workspaceId, action)) {
+      return;
+    }
     boolean isAuthorized =
         isAuthorized(
             userReq.getRequiredToken(), SamUtils.SAM_WORKSPACE_RESOURCE, workspaceId, action);
@@ -72,4 +314,39 @@ public class SamService {
               + workspaceId
               + " or it doesn't exist.");
   }
+
+  // The token is part of the key, so only calls made as the same user are ever combined.
+  private static class DecisionKey {
+    private final String accessToken;
+    private final String resourceType;
+    private final String resourceId;
+    private final String action;
+
+    DecisionKey(String accessToken, String resourceType, String resourceId, String action) {
+      this.accessToken = accessToken;
+      this.resourceType = resourceType;
+      this.resourceId = resourceId;
+      this.action = action;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DecisionKey)) {
+        return false;
+      }
+      DecisionKey that = (DecisionKey) o;
+      return Objects.equals(accessToken, that.accessToken)
+          && Objects.equals(resourceType, that.resourceType)
+          && Objects.equals(resourceId, that.resourceId)
+          && Objects.equals(action, that.action);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(accessToken, resourceType, resourceId, action);
+    }
+  }
 }
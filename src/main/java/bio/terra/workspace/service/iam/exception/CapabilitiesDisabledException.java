@@ -0,0 +1,9 @@
+package bio.terra.workspace.service.iam.exception;
+
+import bio.terra.workspace.common.exception.NotImplementedException;
+
+public class CapabilitiesDisabledException extends NotImplementedException {
+  public CapabilitiesDisabledException(String message) {
+    super(message);
+  }
+}
@@ -1,15 +1,18 @@
 package bio.terra.workspace.service.job;
 
 import bio.terra.stairway.Flight;
-import bio.terra.stairway.FlightMap;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.job.exception.InvalidJobParameterException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class JobBuilder {
 
   private JobService jobServiceRef;
   private Class<? extends Flight> flightClass;
-  private FlightMap jobParameterMap;
+  // Kept as a plain map rather than a FlightMap so that the job can be serialized onto the flight
+  // queue; JobService builds the FlightMap when the job is started.
+  private Map<String, Object> jobParameterMap;
   private String jobId;
 
   // constructor only takes required parameters
@@ -25,7 +28,7 @@ public class JobBuilder {
     this.jobId = jobId;
 
     // initialize with required parameters
-    this.jobParameterMap = new FlightMap();
+    this.jobParameterMap = new LinkedHashMap<>();
     jobParameterMap.put(JobMapKeys.DESCRIPTION.getKeyName(), description);
     jobParameterMap.put(JobMapKeys.REQUEST.getKeyName(), request);
     jobParameterMap.put(JobMapKeys.AUTH_USER_INFO.getKeyName(), userReq);
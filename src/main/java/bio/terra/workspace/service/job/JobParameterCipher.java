@@ -0,0 +1,72 @@
+package bio.terra.workspace.service.job;
+
+import bio.terra.workspace.service.job.exception.JobQueueException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encrypts serialized job parameters while they wait in the flight queue. They include the
+ * submitting user's bearer token, which must not sit in the database in plaintext. Every instance
+ * must have the same key, since any of them may start the job.
+ *
+ * <p>A ciphertext is the base64 of a random 12 byte IV followed by the AES-256-GCM output, so
+ * tampering is detected as well as hidden.
+ */
+public class JobParameterCipher {
+  private static final String ALGORITHM = "AES/GCM/NoPadding";
+  private static final int KEY_BYTES = 32;
+  private static final int IV_BYTES = 12;
+  private static final int TAG_BITS = 128;
+
+  private final SecretKeySpec key;
+  private final SecureRandom random = new SecureRandom();
+
+  /** @param base64Key base64 of a 32 byte AES key; workspace.job-queue.parameterKey */
+  public JobParameterCipher(String base64Key) {
+    if (base64Key == null) {
+      throw new IllegalStateException("workspace.job-queue.parameterKey is not set");
+    }
+    byte[] keyBytes = Base64.getDecoder().decode(base64Key);
+    if (keyBytes.length != KEY_BYTES) {
+      throw new IllegalStateException(
+          "workspace.job-queue.parameterKey must be " + KEY_BYTES + " bytes");
+    }
+    this.key = new SecretKeySpec(keyBytes, "AES");
+  }
+
+  public String encrypt(String plaintext) {
+    byte[] iv = new byte[IV_BYTES];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = Cipher.getInstance(ALGORITHM);
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+      byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder()
+          .encodeToString(
+              ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+    } catch (GeneralSecurityException e) {
+      throw new JobQueueException("Unable to encrypt job parameters", e);
+    }
+  }
+
+  public String decrypt(String encrypted) {
+    try {
+      byte[] bytes = Base64.getDecoder().decode(encrypted);
+      if (bytes.length <= IV_BYTES) {
+        throw new JobQueueException("Encrypted job parameters are truncated");
+      }
+      Cipher cipher = Cipher.getInstance(ALGORITHM);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+      byte[] plaintext = cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES);
+      return new String(plaintext, StandardCharsets.UTF_8);
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new JobQueueException("Unable to decrypt job parameters", e);
+    }
+  }
+}
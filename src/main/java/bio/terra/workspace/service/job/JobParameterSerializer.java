@@ -0,0 +1,73 @@
+package bio.terra.workspace.service.job;
+
+import bio.terra.workspace.service.job.exception.JobQueueException;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns job parameters into JSON for the flight queue and back. Each value is stored with its class
+ * name so it can be read back as the same type the JobBuilder was given.
+ */
+public class JobParameterSerializer {
+  private static final String TYPE = "type";
+  private static final String VALUE = "value";
+
+  private final ObjectMapper objectMapper;
+
+  public JobParameterSerializer(ObjectMapper objectMapper) {
+    // Read and write fields directly: some parameter classes, such as AuthenticatedUserRequest,
+    // only have fluent setters, which Jackson does not recognize.
+    this.objectMapper =
+        objectMapper
+            .copy()
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .setVisibility(PropertyAccessor.GETTER, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.IS_GETTER, JsonAutoDetect.Visibility.NONE);
+  }
+
+  public String serialize(Map<String, Object> parameters) {
+    ObjectNode root = objectMapper.createObjectNode();
+    for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+      ObjectNode entry = root.putObject(parameter.getKey());
+      Object value = parameter.getValue();
+      if (value != null) {
+        entry.put(TYPE, value.getClass().getName());
+        entry.set(VALUE, objectMapper.valueToTree(value));
+      }
+    }
+    try {
+      return objectMapper.writeValueAsString(root);
+    } catch (JsonProcessingException e) {
+      throw new JobQueueException("Unable to serialize job parameters", e);
+    }
+  }
+
+  public Map<String, Object> deserialize(String serialized) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    try {
+      JsonNode root = objectMapper.readTree(serialized);
+      Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        JsonNode entry = field.getValue();
+        Object value = null;
+        if (entry.has(TYPE)) {
+          Class<?> clazz = Class.forName(entry.get(TYPE).asText());
+          value = objectMapper.treeToValue(entry.get(VALUE), clazz);
+        }
+        parameters.put(field.getKey(), value);
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new JobQueueException("Unable to deserialize job parameters", e);
+    }
+    return parameters;
+  }
+}
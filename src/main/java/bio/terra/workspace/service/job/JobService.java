@@ -11,8 +11,16 @@ import bio.terra.stairway.exception.DatabaseOperationException;
 import bio.terra.stairway.exception.FlightNotFoundException;
 import bio.terra.stairway.exception.StairwayException;
 import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.JobQueueConfiguration;
 import bio.terra.workspace.app.configuration.StairwayJdbcConfiguration;
+import bio.terra.workspace.common.jfr.FlightEvent;
+import bio.terra.workspace.common.jfr.FlightEvents;
+import bio.terra.workspace.common.jfr.FlightSubmittedEvent;
+import bio.terra.workspace.common.utils.RequestTiming;
 import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.db.FlightOwnerDao;
+import bio.terra.workspace.db.FlightQueueDao;
+import bio.terra.workspace.db.FlightQueueDao.QueuedFlight;
 import bio.terra.workspace.generated.model.JobModel;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.SamService;
@@ -20,29 +28,77 @@ import bio.terra.workspace.service.job.exception.InternalStairwayException;
 import bio.terra.workspace.service.job.exception.InvalidResultStateException;
 import bio.terra.workspace.service.job.exception.JobNotCompleteException;
 import bio.terra.workspace.service.job.exception.JobNotFoundException;
+import bio.terra.workspace.service.job.exception.JobQueueException;
 import bio.terra.workspace.service.job.exception.JobResponseException;
+import bio.terra.workspace.service.job.exception.JobServiceDrainingException;
 import bio.terra.workspace.service.job.exception.JobUnauthorizedException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+// Flights look up the bulkheads and workspace databases they use at run time, so they are not
+// constructor dependencies. Declaring them makes Spring destroy this bean, which waits for running
+// flights, before it shuts any of them down.
 @Component
+@DependsOn({"samBulkhead", "dataRepoBulkhead", "speculativeRead", "shardRouter"})
 public class JobService {
 
   private static final Logger logger = LoggerFactory.getLogger(JobService.class);
+  private static final long WAIT_POLL_MILLIS = 10000;
   private final Stairway stairway;
   private final SamService samService;
   private final ApplicationConfiguration appConfig;
   private final StairwayJdbcConfiguration stairwayJdbcConfiguration;
+  private final ThreadPoolExecutor executorService;
+  // The thread running Stairway's initialize, while it does. Every flight submitted from it is one
+  // Stairway is recovering; flights from the queue poller or requests come from other threads.
+  private volatile Thread recoveringThread;
+  private final AtomicInteger recoveredFlightCount = new AtomicInteger();
+  private final AtomicInteger unfinishedRecoveredFlights = new AtomicInteger();
+  private volatile long recoveryStartNanos;
+  private volatile long recoveryNanos;
+  private volatile boolean recoveryComplete;
+  // Identifies this instance as the owner of the flights it runs; see FlightOwnerDao.
+  private final String instanceId = UUID.randomUUID().toString();
+  private final FlightOwnerDao flightOwnerDao;
+  // Flights Stairway handed us that another live instance owns, by flight id. They are run here
+  // only if that instance stops before finishing them.
+  private final Map<String, Callable<?>> withheldFlights = new ConcurrentHashMap<>();
+  private ScheduledExecutorService heartbeat;
+  private final JobQueueConfiguration jobQueueConfiguration;
+  private final FlightQueueDao flightQueueDao;
+  private final JobParameterSerializer parameterSerializer;
+  // Only used, and its key only required, when the job queue is enabled.
+  private final JobParameterCipher parameterCipher;
+  private volatile boolean queuePollerRunning;
+  private Thread queuePoller;
+  // Set when shutdown begins; no new jobs are accepted after that.
+  private volatile boolean draining;
+  // Set when the drain is over; callers still waiting for a job are told to look elsewhere.
+  private volatile boolean handedOff;
+  private final Object drainSignal = new Object();
 
   @Autowired
   public JobService(
@@ -50,13 +106,77 @@ public class JobService {
       ApplicationConfiguration appConfig,
       StairwayJdbcConfiguration stairwayJdbcConfiguration,
       ApplicationContext applicationContext,
-      ObjectMapper objectMapper) {
+      ObjectMapper objectMapper,
+      JobQueueConfiguration jobQueueConfiguration,
+      FlightQueueDao flightQueueDao,
+      FlightOwnerDao flightOwnerDao) {
+    if (appConfig.getFlightHeartbeatSeconds() <= 0
+        || appConfig.getFlightOwnerTimeoutSeconds() < 3 * appConfig.getFlightHeartbeatSeconds()) {
+      throw new IllegalStateException(
+          "workspace.flightOwnerTimeoutSeconds must be at least three times"
+              + " workspace.flightHeartbeatSeconds, which must be positive");
+    }
     this.samService = samService;
     this.appConfig = appConfig;
     this.stairwayJdbcConfiguration = stairwayJdbcConfiguration;
+    this.jobQueueConfiguration = jobQueueConfiguration;
+    this.flightQueueDao = flightQueueDao;
+    this.flightOwnerDao = flightOwnerDao;
+    this.parameterSerializer = new JobParameterSerializer(objectMapper);
+    this.parameterCipher =
+        jobQueueConfiguration.isEnabled()
+            ? new JobParameterCipher(jobQueueConfiguration.getParameterKey())
+            : null;
+
+    // Equivalent to Executors.newFixedThreadPool, but typed so we can see how much work is queued.
+    // The threads are daemons so that flights still running when shutdown gives up on them do not
+    // hold up the JVM; they stop where they are, without undoing, and are recovered elsewhere.
+    // Each task is a whole flight, so its run is recorded for Flight Recorder around the task.
+    // Stairway hands every flight, new or resumed, to submit; only those this instance can claim
+    // are run, and their ownership is given up once Stairway has recorded how they ended.
+    AtomicInteger threadCount = new AtomicInteger();
+    executorService =
+        new ThreadPoolExecutor(
+            appConfig.getMaxStairwayThreads(),
+            appConfig.getMaxStairwayThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              Thread thread = new Thread(runnable, "stairway-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }) {
+          @Override
+          public <T> Future<T> submit(Callable<T> task) {
+            if (!(task instanceof Flight)) {
+              return super.submit(task);
+            }
+            String flightId = ((Flight) task).context().getFlightId();
+            if (!flightOwnerDao.claim(
+                flightId, instanceId, appConfig.getFlightOwnerTimeoutSeconds())) {
+              withhold(flightId, task);
+              return new FutureTask<>(task);
+            }
+            return super.submit(owned(flightId, task));
+          }
+
+          @Override
+          public void execute(Runnable flight) {
+            super.execute(
+                Thread.currentThread() == recoveringThread ? trackRecovered(flight) : flight);
+          }
+
+          @Override
+          protected void beforeExecute(Thread thread, Runnable flight) {
+            FlightEvents.flightStarting();
+          }
 
-    ExecutorService executorService =
-        Executors.newFixedThreadPool(appConfig.getMaxStairwayThreads());
+          @Override
+          protected void afterExecute(Runnable flight, Throwable failure) {
+            recordFlight(FlightEvents.flightFinished());
+          }
+        };
     StairwayExceptionSerializer serializer = new StairwayExceptionSerializer(objectMapper);
     stairway = new Stairway(executorService, applicationContext, serializer);
   }
@@ -94,58 +214,548 @@ public class JobService {
     return new JobBuilder(description, jobId, flightClass, request, userReq, this);
   }
 
-  // submit a new job to stairway
+  // submit a new job to stairway, or to the flight queue if it is enabled
   // protected method intended to be called only from JobBuilder
   protected String submit(
-      Class<? extends Flight> flightClass, FlightMap parameterMap, String jobId) {
+      Class<? extends Flight> flightClass, Map<String, Object> parameterMap, String jobId) {
+    if (draining) {
+      throw new JobServiceDrainingException(
+          "This instance is shutting down and is not accepting new jobs; please retry");
+    }
+    boolean queued = jobQueueConfiguration.isEnabled();
+    FlightSubmittedEvent event = new FlightSubmittedEvent();
+    event.begin();
+    event.jobId = jobId;
+    event.flightClass = flightClass.getName();
+    event.queued = queued;
+    event.outcome = "success";
     try {
-      stairway.submit(jobId, flightClass, parameterMap);
+      if (queued) {
+        flightQueueDao.enqueue(
+            new QueuedFlight(
+                jobId,
+                flightClass.getName(),
+                (String) parameterMap.get(JobMapKeys.SUBJECT_ID.getKeyName()),
+                (String) parameterMap.get(JobMapKeys.DESCRIPTION.getKeyName()),
+                parameterCipher.encrypt(parameterSerializer.serialize(parameterMap))));
+        return jobId;
+      }
+      stairway.submit(jobId, flightClass, toFlightMap(parameterMap));
     } catch (StairwayException stairwayEx) {
+      event.outcome = stairwayEx.getClass().getSimpleName();
       throw new InternalStairwayException(stairwayEx);
+    } catch (RuntimeException e) {
+      event.outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      event.commit();
     }
     return jobId;
   }
 
+  // Steps fill in which flight ran; its outcome is whatever Stairway recorded when it stopped.
+  private void recordFlight(FlightEvent event) {
+    if (event == null) {
+      return;
+    }
+    if (event.flightId != null) {
+      try {
+        event.status = stairway.getFlightState(event.flightId).getFlightStatus().name();
+      } catch (StairwayException e) {
+        logger.warn("Failed to look up the status of flight {} for its event", event.flightId, e);
+      }
+    }
+    event.commit();
+  }
+
   // submit a new job to stairway, wait for it to finish, then return the result
   // protected method intended to be called only from JobBuilder
   protected <T> T submitAndWait(
       Class<? extends Flight> flightClass,
-      FlightMap parameterMap,
+      Map<String, Object> parameterMap,
       Class<T> resultClass,
       String jobId) {
     submit(flightClass, parameterMap, jobId);
     waitForJob(jobId);
     AuthenticatedUserRequest userReq =
-        parameterMap.get(JobMapKeys.AUTH_USER_INFO.getKeyName(), AuthenticatedUserRequest.class);
+        (AuthenticatedUserRequest) parameterMap.get(JobMapKeys.AUTH_USER_INFO.getKeyName());
 
     return retrieveJobResult(jobId, resultClass, userReq).getResult();
   }
 
+  /**
+   * Wait for the job to finish. This polls the way Stairway's waitForFlight does, but a drain can
+   * cut it short: if this instance shuts down first, the caller gets a 503 naming the job, which
+   * carries on elsewhere and can be polled through the job endpoints.
+   *
+   * <p>The time the job spends queued and then running is added to the request's timing.
+   */
   void waitForJob(String jobId) {
+    long deadline =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(appConfig.getStairwayTimeoutSeconds());
+    RequestTiming.Phase phase = RequestTiming.Phase.QUEUE;
+    long phaseStart = RequestTiming.begin();
+    try {
+      // A queued job is not known to Stairway until some instance claims it. It stays in the
+      // queue until the claim has handed it to Stairway, so it is always in one place or the other.
+      if (jobQueueConfiguration.isEnabled()) {
+        QueuedFlight queued;
+        while ((queued = flightQueueDao.getQueuedFlight(jobId)) != null) {
+          if (queued.getFailure() != null) {
+            throw new JobQueueException(
+                "Job " + jobId + " could not be started: " + queued.getFailure());
+          }
+          checkWaitDeadline(jobId, deadline);
+          waitForSignal(jobQueueConfiguration.getPollMillis());
+        }
+        RequestTiming.end(phase, phaseStart);
+        phaseStart = RequestTiming.begin();
+      }
+      phase = RequestTiming.Phase.FLIGHT;
+      while (stairway.getFlightState(jobId).getFlightStatus() == FlightStatus.RUNNING) {
+        checkWaitDeadline(jobId, deadline);
+        waitForSignal(WAIT_POLL_MILLIS);
+      }
+    } catch (FlightNotFoundException ex) {
+      // Released while we waited.
+      throw new JobNotFoundException("Job " + jobId + " not found", ex);
+    } catch (StairwayException stairwayEx) {
+      throw new InternalStairwayException(stairwayEx);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InternalStairwayException("Interrupted waiting for job " + jobId, e);
+    } finally {
+      RequestTiming.end(phase, phaseStart);
+    }
+  }
+
+  private void checkWaitDeadline(String jobId, long deadline) {
+    if (handedOff) {
+      throw new JobServiceDrainingException(
+          "This instance shut down before job " + jobId + " finished; poll the job for its result",
+          Collections.singletonList(jobId));
+    }
+    if (System.nanoTime() - deadline > 0) {
+      throw new InternalStairwayException("Timed out waiting for job " + jobId + " to finish");
+    }
+  }
+
+  // Sleep, but wake straight away if the drain ends.
+  private void waitForSignal(long millis) throws InterruptedException {
+    synchronized (drainSignal) {
+      if (!handedOff) {
+        drainSignal.wait(millis);
+      }
+    }
+  }
+
+  /**
+   * Shut down job processing in an orderly way. New submissions are refused straight away and this
+   * instance stops claiming queued jobs. Flights already running get until the timeout to finish.
+   * Flights that had not yet got a thread are dropped from the pool without running; like any
+   * flight still running at the deadline, Stairway has them recorded as running, so another
+   * instance takes them over once this one has stopped, instead of undoing them. Finally, callers
+   * still waiting in submitAndWait are released with a 503 naming their job.
+   *
+   * @return true if every running flight finished before the timeout
+   */
+  public boolean drain(long timeoutSeconds) {
+    draining = true;
+    stopQueuePoller();
+    List<Runnable> notStarted = new ArrayList<>();
+    executorService.getQueue().drainTo(notStarted);
+    executorService.shutdown();
+    logger.info(
+        "Draining jobs: {} running, {} not started and left for recovery",
+        executorService.getActiveCount(),
+        notStarted.size());
+
+    boolean finished;
+    try {
+      finished = executorService.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      finished = false;
+    }
+    if (!finished) {
+      logger.warn(
+          "{} flights were still running after {} s; leaving them for recovery",
+          executorService.getActiveCount(),
+          timeoutSeconds);
+    }
+    synchronized (drainSignal) {
+      handedOff = true;
+      drainSignal.notifyAll();
+    }
+    return finished;
+  }
+
+  public boolean isDraining() {
+    return draining;
+  }
+
+  private static FlightMap toFlightMap(Map<String, Object> parameterMap) {
+    FlightMap flightMap = new FlightMap();
+    parameterMap.forEach(flightMap::put);
+    return flightMap;
+  }
+
+  /**
+   * Start queued jobs while this instance has free Stairway threads. Every instance runs one of
+   * these, so jobs flow to whichever instances have capacity, and adding instances adds throughput.
+   */
+  private void pollQueue() {
+    while (queuePollerRunning) {
+      int claimed = 0;
+      int capacity = getFreeFlightCapacity();
+      try {
+        if (capacity > 0) {
+          claimed = flightQueueDao.claim(capacity, this::startQueuedFlight);
+        }
+      } catch (RuntimeException e) {
+        logger.warn("Failed to claim queued jobs", e);
+      }
+      try {
+        // If we filled our capacity there may be more waiting, so look again straight away.
+        if (claimed == 0 || claimed < capacity) {
+          Thread.sleep(jobQueueConfiguration.getPollMillis());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Hand a claimed job to Stairway. This runs inside the claim's transaction, so the owner of the
+   * flight is recorded as the job leaves the queue. A claimer that died after handing the job to
+   * Stairway but before its claim committed leaves the job queued as well; it is not started twice.
+   */
+  private void startQueuedFlight(QueuedFlight queued) {
+    if (isKnownToStairway(queued.getJobId())) {
+      logger.info("Queued job {} was already started", queued.getJobId());
+      return;
+    }
+    Class<? extends Flight> flightClass;
+    try {
+      flightClass = Class.forName(queued.getFlightClass()).asSubclass(Flight.class);
+    } catch (ClassNotFoundException e) {
+      throw new JobQueueException("Unknown flight class " + queued.getFlightClass(), e);
+    }
+    FlightMap parameterMap =
+        toFlightMap(
+            parameterSerializer.deserialize(parameterCipher.decrypt(queued.getParameters())));
     try {
-      stairway.waitForFlight(jobId, 10, appConfig.getStairwayTimeoutSeconds() / 10);
+      stairway.submit(queued.getJobId(), flightClass, parameterMap);
+      logger.info("Started queued job {}", queued.getJobId());
     } catch (StairwayException stairwayEx) {
+      // Stairway refuses a flight id it already has; then the job was started after all.
+      if (isKnownToStairway(queued.getJobId())) {
+        logger.info("Queued job {} was already started", queued.getJobId());
+        return;
+      }
       throw new InternalStairwayException(stairwayEx);
     }
   }
 
+  private boolean isKnownToStairway(String jobId) {
+    try {
+      stairway.getFlightState(jobId);
+      return true;
+    } catch (FlightNotFoundException ex) {
+      return false;
+    } catch (StairwayException stairwayEx) {
+      throw new InternalStairwayException(stairwayEx);
+    }
+  }
+
+  /** Stairway threads not busy with or already promised to a flight. */
+  public int getFreeFlightCapacity() {
+    return appConfig.getMaxStairwayThreads() - getActiveFlightCount() - getQueuedFlightCount();
+  }
+
   /**
    * This method is called from StartupInitializer as part of the sequence of migrating databases
    * and recovering any jobs; i.e., Stairway flights. It is moved here so that JobService
    * encapsulates all of the Stairway interaction.
    */
   public void initialize() {
+    if (stairwayJdbcConfiguration.isForceClean()) {
+      logger.warn(
+          "Stairway forceClean is set: all existing flights are being discarded, including any"
+              + " other instances are running");
+    }
+    // We must be seen to be alive before we claim any flight, or another instance starting now
+    // could take it straight back.
+    startHeartbeat();
+    recover(
+        () -> {
+          try {
+            stairway.initialize(
+                stairwayJdbcConfiguration.getDataSource(),
+                stairwayJdbcConfiguration.isForceClean(),
+                stairwayJdbcConfiguration.isMigrateUpgrade());
+          } catch (StairwayException stairwayEx) {
+            throw new InternalStairwayException("Stairway initialization failed", stairwayEx);
+          }
+        });
+    startQueuePoller();
+  }
+
+  /**
+   * Stairway's initialize resubmits every flight it has recorded as running and returns without
+   * waiting for them. That includes flights other instances are still running, so each is only run
+   * here if this instance can claim it: it has no owner, or its owner is dead. The rest are
+   * withheld, and taken over later if their owner stops before finishing them. Claimed flights run
+   * on the Stairway pool, at most maxStairwayThreads at a time, interleaved with new work. This
+   * counts those submitted from the thread running initialize, which are exactly those, and
+   * records how long they took once the last of them has finished.
+   */
+  void recover(Runnable stairwayInitialize) {
+    recoveredFlightCount.set(0);
+    recoveryComplete = false;
+    recoveryStartNanos = System.nanoTime();
+    recoveringThread = Thread.currentThread();
     try {
-      stairway.initialize(
-          stairwayJdbcConfiguration.getDataSource(),
-          stairwayJdbcConfiguration.isForceClean(),
-          stairwayJdbcConfiguration.isMigrateUpgrade());
+      stairwayInitialize.run();
+    } finally {
+      recoveringThread = null;
+    }
+    if (recoveredFlightCount.get() > 0) {
+      logger.info("Stairway is recovering {} flights", recoveredFlightCount.get());
+    }
+    if (!withheldFlights.isEmpty()) {
+      logger.info(
+          "Not recovering {} flights owned by other live instances", withheldFlights.size());
+    }
+    checkRecoveryComplete();
+  }
 
+  private Runnable trackRecovered(Runnable flight) {
+    recoveredFlightCount.incrementAndGet();
+    unfinishedRecoveredFlights.incrementAndGet();
+    return () -> {
+      try {
+        flight.run();
+      } finally {
+        unfinishedRecoveredFlights.decrementAndGet();
+        checkRecoveryComplete();
+      }
+    };
+  }
+
+  // Recovery is over once initialize has returned and every flight it resubmitted has finished.
+  private synchronized void checkRecoveryComplete() {
+    if (recoveryComplete || recoveringThread != null || unfinishedRecoveredFlights.get() > 0) {
+      return;
+    }
+    recoveryNanos = System.nanoTime() - recoveryStartNanos;
+    recoveryComplete = true;
+    if (recoveredFlightCount.get() > 0) {
+      logger.info(
+          "Stairway recovered {} flights in {} ms",
+          recoveredFlightCount.get(),
+          TimeUnit.NANOSECONDS.toMillis(recoveryNanos));
+    }
+  }
+
+  // Runs the flight, then gives up its ownership: by then Stairway has recorded how it ended.
+  private <T> Callable<T> owned(String flightId, Callable<T> flight) {
+    return () -> {
+      try {
+        return flight.call();
+      } finally {
+        try {
+          flightOwnerDao.release(flightId, instanceId);
+        } catch (RuntimeException e) {
+          // Harmless: the flight is no longer running, so no instance will resume it.
+          logger.warn("Failed to release ownership of flight {}", flightId, e);
+        }
+      }
+    };
+  }
+
+  private void withhold(String flightId, Callable<?> flight) {
+    withheldFlights.put(flightId, flight);
+    logger.info("Flight {} is owned by another live instance; not running it here", flightId);
+  }
+
+  private synchronized void startHeartbeat() {
+    if (heartbeat != null) {
+      return;
+    }
+    flightOwnerDao.heartbeat(instanceId);
+    flightOwnerDao.forgetDeadInstances(appConfig.getFlightOwnerTimeoutSeconds());
+    heartbeat =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "flight-heartbeat");
+              thread.setDaemon(true);
+              return thread;
+            });
+    heartbeat.scheduleWithFixedDelay(
+        this::beat,
+        appConfig.getFlightHeartbeatSeconds(),
+        appConfig.getFlightHeartbeatSeconds(),
+        TimeUnit.SECONDS);
+    logger.info("Running flights as instance {}", instanceId);
+  }
+
+  private void beat() {
+    try {
+      flightOwnerDao.heartbeat(instanceId);
+      adoptWithheldFlights();
+    } catch (RuntimeException e) {
+      logger.warn("Flight heartbeat failed", e);
+    }
+  }
+
+  /**
+   * Run the withheld flights whose owner has stopped. Ownership is claimed before the flight's
+   * state is checked: an owner only gives up a flight once Stairway has recorded how it ended, so a
+   * flight that is claimed here and still running is not running anywhere else.
+   */
+  private void adoptWithheldFlights() {
+    for (Map.Entry<String, Callable<?>> withheld : withheldFlights.entrySet()) {
+      String flightId = withheld.getKey();
+      if (draining
+          || !flightOwnerDao.claim(
+              flightId, instanceId, appConfig.getFlightOwnerTimeoutSeconds())) {
+        continue;
+      }
+      if (isRunning(flightId)) {
+        logger.info("Resuming flight {}; the instance that owned it has stopped", flightId);
+        recoveredFlightCount.incrementAndGet();
+        executorService.submit(withheld.getValue());
+      } else {
+        flightOwnerDao.release(flightId, instanceId);
+      }
+      withheldFlights.remove(flightId);
+    }
+  }
+
+  private boolean isRunning(String flightId) {
+    try {
+      return stairway.getFlightState(flightId).getFlightStatus() == FlightStatus.RUNNING;
+    } catch (FlightNotFoundException e) {
+      return false;
     } catch (StairwayException stairwayEx) {
-      throw new InternalStairwayException("Stairway initialization failed", stairwayEx);
+      throw new InternalStairwayException(stairwayEx);
     }
   }
 
+  // Once no flight is running here, drop our heartbeat so that flights we still own, those dropped
+  // by the drain before they started, are taken over straight away. Otherwise stop heartbeating
+  // and let the timeout hand them over after we are gone.
+  private synchronized void stopHeartbeat(boolean flightsStopped) {
+    if (heartbeat == null) {
+      return;
+    }
+    heartbeat.shutdownNow();
+    heartbeat = null;
+    if (flightsStopped) {
+      try {
+        flightOwnerDao.deregister(instanceId);
+      } catch (RuntimeException e) {
+        logger.warn("Failed to deregister instance {}", instanceId, e);
+      }
+    }
+  }
+
+  private synchronized void startQueuePoller() {
+    if (!jobQueueConfiguration.isEnabled() || queuePollerRunning) {
+      return;
+    }
+    queuePollerRunning = true;
+    queuePoller = new Thread(this::pollQueue, "flight-queue-poller");
+    queuePoller.setDaemon(true);
+    queuePoller.start();
+  }
+
+  /**
+   * Called when the context closes, after the drain and before the beans flights use are destroyed.
+   * A flight still running at this point would fail part way through if its database pool or
+   * bulkhead were shut down under it, and Stairway would then undo it. So flights keep everything
+   * they need until they finish, for up to another drain timeout; any that are still running after
+   * that are left alone and recovered elsewhere, as if the instance had died.
+   */
+  @PreDestroy
+  public void shutdown() {
+    if (!draining) {
+      drain(appConfig.getDrainTimeoutSeconds());
+    }
+    boolean stopped = false;
+    try {
+      stopped =
+          executorService.awaitTermination(appConfig.getDrainTimeoutSeconds(), TimeUnit.SECONDS);
+      if (!stopped) {
+        logger.warn(
+            "{} flights were still running at shutdown; leaving them for recovery",
+            executorService.getActiveCount());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    stopHeartbeat(stopped);
+  }
+
+  public synchronized void stopQueuePoller() {
+    queuePollerRunning = false;
+    if (queuePoller != null) {
+      queuePoller.interrupt();
+      queuePoller = null;
+    }
+  }
+
+  /**
+   * Number of interrupted flights this instance resumed: at startup, and since then from instances
+   * that stopped.
+   */
+  public long getRecoveredFlightCount() {
+    return recoveredFlightCount.get();
+  }
+
+  /**
+   * Seconds from the start of Stairway's initialize until the last flight it resumed finished; the
+   * time so far while they are still running, and zero before initialize.
+   */
+  public double getRecoverySeconds() {
+    if (recoveryStartNanos == 0) {
+      return 0;
+    }
+    long nanos = recoveryComplete ? recoveryNanos : System.nanoTime() - recoveryStartNanos;
+    return nanos / 1e9;
+  }
+
+  /** Interrupted flights left alone because another live instance owns them. */
+  public int getWithheldFlightCount() {
+    return withheldFlights.size();
+  }
+
+  /** True once every flight resumed at startup has finished running. */
+  public boolean isRecoveryComplete() {
+    return recoveryComplete;
+  }
+
+  /** Flights waiting for a Stairway thread. */
+  public int getQueuedFlightCount() {
+    return executorService.getQueue().size();
+  }
+
+  /** Flights currently running on Stairway threads. */
+  public int getActiveFlightCount() {
+    return executorService.getActiveCount();
+  }
+
+  /**
+   * Stairway threads that exist right now. Threads are started as flights arrive, up to the
+   * configured maximum, and stop when the pool is shut down.
+   */
+  public int getFlightThreadCount() {
+    return executorService.getPoolSize();
+  }
+
   public void releaseJob(String jobId, AuthenticatedUserRequest userReq) {
     try {
       if (userReq != null) {
@@ -160,9 +770,16 @@ public class JobService {
         // if the user has access to all jobs, no need to check for this one individually
         // otherwise, check that the user has access to this job before deleting
         if (!canDeleteAnyJob) {
+          // A job that has not started yet is simply taken off the queue.
+          if (getQueuedJob(jobId, userReq) != null && flightQueueDao.delete(jobId)) {
+            return;
+          }
           verifyUserAccess(jobId, userReq); // jobId=flightId
         }
       }
+      if (jobQueueConfiguration.isEnabled() && flightQueueDao.delete(jobId)) {
+        return;
+      }
       stairway.deleteFlight(jobId, false);
     } catch (StairwayException stairwayEx) {
       throw new InternalStairwayException(stairwayEx);
@@ -236,8 +853,31 @@ public class JobService {
     return jobModelList;
   }
 
+  /** True if a job with this id was submitted, to the queue or to Stairway, in any state. */
+  public boolean jobExists(String jobId) {
+    if (jobQueueConfiguration.isEnabled() && flightQueueDao.getQueuedFlight(jobId) != null) {
+      return true;
+    }
+    return isKnownToStairway(jobId);
+  }
+
   public JobModel retrieveJob(String jobId, AuthenticatedUserRequest userReq) {
 
+    QueuedFlight queued = getQueuedJob(jobId, userReq);
+    if (queued != null && queued.getFailure() != null) {
+      return new JobModel()
+          .id(jobId)
+          .description(queued.getDescription())
+          .status(JobModel.StatusEnum.FAILED)
+          .statusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+    }
+    if (queued != null) {
+      return new JobModel()
+          .id(jobId)
+          .description(queued.getDescription())
+          .status(JobModel.StatusEnum.RUNNING)
+          .statusCode(HttpStatus.ACCEPTED.value());
+    }
     try {
       verifyUserAccess(jobId, userReq); // jobId=flightId
       FlightState flightState = stairway.getFlightState(jobId);
@@ -273,6 +913,14 @@ public class JobService {
   public <T> JobResultWithStatus<T> retrieveJobResult(
       String jobId, Class<T> resultClass, AuthenticatedUserRequest userReq) {
 
+    QueuedFlight queued = getQueuedJob(jobId, userReq);
+    if (queued != null && queued.getFailure() != null) {
+      throw new JobQueueException("Job " + jobId + " could not be started: " + queued.getFailure());
+    }
+    if (queued != null) {
+      throw new JobNotCompleteException(
+          "Attempt to retrieve job result before job is complete; job id: " + jobId);
+    }
     try {
       verifyUserAccess(jobId, userReq); // jobId=flightId
       return retrieveJobResultWorker(jobId, resultClass);
@@ -345,4 +993,19 @@ public class JobService {
       throw new JobNotFoundException("Job not found", ex);
     }
   }
+
+  /**
+   * The job if it is still waiting in the flight queue or could not be started from it, or null if
+   * it was started or never queued.
+   */
+  private QueuedFlight getQueuedJob(String jobId, AuthenticatedUserRequest userReq) {
+    if (!jobQueueConfiguration.isEnabled()) {
+      return null;
+    }
+    QueuedFlight queued = flightQueueDao.getQueuedFlight(jobId);
+    if (queued != null && !StringUtils.equals(queued.getSubjectId(), userReq.getSubjectId())) {
+      throw new JobUnauthorizedException("Unauthorized");
+    }
+    return queued;
+  }
 }
@@ -0,0 +1,13 @@
+package bio.terra.workspace.service.job.exception;
+
+import bio.terra.workspace.common.exception.InternalServerErrorException;
+
+public class JobQueueException extends InternalServerErrorException {
+  public JobQueueException(String message) {
+    super(message);
+  }
+
+  public JobQueueException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,14 @@
+package bio.terra.workspace.service.job.exception;
+
+import bio.terra.workspace.common.exception.ServiceUnavailableException;
+import java.util.List;
+
+public class JobServiceDrainingException extends ServiceUnavailableException {
+  public JobServiceDrainingException(String message) {
+    super(message);
+  }
+
+  public JobServiceDrainingException(String message, List<String> causes) {
+    super(message, causes);
+  }
+}
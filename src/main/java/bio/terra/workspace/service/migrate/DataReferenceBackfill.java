@@ -0,0 +1,112 @@
+package bio.terra.workspace.service.migrate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.change.custom.CustomTaskRollback;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies workspace_data_reference into workspace_data_reference_partitioned in batches, committing
+ * each one, so the copy never holds a lock on the whole table. Writes made while it runs reach the
+ * new table through the trigger created by the create_partitioned_workspace_data_reference
+ * changeset; see 20200501_partition_data_reference.yaml.
+ *
+ * <p>Each batch share-locks the rows it copies until it commits. Without that, a row deleted after
+ * the batch read it but before the batch committed would be left behind in the new table, since
+ * the trigger's delete could not see the uncommitted copy.
+ */
+public class DataReferenceBackfill implements CustomTaskChange, CustomTaskRollback {
+  private static final Logger logger = LoggerFactory.getLogger(DataReferenceBackfill.class);
+  private static final int LOG_EVERY_BATCHES = 100;
+
+  // Keyset pagination on the old table's primary key. Rows the trigger already copied are skipped.
+  private static final String COPY_BATCH =
+      "WITH batch AS ("
+          + " SELECT workspace_id, reference_id, name, resource_id, credential_id,"
+          + " cloning_instructions, reference_type, reference"
+          + " FROM workspace_data_reference WHERE reference_id > ?"
+          + " ORDER BY reference_id LIMIT ? FOR SHARE),"
+          + " copied AS (INSERT INTO workspace_data_reference_partitioned"
+          + " SELECT * FROM batch ON CONFLICT (workspace_id, reference_id) DO NOTHING)"
+          + " SELECT count(*), max(reference_id) FROM batch";
+
+  // Set from the changeset. Liquibase converts parameters to Integer, but not to int.
+  private Integer batchSize = 10000;
+
+  public void setBatchSize(Integer batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+    long start = System.nanoTime();
+    long copied = 0;
+    int batches = 0;
+    String after = "";
+    try (PreparedStatement statement = connection.prepareStatement(COPY_BATCH)) {
+      while (true) {
+        statement.setString(1, after);
+        statement.setInt(2, batchSize);
+        int rows;
+        try (ResultSet rs = statement.executeQuery()) {
+          rs.next();
+          rows = rs.getInt(1);
+          after = rs.getString(2);
+        }
+        if (!connection.getAutoCommit()) {
+          connection.commit();
+        }
+        copied += rows;
+        batches++;
+        if (batches % LOG_EVERY_BATCHES == 0) {
+          logger.info("Copied {} data references so far, up to {}", copied, after);
+        }
+        if (rows < batchSize) {
+          break;
+        }
+      }
+    } catch (SQLException e) {
+      throw new CustomChangeException("Failed copying data references after " + after, e);
+    }
+    logger.info(
+        "Copied {} data references in {} batches, {} ms",
+        copied,
+        batches,
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @Override
+  public void rollback(Database database) {
+    // The copied rows are dropped with the table when the create changeset is rolled back.
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Copied workspace_data_reference into workspace_data_reference_partitioned";
+  }
+
+  @Override
+  public void setUp() {}
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    ValidationErrors errors = new ValidationErrors();
+    if (batchSize == null || batchSize < 1) {
+      errors.addError("batchSize must be at least 1");
+    }
+    return errors;
+  }
+}
@@ -1,8 +1,17 @@
 package bio.terra.workspace.service.migrate;
 
+import bio.terra.workspace.app.configuration.MigrateConfiguration;
 import bio.terra.workspace.service.migrate.exception.MigrateException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import liquibase.Contexts;
 import liquibase.Liquibase;
@@ -12,6 +21,7 @@ import liquibase.lockservice.DatabaseChangeLogLock;
 import liquibase.resource.ClassLoaderResourceAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -20,11 +30,32 @@ import org.springframework.stereotype.Component;
  * as opposed to using hooks in the Spring framework. We expect MC Terra services to scale
  * horizontally and to perform rolling upgrades of the running instances. Therefore, we do not want
  * the act of running an instance to suddenly upgrade the database schema.
+ *
+ * <p>Most starts find the schema already current. The build writes a SHA-256 fingerprint of the
+ * changelog and all of its changesets next to the changelog (see generateChangelogFingerprint in
+ * build.gradle), and each successful upgrade records it in the schema_fingerprint table. When the
+ * two match, upgrade returns without starting Liquibase at all.
+ *
+ * <p>When several instances start together, a PostgreSQL advisory lock elects one of them to run
+ * Liquibase. The others wait for it, then find the fingerprint current and carry on.
  */
 @Component
 public class MigrateService {
   private Logger logger = LoggerFactory.getLogger(MigrateService.class);
 
+  static final String FINGERPRINT_SUFFIX = ".sha256";
+  // Prefixed to the changelog path to name the advisory lock, so it cannot collide with other
+  // users of advisory locks in the same database.
+  static final String LOCK_NAMESPACE = "workspace-manager-migrate:";
+  private static final long LOCK_WAIT_LOG_INTERVAL_SECONDS = 10;
+
+  private final MigrateConfiguration migrateConfiguration;
+
+  @Autowired
+  public MigrateService(MigrateConfiguration migrateConfiguration) {
+    this.migrateConfiguration = migrateConfiguration;
+  }
+
   /**
    * Initialize drops existing tables in the database and reinitializes it with the changeset. This
    * is useful when developing or running integration tests, where there is no expectation that the
@@ -44,40 +75,212 @@ public class MigrateService {
    *
    * @param changesetFile - relative path to the changeset file in the project
    * @param dataSource - database to operate on
+   * @return true if Liquibase ran, false if the schema was already current
    */
-  public void upgrade(String changesetFile, DataSource dataSource) {
-    migrateWorker(changesetFile, dataSource, false);
+  public boolean upgrade(String changesetFile, DataSource dataSource) {
+    return migrateWorker(changesetFile, dataSource, false);
   }
 
-  private void migrateWorker(String changesetFile, DataSource dataSource, boolean initialize) {
+  private boolean migrateWorker(String changesetFile, DataSource dataSource, boolean initialize) {
+    long start = System.nanoTime();
+    String fingerprint = readBuildFingerprint(changesetFile);
     try (Connection connection = dataSource.getConnection()) {
-      Liquibase liquibase =
-          new Liquibase(
-              changesetFile, new ClassLoaderResourceAccessor(), new JdbcConnection(connection));
-      DatabaseChangeLogLock[] locks = liquibase.listLocks();
-      for (DatabaseChangeLogLock lock : locks) {
-        logger.info(
-            String.format(
-                "DatabaseChangeLogLock changeSet: %s, id: %s, lockedBy: %s, granted: %s",
-                changesetFile, lock.getId(), lock.getLockedBy(), lock.getLockGranted()));
-
-        // We can get into this state where one of the APIs is running migrations and gets shut down
-        // so that another API container can run. It will result in a lock that doesn't get
-        // released. This is similar to the problems we will have from deploying multiple containers
-        // at once that try to run migrations.
-        logger.warn("Forcing lock release");
-        liquibase.forceReleaseLocks();
-      }
+      logPhase("connect", start);
 
-      if (initialize) {
-        logger.info("Initializing all tables in the database");
-        liquibase.dropAll();
+      // Cheap check before queueing for the lock; this is the path almost every start takes.
+      if (!initialize && isCurrent(connection, changesetFile, fingerprint)) {
+        logPhase("migrate total", start);
+        return false;
       }
 
-      logger.info("Upgrading the database schema");
-      liquibase.update(new Contexts()); // Run all migrations - no context filtering
+      long phaseStart = System.nanoTime();
+      acquireMigrationLock(connection, changesetFile);
+      logPhase("migration lock wait", phaseStart);
+      try {
+        // Another instance may have finished the upgrade while we waited.
+        if (!initialize && isCurrent(connection, changesetFile, fingerprint)) {
+          logPhase("migrate total", start);
+          return false;
+        }
+        runLiquibase(connection, changesetFile, initialize);
+        if (fingerprint != null) {
+          recordFingerprint(connection, changesetFile, fingerprint);
+        }
+      } finally {
+        releaseMigrationLock(connection, changesetFile);
+      }
+      logPhase("migrate total", start);
+      return true;
     } catch (LiquibaseException | SQLException ex) {
       throw new MigrateException("Failed to migrate database from " + changesetFile, ex);
     }
   }
+
+  private boolean isCurrent(Connection connection, String changesetFile, String fingerprint) {
+    if (!migrateConfiguration.isFastPathEnabled() || fingerprint == null) {
+      return false;
+    }
+    long checkStart = System.nanoTime();
+    String recorded = readRecordedFingerprint(connection, changesetFile);
+    logPhase("fingerprint check", checkStart);
+    if (fingerprint.equals(recorded)) {
+      logger.info(
+          "Schema from {} is current (fingerprint {}); skipping Liquibase",
+          changesetFile,
+          fingerprint);
+      return true;
+    }
+    logger.info("Changelog fingerprint {} does not match recorded {}", fingerprint, recorded);
+    return false;
+  }
+
+  private void runLiquibase(Connection connection, String changesetFile, boolean initialize)
+      throws LiquibaseException {
+    long phaseStart = System.nanoTime();
+    Liquibase liquibase =
+        new Liquibase(
+            changesetFile, new ClassLoaderResourceAccessor(), new JdbcConnection(connection));
+    DatabaseChangeLogLock[] locks = liquibase.listLocks();
+    logPhase("liquibase open and list locks", phaseStart);
+    for (DatabaseChangeLogLock lock : locks) {
+      logger.info(
+          String.format(
+              "DatabaseChangeLogLock changeSet: %s, id: %s, lockedBy: %s, granted: %s",
+              changesetFile, lock.getId(), lock.getLockedBy(), lock.getLockGranted()));
+
+      // Every instance takes the migration lock before touching Liquibase, and Postgres drops that
+      // lock when its session ends. We hold it, so a Liquibase lock seen here was left by an
+      // instance that died mid-migration, and it is safe to release.
+      logger.warn("Forcing release of stale lock");
+      liquibase.forceReleaseLocks();
+    }
+
+    if (initialize) {
+      logger.info("Initializing all tables in the database");
+      phaseStart = System.nanoTime();
+      liquibase.dropAll();
+      logPhase("liquibase drop all", phaseStart);
+    }
+
+    logger.info("Upgrading the database schema");
+    phaseStart = System.nanoTime();
+    liquibase.update(new Contexts()); // Run all migrations - no context filtering
+    logPhase("liquibase update", phaseStart);
+  }
+
+  /**
+   * Wait for the session-level advisory lock that elects one instance to migrate. Instances that
+   * lose wait here, logging as they go, and give up after the configured time. Since the lock
+   * belongs to the database session, it is released automatically if this instance dies.
+   */
+  private void acquireMigrationLock(Connection connection, String changesetFile)
+      throws SQLException {
+    long deadline =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(migrateConfiguration.getLockWaitSeconds());
+    long nextLog = System.nanoTime();
+    while (true) {
+      if (tryMigrationLock(connection, changesetFile)) {
+        return;
+      }
+      long now = System.nanoTime();
+      if (now - deadline > 0) {
+        throw new MigrateException(
+            String.format(
+                "Timed out after %d seconds waiting for another instance to migrate %s",
+                migrateConfiguration.getLockWaitSeconds(), changesetFile));
+      }
+      if (now - nextLog >= 0) {
+        logger.info(
+            "Waiting for another instance to finish migrating {}; giving up in {} s",
+            changesetFile,
+            TimeUnit.NANOSECONDS.toSeconds(deadline - now));
+        nextLog = now + TimeUnit.SECONDS.toNanos(LOCK_WAIT_LOG_INTERVAL_SECONDS);
+      }
+      try {
+        Thread.sleep(migrateConfiguration.getLockPollMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MigrateException("Interrupted waiting for the migration lock", e);
+      }
+    }
+  }
+
+  private boolean tryMigrationLock(Connection connection, String changesetFile)
+      throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+      statement.setString(1, LOCK_NAMESPACE + changesetFile);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+
+  // The connection goes back to the pool afterwards, so the lock must be released explicitly.
+  private void releaseMigrationLock(Connection connection, String changesetFile) {
+    try (PreparedStatement statement =
+        connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+      statement.setString(1, LOCK_NAMESPACE + changesetFile);
+      statement.execute();
+    } catch (SQLException e) {
+      logger.warn("Failed to release the migration lock for {}", changesetFile, e);
+    }
+  }
+
+  /** The fingerprint generated at build time, or null if this build does not have one. */
+  private String readBuildFingerprint(String changesetFile) {
+    try (InputStream stream =
+        getClass().getClassLoader().getResourceAsStream(changesetFile + FINGERPRINT_SUFFIX)) {
+      if (stream == null) {
+        logger.info("No changelog fingerprint in this build; the fast path is disabled");
+        return null;
+      }
+      String fingerprint =
+          new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)).readLine();
+      return fingerprint == null ? null : fingerprint.trim();
+    } catch (IOException e) {
+      logger.warn("Unable to read the changelog fingerprint; the fast path is disabled", e);
+      return null;
+    }
+  }
+
+  private String readRecordedFingerprint(Connection connection, String changesetFile) {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "SELECT fingerprint FROM schema_fingerprint WHERE changelog = ?")) {
+      statement.setString(1, changesetFile);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() ? rs.getString(1) : null;
+      }
+    } catch (SQLException e) {
+      // Most likely a new database where the table does not exist yet.
+      logger.info("No recorded changelog fingerprint: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  // Liquibase leaves the connection with autocommit off, and the pool rolls back whatever is still
+  // open when the connection is returned, so the fingerprint must be committed here.
+  private void recordFingerprint(Connection connection, String changesetFile, String fingerprint)
+      throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(
+            "INSERT INTO schema_fingerprint (changelog, fingerprint) VALUES (?, ?)"
+                + " ON CONFLICT (changelog)"
+                + " DO UPDATE SET fingerprint = EXCLUDED.fingerprint, recorded_at = now()")) {
+      statement.setString(1, changesetFile);
+      statement.setString(2, fingerprint);
+      statement.executeUpdate();
+    }
+    if (!connection.getAutoCommit()) {
+      connection.commit();
+    }
+  }
+
+  private void logPhase(String phase, long startNanos) {
+    logger.info(
+        "Startup timing: {} took {} ms",
+        phase,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
 }
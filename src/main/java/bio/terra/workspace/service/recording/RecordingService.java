@@ -0,0 +1,191 @@
+package bio.terra.workspace.service.recording;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.RecordingConfiguration;
+import bio.terra.workspace.common.jfr.DataRepoCallEvent;
+import bio.terra.workspace.common.jfr.DatabaseQueryEvent;
+import bio.terra.workspace.common.jfr.FlightEvent;
+import bio.terra.workspace.common.jfr.FlightStepEvent;
+import bio.terra.workspace.common.jfr.FlightSubmittedEvent;
+import bio.terra.workspace.common.jfr.SamCallEvent;
+import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.generated.model.RecordingStatus;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.recording.exception.RecordingException;
+import bio.terra.workspace.service.recording.exception.RecordingStateException;
+import bio.terra.workspace.service.recording.exception.RecordingUnauthorizedException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts, dumps and stops a Flight Recorder recording of this instance, so a performance incident
+ * can be looked at afterwards in JDK Mission Control. Besides the JDK's own events, the recording
+ * has the workspace manager's: flights and their steps, Sam and Data Repo calls, and SQL.
+ *
+ * <p>There is at most one recording at a time. It keeps the last few minutes of events and stops
+ * by itself after a while; see RecordingConfiguration. Dumps are written on the instance that
+ * served the request, so they are copied off it from there.
+ *
+ * <p>Callers need the record action on the workspace manager resource in Sam.
+ */
+@Component
+public class RecordingService {
+  private static final Logger logger = LoggerFactory.getLogger(RecordingService.class);
+  private static final String RECORDING_NAME = "workspace-manager";
+  private static final DateTimeFormatter DUMP_TIME_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+  private static final List<Class<? extends Event>> WORKSPACE_EVENTS =
+      Arrays.asList(
+          FlightSubmittedEvent.class,
+          FlightEvent.class,
+          FlightStepEvent.class,
+          SamCallEvent.class,
+          DataRepoCallEvent.class,
+          DatabaseQueryEvent.class);
+
+  private final RecordingConfiguration recordingConfig;
+  private final ApplicationConfiguration appConfig;
+  private final SamService samService;
+  // Guarded by this; authorization is checked before taking the lock, so Sam cannot hold it.
+  private Recording recording;
+
+  @Autowired
+  public RecordingService(
+      RecordingConfiguration recordingConfig,
+      ApplicationConfiguration appConfig,
+      SamService samService) {
+    this.recordingConfig = recordingConfig;
+    this.appConfig = appConfig;
+    this.samService = samService;
+  }
+
+  public RecordingStatus getRecording(AuthenticatedUserRequest userReq) {
+    checkAuthorized(userReq);
+    synchronized (this) {
+      return toStatus(null);
+    }
+  }
+
+  /** Start a recording. A recording that already stopped by itself is discarded first. */
+  public RecordingStatus startRecording(AuthenticatedUserRequest userReq) {
+    checkAuthorized(userReq);
+    synchronized (this) {
+      if (recording != null) {
+        if (recording.getState() != RecordingState.STOPPED) {
+          throw new RecordingStateException("A recording is already running");
+        }
+        closeRecording();
+      }
+      if (!FlightRecorder.isAvailable()) {
+        throw new RecordingException("Flight Recorder is not available in this JVM");
+      }
+      Configuration settings;
+      try {
+        settings = Configuration.getConfiguration(recordingConfig.getSettings());
+      } catch (IOException | ParseException e) {
+        throw new RecordingException(
+            "Unable to load Flight Recorder settings " + recordingConfig.getSettings(), e);
+      }
+      Recording newRecording = new Recording(settings);
+      newRecording.setName(RECORDING_NAME);
+      newRecording.setToDisk(true);
+      newRecording.setMaxAge(Duration.ofMinutes(recordingConfig.getMaxAgeMinutes()));
+      newRecording.setDuration(Duration.ofMinutes(recordingConfig.getMaxDurationMinutes()));
+      WORKSPACE_EVENTS.forEach(newRecording::enable);
+      newRecording.start();
+      recording = newRecording;
+      logger.info("Started recording {} with {} settings", recording.getId(), settings.getName());
+      return toStatus(null);
+    }
+  }
+
+  /** Write what the recording holds so far to a file, and leave it running. */
+  public RecordingStatus dumpRecording(AuthenticatedUserRequest userReq) {
+    checkAuthorized(userReq);
+    synchronized (this) {
+      return toStatus(dump());
+    }
+  }
+
+  /** Stop the recording, write all it holds to a file, and discard it. */
+  public RecordingStatus stopRecording(AuthenticatedUserRequest userReq) {
+    checkAuthorized(userReq);
+    synchronized (this) {
+      Path dumpFile = dump();
+      closeRecording();
+      return toStatus(dumpFile);
+    }
+  }
+
+  private Path dump() {
+    if (recording == null) {
+      throw new RecordingStateException("There is no recording; start one first");
+    }
+    Path dumpFile =
+        Paths.get(
+            recordingConfig.getDumpDirectory(),
+            RECORDING_NAME + "-" + DUMP_TIME_FORMAT.format(Instant.now()) + ".jfr");
+    try {
+      Files.createDirectories(dumpFile.getParent());
+      recording.dump(dumpFile);
+    } catch (IOException e) {
+      throw new RecordingException("Unable to write the recording to " + dumpFile, e);
+    }
+    logger.info("Dumped recording {} to {}", recording.getId(), dumpFile);
+    return dumpFile;
+  }
+
+  private void closeRecording() {
+    if (recording.getState() == RecordingState.RUNNING) {
+      recording.stop();
+    }
+    recording.close();
+    logger.info("Closed recording {}", recording.getId());
+    recording = null;
+  }
+
+  private RecordingStatus toStatus(Path dumpFile) {
+    RecordingStatus status =
+        new RecordingStatus()
+            .running(recording != null && recording.getState() == RecordingState.RUNNING);
+    if (recording != null && recording.getStartTime() != null) {
+      status.startedAt(recording.getStartTime().toString());
+    }
+    if (dumpFile != null) {
+      status.dumpFile(dumpFile.toString());
+    }
+    return status;
+  }
+
+  private void checkAuthorized(AuthenticatedUserRequest userReq) {
+    boolean canRecord =
+        samService.isAuthorized(
+            userReq.getRequiredToken(),
+            SamUtils.SAM_WORKSPACE_MANAGER_RESOURCE,
+            appConfig.getResourceId(),
+            SamUtils.SAM_WORKSPACE_MANAGER_RECORD_ACTION);
+    if (!canRecord) {
+      throw new RecordingUnauthorizedException(
+          "User is not authorized to record this instance with Flight Recorder");
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package bio.terra.workspace.service.recording.exception;
+
+import bio.terra.workspace.common.exception.InternalServerErrorException;
+
+public class RecordingException extends InternalServerErrorException {
+  public RecordingException(String message) {
+    super(message);
+  }
+
+  public RecordingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
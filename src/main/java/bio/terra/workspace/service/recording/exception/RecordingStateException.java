@@ -0,0 +1,9 @@
+package bio.terra.workspace.service.recording.exception;
+
+import bio.terra.workspace.common.exception.ConflictException;
+
+public class RecordingStateException extends ConflictException {
+  public RecordingStateException(String message) {
+    super(message);
+  }
+}
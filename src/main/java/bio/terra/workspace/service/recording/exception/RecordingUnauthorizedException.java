@@ -0,0 +1,9 @@
+package bio.terra.workspace.service.recording.exception;
+
+import bio.terra.workspace.common.exception.UnauthorizedException;
+
+public class RecordingUnauthorizedException extends UnauthorizedException {
+  public RecordingUnauthorizedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,315 @@
+package bio.terra.workspace.service.status;
+
+import bio.terra.workspace.app.ApplicationReadiness;
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.JdbcConfiguration;
+import bio.terra.workspace.app.configuration.StairwayJdbcConfiguration;
+import bio.terra.workspace.app.configuration.StatusCheckConfiguration;
+import bio.terra.workspace.common.utils.CircuitBreaker;
+import bio.terra.workspace.common.utils.ErrorReportUtils;
+import bio.terra.workspace.db.Shard;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.generated.model.SystemStatus;
+import bio.terra.workspace.generated.model.SystemStatusSystems;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.job.JobService;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a snapshot of the health of the service and its dependencies for the status endpoint.
+ * Probes can arrive every few seconds from every kubelet, so they never check anything themselves:
+ * a background thread checks the database pools, Sam and the flight executor on a fixed interval
+ * and replaces the snapshot, and {@link #getCurrentStatus} only reads it.
+ *
+ * <p>The dependency checks run in parallel, each with a timeout, so one hung dependency is
+ * reported as failed instead of holding up the others or the refresh.
+ *
+ * <p>Liveness is reported separately from readiness. Only conditions local to this instance make
+ * it not ready: its own database pools failing, draining, or a saturated flight executor. Sam is
+ * shared by every instance, so taking this one out of service would not help when Sam is down;
+ * its health and the circuit breaker's are reported, but do not affect readiness. Only a stuck
+ * status checker makes the instance not live, so it is restarted.
+ */
+@Component
+public class StatusService {
+  private static final Logger logger = LoggerFactory.getLogger(StatusService.class);
+  // Checks that are reported but do not make this instance not ready.
+  private static final Set<String> REPORT_ONLY = Collections.singleton("sam");
+
+  private final StatusCheckConfiguration configuration;
+  private final ShardRouter shardRouter;
+  private final StairwayJdbcConfiguration stairwayJdbcConfiguration;
+  private final SamService samService;
+  private final JobService jobService;
+  private final ApplicationReadiness readiness;
+  private final ApplicationConfiguration appConfig;
+  private final ScheduledExecutorService scheduler;
+  // Checks run here rather than on the scheduler so that a hung check cannot stop the refresh.
+  private final ExecutorService checkExecutor;
+
+  private volatile Snapshot snapshot =
+      new Snapshot(notOk("Status has not been checked yet"), Instant.EPOCH);
+
+  @Autowired
+  public StatusService(
+      StatusCheckConfiguration configuration,
+      ShardRouter shardRouter,
+      StairwayJdbcConfiguration stairwayJdbcConfiguration,
+      SamService samService,
+      JobService jobService,
+      ApplicationReadiness readiness,
+      ApplicationConfiguration appConfig) {
+    this.configuration = configuration;
+    this.shardRouter = shardRouter;
+    this.stairwayJdbcConfiguration = stairwayJdbcConfiguration;
+    this.samService = samService;
+    this.jobService = jobService;
+    this.readiness = readiness;
+    this.appConfig = appConfig;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "status-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+    AtomicInteger threadCount = new AtomicInteger();
+    this.checkExecutor =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              Thread thread = new Thread(runnable, "status-check-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Run the first check now, then keep refreshing in the background. */
+  public void startRefresh() {
+    refresh();
+    scheduler.scheduleWithFixedDelay(
+        this::refresh,
+        configuration.getPollingIntervalSeconds(),
+        configuration.getPollingIntervalSeconds(),
+        TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopRefresh() {
+    scheduler.shutdownNow();
+    checkExecutor.shutdownNow();
+  }
+
+  /**
+   * Whether this instance should be left running. Only the status checker having stopped makes it
+   * not ok: a failing dependency is a reason to stop sending requests here, not to restart it. This
+   * does no I/O.
+   */
+  public SystemStatus getLiveness() {
+    Snapshot current = snapshot;
+    String stale = staleness(current);
+    if (stale != null) {
+      return notOk(stale);
+    }
+    return new SystemStatus()
+        .ok(true)
+        .putSystemsItem(
+            "status",
+            new SystemStatusSystems()
+                .ok(true)
+                .messages(Collections.singletonList("Last checked at " + current.checkedAt)));
+  }
+
+  /**
+   * The most recent snapshot, for readiness. This does no I/O. Readiness is read live, since it
+   * changes at startup and shutdown and probes should see that straight away.
+   */
+  public SystemStatus getCurrentStatus() {
+    Snapshot current = snapshot;
+    String stale = staleness(current);
+    if (stale != null) {
+      return notOk(stale);
+    }
+    if (!readiness.isReady()) {
+      // Copied, since the snapshot is shared by every probe.
+      SystemStatus notReady = new SystemStatus().ok(false).systems(new LinkedHashMap<>());
+      if (current.status.getSystems() != null) {
+        notReady.getSystems().putAll(current.status.getSystems());
+      }
+      return notReady.putSystemsItem("readiness", systemNotOk("Not ready"));
+    }
+    return current.status;
+  }
+
+  // A message if the checker has stopped refreshing the snapshot, or null. The first check has not
+  // run yet while starting up, which is not a reason to report the checker as stuck.
+  private String staleness(Snapshot current) {
+    if (Instant.EPOCH.equals(current.checkedAt)) {
+      return null;
+    }
+    long ageSeconds = Instant.now().getEpochSecond() - current.checkedAt.getEpochSecond();
+    if (ageSeconds > configuration.getStalenessThresholdSeconds()) {
+      return "Status was last checked " + ageSeconds + " seconds ago";
+    }
+    return null;
+  }
+
+  private void refresh() {
+    try {
+      Map<String, Future<SystemStatusSystems>> checks = new LinkedHashMap<>();
+      for (Shard shard : shardRouter.getShards()) {
+        String name =
+            shard.getIndex() == 0 ? "workspaceDatabase" : "workspaceDatabase" + shard.getIndex();
+        checks.put(name, submitCheck(() -> checkDatabase(shard.getJdbcConfiguration())));
+      }
+      checks.put("stairwayDatabase", submitCheck(() -> checkDatabase(stairwayJdbcConfiguration)));
+      checks.put("sam", submitCheck(this::checkSam));
+      checks.put("stairwayExecutor", submitCheck(this::checkExecutor));
+
+      long deadline =
+          System.nanoTime() + TimeUnit.SECONDS.toNanos(configuration.getCheckTimeoutSeconds());
+      SystemStatus status = new SystemStatus().ok(true).systems(new LinkedHashMap<>());
+      for (Map.Entry<String, Future<SystemStatusSystems>> check : checks.entrySet()) {
+        SystemStatusSystems result = awaitCheck(check.getValue(), deadline);
+        if (!result.getOk()) {
+          if (!REPORT_ONLY.contains(check.getKey())) {
+            status.setOk(false);
+          }
+          logger.warn("Status check {} failed: {}", check.getKey(), result.getMessages());
+        }
+        status.putSystemsItem(check.getKey(), result);
+      }
+      snapshot = new Snapshot(status, Instant.now());
+    } catch (RuntimeException e) {
+      // Keep the old snapshot; it will be reported as stale if this keeps happening.
+      logger.warn("Status refresh failed", e);
+    }
+  }
+
+  private Future<SystemStatusSystems> submitCheck(Supplier<SystemStatusSystems> check) {
+    return checkExecutor.submit(
+        () -> {
+          try {
+            return check.get();
+          } catch (RuntimeException e) {
+            return systemNotOk(e.getMessage());
+          }
+        });
+  }
+
+  private SystemStatusSystems awaitCheck(Future<SystemStatusSystems> check, long deadline) {
+    try {
+      return check.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      check.cancel(true);
+      return systemNotOk(
+          "Did not respond within " + configuration.getCheckTimeoutSeconds() + " seconds");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return systemNotOk("Interrupted");
+    } catch (Exception e) {
+      return systemNotOk(ErrorReportUtils.unwrap(e).getMessage());
+    }
+  }
+
+  // Borrows straight from the pool with the check timeout, since the data source would wait for a
+  // connection for as long as the pool is configured to, which by default is forever.
+  private SystemStatusSystems checkDatabase(JdbcConfiguration jdbcConfiguration) {
+    int timeoutSeconds = configuration.getCheckTimeoutSeconds();
+    long timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    GenericObjectPool<PoolableConnection> pool = jdbcConfiguration.getConnectionPool();
+    try (Connection connection = pool.borrowObject(timeoutMillis)) {
+      if (connection.isValid(timeoutSeconds)) {
+        return new SystemStatusSystems().ok(true);
+      }
+      return systemNotOk("Connection is not valid");
+    } catch (NoSuchElementException e) {
+      return systemNotOk("No connection was free within " + timeoutSeconds + " seconds");
+    } catch (Exception e) {
+      return systemNotOk(e.getMessage());
+    }
+  }
+
+  // The breaker's state is reported whether or not Sam answers, since it explains what callers see.
+  private SystemStatusSystems checkSam() {
+    String problem;
+    try {
+      org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus samStatus =
+          samService.getSystemStatus();
+      if (Boolean.TRUE.equals(samStatus.getOk())) {
+        return new SystemStatusSystems()
+            .ok(true)
+            .messages(Collections.singletonList(breakerUsage()));
+      }
+      problem = "Sam reports it is not ok: " + samStatus.getSystems();
+    } catch (RuntimeException e) {
+      problem = e.getMessage();
+    }
+    return new SystemStatusSystems().ok(false).messages(Arrays.asList(problem, breakerUsage()));
+  }
+
+  private String breakerUsage() {
+    CircuitBreaker breaker = samService.getCircuitBreaker();
+    return String.format(
+        "circuit %s; opened %d times, %d calls refused, %d reads allowed from recent decisions",
+        breaker.getState(),
+        breaker.getTransitionCount(CircuitBreaker.State.OPEN),
+        breaker.getRejectedCount(),
+        samService.getStaleDecisionCount());
+  }
+
+  private SystemStatusSystems checkExecutor() {
+    int active = jobService.getActiveFlightCount();
+    int queued = jobService.getQueuedFlightCount();
+    String usage =
+        String.format(
+            "%d of %d threads busy, %d flights waiting",
+            active, appConfig.getMaxStairwayThreads(), queued);
+    if (jobService.isDraining()) {
+      return systemNotOk("Draining for shutdown; " + usage);
+    }
+    if (queued > configuration.getMaxQueuedFlights()) {
+      return systemNotOk("Saturated; " + usage);
+    }
+    return new SystemStatusSystems().ok(true).messages(Collections.singletonList(usage));
+  }
+
+  private static SystemStatus notOk(String message) {
+    return new SystemStatus().ok(false).putSystemsItem("status", systemNotOk(message));
+  }
+
+  private static SystemStatusSystems systemNotOk(String message) {
+    return new SystemStatusSystems().ok(false).messages(Collections.singletonList(message));
+  }
+
+  private static class Snapshot {
+    private final SystemStatus status;
+    private final Instant checkedAt;
+
+    Snapshot(SystemStatus status, Instant checkedAt) {
+      this.status = status;
+      this.checkedAt = checkedAt;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package bio.terra.workspace.service.workspace;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.job.JobService;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Submits the purge for tombstoned workspaces that have none. A background delete tombstones the
+ * workspace and then submits its purge; if the instance dies in between, nothing else would ever
+ * remove the rows. Only tombstones older than the grace period are considered, so a delete that is
+ * still on its way to submitting the purge is left alone.
+ *
+ * <p>A purge that was submitted but failed is not retried here: its job still exists, and it needs
+ * looking at before it is run again.
+ */
+@Component
+public class TombstoneSweeper {
+  private static final Logger logger = LoggerFactory.getLogger(TombstoneSweeper.class);
+
+  // Purges started by the sweeper belong to no user; the user who asked for the delete has already
+  // had their answer.
+  static final String SWEEPER_SUBJECT_ID = "tombstone-sweeper";
+
+  private final ApplicationConfiguration appConfig;
+  private final WorkspaceDao workspaceDao;
+  private final WorkspaceService workspaceService;
+  private final JobService jobService;
+  private final ScheduledExecutorService scheduler;
+
+  @Autowired
+  public TombstoneSweeper(
+      ApplicationConfiguration appConfig,
+      WorkspaceDao workspaceDao,
+      WorkspaceService workspaceService,
+      JobService jobService) {
+    this.appConfig = appConfig;
+    this.workspaceDao = workspaceDao;
+    this.workspaceService = workspaceService;
+    this.jobService = jobService;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "tombstone-sweeper");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Start sweeping in the background. This is a no-op if the sweep interval is not positive. */
+  public void startSweep() {
+    int interval = appConfig.getTombstoneSweepIntervalSeconds();
+    if (interval <= 0) {
+      return;
+    }
+    scheduler.scheduleWithFixedDelay(
+        () -> {
+          try {
+            sweep();
+          } catch (RuntimeException e) {
+            logger.warn("Tombstone sweep failed", e);
+          }
+        },
+        interval,
+        interval,
+        TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopSweep() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * Submit a purge for every stale tombstone that has no purge job.
+   *
+   * @return the number of purges submitted
+   */
+  public int sweep() {
+    int submitted = 0;
+    int graceSeconds = appConfig.getTombstoneSweepGraceSeconds();
+    for (UUID workspaceId : workspaceDao.getStaleTombstones(graceSeconds)) {
+      if (jobService.isDraining()) {
+        break;
+      }
+      String jobId = WorkspaceService.purgeJobId(workspaceId);
+      if (jobService.jobExists(jobId)) {
+        continue;
+      }
+      try {
+        workspaceService.submitPurge(workspaceId, sweeperRequest());
+        logger.info("Submitted missing purge {} for tombstoned workspace {}", jobId, workspaceId);
+        submitted++;
+      } catch (RuntimeException e) {
+        // Another instance's sweep may have submitted it first.
+        if (!jobService.jobExists(jobId)) {
+          logger.warn("Failed to submit purge for tombstoned workspace {}", workspaceId, e);
+        }
+      }
+    }
+    return submitted;
+  }
+
+  private static AuthenticatedUserRequest sweeperRequest() {
+    return new AuthenticatedUserRequest().subjectId(SWEEPER_SUBJECT_ID).token(Optional.empty());
+  }
+}
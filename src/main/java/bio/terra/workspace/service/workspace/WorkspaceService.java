@@ -1,34 +1,89 @@
 package bio.terra.workspace.service.workspace;
 
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.common.exception.ErrorReportException;
+import bio.terra.workspace.common.exception.ValidationException;
+import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.ErrorReportUtils;
+import bio.terra.workspace.common.utils.LocalCache;
 import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.common.utils.SpeculativeRead;
+import bio.terra.workspace.db.ShardRouter;
 import bio.terra.workspace.db.WorkspaceDao;
 import bio.terra.workspace.generated.model.CreateWorkspaceRequestBody;
+import bio.terra.workspace.generated.model.CreatedCapability;
 import bio.terra.workspace.generated.model.CreatedWorkspace;
+import bio.terra.workspace.generated.model.ErrorReport;
+import bio.terra.workspace.generated.model.WorkspaceBatchResult;
+import bio.terra.workspace.generated.model.WorkspaceBatchResultList;
 import bio.terra.workspace.generated.model.WorkspaceDescription;
+import bio.terra.workspace.generated.model.WorkspaceList;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.CapabilityService;
 import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.iam.exception.CapabilitiesDisabledException;
 import bio.terra.workspace.service.job.JobBuilder;
 import bio.terra.workspace.service.job.JobService;
+import bio.terra.workspace.service.workspace.exception.WorkspaceMoveUnauthorizedException;
 import bio.terra.workspace.service.workspace.flight.WorkspaceCreateFlight;
 import bio.terra.workspace.service.workspace.flight.WorkspaceDeleteFlight;
 import bio.terra.workspace.service.workspace.flight.WorkspaceFlightMapKeys;
-import java.util.Optional;
+import bio.terra.workspace.service.workspace.flight.WorkspaceMoveFlight;
+import bio.terra.workspace.service.workspace.flight.WorkspacePurgeFlight;
+import bio.terra.workspace.service.workspace.flight.WorkspaceTombstoneFlight;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 @Component
 public class WorkspaceService {
+  private static final int MAX_CACHED_LISTINGS = 10000;
 
   private JobService jobService;
   private final WorkspaceDao workspaceDao;
   private final SamService samService;
+  private final Bulkhead samBulkhead;
+  private final ApplicationConfiguration appConfig;
+  private final ShardRouter shardRouter;
+  private final CapabilityService capabilityService;
+  private final SpeculativeRead speculativeRead;
+  // Per user, keyed by token: the user's workspace ids from Sam and the pages read from them.
+  private final LocalCache<String, Listing> listings;
 
   @Autowired
-  public WorkspaceService(JobService jobService, WorkspaceDao workspaceDao, SamService samService) {
+  public WorkspaceService(
+      JobService jobService,
+      WorkspaceDao workspaceDao,
+      SamService samService,
+      @Qualifier("samBulkhead") Bulkhead samBulkhead,
+      ApplicationConfiguration appConfig,
+      ShardRouter shardRouter,
+      CapabilityService capabilityService,
+      @Qualifier("speculativeRead") SpeculativeRead speculativeRead) {
     this.jobService = jobService;
     this.workspaceDao = workspaceDao;
     this.samService = samService;
+    this.samBulkhead = samBulkhead;
+    this.appConfig = appConfig;
+    this.shardRouter = shardRouter;
+    this.capabilityService = capabilityService;
+    this.speculativeRead = speculativeRead;
+    this.listings =
+        new LocalCache<>(MAX_CACHED_LISTINGS, appConfig.getListCacheSeconds(), TimeUnit.SECONDS);
   }
 
   public CreatedWorkspace createWorkspace(
@@ -48,21 +103,140 @@ public class WorkspaceService {
     if (body.getSpendProfile().isPresent()) {
       createJob.addParameter(WorkspaceFlightMapKeys.SPEND_PROFILE_ID, body.getSpendProfile().get());
     }
-    return createJob.submitAndWait(CreatedWorkspace.class);
+    CreatedWorkspace created = createJob.submitAndWait(CreatedWorkspace.class);
+    // Show the new workspace in the creator's next listing.
+    userReq.getToken().ifPresent(listings::invalidate);
+    return created;
   }
 
   public WorkspaceDescription getWorkspace(String id, AuthenticatedUserRequest userReq) {
+    return speculativeRead.read(
+        () -> samService.workspaceAuthz(userReq, id, SamUtils.SAM_WORKSPACE_READ_ACTION),
+        () -> workspaceDao.getWorkspace(id));
+  }
+
+  /**
+   * Get several workspaces at once. The Sam checks for all ids run concurrently; the workspaces the
+   * user may read are then fetched with one query. Each id gets its own result, so an unauthorized
+   * or missing workspace is reported in its entry rather than failing the whole request.
+   */
+  public WorkspaceBatchResultList getWorkspaces(
+      List<String> ids, AuthenticatedUserRequest userReq) {
+    // Preserve request order but only look up each id once.
+    Set<String> uniqueIds = new LinkedHashSet<>(ids);
 
-    samService.workspaceAuthz(userReq, id, SamUtils.SAM_WORKSPACE_READ_ACTION);
-    WorkspaceDescription result = workspaceDao.getWorkspace(id);
-    return result;
+    // The checks run on the Sam bulkhead, and their own Sam calls run inline on the same thread.
+    Map<String, ErrorReport> errors = new HashMap<>();
+    Map<String, Future<Void>> authzChecks = new LinkedHashMap<>();
+    for (String id : uniqueIds) {
+      try {
+        authzChecks.put(
+            id,
+            samBulkhead.submit(
+                () -> {
+                  samService.workspaceAuthz(userReq, id, SamUtils.SAM_WORKSPACE_READ_ACTION);
+                  return null;
+                }));
+      } catch (ErrorReportException e) {
+        errors.put(id, ErrorReportUtils.buildErrorReport(e));
+      }
+    }
+
+    List<String> authorizedIds = new ArrayList<>();
+    for (Map.Entry<String, Future<Void>> check : authzChecks.entrySet()) {
+      try {
+        samBulkhead.await(check.getValue());
+        authorizedIds.add(check.getKey());
+      } catch (RuntimeException e) {
+        errors.put(check.getKey(), ErrorReportUtils.buildErrorReport(e));
+      }
+    }
+
+    Map<String, WorkspaceDescription> workspaces =
+        authorizedIds.isEmpty() ? new HashMap<>() : workspaceDao.getWorkspaces(authorizedIds);
+
+    List<WorkspaceBatchResult> results = new ArrayList<>();
+    for (String id : uniqueIds) {
+      WorkspaceBatchResult result = new WorkspaceBatchResult().id(id);
+      if (errors.containsKey(id)) {
+        result.error(errors.get(id));
+      } else if (workspaces.containsKey(id)) {
+        result.workspace(workspaces.get(id));
+      } else {
+        result.error(
+            ErrorReportUtils.buildErrorReport(
+                new WorkspaceNotFoundException("Workspace not found.")));
+      }
+      results.add(result);
+    }
+    return new WorkspaceBatchResultList().results(results);
+  }
+
+  /**
+   * Issue a capability for the given actions on the workspace. Each action is checked with Sam
+   * first, and the workspace must exist, so a capability is never issued for a deleted one.
+   */
+  public CreatedCapability createCapability(
+      String id, List<String> actions, AuthenticatedUserRequest userReq) {
+    if (!capabilityService.isEnabled()) {
+      throw new CapabilitiesDisabledException("Capabilities are not enabled");
+    }
+    // A capability the request carries must not vouch for a new one.
+    AuthenticatedUserRequest samOnly =
+        new AuthenticatedUserRequest(
+            userReq.getEmail(), userReq.getSubjectId(), userReq.getToken());
+    for (String action : new LinkedHashSet<>(actions)) {
+      samService.workspaceAuthz(samOnly, id, action);
+    }
+    workspaceDao.getWorkspace(id);
+    return capabilityService.issue(userReq, id, actions);
+  }
+
+  /**
+   * List the workspaces the user has any access to, a page at a time. Sam is asked once for the ids
+   * of all of the user's workspaces, and each page then looks up only the ids that can be on it.
+   * The id list and the pages read from it are kept for listCacheSeconds per user, since a UI
+   * fetches the same first pages over and over.
+   */
+  public WorkspaceList listWorkspaces(
+      int limit, String pageToken, AuthenticatedUserRequest userReq) {
+    Listing listing =
+        listings.get(
+            userReq.getRequiredToken(),
+            token -> {
+              List<String> ids = new ArrayList<>(samService.listWorkspaceIds(token));
+              Collections.sort(ids);
+              return new Listing(ids);
+            });
+    return listing.pages.computeIfAbsent(
+        limit + ":" + Objects.toString(pageToken, ""),
+        key -> readPage(listing.sortedIds, limit, pageToken));
+  }
+
+  // The page token is the last id on the previous page.
+  private WorkspaceList readPage(List<String> sortedIds, int limit, String pageToken) {
+    List<WorkspaceDescription> workspaces =
+        workspaceDao.listWorkspaces(sortedIds, pageToken, limit);
+    WorkspaceList page = new WorkspaceList().workspaces(workspaces);
+    if (workspaces.size() == limit) {
+      String lastId = workspaces.get(limit - 1).getId().toString();
+      if (sortedIds.get(sortedIds.size() - 1).compareTo(lastId) > 0) {
+        page.nextPageToken(lastId);
+      }
+    }
+    return page;
   }
 
-  public void deleteWorkspace(String id, String userToken) {
+  public void deleteWorkspace(String id, AuthenticatedUserRequest userReq) {
+    listings.invalidate(userReq.getRequiredToken());
 
-    AuthenticatedUserRequest userReq = new AuthenticatedUserRequest().token(Optional.of(userToken));
     samService.workspaceAuthz(userReq, id, SamUtils.SAM_WORKSPACE_DELETE_ACTION);
 
+    if (appConfig.isBackgroundDeleteEnabled()) {
+      deleteWorkspaceInBackground(id, userReq);
+      return;
+    }
+
     String description = "Delete workspace " + id;
     JobBuilder deleteJob =
         jobService
@@ -75,4 +249,92 @@ public class WorkspaceService {
             .addParameter(WorkspaceFlightMapKeys.WORKSPACE_ID, UUID.fromString(id));
     deleteJob.submitAndWait(null);
   }
+
+  /**
+   * Delete in two jobs. The first deletes the Sam resource and tombstones the workspace; the
+   * request waits only for that, so it returns quickly however large the workspace is. The second
+   * purges the workspace's rows in bounded batches and runs in the background. Its job id is
+   * derived from the workspace id (see {@link #purgeJobId}) so that it can be polled.
+   */
+  private void deleteWorkspaceInBackground(String id, AuthenticatedUserRequest userReq) {
+    UUID workspaceId = UUID.fromString(id);
+    jobService
+        .newJob(
+            "Tombstone workspace " + id,
+            UUID.randomUUID().toString(),
+            WorkspaceTombstoneFlight.class,
+            null, // Delete does not have a useful request body
+            userReq)
+        .addParameter(WorkspaceFlightMapKeys.WORKSPACE_ID, workspaceId)
+        .submitAndWait(null);
+
+    submitPurge(workspaceId, userReq);
+  }
+
+  /**
+   * Start purging the rows of a tombstoned workspace in the background, and return the job id. The
+   * purge normally follows the tombstone directly; {@link TombstoneSweeper} also calls this for
+   * tombstones whose purge was never submitted.
+   */
+  public String submitPurge(UUID workspaceId, AuthenticatedUserRequest userReq) {
+    return jobService
+        .newJob(
+            "Purge workspace " + workspaceId,
+            purgeJobId(workspaceId),
+            WorkspacePurgeFlight.class,
+            null,
+            userReq)
+        .addParameter(WorkspaceFlightMapKeys.WORKSPACE_ID, workspaceId)
+        .addParameter(WorkspaceFlightMapKeys.PURGE_BATCH_SIZE, appConfig.getPurgeBatchSize())
+        .submit();
+  }
+
+  public static String purgeJobId(UUID workspaceId) {
+    return "purge-workspace-" + workspaceId;
+  }
+
+  /**
+   * Start moving a workspace to another shard and return the job id. This is an operator action
+   * for rebalancing, so it is authorized against the workspace manager resource rather than the
+   * workspace.
+   */
+  public String moveWorkspaceToShard(
+      UUID workspaceId, int targetShard, AuthenticatedUserRequest userReq) {
+    boolean canMove =
+        samService.isAuthorized(
+            userReq.getRequiredToken(),
+            SamUtils.SAM_WORKSPACE_MANAGER_RESOURCE,
+            appConfig.getResourceId(),
+            SamUtils.SAM_WORKSPACE_MANAGER_MOVE_WORKSPACE_ACTION);
+    if (!canMove) {
+      throw new WorkspaceMoveUnauthorizedException(
+          "User is not authorized to move workspaces between shards");
+    }
+    // Fail fast on a bad shard index rather than in the flight.
+    shardRouter.getShard(targetShard);
+    if (shardRouter.isHoldingOnPrimary()) {
+      // Instances that do not know every shard would still look for the workspace on the primary.
+      throw new ValidationException(
+          "Workspaces cannot be moved while db.shard.holdOnPrimary is set");
+    }
+    return jobService
+        .newJob(
+            "Move workspace " + workspaceId + " to shard " + targetShard,
+            UUID.randomUUID().toString(),
+            WorkspaceMoveFlight.class,
+            null,
+            userReq)
+        .addParameter(WorkspaceFlightMapKeys.WORKSPACE_ID, workspaceId)
+        .addParameter(WorkspaceFlightMapKeys.TARGET_SHARD, targetShard)
+        .submit();
+  }
+
+  private static class Listing {
+    private final List<String> sortedIds;
+    private final Map<String, WorkspaceList> pages = new ConcurrentHashMap<>();
+
+    Listing(List<String> sortedIds) {
+      this.sortedIds = sortedIds;
+    }
+  }
 }
@@ -0,0 +1,9 @@
+package bio.terra.workspace.service.workspace.exception;
+
+import bio.terra.workspace.common.exception.UnauthorizedException;
+
+public class WorkspaceMoveUnauthorizedException extends UnauthorizedException {
+  public WorkspaceMoveUnauthorizedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,61 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import bio.terra.stairway.exception.RetryException;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceShardMover;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Moves a workspace to the target shard. The source shard is recorded in the working map on the
+ * first attempt, so a retry after the placement has already switched still knows where to clean up.
+ */
+public class MoveWorkspaceShardStep implements Step {
+  private static final Logger logger = LoggerFactory.getLogger(MoveWorkspaceShardStep.class);
+
+  private WorkspaceShardMover mover;
+  private ShardRouter shardRouter;
+
+  public MoveWorkspaceShardStep(WorkspaceShardMover mover, ShardRouter shardRouter) {
+    this.mover = mover;
+    this.shardRouter = shardRouter;
+  }
+
+  @Override
+  public StepResult doStep(FlightContext flightContext) throws RetryException {
+    FlightMap inputMap = flightContext.getInputParameters();
+    FlightMap workingMap = flightContext.getWorkingMap();
+    UUID workspaceID = inputMap.get(WorkspaceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    Integer targetShard = inputMap.get(WorkspaceFlightMapKeys.TARGET_SHARD, Integer.class);
+
+    Integer sourceShard = workingMap.get(WorkspaceFlightMapKeys.SOURCE_SHARD, Integer.class);
+    if (sourceShard == null) {
+      shardRouter.invalidatePlacement(workspaceID.toString());
+      sourceShard = shardRouter.shardFor(workspaceID).getIndex();
+      workingMap.put(WorkspaceFlightMapKeys.SOURCE_SHARD, sourceShard);
+    }
+
+    try {
+      int moved = mover.moveWorkspace(workspaceID, sourceShard, targetShard);
+      workingMap.put(WorkspaceFlightMapKeys.MOVED_ROWS, moved);
+    } catch (DataAccessException e) {
+      logger.warn("Move of workspace {} to shard {} failed", workspaceID, targetShard, e);
+      return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY, e);
+    }
+    return StepResult.getStepResultSuccess();
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext flightContext) {
+    // A failed move either left the workspace on the source, or switched it to the target with
+    // only the source cleanup outstanding. Neither needs undoing.
+    return StepResult.getStepResultSuccess();
+  }
+}
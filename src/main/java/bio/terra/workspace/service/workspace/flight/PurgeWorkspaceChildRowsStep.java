@@ -0,0 +1,71 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import bio.terra.stairway.exception.RetryException;
+import bio.terra.workspace.db.WorkspaceChildTable;
+import bio.terra.workspace.db.WorkspaceDao;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Deletes all rows belonging to a tombstoned workspace from one child table, in batches. Each batch
+ * is a separate short transaction. The step is idempotent, so a retry or a recovered flight simply
+ * continues with whatever rows remain.
+ */
+public class PurgeWorkspaceChildRowsStep implements Step {
+  private static final Logger logger = LoggerFactory.getLogger(PurgeWorkspaceChildRowsStep.class);
+
+  private WorkspaceDao workspaceDao;
+  private WorkspaceChildTable table;
+
+  public PurgeWorkspaceChildRowsStep(WorkspaceDao workspaceDao, WorkspaceChildTable table) {
+    this.workspaceDao = workspaceDao;
+    this.table = table;
+  }
+
+  @Override
+  public StepResult doStep(FlightContext flightContext) throws RetryException {
+    FlightMap inputMap = flightContext.getInputParameters();
+    UUID workspaceID = inputMap.get(WorkspaceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    Integer batchSize = inputMap.get(WorkspaceFlightMapKeys.PURGE_BATCH_SIZE, Integer.class);
+
+    // Count on from an earlier attempt at this step, so a retried purge reports every row it
+    // removed. Rows deleted by an attempt that died before the step finished are not counted.
+    FlightMap workingMap = flightContext.getWorkingMap();
+    String countKey = WorkspaceFlightMapKeys.PURGED_ROWS_PREFIX + table.getTableName();
+    Long previous = workingMap.get(countKey, Long.class);
+    long purged = previous == null ? 0 : previous;
+    try {
+      int deleted;
+      do {
+        deleted = workspaceDao.purgeChildRows(table, workspaceID, batchSize);
+        purged += deleted;
+        workingMap.put(countKey, purged);
+        if (deleted > 0) {
+          logger.info(
+              "Purging workspace {}: deleted {} rows from {} so far",
+              workspaceID,
+              purged,
+              table.getTableName());
+        }
+      } while (deleted > 0);
+    } catch (DataAccessException e) {
+      logger.warn("Purge of {} for workspace {} failed", table.getTableName(), workspaceID, e);
+      return new StepResult(StepStatus.STEP_RESULT_FAILURE_RETRY, e);
+    }
+    return StepResult.getStepResultSuccess();
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext flightContext) {
+    // Purged rows are gone for good. The workspace is already tombstoned and its Sam resource
+    // deleted, so there is nothing to restore; a purge that cannot finish must be re-run.
+    return new StepResult(StepStatus.STEP_RESULT_FAILURE_FATAL);
+  }
+}
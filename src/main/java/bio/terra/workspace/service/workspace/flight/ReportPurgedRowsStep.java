@@ -0,0 +1,36 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.workspace.common.utils.FlightUtils;
+import bio.terra.workspace.db.WorkspaceChildTable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Makes the per-table counts recorded by {@link PurgeWorkspaceChildRowsStep} the job's response,
+ * keyed by table name, so that polling the purge job shows how many rows it deleted.
+ */
+public class ReportPurgedRowsStep implements Step {
+
+  @Override
+  public StepResult doStep(FlightContext flightContext) {
+    FlightMap workingMap = flightContext.getWorkingMap();
+    Map<String, Long> purgedRows = new LinkedHashMap<>();
+    for (WorkspaceChildTable table : WorkspaceChildTable.values()) {
+      String countKey = WorkspaceFlightMapKeys.PURGED_ROWS_PREFIX + table.getTableName();
+      Long purged = workingMap.get(countKey, Long.class);
+      purgedRows.put(table.getTableName(), purged == null ? 0 : purged);
+    }
+    FlightUtils.setResponse(flightContext, purgedRows, HttpStatus.OK);
+    return StepResult.getStepResultSuccess();
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext flightContext) {
+    return StepResult.getStepResultSuccess();
+  }
+}
@@ -0,0 +1,39 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.exception.RetryException;
+import bio.terra.workspace.common.utils.FlightUtils;
+import bio.terra.workspace.db.WorkspaceDao;
+import java.util.UUID;
+import org.springframework.http.HttpStatus;
+
+public class TombstoneWorkspaceStep implements Step {
+
+  private WorkspaceDao workspaceDao;
+
+  public TombstoneWorkspaceStep(WorkspaceDao workspaceDao) {
+    this.workspaceDao = workspaceDao;
+  }
+
+  @Override
+  public StepResult doStep(FlightContext flightContext) throws RetryException {
+    FlightMap inputMap = flightContext.getInputParameters();
+    UUID workspaceID = inputMap.get(WorkspaceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    // As with a full delete, a missing workspace is not an error: the user-facing operation
+    // returns a 204 either way.
+    workspaceDao.tombstoneWorkspace(workspaceID);
+    FlightUtils.setResponse(flightContext, null, HttpStatus.valueOf(204));
+    return StepResult.getStepResultSuccess();
+  }
+
+  @Override
+  public StepResult undoStep(FlightContext flightContext) {
+    FlightMap inputMap = flightContext.getInputParameters();
+    UUID workspaceID = inputMap.get(WorkspaceFlightMapKeys.WORKSPACE_ID, UUID.class);
+    workspaceDao.untombstoneWorkspace(workspaceID);
+    return StepResult.getStepResultSuccess();
+  }
+}
@@ -2,6 +2,7 @@ package bio.terra.workspace.service.workspace.flight;
 
 import bio.terra.stairway.Flight;
 import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
 import bio.terra.workspace.db.WorkspaceDao;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.SamService;
@@ -21,7 +22,7 @@ public class WorkspaceCreateFlight extends Flight {
     AuthenticatedUserRequest userReq =
         inputParameters.get(JobMapKeys.AUTH_USER_INFO.getKeyName(), AuthenticatedUserRequest.class);
 
-    addStep(new CreateWorkspaceAuthzStep(iamClient, userReq));
-    addStep(new CreateWorkspaceStep(workspaceDao));
+    addStep(new RecordedStep(new CreateWorkspaceAuthzStep(iamClient, userReq)));
+    addStep(new RecordedStep(new CreateWorkspaceStep(workspaceDao)));
   }
 }
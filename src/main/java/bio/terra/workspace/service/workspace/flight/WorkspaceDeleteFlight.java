@@ -2,6 +2,7 @@ package bio.terra.workspace.service.workspace.flight;
 
 import bio.terra.stairway.Flight;
 import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
 import bio.terra.workspace.db.WorkspaceDao;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.SamService;
@@ -23,7 +24,7 @@ public class WorkspaceDeleteFlight extends Flight {
     // 1. delete controlled resources using the Cloud Resource Manager library
     // 2. Notify all registered applications of deletion, once applications are supported
     // 3. Delete policy objects in Policy Manager, once it exists.
-    addStep(new DeleteWorkspaceAuthzStep(iamClient, userReq));
-    addStep(new DeleteWorkspaceStateStep(workspaceDao));
+    addStep(new RecordedStep(new DeleteWorkspaceAuthzStep(iamClient, userReq)));
+    addStep(new RecordedStep(new DeleteWorkspaceStateStep(workspaceDao)));
   }
 }
@@ -5,4 +5,10 @@ public final class WorkspaceFlightMapKeys {
 
   public static final String WORKSPACE_ID = "workspaceId";
   public static final String SPEND_PROFILE_ID = "spendProfileId";
+  public static final String PURGE_BATCH_SIZE = "purgeBatchSize";
+  // Followed by the table name; the value is the number of rows purged from that table.
+  public static final String PURGED_ROWS_PREFIX = "purgedRows.";
+  public static final String TARGET_SHARD = "targetShard";
+  public static final String SOURCE_SHARD = "sourceShard";
+  public static final String MOVED_ROWS = "movedRows";
 }
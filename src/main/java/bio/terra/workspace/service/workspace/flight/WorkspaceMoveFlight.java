@@ -0,0 +1,25 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceShardMover;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Rebalancing: move a workspace and all of its rows to another shard. The number of rows moved is
+ * reported in the job result.
+ */
+public class WorkspaceMoveFlight extends Flight {
+
+  public WorkspaceMoveFlight(FlightMap inputParameters, Object applicationContext) {
+    super(inputParameters, applicationContext);
+
+    ApplicationContext appContext = (ApplicationContext) applicationContext;
+    WorkspaceShardMover mover = (WorkspaceShardMover) appContext.getBean("workspaceShardMover");
+    ShardRouter shardRouter = (ShardRouter) appContext.getBean("shardRouter");
+
+    addStep(new RecordedStep(new MoveWorkspaceShardStep(mover, shardRouter)));
+  }
+}
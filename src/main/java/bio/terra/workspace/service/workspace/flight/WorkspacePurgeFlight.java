@@ -0,0 +1,30 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
+import bio.terra.workspace.db.WorkspaceChildTable;
+import bio.terra.workspace.db.WorkspaceDao;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Second half of a background workspace delete: remove the rows of a tombstoned workspace in
+ * bounded batches, one child table per step, and finally the workspace row itself. The job's
+ * response is the number of rows purged from each child table, keyed by table name.
+ */
+public class WorkspacePurgeFlight extends Flight {
+
+  public WorkspacePurgeFlight(FlightMap inputParameters, Object applicationContext) {
+    super(inputParameters, applicationContext);
+
+    ApplicationContext appContext = (ApplicationContext) applicationContext;
+    WorkspaceDao workspaceDao = (WorkspaceDao) appContext.getBean("workspaceDao");
+
+    for (WorkspaceChildTable table : WorkspaceChildTable.values()) {
+      addStep(new RecordedStep(new PurgeWorkspaceChildRowsStep(workspaceDao, table)));
+    }
+    // With the child rows gone, the cascading delete of the workspace row is cheap.
+    addStep(new RecordedStep(new DeleteWorkspaceStateStep(workspaceDao)));
+    addStep(new RecordedStep(new ReportPurgedRowsStep()));
+  }
+}
@@ -0,0 +1,31 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightMap;
+import bio.terra.workspace.common.jfr.RecordedStep;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.job.JobMapKeys;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * First half of a background workspace delete: remove the Sam resource and hide the workspace. This
+ * only touches the workspace row, so it is fast regardless of how much the workspace contains. The
+ * rows are removed afterwards by {@link WorkspacePurgeFlight}.
+ */
+public class WorkspaceTombstoneFlight extends Flight {
+
+  public WorkspaceTombstoneFlight(FlightMap inputParameters, Object applicationContext) {
+    super(inputParameters, applicationContext);
+
+    ApplicationContext appContext = (ApplicationContext) applicationContext;
+    WorkspaceDao workspaceDao = (WorkspaceDao) appContext.getBean("workspaceDao");
+    SamService iamClient = (SamService) appContext.getBean("samService");
+
+    AuthenticatedUserRequest userReq =
+        inputParameters.get(JobMapKeys.AUTH_USER_INFO.getKeyName(), AuthenticatedUserRequest.class);
+    addStep(new RecordedStep(new DeleteWorkspaceAuthzStep(iamClient, userReq)));
+    addStep(new RecordedStep(new TombstoneWorkspaceStep(workspaceDao)));
+  }
+}
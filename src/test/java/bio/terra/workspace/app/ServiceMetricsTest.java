@@ -0,0 +1,54 @@
+package bio.terra.workspace.app;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bio.terra.workspace.db.WorkspaceDao;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest(
+    properties = {
+      "management.endpoints.web.exposure.include=prometheus",
+      "management.metrics.tags.application=workspace-manager"
+    })
+@AutoConfigureMockMvc
+public class ServiceMetricsTest {
+
+  @Autowired private MockMvc mvc;
+  @Autowired private WorkspaceDao workspaceDao;
+
+  @Test
+  public void prometheusExposesTheServiceMeters() throws Exception {
+    mvc.perform(get("/status/liveness")).andExpect(status().isOk());
+    workspaceDao.getWorkspaceIds();
+
+    String scrape =
+        mvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    assertThat(scrape, containsString("application=\"workspace-manager\""));
+    assertThat(scrape, containsString("operation=\"serviceLiveness\""));
+    assertThat(scrape, containsString("workspace_db_query_seconds_count{"));
+    assertThat(scrape, containsString("method=\"getWorkspaceIds\""));
+    assertThat(scrape, containsString("workspace_flights_threads{"));
+    assertThat(scrape, containsString("workspace_flights_threads_max{"));
+    assertThat(scrape, containsString("workspace_db_pool_active{"));
+    assertThat(scrape, containsString("workspace_cache_requests_total{"));
+  }
+}
@@ -0,0 +1,71 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.common.exception.BulkheadFullException;
+import bio.terra.workspace.common.exception.DeadlineExceededException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class BulkheadTest {
+  private Bulkhead bulkhead = new Bulkhead("test", 1, 1, 200);
+
+  @AfterEach
+  public void tearDown() {
+    bulkhead.shutdown();
+    RequestDeadline.clear();
+  }
+
+  @Test
+  public void nestedCallRunsInline() {
+    // With one thread, queueing the inner call would wait for the thread the outer call holds.
+    assertThat(bulkhead.call(() -> bulkhead.call(() -> "inner")), equalTo("inner"));
+  }
+
+  @Test
+  public void fullBulkheadRejects() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> running = bulkhead.submit(() -> release.await(5, TimeUnit.SECONDS));
+    Future<Object> queued = bulkhead.submit(() -> "queued");
+    assertThrows(BulkheadFullException.class, () -> bulkhead.submit(() -> "rejected"));
+    release.countDown();
+    running.get();
+    assertThat(queued.get(), equalTo("queued"));
+  }
+
+  @Test
+  public void slowCallTimesOut() {
+    assertThrows(
+        DeadlineExceededException.class,
+        () ->
+            bulkhead.call(
+                () -> {
+                  Thread.sleep(5000);
+                  return null;
+                }));
+  }
+
+  @Test
+  public void passedDeadlineFailsFast() {
+    RequestDeadline.start(-1, TimeUnit.SECONDS);
+    assertThrows(DeadlineExceededException.class, () -> bulkhead.call(() -> "late"));
+  }
+
+  @Test
+  public void exceptionsPassThrough() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            bulkhead.call(
+                () -> {
+                  throw new IllegalArgumentException("bad");
+                }));
+  }
+}
@@ -0,0 +1,74 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.common.exception.CircuitOpenException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class CircuitBreakerTest {
+
+  // Trips at 50% failures over the last 4 calls, stays open for 100 ms, then needs 2 probes.
+  private CircuitBreaker newBreaker() {
+    return new CircuitBreaker("test", 4, 4, 50, 100, 10000, 100, 2, e -> true);
+  }
+
+  private static String fail() {
+    throw new IllegalStateException("down");
+  }
+
+  @Test
+  public void tripsOnFailureRateAndRecovers() throws Exception {
+    CircuitBreaker breaker = newBreaker();
+    breaker.call(() -> "ok");
+    breaker.call(() -> "ok");
+    assertThrows(IllegalStateException.class, () -> breaker.call(CircuitBreakerTest::fail));
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+    assertThrows(IllegalStateException.class, () -> breaker.call(CircuitBreakerTest::fail));
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+
+    assertThrows(CircuitOpenException.class, () -> breaker.call(() -> "refused"));
+    assertThat(breaker.getRejectedCount(), equalTo(1L));
+
+    Thread.sleep(150);
+    assertThat(breaker.call(() -> "probe"), equalTo("probe"));
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+    breaker.call(() -> "probe");
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+    assertThat(breaker.getTransitionCount(CircuitBreaker.State.OPEN), equalTo(1L));
+  }
+
+  @Test
+  public void failedProbeReopens() throws Exception {
+    CircuitBreaker breaker = newBreaker();
+    for (int i = 0; i < 4; i++) {
+      assertThrows(IllegalStateException.class, () -> breaker.call(CircuitBreakerTest::fail));
+    }
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+
+    Thread.sleep(150);
+    assertThrows(IllegalStateException.class, () -> breaker.call(CircuitBreakerTest::fail));
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+    assertThat(breaker.getTransitionCount(CircuitBreaker.State.OPEN), equalTo(2L));
+  }
+
+  @Test
+  public void answersThatAreNotFailuresDoNotTrip() {
+    CircuitBreaker breaker =
+        new CircuitBreaker(
+            "test", 4, 4, 50, 100, 10000, 100, 2, e -> !(e instanceof IllegalArgumentException));
+    for (int i = 0; i < 8; i++) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () ->
+              breaker.call(
+                  () -> {
+                    throw new IllegalArgumentException("no");
+                  }));
+    }
+    assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+  }
+}
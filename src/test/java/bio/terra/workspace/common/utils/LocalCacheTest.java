@@ -0,0 +1,93 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class LocalCacheTest {
+
+  @Test
+  public void loadsOnceAndCountsHits() {
+    LocalCache<String, String> cache = new LocalCache<>(10, 1, TimeUnit.MINUTES);
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(
+          cache.get(
+              "key",
+              k -> {
+                loads.incrementAndGet();
+                return "value";
+              }),
+          equalTo("value"));
+    }
+
+    assertThat(loads.get(), equalTo(1));
+    assertThat(cache.getHitCount(), equalTo(3L));
+    assertThat(cache.getMissCount(), equalTo(1L));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    LocalCache<String, String> cache = new LocalCache<>(2, 1, TimeUnit.MINUTES);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.getIfPresent("a");
+    cache.put("c", "3");
+
+    assertThat(cache.getIfPresent("b"), nullValue());
+    assertThat(cache.getIfPresent("a"), equalTo("1"));
+    assertThat(cache.getIfPresent("c"), equalTo("3"));
+  }
+
+  @Test
+  public void expiredEntriesAreMisses() throws Exception {
+    LocalCache<String, String> cache = new LocalCache<>(10, 1, TimeUnit.MILLISECONDS);
+    cache.put("a", "1");
+    Thread.sleep(5);
+
+    assertThat(cache.getIfPresent("a"), nullValue());
+    assertThat(cache.size(), equalTo(0));
+  }
+
+  @Test
+  public void invalidateIfRemovesMatchingValues() {
+    LocalCache<String, String> cache = new LocalCache<>(10, 1, TimeUnit.MINUTES);
+    cache.put("a", "keep");
+    cache.put("b", "drop");
+    cache.put("c", "drop");
+    cache.invalidateIf("drop"::equals);
+
+    assertThat(cache.size(), equalTo(1));
+    assertThat(cache.getIfPresent("a"), equalTo("keep"));
+  }
+
+  @Test
+  public void valueLoadedAcrossAnInvalidationIsNotCached() {
+    LocalCache<String, String> cache = new LocalCache<>(10, 1, TimeUnit.MINUTES);
+
+    // As if the row were deleted while the loader was reading it.
+    String loaded =
+        cache.get(
+            "a",
+            k -> {
+              cache.invalidate(k);
+              return "stale";
+            });
+
+    assertThat(loaded, equalTo("stale"));
+    assertThat(cache.getIfPresent("a"), nullValue());
+
+    long version = cache.getVersion();
+    cache.invalidateAll();
+    assertThat(cache.putIfUnchanged("a", "stale", version), equalTo(false));
+    assertThat(cache.putIfUnchanged("a", "fresh", cache.getVersion()), equalTo(true));
+    assertThat(cache.getIfPresent("a"), equalTo("fresh"));
+  }
+}
@@ -0,0 +1,66 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class RequestTimingTest {
+
+  @AfterEach
+  public void tearDown() {
+    RequestTiming.clear();
+  }
+
+  @Test
+  public void phasesAreReportedWithTheirCalls() {
+    RequestTiming timing = RequestTiming.start();
+    RequestTiming.end(RequestTiming.Phase.SAM, RequestTiming.begin());
+    RequestTiming.end(RequestTiming.Phase.SAM, RequestTiming.begin());
+    RequestTiming.end(RequestTiming.Phase.DB, RequestTiming.begin());
+
+    String header = timing.toServerTiming();
+    assertThat(header, startsWith("sam;dur="));
+    assertThat(header, containsString(";desc=\"2 calls\", db;dur="));
+    assertThat(header, containsString(";desc=\"1 call\", total;dur="));
+    assertThat(header, not(containsString("flight")));
+    assertThat(timing.toLogFields(), containsString(" samCalls=2 "));
+  }
+
+  @Test
+  public void nothingIsRecordedWithoutTiming() {
+    long begin = RequestTiming.begin();
+    RequestTiming timing = RequestTiming.start();
+    // Started before timing was, so not counted.
+    RequestTiming.end(RequestTiming.Phase.SAM, begin);
+
+    assertThat(timing.toServerTiming(), startsWith("total;dur="));
+  }
+
+  @Test
+  public void bulkheadWorkCountsTowardsTheRequest() {
+    Bulkhead bulkhead = new Bulkhead("test", 1, 1, 2000);
+    try {
+      RequestTiming timing = RequestTiming.start();
+      bulkhead.call(
+          () -> {
+            RequestTiming.end(RequestTiming.Phase.DATA_REPO, RequestTiming.begin());
+            return null;
+          });
+      assertThat(timing.toServerTiming(), startsWith("datarepo;dur="));
+
+      // The pool thread does not keep the timing for later, untimed work.
+      RequestTiming.clear();
+      assertThat(bulkhead.call(RequestTiming::current), nullValue());
+      assertThat(timing.toLogFields(), containsString(" datarepoCalls=1 "));
+    } finally {
+      bulkhead.shutdown();
+    }
+  }
+}
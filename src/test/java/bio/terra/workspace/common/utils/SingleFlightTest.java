@@ -0,0 +1,86 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class SingleFlightTest {
+  @Test
+  public void concurrentCallersShareOneCall() throws Exception {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    int callers = 5;
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            executor.submit(
+                () ->
+                    singleFlight.execute(
+                        "key",
+                        () -> {
+                          calls.incrementAndGet();
+                          awaitQuietly(release);
+                          return "value";
+                        })));
+      }
+      // Hold the call open until everyone else has joined it.
+      while (singleFlight.getSharedCount() < callers - 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+      for (Future<String> result : results) {
+        assertThat(result.get(), equalTo("value"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(calls.get(), equalTo(1));
+    assertThat(singleFlight.getExecutionCount(), equalTo(1L));
+  }
+
+  @Test
+  public void finishedCallsAreNotReused() {
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    assertThat(singleFlight.execute("key", calls::incrementAndGet), equalTo(1));
+    assertThat(singleFlight.execute("key", calls::incrementAndGet), equalTo(2));
+  }
+
+  @Test
+  public void exceptionsReachTheCaller() {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            singleFlight.execute(
+                "key",
+                () -> {
+                  throw new IllegalStateException("down");
+                }));
+    // A failed call is not remembered either.
+    assertThat(singleFlight.execute("key", () -> "value"), equalTo("value"));
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
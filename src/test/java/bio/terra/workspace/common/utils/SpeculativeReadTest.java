@@ -0,0 +1,93 @@
+package bio.terra.workspace.common.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.common.exception.SamUnauthorizedException;
+import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class SpeculativeReadTest {
+  private SpeculativeRead speculativeRead =
+      new SpeculativeRead(true, new Bulkhead("test", 2, 2, 2000));
+
+  @AfterEach
+  public void tearDown() {
+    speculativeRead.shutdown();
+  }
+
+  @Test
+  public void readOverlapsCheck() {
+    // The check only finishes once the read has started, so they must run at the same time.
+    CountDownLatch readStarted = new CountDownLatch(1);
+    String result =
+        speculativeRead.read(
+            () -> awaitQuietly(readStarted),
+            () -> {
+              readStarted.countDown();
+              return "data";
+            });
+    assertThat(result, equalTo("data"));
+    assertThat(speculativeRead.getSpeculatedCount(), equalTo(1L));
+    assertThat(speculativeRead.getWastedCount(), equalTo(0L));
+  }
+
+  @Test
+  public void failedCheckHidesRead() {
+    // Even a read that fails must not tell an unauthorized caller whether the workspace exists.
+    assertThrows(
+        SamUnauthorizedException.class,
+        () ->
+            speculativeRead.read(
+                () -> {
+                  throw new SamUnauthorizedException("not allowed");
+                },
+                () -> {
+                  throw new WorkspaceNotFoundException("Workspace not found.");
+                }));
+    assertThat(speculativeRead.getWastedCount(), equalTo(1L));
+  }
+
+  @Test
+  public void readErrorFollowsPassedCheck() {
+    assertThrows(
+        WorkspaceNotFoundException.class,
+        () ->
+            speculativeRead.read(
+                () -> {},
+                () -> {
+                  throw new WorkspaceNotFoundException("Workspace not found.");
+                }));
+    assertThat(speculativeRead.getWastedCount(), equalTo(0L));
+  }
+
+  @Test
+  public void disabledRunsInOrder() {
+    SpeculativeRead disabled = new SpeculativeRead(false, new Bulkhead("disabled", 1, 1, 2000));
+    try {
+      StringBuilder order = new StringBuilder();
+      disabled.read(() -> order.append("check,"), () -> order.append("read"));
+      assertThat(order.toString(), equalTo("check,read"));
+      assertThat(disabled.getSpeculatedCount(), equalTo(0L));
+    } finally {
+      disabled.shutdown();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      if (!latch.await(5, TimeUnit.SECONDS)) {
+        throw new IllegalStateException("Read did not start");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
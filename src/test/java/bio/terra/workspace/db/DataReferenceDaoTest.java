@@ -5,16 +5,29 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 
 import bio.terra.workspace.app.Main;
 import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import bio.terra.workspace.common.exception.DataReferenceNotFoundException;
 import bio.terra.workspace.generated.model.DataReferenceDescription;
 import bio.terra.workspace.generated.model.DataReferenceList;
 import bio.terra.workspace.generated.model.DataRepoSnapshot;
 import bio.terra.workspace.service.datareference.exception.InvalidDataReferenceException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -24,7 +37,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -34,6 +49,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 @SpringBootTest
 @AutoConfigureMockMvc
 public class DataReferenceDaoTest {
+  private static final Pattern PARTITION = Pattern.compile("workspace_data_reference_p\\d+");
 
   @Autowired WorkspaceManagerJdbcConfiguration jdbcConfiguration;
 
@@ -42,6 +58,8 @@ public class DataReferenceDaoTest {
   @Autowired DataReferenceDao dataReferenceDao;
   @Autowired WorkspaceDao workspaceDao;
   @Autowired ObjectMapper objectMapper;
+  @Autowired ShardRouter shardRouter;
+  @Autowired WorkspaceCache workspaceCache;
 
   private UUID workspaceId;
   private UUID referenceId;
@@ -85,7 +103,8 @@ public class DataReferenceDaoTest {
         cloningInstructions,
         JsonNullable.of(referenceType),
         JsonNullable.of(reference));
-    DataReferenceDescription reference = dataReferenceDao.getDataReference(referenceId);
+    DataReferenceDescription reference =
+        dataReferenceDao.getDataReference(workspaceId, referenceId);
 
     assertThat(reference.getReferenceId(), equalTo(referenceId));
   }
@@ -120,7 +139,7 @@ public class DataReferenceDaoTest {
         cloningInstructions,
         JsonNullable.of(referenceType),
         JsonNullable.of(reference.toString()));
-    DataReferenceDescription result = dataReferenceDao.getDataReference(referenceId);
+    DataReferenceDescription result = dataReferenceDao.getDataReference(workspaceId, referenceId);
 
     assertThat(result.getWorkspaceId(), equalTo(workspaceId));
     assertThat(result.getReferenceId(), equalTo(referenceId));
@@ -147,15 +166,15 @@ public class DataReferenceDaoTest {
         JsonNullable.of(referenceType),
         JsonNullable.of(reference.toString()));
 
-    assertTrue(dataReferenceDao.deleteDataReference(referenceId));
+    assertTrue(dataReferenceDao.deleteDataReference(workspaceId, referenceId));
 
     // try to delete again to make sure it's not there
-    assertFalse(dataReferenceDao.deleteDataReference(referenceId));
+    assertFalse(dataReferenceDao.deleteDataReference(workspaceId, referenceId));
   }
 
   @Test
   public void deleteNonExistentWorkspaceFails() throws Exception {
-    assertFalse(dataReferenceDao.deleteDataReference(referenceId));
+    assertFalse(dataReferenceDao.deleteDataReference(workspaceId, referenceId));
   }
 
   @Test
@@ -171,7 +190,8 @@ public class DataReferenceDaoTest {
         cloningInstructions,
         JsonNullable.of(referenceType),
         JsonNullable.of(reference));
-    DataReferenceDescription firstReference = dataReferenceDao.getDataReference(referenceId);
+    DataReferenceDescription firstReference =
+        dataReferenceDao.getDataReference(workspaceId, referenceId);
 
     UUID secondReferenceId = UUID.randomUUID();
     dataReferenceDao.createDataReference(
@@ -183,7 +203,8 @@ public class DataReferenceDaoTest {
         cloningInstructions,
         JsonNullable.of(referenceType),
         JsonNullable.of(reference));
-    DataReferenceDescription secondReference = dataReferenceDao.getDataReference(secondReferenceId);
+    DataReferenceDescription secondReference =
+        dataReferenceDao.getDataReference(workspaceId, secondReferenceId);
 
     // Validate that both DataReferences are enumerated
     DataReferenceList enumerateResult =
@@ -203,6 +224,102 @@ public class DataReferenceDaoTest {
     assertThat(result.getResources(), empty());
   }
 
+  @Test
+  public void referenceFromAnotherWorkspaceNotFound() {
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    dataReferenceDao.createDataReference(
+        referenceId,
+        workspaceId,
+        name,
+        JsonNullable.undefined(),
+        JsonNullable.of(credentialId),
+        cloningInstructions,
+        JsonNullable.of(referenceType),
+        JsonNullable.of(reference));
+
+    assertThrows(
+        DataReferenceNotFoundException.class,
+        () -> {
+          dataReferenceDao.getDataReference(UUID.randomUUID(), referenceId);
+        });
+  }
+
+  @Test
+  public void workspaceScopedQueriesArePruned() {
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    dataReferenceDao.createDataReference(
+        referenceId,
+        workspaceId,
+        name,
+        JsonNullable.undefined(),
+        JsonNullable.of(credentialId),
+        cloningInstructions,
+        JsonNullable.of(referenceType),
+        JsonNullable.of(reference));
+
+    // Run the DAO's own reads and deletes against a template that records what it executes.
+    Shard shard = spy(shardRouter.shardFor(workspaceId));
+    RecordingJdbcTemplate recorder =
+        new RecordingJdbcTemplate(shard.getJdbcTemplate().getJdbcTemplate().getDataSource());
+    doReturn(recorder).when(shard).getJdbcTemplate();
+    ShardRouter router = spy(shardRouter);
+    doReturn(shard).when(router).shardFor(any(UUID.class));
+    doReturn(shard).when(router).shardFor(anyString());
+    DataReferenceDao recordedDao = new DataReferenceDao(router, workspaceCache);
+
+    workspaceCache.getDataReferenceCache().invalidate(referenceId);
+    recordedDao.getDataReference(workspaceId, referenceId);
+    workspaceCache.getDataReferenceCache().invalidate(referenceId);
+    recordedDao.getDataReferences(workspaceId, Collections.singletonList(referenceId));
+    recordedDao.isControlled(workspaceId, referenceId);
+    recordedDao.enumerateDataReferences(workspaceId.toString(), name, 0, 10);
+    recordedDao.deleteDataReference(workspaceId, referenceId);
+
+    // With workspace_id in the WHERE clause, each plan should touch exactly one partition of the
+    // hash-partitioned workspace_data_reference table.
+    assertThat(recorder.statements.size(), equalTo(5));
+    for (RecordedStatement statement : recorder.statements) {
+      List<String> plan =
+          jdbcTemplate.queryForList("EXPLAIN " + statement.sql, statement.params, String.class);
+      Set<String> partitions = new HashSet<>();
+      for (String line : plan) {
+        Matcher matcher = PARTITION.matcher(line);
+        while (matcher.find()) {
+          partitions.add(matcher.group());
+        }
+      }
+      assertThat(statement.sql, partitions.size(), equalTo(1));
+    }
+  }
+
+  private static class RecordedStatement {
+    final String sql;
+    final SqlParameterSource params;
+
+    RecordedStatement(String sql, SqlParameterSource params) {
+      this.sql = sql;
+      this.params = params;
+    }
+  }
+
+  /** Records the statements on workspace_data_reference that pass through it. */
+  private static class RecordingJdbcTemplate extends NamedParameterJdbcTemplate {
+    final List<RecordedStatement> statements = new ArrayList<>();
+
+    RecordingJdbcTemplate(DataSource dataSource) {
+      super(dataSource);
+    }
+
+    @Override
+    protected PreparedStatementCreator getPreparedStatementCreator(
+        String sql, SqlParameterSource paramSource) {
+      if (sql.contains("workspace_data_reference")) {
+        statements.add(new RecordedStatement(sql, paramSource));
+      }
+      return super.getPreparedStatementCreator(sql, paramSource);
+    }
+  }
+
   private String objectToString(Object obj) {
     try {
       return objectMapper.writeValueAsString(obj);
@@ -0,0 +1,170 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.jdbc.core.RowMapper;
+
+/** Checks DataReferenceDao.DataReferenceMapper against the mapper it replaced. */
+@Tag("unit")
+public class DataReferenceMapperTest {
+  // As selected by enumerateDataReferences: resource_id appears once for each table.
+  private static final String[] ENUMERATE_LABELS = {
+    "workspace_id",
+    "reference_id",
+    "name",
+    "resource_id",
+    "credential_id",
+    "cloning_instructions",
+    "reference_type",
+    "reference",
+    "resource_id",
+    "associated_app",
+    "is_visible",
+    "owner",
+    "attributes"
+  };
+  // As selected by getDataReference and getDataReferences, without the resource's columns.
+  private static final String[] REFERENCE_LABELS = Arrays.copyOf(ENUMERATE_LABELS, 8);
+
+  private static final String REFERENCE = "{\"instance\":\"instance\",\"snapshot\":\"snapshot\"}";
+
+  @Test
+  public void enumerationPageMapsTheSame() throws SQLException {
+    String workspaceId = UUID.randomUUID().toString();
+    String otherWorkspaceId = UUID.randomUUID().toString();
+    String resourceId = UUID.randomUUID().toString();
+    List<Object[]> rows =
+        Arrays.asList(
+            uncontrolledRow(workspaceId, null),
+            controlledRow(workspaceId, resourceId, resourceId, true, "owner@example.com", "{}"),
+            // Consecutive rows usually share a workspace; make sure a change is noticed.
+            uncontrolledRow(otherWorkspaceId, "credential"),
+            uncontrolledRow(workspaceId, null),
+            controlledRow(workspaceId, resourceId, resourceId, false, null, null));
+
+    List<DataReferenceDescription> mapped = assertSameMapping(ENUMERATE_LABELS, rows);
+
+    assertThat(mapped.get(2).getWorkspaceId().toString(), equalTo(otherWorkspaceId));
+    assertThat(mapped.get(3).getWorkspaceId().toString(), equalTo(workspaceId));
+  }
+
+  @Test
+  public void duplicatedResourceIdLabelReadsTheReferenceColumn() throws SQLException {
+    // A controlled reference whose resource row is missing: the join leaves every resource column
+    // null, including the second resource_id.
+    String resourceId = UUID.randomUUID().toString();
+    List<Object[]> rows =
+        Collections.singletonList(
+            controlledRow(UUID.randomUUID().toString(), resourceId, null, null, null, null));
+
+    DataReferenceDescription mapped = assertSameMapping(ENUMERATE_LABELS, rows).get(0);
+
+    assertThat(
+        mapped.getResourceDescription().get().getResourceId().toString(), equalTo(resourceId));
+    assertThat(mapped.getResourceDescription().get().getIsVisible(), equalTo(false));
+  }
+
+  @Test
+  public void referenceColumnsAloneMapTheSame() throws SQLException {
+    String workspaceId = UUID.randomUUID().toString();
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(Arrays.copyOf(uncontrolledRow(workspaceId, null), REFERENCE_LABELS.length));
+    rows.add(Arrays.copyOf(uncontrolledRow(workspaceId, "credential"), REFERENCE_LABELS.length));
+
+    List<DataReferenceDescription> mapped = assertSameMapping(REFERENCE_LABELS, rows);
+
+    assertThat(mapped.get(0).getResourceDescription(), equalTo(JsonNullable.of(null)));
+    assertThat(mapped.get(0).getCredentialId(), equalTo(JsonNullable.of(null)));
+  }
+
+  @Test
+  public void unknownEnumValuesFailTheSameWay() {
+    Object[] row = uncontrolledRow(UUID.randomUUID().toString(), null);
+    row[5] = "COPY_EVERYTHING";
+    List<Object[]> rows = Collections.singletonList(row);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> map(ENUMERATE_LABELS, rows, new LegacyDataReferenceMapper()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> map(ENUMERATE_LABELS, rows, new DataReferenceDao.DataReferenceMapper()));
+  }
+
+  private static List<DataReferenceDescription> assertSameMapping(
+      String[] labels, List<Object[]> rows) throws SQLException {
+    List<DataReferenceDescription> expected = map(labels, rows, new LegacyDataReferenceMapper());
+    List<DataReferenceDescription> actual =
+        map(labels, rows, new DataReferenceDao.DataReferenceMapper());
+    assertThat(actual, equalTo(expected));
+    return actual;
+  }
+
+  private static Object[] uncontrolledRow(String workspaceId, String credentialId) {
+    return new Object[] {
+      workspaceId,
+      UUID.randomUUID().toString(),
+      "reference",
+      null,
+      credentialId,
+      "COPY_NOTHING",
+      "DataRepoSnapshot",
+      REFERENCE,
+      null,
+      null,
+      null,
+      null,
+      null
+    };
+  }
+
+  private static Object[] controlledRow(
+      String workspaceId,
+      String resourceId,
+      String joinedResourceId,
+      Boolean isVisible,
+      String owner,
+      String attributes) {
+    return new Object[] {
+      workspaceId,
+      UUID.randomUUID().toString(),
+      "reference",
+      resourceId,
+      null,
+      "COPY_REFERENCE",
+      "DataRepoSnapshot",
+      REFERENCE,
+      joinedResourceId,
+      null,
+      isVisible,
+      owner,
+      attributes
+    };
+  }
+
+  // What JdbcTemplate's RowMapperResultSetExtractor does, with a fresh mapper per query.
+  private static List<DataReferenceDescription> map(
+      String[] labels, List<Object[]> rows, RowMapper<DataReferenceDescription> mapper)
+      throws SQLException {
+    ResultSet rs = FakeResultSet.of(labels, rows);
+    List<DataReferenceDescription> results = new ArrayList<>();
+    int rowNum = 0;
+    while (rs.next()) {
+      results.add(mapper.mapRow(rs, rowNum++));
+    }
+    return results;
+  }
+}
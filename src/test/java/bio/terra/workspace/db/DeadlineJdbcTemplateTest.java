@@ -0,0 +1,73 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import bio.terra.workspace.app.controller.GlobalExceptionHandler;
+import bio.terra.workspace.common.exception.DeadlineExceededException;
+import bio.terra.workspace.common.utils.RequestDeadline;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class DeadlineJdbcTemplateTest {
+
+  @Autowired WorkspaceManagerJdbcConfiguration jdbcConfiguration;
+
+  private DeadlineJdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setup() {
+    jdbcTemplate = new DeadlineJdbcTemplate(jdbcConfiguration.getDataSource());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    RequestDeadline.clear();
+  }
+
+  @Test
+  public void statementIsCancelledAtTheDeadline() {
+    RequestDeadline.start(1, TimeUnit.SECONDS);
+    long start = System.nanoTime();
+    QueryTimeoutException ex =
+        assertThrows(
+            QueryTimeoutException.class, () -> jdbcTemplate.execute("SELECT pg_sleep(10)"));
+    assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5, equalTo(true));
+
+    assertThat(
+        new GlobalExceptionHandler().queryTimeoutHandler(ex).getStatusCode(),
+        equalTo(HttpStatus.GATEWAY_TIMEOUT));
+  }
+
+  @Test
+  public void statementAfterTheDeadlineIsNotRun() {
+    RequestDeadline.start(-1, TimeUnit.SECONDS);
+    DeadlineExceededException ex =
+        assertThrows(
+            DeadlineExceededException.class,
+            () -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+    assertThat(ex.getStatusCode(), equalTo(HttpStatus.GATEWAY_TIMEOUT));
+  }
+
+  @Test
+  public void statementOutsideARequestHasNoTimeout() {
+    assertThat(jdbcTemplate.queryForObject("SELECT 1", Integer.class), equalTo(1));
+  }
+}
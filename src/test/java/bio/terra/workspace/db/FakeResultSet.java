@@ -0,0 +1,65 @@
+package bio.terra.workspace.db;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory ResultSet over fixed rows, with just what row mappers use. Names are looked up in a
+ * map, as the Postgres driver does, so mappers that look columns up by name on every row pay for
+ * it here too. Used by the mapper tests and by RowMapperBenchmark in src/jmh.
+ */
+final class FakeResultSet {
+  private FakeResultSet() {}
+
+  static ResultSet of(String[] labels, List<Object[]> rows) {
+    Map<String, Integer> columns = new HashMap<>();
+    for (int i = labels.length - 1; i >= 0; i--) {
+      // Iterate backwards so a label selected twice resolves to its first column, as in JDBC.
+      columns.put(labels[i].toLowerCase(Locale.ROOT), i + 1);
+    }
+    int[] cursor = {-1};
+    return (ResultSet)
+        Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "next":
+                  return ++cursor[0] < rows.size();
+                case "findColumn":
+                  return findColumn(columns, (String) args[0]);
+                case "getString":
+                  return (String) value(columns, rows.get(cursor[0]), args[0]);
+                case "getBoolean":
+                  Object value = value(columns, rows.get(cursor[0]), args[0]);
+                  return value != null && (Boolean) value;
+                case "close":
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+
+  private static Object value(Map<String, Integer> columns, Object[] row, Object column)
+      throws SQLException {
+    int index = column instanceof Integer ? (Integer) column : findColumn(columns, (String) column);
+    return row[index - 1];
+  }
+
+  private static int findColumn(Map<String, Integer> columns, String label) throws SQLException {
+    Integer index = columns.get(label);
+    if (index == null) {
+      index = columns.get(label.toLowerCase(Locale.ROOT));
+    }
+    if (index == null) {
+      throw new SQLException("The column name " + label + " was not found in this ResultSet.");
+    }
+    return index;
+  }
+}
@@ -0,0 +1,78 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.workspace.app.Main;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class FlightOwnerDaoTest {
+  private static final int TIMEOUT_SECONDS = 60;
+
+  @Autowired FlightOwnerDao flightOwnerDao;
+
+  private String flightId;
+  private String first;
+  private String second;
+
+  @BeforeEach
+  public void setup() {
+    flightId = UUID.randomUUID().toString();
+    first = "first-" + UUID.randomUUID();
+    second = "second-" + UUID.randomUUID();
+    flightOwnerDao.heartbeat(first);
+    flightOwnerDao.heartbeat(second);
+  }
+
+  @Test
+  public void liveOwnerKeepsItsFlight() {
+    assertThat(flightOwnerDao.claim(flightId, first, TIMEOUT_SECONDS), equalTo(true));
+    assertThat(flightOwnerDao.claim(flightId, second, TIMEOUT_SECONDS), equalTo(false));
+    assertThat(flightOwnerDao.claim(flightId, first, TIMEOUT_SECONDS), equalTo(true));
+    assertThat(flightOwnerDao.getOwner(flightId), equalTo(first));
+  }
+
+  @Test
+  public void flightOfAStoppedInstanceCanBeTakenOver() {
+    flightOwnerDao.claim(flightId, first, TIMEOUT_SECONDS);
+    flightOwnerDao.deregister(first);
+
+    assertThat(flightOwnerDao.claim(flightId, second, TIMEOUT_SECONDS), equalTo(true));
+    assertThat(flightOwnerDao.getOwner(flightId), equalTo(second));
+  }
+
+  @Test
+  public void flightOfAnInstanceThatStoppedHeartbeatingCanBeTakenOver() throws Exception {
+    flightOwnerDao.claim(flightId, first, TIMEOUT_SECONDS);
+    Thread.sleep(1100);
+    flightOwnerDao.heartbeat(second);
+
+    // With a one second timeout, the first instance's heartbeat is now too old.
+    assertThat(flightOwnerDao.claim(flightId, second, 1), equalTo(true));
+    assertThat(flightOwnerDao.claim(flightId, first, 1), equalTo(false));
+  }
+
+  @Test
+  public void releasedFlightHasNoOwner() {
+    flightOwnerDao.claim(flightId, first, TIMEOUT_SECONDS);
+
+    // Only the owner can release it.
+    flightOwnerDao.release(flightId, second);
+    assertThat(flightOwnerDao.getOwner(flightId), equalTo(first));
+    flightOwnerDao.release(flightId, first);
+    assertThat(flightOwnerDao.getOwner(flightId), nullValue());
+  }
+}
@@ -0,0 +1,139 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.db.FlightQueueDao.QueuedFlight;
+import bio.terra.workspace.service.job.exception.JobQueueException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class FlightQueueDaoTest {
+
+  @Autowired FlightQueueDao flightQueueDao;
+
+  private static QueuedFlight newFlight(String flightClass) {
+    return new QueuedFlight(
+        UUID.randomUUID().toString(), flightClass, "subject", "description", "parameters");
+  }
+
+  @Test
+  public void queuedJobCanBeReadAndDeleted() {
+    QueuedFlight flight = newFlight("bio.terra.workspace.SomeFlight");
+    flightQueueDao.enqueue(flight);
+
+    QueuedFlight queued = flightQueueDao.getQueuedFlight(flight.getJobId());
+    assertThat(queued.getFlightClass(), equalTo("bio.terra.workspace.SomeFlight"));
+    assertThat(queued.getSubjectId(), equalTo("subject"));
+    assertThat(queued.getParameters(), equalTo("parameters"));
+    assertThat(queued.getFailure(), nullValue());
+    assertThat(flightQueueDao.isQueued(flight.getJobId()), equalTo(true));
+
+    assertThat(flightQueueDao.delete(flight.getJobId()), equalTo(true));
+    assertThat(flightQueueDao.getQueuedFlight(flight.getJobId()), nullValue());
+    assertThat(flightQueueDao.delete(flight.getJobId()), equalTo(false));
+  }
+
+  @Test
+  public void claimedJobsAreRemovedFromTheQueue() {
+    QueuedFlight first = newFlight("bio.terra.workspace.SomeFlight");
+    QueuedFlight second = newFlight("bio.terra.workspace.SomeFlight");
+    flightQueueDao.enqueue(first);
+    flightQueueDao.enqueue(second);
+
+    List<String> started = new ArrayList<>();
+    while (flightQueueDao.claim(1, flight -> started.add(flight.getJobId())) > 0) {}
+
+    assertThat(started, hasItem(first.getJobId()));
+    assertThat(started, hasItem(second.getJobId()));
+    assertThat(
+        started.indexOf(first.getJobId()) < started.indexOf(second.getJobId()), equalTo(true));
+    assertThat(flightQueueDao.getQueuedFlight(first.getJobId()), nullValue());
+    assertThat(flightQueueDao.claim(10, flight -> started.add(flight.getJobId())), equalTo(0));
+  }
+
+  @Test
+  public void jobThatCannotStartIsFailedWithoutBlockingTheQueue() {
+    QueuedFlight broken = newFlight("no.such.Flight");
+    QueuedFlight healthy = newFlight("bio.terra.workspace.SomeFlight");
+    flightQueueDao.enqueue(broken);
+    flightQueueDao.enqueue(healthy);
+
+    List<String> started = new ArrayList<>();
+    int claimed;
+    do {
+      claimed =
+          flightQueueDao.claim(
+              10,
+              flight -> {
+                if (flight.getFlightClass().equals("no.such.Flight")) {
+                  throw new JobQueueException("Unknown flight class " + flight.getFlightClass());
+                }
+                started.add(flight.getJobId());
+              });
+    } while (claimed > 0);
+
+    assertThat(started, hasItem(healthy.getJobId()));
+    assertThat(started, not(hasItem(broken.getJobId())));
+    assertThat(flightQueueDao.isQueued(broken.getJobId()), equalTo(false));
+    QueuedFlight failed = flightQueueDao.getQueuedFlight(broken.getJobId());
+    assertThat(failed.getFailure(), containsString("Unknown flight class no.such.Flight"));
+    assertThat(failed.getParameters(), nullValue());
+    assertThat(failed.getSubjectId(), equalTo("subject"));
+
+    // The failed job is not claimed again.
+    assertThat(flightQueueDao.claim(10, flight -> started.add(flight.getJobId())), equalTo(0));
+    assertThat(flightQueueDao.delete(broken.getJobId()), equalTo(true));
+    assertThat(flightQueueDao.getQueuedFlight(broken.getJobId()), nullValue());
+  }
+
+  @Test
+  public void jobStaysVisibleUntilItsStarterReturns() throws Exception {
+    QueuedFlight flight = newFlight("bio.terra.workspace.SomeFlight");
+    flightQueueDao.enqueue(flight);
+
+    List<Boolean> seenWhileStarting = new ArrayList<>();
+    int claimed =
+        flightQueueDao.claim(
+            1,
+            starting -> {
+              // Read from another connection, as a caller polling for the job would.
+              try {
+                seenWhileStarting.add(
+                    CompletableFuture.supplyAsync(
+                            () -> flightQueueDao.isQueued(starting.getJobId()))
+                        .get(10, TimeUnit.SECONDS));
+              } catch (Exception e) {
+                throw new RuntimeException(e);
+              }
+              // Other claimers skip the locked row rather than starting the job again.
+              assertThat(
+                  CompletableFuture.supplyAsync(() -> flightQueueDao.claim(10, other -> {}))
+                      .join(),
+                  equalTo(0));
+            });
+
+    assertThat(claimed, equalTo(1));
+    assertThat(seenWhileStarting, hasItem(true));
+    assertThat(flightQueueDao.getQueuedFlight(flight.getJobId()), nullValue());
+  }
+}
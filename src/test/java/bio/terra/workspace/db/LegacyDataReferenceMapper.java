@@ -0,0 +1,45 @@
+package bio.terra.workspace.db;
+
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import bio.terra.workspace.generated.model.ResourceDescription;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * The data reference mapper as it was before DataReferenceDao.DataReferenceMapper. {@link
+ * DataReferenceMapperTest} checks that the two map rows the same way, and RowMapperBenchmark in
+ * src/jmh uses this one as its baseline.
+ */
+class LegacyDataReferenceMapper implements RowMapper<DataReferenceDescription> {
+  private static class ResourceDescriptionMapper implements RowMapper<ResourceDescription> {
+    public ResourceDescription mapRow(ResultSet rs, int rowNum) throws SQLException {
+      return new ResourceDescription()
+          .workspaceId(UUID.fromString(rs.getString("workspace_id")))
+          .resourceId(UUID.fromString(rs.getString("resource_id")))
+          .isVisible(rs.getBoolean("is_visible"))
+          .owner(rs.getString("owner"))
+          .attributes(rs.getString("attributes"));
+    }
+  }
+
+  public DataReferenceDescription mapRow(ResultSet rs, int rowNum) throws SQLException {
+    ResourceDescriptionMapper resourceDescriptionMapper = new ResourceDescriptionMapper();
+    return new DataReferenceDescription()
+        .workspaceId(UUID.fromString(rs.getString("workspace_id")))
+        .referenceId(UUID.fromString(rs.getString("reference_id")))
+        .name(rs.getString("name"))
+        .resourceDescription(
+            rs.getString("resource_id") == null
+                ? null
+                : resourceDescriptionMapper.mapRow(rs, rowNum))
+        .credentialId(rs.getString("credential_id"))
+        .cloningInstructions(
+            DataReferenceDescription.CloningInstructionsEnum.fromValue(
+                rs.getString("cloning_instructions")))
+        .referenceType(
+            DataReferenceDescription.ReferenceTypeEnum.fromValue(rs.getString("reference_type")))
+        .reference(rs.getString("reference"));
+  }
+}
@@ -0,0 +1,77 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.app.configuration.ShardConfiguration;
+import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Runs with a second workspace database; see application-shards.properties.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest(properties = "db.shard.holdOnPrimary=true")
+@ActiveProfiles("shards")
+public class ShardHoldOnPrimaryTest {
+
+  @Autowired ShardRouter shardRouter;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired WorkspaceManagerJdbcConfiguration primaryJdbcConfiguration;
+  @Autowired ShardConfiguration shardConfiguration;
+
+  @Test
+  public void workspaceCreatedBeforeTheShardWasKnownStaysOnThePrimary() {
+    // As created by an instance that does not have the new shard configured yet: no placement.
+    String id = idOnRingShard(1).toString();
+    insertUnplaced(id);
+
+    assertThat(shardRouter.shardFor(id).getIndex(), equalTo(0));
+    assertThat(workspaceDao.getWorkspace(id).getId().toString(), equalTo(id));
+  }
+
+  @Test
+  public void newWorkspaceIsCreatedOnThePrimaryAndPinned() {
+    UUID id = idOnRingShard(1);
+    workspaceDao.createWorkspace(id, JsonNullable.undefined());
+
+    assertThat(shardRouter.shardFor(id).getIndex(), equalTo(0));
+    // Once the hold is lifted, the ring would route it to shard 1; the placement keeps it here.
+    shardConfiguration.setHoldOnPrimary(false);
+    try {
+      ShardRouter released = new ShardRouter(primaryJdbcConfiguration, shardConfiguration);
+      assertThat(released.shardFor(id).getIndex(), equalTo(0));
+    } finally {
+      shardConfiguration.setHoldOnPrimary(true);
+    }
+  }
+
+  private UUID idOnRingShard(int index) {
+    while (true) {
+      UUID id = UUID.randomUUID();
+      if (shardRouter.ringShardIndex(id.toString()) == index) {
+        return id;
+      }
+    }
+  }
+
+  private void insertUnplaced(String id) {
+    shardRouter
+        .getPrimary()
+        .getJdbcTemplate()
+        .update(
+            "INSERT INTO workspace (workspace_id, profile_settable) VALUES (:id, true)",
+            new MapSqlParameterSource().addValue("id", id));
+  }
+}
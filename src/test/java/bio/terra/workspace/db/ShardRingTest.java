@@ -0,0 +1,60 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class ShardRingTest {
+  private static final int KEYS = 20000;
+
+  @Test
+  public void singleShardTakesEverything() {
+    ShardRing ring = new ShardRing(1, 128);
+    assertThat(ring.shardFor(UUID.randomUUID().toString()), equalTo(0));
+  }
+
+  @Test
+  public void keysSpreadEvenly() {
+    ShardRing ring = new ShardRing(4, 128);
+    int[] counts = new int[4];
+    for (int i = 0; i < KEYS; i++) {
+      counts[ring.shardFor(UUID.randomUUID().toString())]++;
+    }
+    for (int count : counts) {
+      // Within 25% of an even share.
+      assertThat(count, greaterThan(KEYS / 4 * 3 / 4));
+      assertThat(count, lessThan(KEYS / 4 * 5 / 4));
+    }
+  }
+
+  @Test
+  public void addingAShardOnlyMovesKeysToIt() {
+    ShardRing before = new ShardRing(4, 128);
+    ShardRing after = new ShardRing(5, 128);
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      String key = UUID.randomUUID().toString();
+      int was = before.shardFor(key);
+      int is = after.shardFor(key);
+      if (was != is) {
+        assertThat("keys only move to the new shard", is, equalTo(4));
+        moved++;
+      }
+    }
+    // Roughly a fifth of the keys move, not most of them as with hash-mod-N.
+    assertThat(moved, greaterThan(KEYS / 10));
+    assertThat(moved, lessThan(KEYS * 3 / 10));
+  }
+
+  @Test
+  public void placementIsStable() {
+    String key = "9a1c1dc8-3b4f-4d2a-8f0e-0d4a0e4c1b2a";
+    assertThat(new ShardRing(3, 128).shardFor(key), equalTo(new ShardRing(3, 128).shardFor(key)));
+  }
+}
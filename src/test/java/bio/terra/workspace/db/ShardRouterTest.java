@@ -0,0 +1,97 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import bio.terra.workspace.app.Main;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Runs with a second workspace database; see application-shards.properties.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+@ActiveProfiles("shards")
+public class ShardRouterTest {
+
+  @Autowired ShardRouter shardRouter;
+  @Autowired WorkspaceDao workspaceDao;
+
+  @Test
+  public void workspacesAreStoredOnTheirRingShard() {
+    int[] counts = new int[2];
+    for (int i = 0; i < 20; i++) {
+      String id = workspaceDao.createWorkspace(UUID.randomUUID(), JsonNullable.undefined());
+      int ringShard = shardRouter.ringShardIndex(id);
+      assertThat(shardRouter.shardFor(id).getIndex(), equalTo(ringShard));
+      assertThat(workspaceRows(ringShard, id), equalTo(1));
+      assertThat(workspaceRows(1 - ringShard, id), equalTo(0));
+      counts[ringShard]++;
+    }
+    assertThat(counts[0], greaterThan(0));
+    assertThat(counts[1], greaterThan(0));
+  }
+
+  @Test
+  public void placementOverridesTheRing() {
+    String id = UUID.randomUUID().toString();
+    int ringShard = shardRouter.ringShardIndex(id);
+    Shard primary = shardRouter.getPrimary();
+
+    shardRouter.setPlacement(primary.getJdbcTemplate(), id, 1 - ringShard);
+    assertThat(shardRouter.shardFor(id).getIndex(), equalTo(1 - ringShard));
+    assertThat(placementRows(id), equalTo(1));
+
+    // Placing it back where the ring puts it removes the override.
+    shardRouter.setPlacement(primary.getJdbcTemplate(), id, ringShard);
+    assertThat(shardRouter.shardFor(id).getIndex(), equalTo(ringShard));
+    assertThat(placementRows(id), equalTo(0));
+  }
+
+  @Test
+  public void misplacedWorkspaceIsPinnedWhereItIsStored() {
+    String id = UUID.randomUUID().toString();
+    int storedOn = 1 - shardRouter.ringShardIndex(id);
+    shardRouter
+        .getShard(storedOn)
+        .getJdbcTemplate()
+        .update(
+            "INSERT INTO workspace (workspace_id, profile_settable) VALUES (:id, true)",
+            new MapSqlParameterSource().addValue("id", id));
+
+    assertThat(shardRouter.pinMisplacedWorkspaces(), greaterThan(0));
+    assertThat(shardRouter.shardFor(id).getIndex(), equalTo(storedOn));
+    assertThat(workspaceDao.getWorkspace(id).getId().toString(), equalTo(id));
+  }
+
+  private int workspaceRows(int shard, String id) {
+    return shardRouter
+        .getShard(shard)
+        .getJdbcTemplate()
+        .queryForObject(
+            "SELECT count(*) FROM workspace WHERE workspace_id = :id",
+            new MapSqlParameterSource().addValue("id", id),
+            Integer.class);
+  }
+
+  private int placementRows(String id) {
+    return shardRouter
+        .getPrimary()
+        .getJdbcTemplate()
+        .queryForObject(
+            "SELECT count(*) FROM workspace_shard_placement WHERE workspace_id = :id",
+            new MapSqlParameterSource().addValue("id", id),
+            Integer.class);
+  }
+}
@@ -0,0 +1,115 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.generated.model.DataReferenceDescription;
+import bio.terra.workspace.generated.model.WorkspaceDescription;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class WorkspaceCacheTest {
+
+  @Autowired WorkspaceCache workspaceCache;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired DataReferenceDao dataReferenceDao;
+
+  private UUID workspaceId;
+  private UUID referenceId;
+
+  @BeforeEach
+  public void setup() {
+    workspaceId = UUID.randomUUID();
+    referenceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    dataReferenceDao.createDataReference(
+        referenceId,
+        workspaceId,
+        "reference-" + referenceId,
+        JsonNullable.undefined(),
+        JsonNullable.undefined(),
+        "COPY_NOTHING",
+        JsonNullable.of("DataRepoSnapshot"),
+        JsonNullable.of("{\"instance\": \"instance\", \"snapshot\": \"snapshot\"}"));
+  }
+
+  @Test
+  public void workspaceDeleteInvalidatesTheWorkspaceAndItsReferences() {
+    workspaceDao.getWorkspace(workspaceId.toString());
+    dataReferenceDao.getDataReference(workspaceId, referenceId);
+    assertThat(workspaceCache.getCachedWorkspace(workspaceId.toString()), notNullValue());
+    assertThat(workspaceCache.getCachedDataReference(referenceId), notNullValue());
+
+    workspaceDao.deleteWorkspace(workspaceId);
+
+    assertThat(workspaceCache.getCachedWorkspace(workspaceId.toString()), nullValue());
+    assertThat(workspaceCache.getCachedDataReference(referenceId), nullValue());
+  }
+
+  @Test
+  public void tombstoneInvalidatesTheWorkspace() {
+    workspaceDao.getWorkspaces(Collections.singletonList(workspaceId.toString()));
+    assertThat(workspaceCache.getCachedWorkspace(workspaceId.toString()), notNullValue());
+
+    workspaceDao.tombstoneWorkspace(workspaceId);
+
+    assertThat(workspaceCache.getCachedWorkspace(workspaceId.toString()), nullValue());
+    assertThat(
+        workspaceDao.getWorkspaces(Collections.singletonList(workspaceId.toString())).isEmpty(),
+        equalTo(true));
+  }
+
+  @Test
+  public void referenceDeleteInvalidatesTheReference() {
+    dataReferenceDao.getDataReferences(workspaceId, Collections.singletonList(referenceId));
+    assertThat(workspaceCache.getCachedDataReference(referenceId), notNullValue());
+
+    dataReferenceDao.deleteDataReference(workspaceId, referenceId);
+
+    assertThat(workspaceCache.getCachedDataReference(referenceId), nullValue());
+  }
+
+  @Test
+  public void rowReadAcrossADeleteIsNotCached() {
+    long version = workspaceCache.getDataReferenceVersion();
+    DataReferenceDescription read = dataReferenceDao.getDataReference(workspaceId, referenceId);
+
+    // As if another request deleted the reference between a batch read and caching its rows.
+    dataReferenceDao.deleteDataReference(workspaceId, referenceId);
+    workspaceCache.cacheDataReference(read, version);
+
+    assertThat(workspaceCache.getCachedDataReference(referenceId), nullValue());
+  }
+
+  @Test
+  public void callersCannotChangeCachedValues() {
+    WorkspaceDescription workspace = workspaceDao.getWorkspace(workspaceId.toString());
+    workspace.setSpendProfile(JsonNullable.of(UUID.randomUUID()));
+    DataReferenceDescription reference =
+        dataReferenceDao.getDataReference(workspaceId, referenceId);
+    reference.setName("changed");
+
+    assertThat(
+        workspaceDao.getWorkspace(workspaceId.toString()).getSpendProfile(),
+        equalTo(JsonNullable.undefined()));
+    assertThat(
+        dataReferenceDao.getDataReference(workspaceId, referenceId).getName(),
+        equalTo("reference-" + referenceId));
+  }
+}
@@ -11,7 +11,10 @@ import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
 import bio.terra.workspace.common.exception.DuplicateWorkspaceException;
 import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
 import bio.terra.workspace.generated.model.WorkspaceDescription;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -39,6 +42,7 @@ public class WorkspaceDaoTest {
   private NamedParameterJdbcTemplate jdbcTemplate;
 
   @Autowired WorkspaceDao workspaceDao;
+  @Autowired DataReferenceDao dataReferenceDao;
 
   private UUID workspaceId;
   private UUID spendProfileId;
@@ -117,6 +121,44 @@ public class WorkspaceDaoTest {
     assertFalse(workspaceDao.deleteWorkspace(workspaceId));
   }
 
+  @Test
+  public void tombstonedWorkspaceIsHiddenAndPurgedInBatches() throws Exception {
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    for (int i = 0; i < 5; i++) {
+      dataReferenceDao.createDataReference(
+          UUID.randomUUID(),
+          workspaceId,
+          "reference-" + i,
+          JsonNullable.undefined(),
+          JsonNullable.undefined(),
+          "COPY_NOTHING",
+          JsonNullable.undefined(),
+          JsonNullable.undefined());
+    }
+
+    assertTrue(workspaceDao.tombstoneWorkspace(workspaceId));
+    assertThrows(
+        WorkspaceNotFoundException.class,
+        () -> {
+          workspaceDao.getWorkspace(workspaceId.toString());
+        });
+
+    assertThat(
+        workspaceDao.purgeChildRows(WorkspaceChildTable.DATA_REFERENCE, workspaceId, 2),
+        equalTo(2));
+    assertThat(
+        workspaceDao.purgeChildRows(WorkspaceChildTable.DATA_REFERENCE, workspaceId, 2),
+        equalTo(2));
+    assertThat(
+        workspaceDao.purgeChildRows(WorkspaceChildTable.DATA_REFERENCE, workspaceId, 2),
+        equalTo(1));
+    assertThat(
+        workspaceDao.purgeChildRows(WorkspaceChildTable.DATA_REFERENCE, workspaceId, 2),
+        equalTo(0));
+
+    assertTrue(workspaceDao.deleteWorkspace(workspaceId));
+  }
+
   @Test
   public void duplicateWorkspaceFails() throws Exception {
     workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
@@ -126,4 +168,29 @@ public class WorkspaceDaoTest {
           workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
         });
   }
+
+  @Test
+  public void listWorkspacesLooksPastIdsThatAreGone() throws Exception {
+    List<String> present = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      present.add(workspaceDao.createWorkspace(UUID.randomUUID(), JsonNullable.undefined()));
+    }
+    // Far more ids than one statement can bind, almost all of them for workspaces that are gone.
+    List<String> sortedIds = new ArrayList<>(present);
+    for (int i = 0; i < 40000; i++) {
+      sortedIds.add(UUID.randomUUID().toString());
+    }
+    Collections.sort(sortedIds);
+    Collections.sort(present);
+
+    List<WorkspaceDescription> firstPage = workspaceDao.listWorkspaces(sortedIds, null, 2);
+    assertThat(firstPage.size(), equalTo(2));
+    assertThat(firstPage.get(0).getId().toString(), equalTo(present.get(0)));
+    assertThat(firstPage.get(1).getId().toString(), equalTo(present.get(1)));
+
+    List<WorkspaceDescription> secondPage =
+        workspaceDao.listWorkspaces(sortedIds, present.get(1), 2);
+    assertThat(secondPage.size(), equalTo(1));
+    assertThat(secondPage.get(0).getId().toString(), equalTo(present.get(2)));
+  }
 }
@@ -0,0 +1,121 @@
+package bio.terra.workspace.db;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import bio.terra.workspace.app.Main;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Runs with a second workspace database; see application-shards.properties.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+@ActiveProfiles("shards")
+public class WorkspaceShardMoverTest {
+
+  @Autowired ShardRouter shardRouter;
+  @Autowired WorkspaceCache workspaceCache;
+  @Autowired WorkspaceShardMover mover;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired DataReferenceDao dataReferenceDao;
+
+  private UUID workspaceId;
+  private UUID referenceId;
+  private int source;
+  private int target;
+
+  @BeforeEach
+  public void setup() {
+    workspaceId = UUID.randomUUID();
+    referenceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    dataReferenceDao.createDataReference(
+        referenceId,
+        workspaceId,
+        "reference-" + referenceId,
+        JsonNullable.undefined(),
+        JsonNullable.undefined(),
+        "COPY_NOTHING",
+        JsonNullable.of("DataRepoSnapshot"),
+        JsonNullable.of("{\"instance\": \"instance\", \"snapshot\": \"snapshot\"}"));
+    source = shardRouter.shardFor(workspaceId).getIndex();
+    target = 1 - source;
+  }
+
+  @Test
+  public void moveCopiesVerifiesThenDeletesTheSource() {
+    assertThat(mover.moveWorkspace(workspaceId, source, target), equalTo(2));
+
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(target));
+    assertThat(rows(target, "workspace"), equalTo(1));
+    assertThat(rows(target, "workspace_data_reference"), equalTo(1));
+    assertThat(rows(source, "workspace"), equalTo(0));
+    assertThat(rows(source, "workspace_data_reference"), equalTo(0));
+    assertThat(
+        dataReferenceDao.getDataReference(workspaceId, referenceId).getReferenceId(),
+        equalTo(referenceId));
+  }
+
+  @Test
+  public void failedPlacementSwitchLeavesTheWorkspaceOnTheSource() {
+    ShardRouter failingRouter = spy(shardRouter);
+    doThrow(new IllegalStateException("placement switch failed"))
+        .when(failingRouter)
+        .setPlacement(any(), anyString(), anyInt());
+    WorkspaceShardMover failingMover = new WorkspaceShardMover(failingRouter, workspaceCache);
+
+    assertThrows(
+        IllegalStateException.class, () -> failingMover.moveWorkspace(workspaceId, source, target));
+
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(source));
+    assertThat(rows(source, "workspace"), equalTo(1));
+    assertThat(rows(source, "workspace_data_reference"), equalTo(1));
+    // The copy was verified, then removed again because it never became reachable.
+    assertThat(rows(target, "workspace"), equalTo(0));
+    assertThat(rows(target, "workspace_data_reference"), equalTo(0));
+  }
+
+  @Test
+  public void rerunAfterTheSwitchCleansUpTheSource() {
+    mover.moveWorkspace(workspaceId, source, target);
+    // As if the earlier attempt had died after switching the placement but before the delete.
+    shardRouter
+        .getShard(source)
+        .getJdbcTemplate()
+        .update(
+            "INSERT INTO workspace (workspace_id, profile_settable) VALUES (:id, true)",
+            new MapSqlParameterSource().addValue("id", workspaceId.toString()));
+
+    assertThat(mover.moveWorkspace(workspaceId, source, target), equalTo(0));
+    assertThat(rows(source, "workspace"), equalTo(0));
+    assertThat(rows(target, "workspace"), equalTo(1));
+  }
+
+  private int rows(int shard, String table) {
+    return shardRouter
+        .getShard(shard)
+        .getJdbcTemplate()
+        .queryForObject(
+            "SELECT count(*) FROM " + table + " WHERE workspace_id = :id",
+            new MapSqlParameterSource().addValue("id", workspaceId.toString()),
+            Integer.class);
+  }
+}
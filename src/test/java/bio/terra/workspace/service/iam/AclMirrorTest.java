@@ -0,0 +1,121 @@
+package bio.terra.workspace.service.iam;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.app.configuration.AclMirrorConfiguration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class AclMirrorTest {
+  private AclMirrorConfiguration configuration;
+  private FakePolicySource sam;
+
+  @BeforeEach
+  public void setup() {
+    configuration = new AclMirrorConfiguration();
+    configuration.setEnabled(true);
+    sam = new FakePolicySource();
+  }
+
+  @Test
+  public void answersOnlyWhatSamGranted() {
+    sam.grant("ws1", "Owner@example.com", "read", "write", "delete");
+    sam.grant("ws1", "reader@example.com", "read");
+    sam.grant("ws2", "reader@example.com", "read", "write");
+    AclMirror mirror = new AclMirror(configuration, sam, null);
+    mirror.refresh(Arrays.asList("ws1", "ws2"));
+
+    assertThat(mirror.isAllowed("owner@example.com", "ws1", "delete"), equalTo(true));
+    assertThat(mirror.isAllowed("reader@example.com", "ws1", "read"), equalTo(true));
+    assertThat(mirror.isAllowed("READER@example.com", "ws2", "write"), equalTo(true));
+    assertThat(mirror.isAllowed("reader@example.com", "ws1", "write"), equalTo(false));
+    assertThat(mirror.isAllowed("owner@example.com", "ws2", "read"), equalTo(false));
+    assertThat(mirror.isAllowed("stranger@example.com", "ws1", "read"), equalTo(false));
+    assertThat(mirror.isAllowed("owner@example.com", "ws3", "read"), equalTo(false));
+    assertThat(mirror.isAllowed("owner@example.com", "ws1", "share"), equalTo(false));
+    assertThat(mirror.getHitCount(), equalTo(3L));
+    assertThat(mirror.getMissCount(), equalTo(5L));
+  }
+
+  @Test
+  public void refreshesIncrementally() {
+    configuration.setRefreshBatchSize(2);
+    for (String workspace : Arrays.asList("ws1", "ws2", "ws3")) {
+      sam.grant(workspace, "user@example.com", "read");
+    }
+    AclMirror mirror = new AclMirror(configuration, sam, null);
+    List<String> workspaces = Arrays.asList("ws1", "ws2", "ws3");
+
+    mirror.refresh(workspaces);
+    assertThat(mirror.getWorkspaceCount(), equalTo(2));
+    mirror.refresh(workspaces);
+    assertThat(mirror.getWorkspaceCount(), equalTo(3));
+    assertThat(sam.calls, equalTo(4));
+
+    // A revocation shows once the workspace comes round again, and a deleted workspace is dropped.
+    sam.acls.get("ws1").clear();
+    sam.acls.get("ws2").clear();
+    mirror.refresh(workspaces);
+    mirror.refresh(Arrays.asList("ws1", "ws2"));
+    assertThat(mirror.getWorkspaceCount(), equalTo(2));
+    assertThat(mirror.isAllowed("user@example.com", "ws1", "read"), equalTo(false));
+    assertThat(mirror.isAllowed("user@example.com", "ws2", "read"), equalTo(false));
+    assertThat(mirror.isAllowed("user@example.com", "ws3", "read"), equalTo(false));
+  }
+
+  @Test
+  public void syncCycleMustFitWithinTheStalenessLimit() {
+    configuration.setRefreshBatchSize(200);
+    configuration.setRefreshIntervalSeconds(30);
+    configuration.setMaxStalenessSeconds(300);
+    AclMirror mirror = new AclMirror(configuration, sam, null);
+
+    // Nine batches take 270 s; ten would take the whole 300.
+    mirror.checkSyncCycle(0);
+    mirror.checkSyncCycle(1800);
+    assertThrows(IllegalStateException.class, () -> mirror.checkSyncCycle(1801));
+  }
+
+  @Test
+  public void fallsBackWhenStaleOrDisabled() {
+    sam.grant("ws1", "user@example.com", "read");
+    configuration.setMaxStalenessSeconds(0);
+    AclMirror stale = new AclMirror(configuration, sam, null);
+    stale.refresh(Collections.singletonList("ws1"));
+    assertThat(stale.isAllowed("user@example.com", "ws1", "read"), equalTo(false));
+
+    configuration.setMaxStalenessSeconds(900);
+    configuration.setEnabled(false);
+    AclMirror disabled = new AclMirror(configuration, sam, null);
+    disabled.refresh(Collections.singletonList("ws1"));
+    assertThat(disabled.isAllowed("user@example.com", "ws1", "read"), equalTo(false));
+  }
+
+  /** Stands in for Sam: each workspace's members and their actions. */
+  private static class FakePolicySource implements SamPolicySource {
+    private final Map<String, Map<String, Set<String>>> acls = new HashMap<>();
+    private int calls;
+
+    void grant(String workspaceId, String email, String... actions) {
+      acls.computeIfAbsent(workspaceId, w -> new HashMap<>())
+          .put(email.toLowerCase(), new HashSet<>(Arrays.asList(actions)));
+    }
+
+    @Override
+    public Map<String, Set<String>> getWorkspaceAcl(String workspaceId) {
+      calls++;
+      return acls.getOrDefault(workspaceId, Collections.emptyMap());
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package bio.terra.workspace.service.iam;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.workspace.app.configuration.CapabilityConfiguration;
+import bio.terra.workspace.app.configuration.WorkspaceCacheConfiguration;
+import bio.terra.workspace.db.WorkspaceCache;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class CapabilityServiceTest {
+  private static final String WORKSPACE_ID = "11111111-2222-3333-4444-555555555555";
+
+  private CapabilityConfiguration configuration;
+  private AuthenticatedUserRequest userReq;
+
+  @BeforeEach
+  public void setup() {
+    configuration = new CapabilityConfiguration();
+    configuration.setEnabled(true);
+    configuration.setSigningKey(Base64.getEncoder().encodeToString(new byte[32]));
+    userReq = new AuthenticatedUserRequest("user@example.com", "subject", Optional.empty());
+  }
+
+  private CapabilityService newService() {
+    return new CapabilityService(
+        configuration, new WorkspaceCache(new WorkspaceCacheConfiguration(), null));
+  }
+
+  @Test
+  public void issuedCapabilityVerifies() {
+    CapabilityService service = newService();
+    String token = service.issue(userReq, WORKSPACE_ID, Arrays.asList("read", "write")).getToken();
+
+    Capability capability = service.verify(token);
+    assertThat(capability, notNullValue());
+    assertThat(capability.getSubjectId(), equalTo("subject"));
+    assertThat(capability.getEmail(), equalTo("user@example.com"));
+    assertThat(capability.allows(WORKSPACE_ID, "write"), equalTo(true));
+    assertThat(capability.allows(WORKSPACE_ID, "delete"), equalTo(false));
+    assertThat(capability.allows("another-workspace", "read"), equalTo(false));
+  }
+
+  @Test
+  public void tamperedOrForeignCapabilityIsIgnored() {
+    CapabilityService service = newService();
+    String token = service.issue(userReq, WORKSPACE_ID, Arrays.asList("read")).getToken();
+    String signature = token.substring(token.indexOf('.'));
+    String widened =
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                new String(
+                        Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))))
+                    .replace("\nread\n", "\ndelete,read\n")
+                    .getBytes());
+    assertThat(service.verify(widened + signature), nullValue());
+    assertThat(service.verify("not a capability"), nullValue());
+
+    configuration.setSigningKey(
+        Base64.getEncoder().encodeToString("another key of at least 32 bytes".getBytes()));
+    assertThat(newService().verify(token), nullValue());
+    assertThat(service.getIgnoredCount(), equalTo(2L));
+  }
+
+  @Test
+  public void expiredOrRevokedCapabilityIsIgnored() {
+    configuration.setTtlSeconds(0);
+    CapabilityService expiring = newService();
+    String expired = expiring.issue(userReq, WORKSPACE_ID, Arrays.asList("read")).getToken();
+    assertThat(expiring.verify(expired), nullValue());
+
+    configuration.setTtlSeconds(300);
+    CapabilityService service = newService();
+    String token = service.issue(userReq, WORKSPACE_ID, Arrays.asList("read")).getToken();
+    service.workspaceDeleted(WORKSPACE_ID);
+    assertThat(service.verify(token), nullValue());
+
+    String other = service.issue(userReq, "another-workspace", Arrays.asList("read")).getToken();
+    assertThat(service.verify(other), notNullValue());
+    service.deletionsMissed();
+    assertThat(service.verify(other), nullValue());
+  }
+}
@@ -0,0 +1,101 @@
+package bio.terra.workspace.service.iam;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import bio.terra.workspace.app.configuration.CapabilityConfiguration;
+import bio.terra.workspace.app.configuration.WorkspaceCacheConfiguration;
+import bio.terra.workspace.db.WorkspaceCache;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+@Tag("unit")
+public class ProxiedAuthenticatedUserRequestFactoryTest {
+  private static final String WORKSPACE_ID = "11111111-2222-3333-4444-555555555555";
+
+  private CapabilityConfiguration configuration;
+
+  @BeforeEach
+  public void setup() {
+    configuration = new CapabilityConfiguration();
+    configuration.setEnabled(true);
+    configuration.setSigningKey(Base64.getEncoder().encodeToString(new byte[32]));
+  }
+
+  private CapabilityService newService() {
+    return new CapabilityService(
+        configuration, new WorkspaceCache(new WorkspaceCacheConfiguration(), null));
+  }
+
+  private static String issue(CapabilityService service, String subjectId) {
+    AuthenticatedUserRequest issuedTo =
+        new AuthenticatedUserRequest(subjectId + "@example.com", subjectId, Optional.empty());
+    return service.issue(issuedTo, WORKSPACE_ID, Arrays.asList("read")).getToken();
+  }
+
+  private static MockHttpServletRequest request(String subjectId, String capability) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(AuthHeaderKeys.OIDC_ACCESS_TOKEN.getKeyName(), "token");
+    if (subjectId != null) {
+      request.addHeader(AuthHeaderKeys.OIDC_CLAIM_USER_ID.getKeyName(), subjectId);
+      request.addHeader(AuthHeaderKeys.OIDC_CLAIM_EMAIL.getKeyName(), subjectId + "@example.com");
+    }
+    request.addHeader(AuthHeaderKeys.WORKSPACE_CAPABILITY.getKeyName(), capability);
+    return request;
+  }
+
+  @Test
+  public void capabilityWithoutProxySubjectIsIgnored() {
+    CapabilityService service = newService();
+    ProxiedAuthenticatedUserRequestFactory factory =
+        new ProxiedAuthenticatedUserRequestFactory(service);
+
+    AuthenticatedUserRequest userReq = factory.from(request(null, issue(service, "owner")));
+    assertThat(userReq.getCapability(), nullValue());
+    assertThat(userReq.getSubjectId(), nullValue());
+    assertThat(userReq.getEmail(), nullValue());
+  }
+
+  @Test
+  public void capabilityIssuedToAnotherSubjectIsIgnored() {
+    CapabilityService service = newService();
+    ProxiedAuthenticatedUserRequestFactory factory =
+        new ProxiedAuthenticatedUserRequestFactory(service);
+
+    AuthenticatedUserRequest userReq = factory.from(request("intruder", issue(service, "owner")));
+    assertThat(userReq.getCapability(), nullValue());
+    assertThat(userReq.getSubjectId(), equalTo("intruder"));
+  }
+
+  @Test
+  public void capabilityIssuedToTheProxySubjectIsUsed() {
+    CapabilityService service = newService();
+    ProxiedAuthenticatedUserRequestFactory factory =
+        new ProxiedAuthenticatedUserRequestFactory(service);
+
+    AuthenticatedUserRequest userReq = factory.from(request("owner", issue(service, "owner")));
+    assertThat(userReq.getCapability(), notNullValue());
+    assertThat(userReq.getCapability().allows(WORKSPACE_ID, "read"), equalTo(true));
+    assertThat(userReq.getSubjectId(), equalTo("owner"));
+    assertThat(userReq.getEmail(), equalTo("owner@example.com"));
+  }
+
+  @Test
+  public void expiredCapabilityIsIgnored() {
+    configuration.setTtlSeconds(0);
+    CapabilityService service = newService();
+    ProxiedAuthenticatedUserRequestFactory factory =
+        new ProxiedAuthenticatedUserRequestFactory(service);
+
+    AuthenticatedUserRequest userReq = factory.from(request("owner", issue(service, "owner")));
+    assertThat(userReq.getCapability(), nullValue());
+    assertThat(userReq.getSubjectId(), equalTo("owner"));
+  }
+}
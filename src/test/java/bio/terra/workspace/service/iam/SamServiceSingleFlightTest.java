@@ -0,0 +1,124 @@
+package bio.terra.workspace.service.iam;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import bio.terra.workspace.app.configuration.AclMirrorConfiguration;
+import bio.terra.workspace.app.configuration.SamCircuitBreakerConfiguration;
+import bio.terra.workspace.app.configuration.SamConfiguration;
+import bio.terra.workspace.common.utils.Bulkhead;
+import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.standin.FaultProfile;
+import bio.terra.workspace.standin.LatencyDistribution;
+import bio.terra.workspace.standin.SamStandIn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The page-load pattern: bursts of identical workspace checks from one user arriving together.
+ * They go through SamService to the Sam stand-in, which counts the requests it actually serves.
+ */
+@Tag("unit")
+public class SamServiceSingleFlightTest {
+  private static final Logger logger = LoggerFactory.getLogger(SamServiceSingleFlightTest.class);
+  private static final String USER = "user@example.com";
+  private static final int BURSTS = 50;
+  private static final int FAN_OUT = 6;
+
+  private SamStandIn sam;
+  private Bulkhead samBulkhead;
+  private final List<String> workspaces = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() throws Exception {
+    sam = new SamStandIn(1);
+    sam.start(0, FAN_OUT * 2);
+    samBulkhead = new Bulkhead("sam", 16, 256, 10000);
+
+    ApiClient client = new ApiClient();
+    client.setAccessToken(USER);
+    ResourcesApi resourcesApi = new ResourcesApi(client.setBasePath(sam.getBasePath()));
+    for (int i = 0; i < BURSTS; i++) {
+      String workspace = UUID.randomUUID().toString();
+      resourcesApi.createResourceWithDefaults(SamUtils.SAM_WORKSPACE_RESOURCE, workspace);
+      workspaces.add(workspace);
+    }
+    // About what a Sam permission check takes.
+    sam.setFaultProfile(FaultProfile.NONE.latency(LatencyDistribution.parse("fixed:20")));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    sam.close();
+    samBulkhead.shutdown();
+  }
+
+  @Test
+  public void burstyFanOutReducesSamRequests() throws Exception {
+    long coalesced = samRequestsForBursts(true);
+    long uncoalesced = samRequestsForBursts(false);
+
+    logger.info(
+        "Sam stand-in served {} requests for {} checks with coalescing, {} without",
+        coalesced,
+        BURSTS * FAN_OUT,
+        uncoalesced);
+    assertThat(uncoalesced, equalTo((long) BURSTS * FAN_OUT));
+    assertThat(coalesced, lessThan(uncoalesced / 2));
+  }
+
+  private long samRequestsForBursts(boolean coalesce) throws Exception {
+    SamConfiguration samConfig = new SamConfiguration();
+    samConfig.setBasePath(sam.getBasePath());
+    samConfig.setCoalesceAuthorizationChecks(coalesce);
+    SamService samService =
+        new SamService(
+            samConfig,
+            new SamCircuitBreakerConfiguration(),
+            samBulkhead,
+            new AclMirror(new AclMirrorConfiguration(), null, null),
+            new SimpleMeterRegistry());
+
+    long before = sam.getRequestCount();
+    ExecutorService executor = Executors.newFixedThreadPool(FAN_OUT);
+    try {
+      for (String workspace : workspaces) {
+        CyclicBarrier together = new CyclicBarrier(FAN_OUT);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < FAN_OUT; i++) {
+          results.add(
+              executor.submit(
+                  () -> {
+                    together.await();
+                    return samService.isAuthorized(
+                        USER,
+                        SamUtils.SAM_WORKSPACE_RESOURCE,
+                        workspace,
+                        SamUtils.SAM_WORKSPACE_READ_ACTION);
+                  }));
+        }
+        for (Future<Boolean> result : results) {
+          assertThat(result.get(), equalTo(true));
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return sam.getRequestCount() - before;
+  }
+}
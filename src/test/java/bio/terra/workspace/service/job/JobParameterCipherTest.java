@@ -0,0 +1,52 @@
+package bio.terra.workspace.service.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.service.job.exception.JobQueueException;
+import java.util.Base64;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class JobParameterCipherTest {
+  private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+  private static final String PARAMETERS = "{\"authUserInfo\":{\"token\":\"secret-token\"}}";
+
+  @Test
+  public void parametersRoundTripWithoutTheTokenInPlaintext() {
+    JobParameterCipher cipher = new JobParameterCipher(KEY);
+    String encrypted = cipher.encrypt(PARAMETERS);
+
+    assertThat(new String(Base64.getDecoder().decode(encrypted)), not(containsString("secret")));
+    assertThat(cipher.encrypt(PARAMETERS), not(equalTo(encrypted)));
+    assertThat(cipher.decrypt(encrypted), equalTo(PARAMETERS));
+  }
+
+  @Test
+  public void tamperedOrForeignParametersAreRejected() {
+    JobParameterCipher cipher = new JobParameterCipher(KEY);
+    byte[] encrypted = Base64.getDecoder().decode(cipher.encrypt(PARAMETERS));
+    encrypted[encrypted.length - 1] ^= 1;
+    String tampered = Base64.getEncoder().encodeToString(encrypted);
+    assertThrows(JobQueueException.class, () -> cipher.decrypt(tampered));
+
+    byte[] otherKey = new byte[32];
+    otherKey[0] = 1;
+    JobParameterCipher other = new JobParameterCipher(Base64.getEncoder().encodeToString(otherKey));
+    assertThrows(JobQueueException.class, () -> other.decrypt(cipher.encrypt(PARAMETERS)));
+    assertThrows(JobQueueException.class, () -> cipher.decrypt("not encrypted"));
+  }
+
+  @Test
+  public void keyMustBeSetAndTheRightLength() {
+    assertThrows(IllegalStateException.class, () -> new JobParameterCipher(null));
+    assertThrows(IllegalStateException.class, () -> new JobParameterCipher(""));
+    assertThrows(
+        IllegalStateException.class,
+        () -> new JobParameterCipher(Base64.getEncoder().encodeToString(new byte[16])));
+  }
+}
@@ -0,0 +1,55 @@
+package bio.terra.workspace.service.job;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.generated.model.CreateWorkspaceRequestBody;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class JobParameterSerializerTest {
+  private final JobParameterSerializer serializer =
+      new JobParameterSerializer(new ApplicationConfiguration().objectMapper());
+
+  @Test
+  public void parametersRoundTrip() {
+    AuthenticatedUserRequest userReq =
+        new AuthenticatedUserRequest()
+            .subjectId("subject")
+            .email("user@unit.com")
+            .token(Optional.of("not-a-real-token"));
+    UUID workspaceId = UUID.randomUUID();
+    CreateWorkspaceRequestBody body = new CreateWorkspaceRequestBody().id(workspaceId);
+
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put(JobMapKeys.AUTH_USER_INFO.getKeyName(), userReq);
+    parameters.put(JobMapKeys.SUBJECT_ID.getKeyName(), "subject");
+    parameters.put(JobMapKeys.REQUEST.getKeyName(), body);
+    parameters.put("workspaceId", workspaceId);
+    parameters.put("count", 3);
+    parameters.put("missing", null);
+
+    Map<String, Object> restored = serializer.deserialize(serializer.serialize(parameters));
+
+    assertThat(restored.keySet(), equalTo(parameters.keySet()));
+    AuthenticatedUserRequest restoredUser =
+        (AuthenticatedUserRequest) restored.get(JobMapKeys.AUTH_USER_INFO.getKeyName());
+    assertThat(restoredUser.getSubjectId(), equalTo("subject"));
+    assertThat(restoredUser.getEmail(), equalTo("user@unit.com"));
+    assertThat(restoredUser.getRequiredToken(), equalTo("not-a-real-token"));
+    assertThat(restored.get(JobMapKeys.SUBJECT_ID.getKeyName()), equalTo("subject"));
+    assertThat(restored.get(JobMapKeys.REQUEST.getKeyName()), equalTo(body));
+    assertThat(restored.get("workspaceId"), equalTo(workspaceId));
+    assertThat(restored.get("count"), instanceOf(Integer.class));
+    assertThat(restored.get("missing"), nullValue());
+  }
+}
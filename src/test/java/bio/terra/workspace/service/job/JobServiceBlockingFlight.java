@@ -0,0 +1,43 @@
+package bio.terra.workspace.service.job;
+
+import bio.terra.stairway.Flight;
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.Step;
+import bio.terra.stairway.StepResult;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** A flight whose one step runs until the test releases it. */
+public class JobServiceBlockingFlight extends Flight {
+  static CountDownLatch started = new CountDownLatch(1);
+  static CountDownLatch release = new CountDownLatch(1);
+  static AtomicBoolean finished = new AtomicBoolean();
+
+  static void reset() {
+    started = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    finished.set(false);
+  }
+
+  public JobServiceBlockingFlight(FlightMap inputParameters, Object applicationContext) {
+    super(inputParameters, applicationContext);
+    addStep(new BlockingStep());
+  }
+
+  public static class BlockingStep implements Step {
+    @Override
+    public StepResult doStep(FlightContext context) throws InterruptedException {
+      started.countDown();
+      release.await(60, TimeUnit.SECONDS);
+      finished.set(true);
+      return StepResult.getStepResultSuccess();
+    }
+
+    @Override
+    public StepResult undoStep(FlightContext context) {
+      return StepResult.getStepResultSuccess();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package bio.terra.workspace.service.job;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.job.exception.JobServiceDrainingException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Draining cannot be undone, so this test gets a context of its own.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class JobServiceDrainTest {
+  private AuthenticatedUserRequest testUser =
+      new AuthenticatedUserRequest()
+          .subjectId("StairwayUnit")
+          .email("stairway@unit.com")
+          .token(Optional.of("not-a-real-token"));
+
+  @Autowired private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    JobServiceBlockingFlight.reset();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    JobServiceBlockingFlight.release.countDown();
+  }
+
+  @Test
+  public void drainHandsOffWaitersAndShutdownWaitsForRunningFlights() throws Exception {
+    String jobId = UUID.randomUUID().toString();
+    jobService.newJob("blocking", jobId, JobServiceBlockingFlight.class, null, testUser).submit();
+    assertThat(JobServiceBlockingFlight.started.await(10, TimeUnit.SECONDS), equalTo(true));
+    CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> jobService.waitForJob(jobId));
+
+    // The flight outlives the drain, so the caller waiting on it is told to look elsewhere.
+    assertThat(jobService.drain(1), equalTo(false));
+    ExecutionException handedOff =
+        assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+    assertThat(handedOff.getCause(), instanceOf(JobServiceDrainingException.class));
+    String refusedId = UUID.randomUUID().toString();
+    JobBuilder refused =
+        jobService.newJob("refused", refusedId, JobServiceTestFlight.class, null, testUser);
+    assertThrows(JobServiceDrainingException.class, refused::submit);
+
+    // Shutdown keeps the pools open for the flight that is still running.
+    CompletableFuture<Void> shutdown = CompletableFuture.runAsync(jobService::shutdown);
+    Thread.sleep(500);
+    assertThat(shutdown.isDone(), equalTo(false));
+    JobServiceBlockingFlight.release.countDown();
+    shutdown.get(10, TimeUnit.SECONDS);
+    assertThat(JobServiceBlockingFlight.finished.get(), equalTo(true));
+  }
+}
@@ -0,0 +1,72 @@
+package bio.terra.workspace.service.job;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.generated.model.JobModel;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// The queue poller would claim other tests' queued jobs, so this context is closed afterwards.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest(
+    properties = {
+      "workspace.job-queue.enabled=true",
+      "workspace.job-queue.pollMillis=5",
+      "workspace.job-queue.parameterKey=AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA="
+    })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class JobServiceQueueTest {
+  private static final int JOBS = 50;
+
+  private AuthenticatedUserRequest testUser =
+      new AuthenticatedUserRequest()
+          .subjectId("StairwayUnit")
+          .email("stairway@unit.com")
+          .token(Optional.of("not-a-real-token"));
+
+  @Autowired private JobService jobService;
+
+  @Test
+  public void waitersNeverMissAJobBeingClaimed() throws Exception {
+    // Each waiter polls the queue while the poller claims its job, so every job is seen leaving
+    // the queue for Stairway. A job in neither place would fail its waiter.
+    List<String> jobIds = new ArrayList<>();
+    List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    ExecutorService waiterPool = Executors.newFixedThreadPool(JOBS);
+    try {
+      for (int i = 0; i < JOBS; i++) {
+        String jobId = UUID.randomUUID().toString();
+        jobService.newJob("queued" + i, jobId, JobServiceTestFlight.class, null, testUser).submit();
+        jobIds.add(jobId);
+        waiters.add(CompletableFuture.runAsync(() -> jobService.waitForJob(jobId), waiterPool));
+      }
+      CompletableFuture.allOf(waiters.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+    } finally {
+      waiterPool.shutdownNow();
+    }
+    for (String jobId : jobIds) {
+      assertThat(
+          jobService.retrieveJob(jobId, testUser).getStatus(),
+          equalTo(JobModel.StatusEnum.SUCCEEDED));
+    }
+  }
+}
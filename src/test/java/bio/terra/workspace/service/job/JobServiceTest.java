@@ -2,12 +2,14 @@ package bio.terra.workspace.service.job;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 
 import bio.terra.stairway.exception.StairwayException;
 import bio.terra.workspace.app.Main;
+import bio.terra.workspace.db.FlightOwnerDao;
 import bio.terra.workspace.generated.model.JobModel;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.SamService;
@@ -16,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.broadinstitute.dsde.workbench.client.sam.model.ResourceAndAccessPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -43,6 +46,7 @@ public class JobServiceTest {
           .token(Optional.of("not-a-real-token"));
 
   @Autowired private JobService jobService;
+  @Autowired private FlightOwnerDao flightOwnerDao;
 
   @MockBean private SamService mockSamService;
 
@@ -145,6 +149,89 @@ public class JobServiceTest {
         });
   }
 
+  @Test
+  public void onlyFlightsResubmittedByRecoveryAreCounted() throws Exception {
+    List<String> recovered = new ArrayList<>();
+    jobService.recover(
+        () -> {
+          for (int i = 0; i < 2; i++) {
+            recovered.add(submitFlight(makeDescription(i)));
+          }
+        });
+    // Submitted from another thread, as the queue poller or a request would.
+    String other = submitFlight(makeDescription(2));
+
+    for (String jobId : recovered) {
+      jobService.waitForJob(jobId);
+    }
+    jobService.waitForJob(other);
+    assertThat(jobService.getRecoveredFlightCount(), equalTo(2L));
+    assertThat(recoveryCompletes(), equalTo(true));
+  }
+
+  @Test
+  public void recoveryIsCompleteWhenTheRecoveredFlightsFinish() throws Exception {
+    JobServiceBlockingFlight.reset();
+    String blocked = UUID.randomUUID().toString();
+    try {
+      jobService.recover(
+          () ->
+              jobService
+                  .newJob("recovered", blocked, JobServiceBlockingFlight.class, null, testUser)
+                  .submit());
+      assertThat(JobServiceBlockingFlight.started.await(10, TimeUnit.SECONDS), equalTo(true));
+
+      // Other flights finishing first does not end recovery.
+      jobService.waitForJob(submitFlight(makeDescription(0)));
+      assertThat(jobService.getRecoveredFlightCount(), equalTo(1L));
+      assertThat(jobService.isRecoveryComplete(), equalTo(false));
+    } finally {
+      JobServiceBlockingFlight.release.countDown();
+    }
+    jobService.waitForJob(blocked);
+    assertThat(recoveryCompletes(), equalTo(true));
+  }
+
+  @Test
+  public void flightOwnedByALiveInstanceIsOnlyRecoveredOnceItStops() throws Exception {
+    String peer = "peer-" + UUID.randomUUID();
+    String jobId = UUID.randomUUID().toString();
+    flightOwnerDao.heartbeat(peer);
+    assertThat(flightOwnerDao.claim(jobId, peer, 60), equalTo(true));
+
+    jobService.recover(
+        () ->
+            jobService
+                .newJob(makeDescription(0), jobId, JobServiceTestFlight.class, null, testUser)
+                .submit());
+
+    assertThat(jobService.getRecoveredFlightCount(), equalTo(0L));
+    assertThat(jobService.getWithheldFlightCount(), equalTo(1));
+    assertThat(
+        jobService.retrieveJob(jobId, testUser).getStatus(), equalTo(JobModel.StatusEnum.RUNNING));
+
+    // Once the peer has stopped, the next heartbeat takes the flight over.
+    flightOwnerDao.deregister(peer);
+    for (int i = 0; i < 50 && jobService.getWithheldFlightCount() > 0; i++) {
+      Thread.sleep(100);
+    }
+    jobService.waitForJob(jobId);
+    assertThat(
+        jobService.retrieveJob(jobId, testUser).getStatus(),
+        equalTo(JobModel.StatusEnum.SUCCEEDED));
+    assertThat(jobService.getRecoveredFlightCount(), equalTo(1L));
+    assertThat(flightOwnerDao.getOwner(jobId), nullValue());
+  }
+
+  // Recovery is marked complete by the flight's thread as it finishes, just after Stairway has
+  // recorded the end of the flight, so a waiter can get there first.
+  private boolean recoveryCompletes() throws InterruptedException {
+    for (int i = 0; i < 50 && !jobService.isRecoveryComplete(); i++) {
+      Thread.sleep(100);
+    }
+    return jobService.isRecoveryComplete();
+  }
+
   private void validateJobModel(JobModel jm, int index, List<String> fids) {
     assertThat(jm.getDescription(), equalTo(makeDescription(index)));
     assertThat(jm.getId(), equalTo(fids.get(index)));
@@ -154,9 +241,14 @@ public class JobServiceTest {
 
   // Submit a flight; wait for it to finish; return the flight id
   private String runFlight(String description) throws StairwayException {
+    String jobId = submitFlight(description);
+    jobService.waitForJob(jobId);
+    return jobId;
+  }
+
+  private String submitFlight(String description) {
     String jobId = UUID.randomUUID().toString();
     jobService.newJob(description, jobId, JobServiceTestFlight.class, null, testUser).submit();
-    jobService.waitForJob(jobId);
     return jobId;
   }
 
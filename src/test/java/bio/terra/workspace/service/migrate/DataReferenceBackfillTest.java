@@ -0,0 +1,136 @@
+package bio.terra.workspace.service.migrate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// The migrated schema no longer has the tables the backfill copies between, so this recreates
+// them, without their foreign keys, in a schema of its own.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class DataReferenceBackfillTest {
+  private static final int ROWS = 25;
+
+  @Autowired WorkspaceManagerJdbcConfiguration jdbcConfiguration;
+
+  private final String schema = "backfill_" + UUID.randomUUID().toString().replace('-', '_');
+  private Connection connection;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    connection = jdbcConfiguration.getDataSource().getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE SCHEMA " + schema);
+      statement.execute("SET search_path TO " + schema);
+      statement.execute(
+          "CREATE TABLE workspace_data_reference (workspace_id text NOT NULL,"
+              + " reference_id text PRIMARY KEY, name text NOT NULL, resource_id text,"
+              + " credential_id text, cloning_instructions text NOT NULL, reference_type text,"
+              + " reference json)");
+      statement.execute(
+          "CREATE TABLE workspace_data_reference_partitioned (workspace_id text NOT NULL,"
+              + " reference_id text NOT NULL, name text NOT NULL, resource_id text,"
+              + " credential_id text, cloning_instructions text NOT NULL, reference_type text,"
+              + " reference json, PRIMARY KEY (workspace_id, reference_id))"
+              + " PARTITION BY HASH (workspace_id)");
+      for (int i = 0; i < 4; i++) {
+        statement.execute(
+            "CREATE TABLE workspace_data_reference_p"
+                + i
+                + " PARTITION OF workspace_data_reference_partitioned"
+                + " FOR VALUES WITH (MODULUS 4, REMAINDER "
+                + i
+                + ")");
+      }
+      for (int i = 0; i < ROWS; i++) {
+        statement.execute(
+            "INSERT INTO workspace_data_reference"
+                + " (workspace_id, reference_id, name, cloning_instructions)"
+                + " VALUES ('ws-"
+                + (i % 3)
+                + "', 'ref-"
+                + UUID.randomUUID()
+                + "', 'name', 'COPY_NOTHING')");
+      }
+    }
+    // As Liquibase leaves it.
+    connection.setAutoCommit(false);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    connection.rollback();
+    connection.setAutoCommit(true);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP SCHEMA " + schema + " CASCADE");
+      statement.execute("RESET search_path");
+    }
+    connection.close();
+  }
+
+  @Test
+  public void copiesEveryRowInBatches() throws Exception {
+    // A row the trigger already copied is skipped rather than failing the batch.
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "INSERT INTO workspace_data_reference_partitioned"
+              + " SELECT * FROM workspace_data_reference LIMIT 1");
+    }
+    connection.commit();
+
+    backfill(10);
+    assertThat(count("workspace_data_reference_partitioned"), equalTo(ROWS));
+    assertThat(
+        count(
+            "workspace_data_reference_partitioned JOIN workspace_data_reference"
+                + " USING (workspace_id, reference_id, name)"),
+        equalTo(ROWS));
+
+    // A backfill that starts over copies nothing new.
+    backfill(ROWS);
+    assertThat(count("workspace_data_reference_partitioned"), equalTo(ROWS));
+  }
+
+  private void backfill(int batchSize) throws Exception {
+    Database database =
+        DatabaseFactory.getInstance()
+            .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+    DataReferenceBackfill backfill = new DataReferenceBackfill();
+    backfill.setBatchSize(batchSize);
+    backfill.execute(database);
+  }
+
+  private int count(String from) throws Exception {
+    // On another connection: each batch must have been committed, not just written.
+    try (Connection reader = jdbcConfiguration.getDataSource().getConnection();
+        Statement statement = reader.createStatement()) {
+      statement.execute("SET search_path TO " + schema);
+      try (ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + from)) {
+        rs.next();
+        int count = rs.getInt(1);
+        statement.execute("RESET search_path");
+        return count;
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package bio.terra.workspace.service.migrate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.app.configuration.WorkspaceManagerJdbcConfiguration;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class MigrateServiceTest {
+  private static final String CHANGELOG = "db/changelog.xml";
+
+  @Autowired MigrateService migrateService;
+  @Autowired WorkspaceManagerJdbcConfiguration jdbcConfiguration;
+
+  private DataSource dataSource;
+  private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  public void setup() {
+    dataSource = jdbcConfiguration.getDataSource();
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    // Make the next upgrade run Liquibase, whatever earlier tests left behind.
+    jdbcTemplate.update("DELETE FROM schema_fingerprint WHERE changelog = ?", CHANGELOG);
+  }
+
+  @Test
+  public void secondUpgradeSkipsLiquibase() {
+    assertThat(migrateService.upgrade(CHANGELOG, dataSource), equalTo(true));
+    // Read on another connection: the fingerprint must have been committed, not just written.
+    assertThat(
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM schema_fingerprint WHERE changelog = ?",
+            Integer.class,
+            CHANGELOG),
+        equalTo(1));
+
+    assertThat(migrateService.upgrade(CHANGELOG, dataSource), equalTo(false));
+  }
+
+  @Test
+  public void waiterSkipsLiquibaseWhenTheLockHolderUpgraded() throws Exception {
+    String lockName = MigrateService.LOCK_NAMESPACE + CHANGELOG;
+    try (Connection holder = dataSource.getConnection()) {
+      // Stand in for another instance that holds the migration lock while it upgrades.
+      try (PreparedStatement statement =
+          holder.prepareStatement("SELECT pg_advisory_lock(hashtext(?))")) {
+        statement.setString(1, lockName);
+        statement.execute();
+      }
+
+      CompletableFuture<Boolean> waiter =
+          CompletableFuture.supplyAsync(() -> migrateService.upgrade(CHANGELOG, dataSource));
+      waitForLockWaiter(lockName);
+      assertThat(waiter.isDone(), equalTo(false));
+
+      // The other instance finishes: it records the fingerprint, then releases the lock.
+      jdbcTemplate.update(
+          "INSERT INTO schema_fingerprint (changelog, fingerprint) VALUES (?, ?)",
+          CHANGELOG,
+          buildFingerprint());
+      try (PreparedStatement statement =
+          holder.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+        statement.setString(1, lockName);
+        statement.execute();
+      }
+
+      assertThat(waiter.get(30, TimeUnit.SECONDS), equalTo(false));
+    }
+  }
+
+  // The waiter polls pg_try_advisory_lock, so it has passed the cheap check once it has tried.
+  private void waitForLockWaiter(String lockName) throws Exception {
+    for (int i = 0; i < 100; i++) {
+      Integer attempts =
+          jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM pg_stat_activity"
+                  + " WHERE query LIKE 'SELECT pg_try_advisory_lock%' AND pid <> pg_backend_pid()",
+              Integer.class);
+      if (attempts != null && attempts > 0) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    throw new IllegalStateException("Upgrade never tried to take " + lockName);
+  }
+
+  private static String buildFingerprint() throws Exception {
+    try (InputStream stream =
+        MigrateServiceTest.class
+            .getClassLoader()
+            .getResourceAsStream(CHANGELOG + MigrateService.FINGERPRINT_SUFFIX)) {
+      return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))
+          .readLine()
+          .trim();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package bio.terra.workspace.service.recording;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.RecordingConfiguration;
+import bio.terra.workspace.common.jfr.SamCallEvent;
+import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.generated.model.RecordingStatus;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.recording.exception.RecordingStateException;
+import bio.terra.workspace.service.recording.exception.RecordingUnauthorizedException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@Tag("unit")
+public class RecordingServiceTest {
+  private final AuthenticatedUserRequest admin =
+      new AuthenticatedUserRequest().token(Optional.of("admin-token"));
+  private final AuthenticatedUserRequest stranger =
+      new AuthenticatedUserRequest().token(Optional.of("stranger-token"));
+  private RecordingService recordingService;
+
+  @TempDir Path dumpDirectory;
+
+  @BeforeEach
+  public void setup() {
+    RecordingConfiguration configuration = new RecordingConfiguration();
+    configuration.setSettings("default");
+    configuration.setDumpDirectory(dumpDirectory.toString());
+    SamService samService = mock(SamService.class);
+    when(samService.isAuthorized(
+            eq("admin-token"),
+            eq(SamUtils.SAM_WORKSPACE_MANAGER_RESOURCE),
+            any(),
+            eq(SamUtils.SAM_WORKSPACE_MANAGER_RECORD_ACTION)))
+        .thenReturn(true);
+    recordingService =
+        new RecordingService(configuration, new ApplicationConfiguration(), samService);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (recordingService.getRecording(admin).getRunning()) {
+      recordingService.stopRecording(admin);
+    }
+  }
+
+  @Test
+  public void recordsWorkspaceEvents() throws Exception {
+    RecordingStatus started = recordingService.startRecording(admin);
+    assertThat(started.getRunning(), equalTo(true));
+    assertThat(started.getStartedAt(), notNullValue());
+    assertThrows(RecordingStateException.class, () -> recordingService.startRecording(admin));
+
+    SamCallEvent event = new SamCallEvent();
+    event.begin();
+    event.operation = "recordingTest";
+    event.outcome = "success";
+    event.commit();
+
+    RecordingStatus dumped = recordingService.dumpRecording(admin);
+    assertThat(dumped.getRunning(), equalTo(true));
+    assertThat(samOperations(Paths.get(dumped.getDumpFile())), hasItem("recordingTest"));
+
+    RecordingStatus stopped = recordingService.stopRecording(admin);
+    assertThat(stopped.getRunning(), equalTo(false));
+    assertThat(stopped.getDumpFile(), notNullValue());
+    assertThat(recordingService.getRecording(admin).getStartedAt(), nullValue());
+    assertThrows(RecordingStateException.class, () -> recordingService.dumpRecording(admin));
+  }
+
+  @Test
+  public void onlyAuthorizedCallersRecord() {
+    assertThrows(
+        RecordingUnauthorizedException.class, () -> recordingService.startRecording(stranger));
+    assertThat(recordingService.getRecording(admin).getRunning(), equalTo(false));
+  }
+
+  private static List<String> samOperations(Path dumpFile) throws Exception {
+    return RecordingFile.readAllEvents(dumpFile).stream()
+        .filter(e -> e.getEventType().getName().equals("bio.terra.workspace.SamCall"))
+        .map(e -> e.getString("operation"))
+        .collect(Collectors.toList());
+  }
+}
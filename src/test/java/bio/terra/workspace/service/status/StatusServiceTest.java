@@ -0,0 +1,135 @@
+package bio.terra.workspace.service.status;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import bio.terra.workspace.app.ApplicationReadiness;
+import bio.terra.workspace.app.configuration.ApplicationConfiguration;
+import bio.terra.workspace.app.configuration.StairwayJdbcConfiguration;
+import bio.terra.workspace.app.configuration.StatusCheckConfiguration;
+import bio.terra.workspace.common.utils.CircuitBreaker;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.generated.model.SystemStatus;
+import bio.terra.workspace.service.iam.SamService;
+import bio.terra.workspace.service.job.JobService;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit")
+public class StatusServiceTest {
+  private StatusCheckConfiguration configuration;
+  private ApplicationReadiness readiness;
+  private SamService samService;
+  private StairwayJdbcConfiguration stairwayJdbcConfiguration;
+  private StatusService statusService;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setup() throws Exception {
+    configuration = new StatusCheckConfiguration();
+    configuration.setCheckTimeoutSeconds(1);
+    readiness = new ApplicationReadiness();
+    readiness.markReady();
+
+    ShardRouter shardRouter = mock(ShardRouter.class);
+    when(shardRouter.getShards()).thenReturn(Collections.emptyList());
+
+    // A pool with no connection free: the check must give up at its timeout, not the pool's.
+    GenericObjectPool<PoolableConnection> exhaustedPool = mock(GenericObjectPool.class);
+    when(exhaustedPool.borrowObject(anyLong()))
+        .thenThrow(new NoSuchElementException("Timeout waiting for idle object"));
+    stairwayJdbcConfiguration = mock(StairwayJdbcConfiguration.class);
+    when(stairwayJdbcConfiguration.getConnectionPool()).thenReturn(exhaustedPool);
+
+    samService = mock(SamService.class);
+    when(samService.getSystemStatus())
+        .thenReturn(new org.broadinstitute.dsde.workbench.client.sam.model.SystemStatus().ok(true));
+    when(samService.getCircuitBreaker())
+        .thenReturn(new CircuitBreaker("sam", 10, 5, 50, 100, 1000, 1000, 1, e -> true));
+
+    statusService =
+        new StatusService(
+            configuration,
+            shardRouter,
+            stairwayJdbcConfiguration,
+            samService,
+            mock(JobService.class),
+            readiness,
+            new ApplicationConfiguration());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    statusService.stopRefresh();
+  }
+
+  @Test
+  public void failingDependencyIsNotReadyButLive() {
+    statusService.startRefresh();
+
+    SystemStatus status = statusService.getCurrentStatus();
+    assertThat(status.getOk(), equalTo(false));
+    assertThat(status.getSystems().get("sam").getOk(), equalTo(true));
+    assertThat(status.getSystems().get("stairwayDatabase").getOk(), equalTo(false));
+    assertThat(
+        status.getSystems().get("stairwayDatabase").getMessages().get(0),
+        containsString("No connection was free"));
+
+    assertThat(statusService.getLiveness().getOk(), equalTo(true));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void failingSamIsReportedButDoesNotAffectReadiness() throws Exception {
+    PoolableConnection connection = mock(PoolableConnection.class);
+    when(connection.isValid(anyInt())).thenReturn(true);
+    GenericObjectPool<PoolableConnection> healthyPool = mock(GenericObjectPool.class);
+    when(healthyPool.borrowObject(anyLong())).thenReturn(connection);
+    when(stairwayJdbcConfiguration.getConnectionPool()).thenReturn(healthyPool);
+    when(samService.getSystemStatus()).thenThrow(new RuntimeException("Sam is unreachable"));
+
+    statusService.startRefresh();
+
+    SystemStatus status = statusService.getCurrentStatus();
+    assertThat(status.getOk(), equalTo(true));
+    assertThat(status.getSystems().get("sam").getOk(), equalTo(false));
+    assertThat(
+        status.getSystems().get("sam").getMessages().get(0), containsString("Sam is unreachable"));
+    assertThat(status.getSystems().get("sam").getMessages().get(1), containsString("circuit"));
+  }
+
+  @Test
+  public void notReadyWhileShuttingDown() {
+    statusService.startRefresh();
+    readiness.markNotReady();
+
+    assertThat(statusService.getCurrentStatus().getOk(), equalTo(false));
+    assertThat(
+        statusService.getCurrentStatus().getSystems().get("readiness").getOk(), equalTo(false));
+    assertThat(statusService.getLiveness().getOk(), equalTo(true));
+  }
+
+  @Test
+  public void staleSnapshotIsNotLive() {
+    configuration.setStalenessThresholdSeconds(-1);
+    // Before the first check there is nothing to be stale.
+    assertThat(statusService.getLiveness().getOk(), equalTo(true));
+
+    statusService.startRefresh();
+    SystemStatus liveness = statusService.getLiveness();
+    assertThat(liveness.getOk(), equalTo(false));
+    assertThat(
+        liveness.getSystems().get("status").getMessages().get(0), containsString("last checked"));
+  }
+}
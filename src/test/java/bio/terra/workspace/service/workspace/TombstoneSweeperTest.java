@@ -0,0 +1,120 @@
+package bio.terra.workspace.service.workspace;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.common.exception.WorkspaceNotFoundException;
+import bio.terra.workspace.db.DataReferenceDao;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.job.JobService;
+import bio.terra.workspace.service.job.exception.JobNotCompleteException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+public class TombstoneSweeperTest {
+
+  @Autowired TombstoneSweeper sweeper;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired DataReferenceDao dataReferenceDao;
+  @Autowired ShardRouter shardRouter;
+  @Autowired JobService jobService;
+
+  private UUID workspaceId;
+
+  @BeforeEach
+  public void setup() {
+    workspaceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    for (int i = 0; i < 3; i++) {
+      dataReferenceDao.createDataReference(
+          UUID.randomUUID(),
+          workspaceId,
+          "reference-" + i,
+          JsonNullable.undefined(),
+          JsonNullable.undefined(),
+          "COPY_NOTHING",
+          JsonNullable.undefined(),
+          JsonNullable.undefined());
+    }
+    // As if the instance had died after the tombstone, before submitting the purge.
+    workspaceDao.tombstoneWorkspace(workspaceId);
+  }
+
+  @Test
+  public void staleTombstoneIsPurgedAndReportsItsRows() throws Exception {
+    ageTombstone();
+
+    assertThat(sweeper.sweep(), greaterThan(0));
+    String jobId = WorkspaceService.purgeJobId(workspaceId);
+    assertThat(jobService.jobExists(jobId), equalTo(true));
+
+    Map<?, ?> purged = waitForResult(jobId);
+    assertThat(((Number) purged.get("workspace_data_reference")).intValue(), equalTo(3));
+    assertThat(((Number) purged.get("workspace_resource")).intValue(), equalTo(0));
+    assertThat(workspaceRows(), equalTo(0));
+    assertThrows(
+        WorkspaceNotFoundException.class, () -> workspaceDao.getWorkspace(workspaceId.toString()));
+  }
+
+  @Test
+  public void recentTombstoneIsLeftForItsOwnPurge() {
+    sweeper.sweep();
+
+    assertThat(jobService.jobExists(WorkspaceService.purgeJobId(workspaceId)), equalTo(false));
+    assertThat(workspaceRows(), equalTo(1));
+  }
+
+  private void ageTombstone() {
+    shardRouter
+        .shardFor(workspaceId)
+        .getJdbcTemplate()
+        .update(
+            "UPDATE workspace SET tombstoned_at = now() - interval '1 day' WHERE workspace_id = :id",
+            new MapSqlParameterSource().addValue("id", workspaceId.toString()));
+  }
+
+  private Map<?, ?> waitForResult(String jobId) throws InterruptedException {
+    AuthenticatedUserRequest sweeperUser =
+        new AuthenticatedUserRequest()
+            .subjectId(TombstoneSweeper.SWEEPER_SUBJECT_ID)
+            .token(Optional.empty());
+    for (int i = 0; i < 100; i++) {
+      try {
+        return jobService.retrieveJobResult(jobId, Map.class, sweeperUser).getResult();
+      } catch (JobNotCompleteException e) {
+        Thread.sleep(100);
+      }
+    }
+    throw new AssertionError("Purge " + jobId + " did not finish");
+  }
+
+  private int workspaceRows() {
+    return shardRouter
+        .shardFor(workspaceId)
+        .getJdbcTemplate()
+        .queryForObject(
+            "SELECT count(*) FROM workspace WHERE workspace_id = :id",
+            new MapSqlParameterSource().addValue("id", workspaceId.toString()),
+            Integer.class);
+  }
+}
@@ -0,0 +1,124 @@
+package bio.terra.workspace.service.workspace;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.db.DataReferenceDao;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.generated.model.DeleteWorkspaceRequestBody;
+import bio.terra.workspace.generated.model.JobModel;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.workspace.service.iam.SamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest(properties = "workspace.backgroundDeleteEnabled=true")
+@AutoConfigureMockMvc
+public class WorkspaceBackgroundDeleteTest {
+
+  @Autowired private MockMvc mvc;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private WorkspaceDao workspaceDao;
+  @Autowired private DataReferenceDao dataReferenceDao;
+
+  @MockBean private SamService mockSamService;
+
+  // Mock MVC doesn't populate the fields used to build this.
+  @MockBean private AuthenticatedUserRequestFactory mockAuthenticatedUserRequestFactory;
+
+  private UUID workspaceId;
+
+  @BeforeEach
+  public void setup() {
+    doNothing().when(mockSamService).workspaceAuthz(any(), any(), any());
+    doNothing().when(mockSamService).deleteWorkspace(any(), any());
+    authenticateAs("fakeID123");
+
+    workspaceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    dataReferenceDao.createDataReference(
+        UUID.randomUUID(),
+        workspaceId,
+        "reference",
+        JsonNullable.undefined(),
+        JsonNullable.undefined(),
+        "COPY_NOTHING",
+        JsonNullable.undefined(),
+        JsonNullable.undefined());
+  }
+
+  @Test
+  public void callerCanPollThePurgeJob() throws Exception {
+    DeleteWorkspaceRequestBody deleteBody =
+        new DeleteWorkspaceRequestBody().authToken("fake-user-auth-token");
+    mvc.perform(
+            delete("/api/v1/workspaces/" + workspaceId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(deleteBody)))
+        .andExpect(status().is(204));
+
+    String jobId = WorkspaceService.purgeJobId(workspaceId);
+    JobModel job = pollUntilDone(jobId);
+    assertThat(job.getStatus(), equalTo(JobModel.StatusEnum.SUCCEEDED));
+    MvcResult result =
+        mvc.perform(get("/api/v1/jobs/" + jobId + "/result"))
+            .andExpect(status().is(200))
+            .andReturn();
+    Map<?, ?> purged = objectMapper.readValue(result.getResponse().getContentAsString(), Map.class);
+    assertThat(((Number) purged.get("workspace_data_reference")).intValue(), equalTo(1));
+
+    // The job belongs to the caller, not to anyone who knows the workspace id.
+    authenticateAs("someoneElse");
+    mvc.perform(get("/api/v1/jobs/" + jobId)).andExpect(status().is(401));
+  }
+
+  private JobModel pollUntilDone(String jobId) throws Exception {
+    for (int i = 0; i < 100; i++) {
+      MvcResult result = mvc.perform(get("/api/v1/jobs/" + jobId)).andReturn();
+      assertThat(result.getResponse().getStatus() / 100, equalTo(2));
+      JobModel job =
+          objectMapper.readValue(result.getResponse().getContentAsString(), JobModel.class);
+      if (job.getStatus() != JobModel.StatusEnum.RUNNING) {
+        return job;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Purge " + jobId + " did not finish");
+  }
+
+  private void authenticateAs(String subjectId) {
+    when(mockAuthenticatedUserRequestFactory.from(any()))
+        .thenReturn(
+            new AuthenticatedUserRequest()
+                .token(Optional.of("fake-token"))
+                .email(subjectId + "@email.com")
+                .subjectId(subjectId));
+  }
+}
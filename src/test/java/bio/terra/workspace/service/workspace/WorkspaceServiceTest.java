@@ -5,6 +5,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.blankOrNullString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -17,20 +18,29 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import bio.terra.workspace.app.Main;
 import bio.terra.workspace.common.exception.SamApiException;
+import bio.terra.workspace.generated.model.BatchGetRequestBody;
 import bio.terra.workspace.generated.model.CreateDataReferenceRequestBody;
 import bio.terra.workspace.generated.model.CreateWorkspaceRequestBody;
 import bio.terra.workspace.generated.model.CreatedWorkspace;
+import bio.terra.workspace.generated.model.DataReferenceBatchResult;
+import bio.terra.workspace.generated.model.DataReferenceBatchResultList;
 import bio.terra.workspace.generated.model.DataReferenceDescription;
 import bio.terra.workspace.generated.model.DataRepoSnapshot;
 import bio.terra.workspace.generated.model.DeleteWorkspaceRequestBody;
 import bio.terra.workspace.generated.model.ErrorReport;
+import bio.terra.workspace.generated.model.WorkspaceBatchResult;
+import bio.terra.workspace.generated.model.WorkspaceBatchResultList;
 import bio.terra.workspace.generated.model.WorkspaceDescription;
+import bio.terra.workspace.generated.model.WorkspaceList;
 import bio.terra.workspace.service.datarepo.DataRepoService;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
 import bio.terra.workspace.service.iam.AuthenticatedUserRequestFactory;
 import bio.terra.workspace.service.iam.SamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
@@ -294,6 +304,166 @@ public class WorkspaceServiceTest {
             .andReturn();
   }
 
+  @Test
+  public void batchGetReportsEachWorkspace() throws Exception {
+    UUID workspaceId = UUID.randomUUID();
+    CreateWorkspaceRequestBody body =
+        new CreateWorkspaceRequestBody()
+            .id(workspaceId)
+            .authToken("fake-user-auth-token")
+            .spendProfile(null)
+            .policies(null);
+    runCreateWorkspaceCall(body);
+    String missingId = UUID.randomUUID().toString();
+
+    BatchGetRequestBody batchRequest =
+        new BatchGetRequestBody().ids(Arrays.asList(workspaceId.toString(), missingId));
+    MvcResult batchResult =
+        mvc.perform(
+                post("/api/v1/workspaces/batchGet")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(batchRequest)))
+            .andExpect(status().is(200))
+            .andReturn();
+    WorkspaceBatchResultList results =
+        objectMapper.readValue(
+            batchResult.getResponse().getContentAsString(), WorkspaceBatchResultList.class);
+
+    assertThat(results.getResults().size(), equalTo(2));
+    WorkspaceBatchResult found = results.getResults().get(0);
+    assertThat(found.getId(), equalTo(workspaceId.toString()));
+    assertThat(found.getWorkspace().getId(), equalTo(workspaceId));
+    WorkspaceBatchResult missing = results.getResults().get(1);
+    assertThat(missing.getId(), equalTo(missingId));
+    assertThat(missing.getError().getStatusCode(), equalTo(HttpStatus.NOT_FOUND.value()));
+  }
+
+  @Test
+  public void batchGetRejectsEmptyRequest() throws Exception {
+    BatchGetRequestBody batchRequest = new BatchGetRequestBody().ids(Collections.emptyList());
+    mvc.perform(
+            post("/api/v1/workspaces/batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+        .andExpect(status().is(400));
+  }
+
+  @Test
+  public void batchGetReportsEachDataReference() throws Exception {
+    UUID workspaceId = UUID.randomUUID();
+    UUID otherWorkspaceId = UUID.randomUUID();
+    for (UUID id : Arrays.asList(workspaceId, otherWorkspaceId)) {
+      runCreateWorkspaceCall(
+          new CreateWorkspaceRequestBody()
+              .id(id)
+              .authToken("fake-user-auth-token")
+              .spendProfile(null)
+              .policies(null));
+    }
+    String referenceId = runCreateDataReferenceCall(workspaceId).getReferenceId().toString();
+    String otherReferenceId =
+        runCreateDataReferenceCall(otherWorkspaceId).getReferenceId().toString();
+    String missingId = UUID.randomUUID().toString();
+
+    // The duplicate id gets a single result.
+    BatchGetRequestBody batchRequest =
+        new BatchGetRequestBody()
+            .ids(
+                Arrays.asList(
+                    referenceId, otherReferenceId, missingId, "not-a-uuid", referenceId));
+    MvcResult batchResult =
+        mvc.perform(
+                post("/api/v1/workspaces/" + workspaceId + "/datareferences/batchGet")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(batchRequest)))
+            .andExpect(status().is(200))
+            .andReturn();
+    DataReferenceBatchResultList results =
+        objectMapper.readValue(
+            batchResult.getResponse().getContentAsString(), DataReferenceBatchResultList.class);
+
+    assertThat(results.getResults().size(), equalTo(4));
+    DataReferenceBatchResult found = results.getResults().get(0);
+    assertThat(found.getId(), equalTo(referenceId));
+    assertThat(found.getDataReference().getReferenceId().toString(), equalTo(referenceId));
+    assertThat(found.getDataReference().getWorkspaceId(), equalTo(workspaceId));
+    assertThat(found.getError(), nullValue());
+    // A reference in another workspace is reported as missing, not returned.
+    DataReferenceBatchResult otherWorkspace = results.getResults().get(1);
+    assertThat(otherWorkspace.getId(), equalTo(otherReferenceId));
+    assertThat(otherWorkspace.getDataReference(), nullValue());
+    assertThat(otherWorkspace.getError().getStatusCode(), equalTo(HttpStatus.NOT_FOUND.value()));
+    DataReferenceBatchResult missing = results.getResults().get(2);
+    assertThat(missing.getId(), equalTo(missingId));
+    assertThat(missing.getError().getStatusCode(), equalTo(HttpStatus.NOT_FOUND.value()));
+    DataReferenceBatchResult malformed = results.getResults().get(3);
+    assertThat(malformed.getId(), equalTo("not-a-uuid"));
+    assertThat(malformed.getError().getStatusCode(), equalTo(HttpStatus.BAD_REQUEST.value()));
+  }
+
+  @Test
+  public void batchGetDataReferencesRejectsEmptyRequest() throws Exception {
+    BatchGetRequestBody batchRequest = new BatchGetRequestBody().ids(Collections.emptyList());
+    mvc.perform(
+            post("/api/v1/workspaces/" + UUID.randomUUID() + "/datareferences/batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+        .andExpect(status().is(400));
+  }
+
+  @Test
+  public void batchGetDataReferencesRejectsTooManyIds() throws Exception {
+    // One more than workspace.maxBatchGetSize in the test properties.
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 101; i++) {
+      ids.add(UUID.randomUUID().toString());
+    }
+    BatchGetRequestBody batchRequest = new BatchGetRequestBody().ids(ids);
+    mvc.perform(
+            post("/api/v1/workspaces/" + UUID.randomUUID() + "/datareferences/batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batchRequest)))
+        .andExpect(status().is(400));
+  }
+
+  @Test
+  public void listWorkspacesPagesInIdOrder() throws Exception {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      UUID workspaceId = UUID.randomUUID();
+      runCreateWorkspaceCall(
+          new CreateWorkspaceRequestBody()
+              .id(workspaceId)
+              .authToken("fake-user-auth-token")
+              .spendProfile(null)
+              .policies(null));
+      ids.add(workspaceId.toString());
+    }
+    Collections.sort(ids);
+    // Sam knows one more workspace than the database.
+    String missingId = UUID.randomUUID().toString();
+    doReturn(Arrays.asList(ids.get(2), missingId, ids.get(0), ids.get(1)))
+        .when(mockSamService)
+        .listWorkspaceIds(any());
+
+    WorkspaceList firstPage = runListWorkspacesCall("?limit=2");
+    assertThat(firstPage.getWorkspaces().size(), equalTo(2));
+    assertThat(firstPage.getWorkspaces().get(0).getId().toString(), equalTo(ids.get(0)));
+    assertThat(firstPage.getWorkspaces().get(1).getId().toString(), equalTo(ids.get(1)));
+    assertThat(firstPage.getNextPageToken(), equalTo(ids.get(1)));
+
+    WorkspaceList secondPage =
+        runListWorkspacesCall("?limit=2&pageToken=" + firstPage.getNextPageToken());
+    assertThat(secondPage.getWorkspaces().size(), equalTo(1));
+    assertThat(secondPage.getWorkspaces().get(0).getId().toString(), equalTo(ids.get(2)));
+    assertThat(secondPage.getNextPageToken(), nullValue());
+  }
+
+  @Test
+  public void listWorkspacesRejectsBadLimit() throws Exception {
+    mvc.perform(get("/api/v1/workspaces?limit=0")).andExpect(status().is(400));
+  }
+
   // TODO: blank tests that should be written as more functionality gets added.
   // @Test
   // public void testLockedWorkspaceIsInaccessible() {
@@ -305,6 +475,31 @@ public class WorkspaceServiceTest {
   // public void testPolicy() {
   // }
 
+  private WorkspaceList runListWorkspacesCall(String query) throws Exception {
+    MvcResult listResult =
+        mvc.perform(get("/api/v1/workspaces" + query)).andExpect(status().is(200)).andReturn();
+    return objectMapper.readValue(
+        listResult.getResponse().getContentAsString(), WorkspaceList.class);
+  }
+
+  private DataReferenceDescription runCreateDataReferenceCall(UUID workspaceId) throws Exception {
+    CreateDataReferenceRequestBody referenceRequest =
+        new CreateDataReferenceRequestBody()
+            .name("fake-data-reference")
+            .cloningInstructions("COPY_NOTHING")
+            .referenceType("DataRepoSnapshot")
+            .reference(new DataRepoSnapshot().instance("fake instance").snapshot("fake snapshot"));
+    MvcResult referenceResult =
+        mvc.perform(
+                post("/api/v1/workspaces/" + workspaceId + "/datareferences")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(referenceRequest)))
+            .andExpect(status().is(200))
+            .andReturn();
+    return objectMapper.readValue(
+        referenceResult.getResponse().getContentAsString(), DataReferenceDescription.class);
+  }
+
   private CreatedWorkspace runCreateWorkspaceCall(CreateWorkspaceRequestBody request)
       throws Exception {
     MvcResult initialResult =
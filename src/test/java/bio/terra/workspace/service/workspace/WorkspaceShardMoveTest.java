@@ -0,0 +1,134 @@
+package bio.terra.workspace.service.workspace;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.common.utils.SamUtils;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.generated.model.JobModel;
+import bio.terra.workspace.generated.model.MoveWorkspaceShardRequestBody;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequest;
+import bio.terra.workspace.service.iam.AuthenticatedUserRequestFactory;
+import bio.terra.workspace.service.iam.SamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+// Runs with a second workspace database; see application-shards.properties.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+@ActiveProfiles("shards")
+@AutoConfigureMockMvc
+public class WorkspaceShardMoveTest {
+
+  @Autowired private MockMvc mvc;
+  @Autowired private ObjectMapper objectMapper;
+  @Autowired private ShardRouter shardRouter;
+  @Autowired private WorkspaceDao workspaceDao;
+
+  @MockBean private SamService mockSamService;
+
+  // Mock MVC doesn't populate the fields used to build this.
+  @MockBean private AuthenticatedUserRequestFactory mockAuthenticatedUserRequestFactory;
+
+  private UUID workspaceId;
+  private int source;
+
+  @BeforeEach
+  public void setup() {
+    when(mockSamService.isAuthorized(
+            eq("operator-token"),
+            eq(SamUtils.SAM_WORKSPACE_MANAGER_RESOURCE),
+            any(),
+            eq(SamUtils.SAM_WORKSPACE_MANAGER_MOVE_WORKSPACE_ACTION)))
+        .thenReturn(true);
+
+    workspaceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    source = shardRouter.shardFor(workspaceId).getIndex();
+  }
+
+  @Test
+  public void operatorCanMoveAWorkspace() throws Exception {
+    authenticateWith("operator-token");
+    MvcResult started = move(1 - source).andExpect(status().is(202)).andReturn();
+    JobModel job =
+        objectMapper.readValue(started.getResponse().getContentAsString(), JobModel.class);
+
+    assertThat(pollUntilDone(job.getId()).getStatus(), equalTo(JobModel.StatusEnum.SUCCEEDED));
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(1 - source));
+    assertThat(workspaceDao.getWorkspace(workspaceId.toString()).getId(), equalTo(workspaceId));
+  }
+
+  @Test
+  public void otherUsersCannotMoveAWorkspace() throws Exception {
+    authenticateWith("user-token");
+    move(1 - source).andExpect(status().is(401));
+
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(source));
+  }
+
+  @Test
+  public void unknownShardIsRejected() throws Exception {
+    authenticateWith("operator-token");
+    move(shardRouter.getShards().size()).andExpect(status().is(400));
+  }
+
+  private ResultActions move(int targetShard) throws Exception {
+    MoveWorkspaceShardRequestBody body =
+        new MoveWorkspaceShardRequestBody().targetShard(targetShard);
+    return mvc.perform(
+        post("/api/admin/v1/workspaces/" + workspaceId + "/shard")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(body)));
+  }
+
+  private JobModel pollUntilDone(String jobId) throws Exception {
+    for (int i = 0; i < 100; i++) {
+      MvcResult result = mvc.perform(get("/api/v1/jobs/" + jobId)).andReturn();
+      assertThat(result.getResponse().getStatus() / 100, equalTo(2));
+      JobModel job =
+          objectMapper.readValue(result.getResponse().getContentAsString(), JobModel.class);
+      if (job.getStatus() != JobModel.StatusEnum.RUNNING) {
+        return job;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Move " + jobId + " did not finish");
+  }
+
+  private void authenticateWith(String token) {
+    when(mockAuthenticatedUserRequestFactory.from(any()))
+        .thenReturn(
+            new AuthenticatedUserRequest()
+                .token(Optional.of(token))
+                .email("operator@email.com")
+                .subjectId("operator"));
+  }
+}
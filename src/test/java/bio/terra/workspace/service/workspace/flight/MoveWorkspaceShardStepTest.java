@@ -0,0 +1,102 @@
+package bio.terra.workspace.service.workspace.flight;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import bio.terra.stairway.FlightContext;
+import bio.terra.stairway.FlightMap;
+import bio.terra.stairway.StepResult;
+import bio.terra.stairway.StepStatus;
+import bio.terra.workspace.app.Main;
+import bio.terra.workspace.db.ShardRouter;
+import bio.terra.workspace.db.WorkspaceDao;
+import bio.terra.workspace.db.WorkspaceShardMover;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+// Runs with a second workspace database; see application-shards.properties.
+@Tag("unit")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = Main.class)
+@SpringBootTest
+@ActiveProfiles("shards")
+public class MoveWorkspaceShardStepTest {
+
+  @Autowired ShardRouter shardRouter;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired WorkspaceShardMover mover;
+
+  private UUID workspaceId;
+  private int source;
+  private int target;
+  private FlightMap workingMap;
+  private FlightContext flightContext;
+
+  @BeforeEach
+  public void setup() {
+    workspaceId = UUID.randomUUID();
+    workspaceDao.createWorkspace(workspaceId, JsonNullable.undefined());
+    source = shardRouter.shardFor(workspaceId).getIndex();
+    target = 1 - source;
+
+    FlightMap inputMap = new FlightMap();
+    inputMap.put(WorkspaceFlightMapKeys.WORKSPACE_ID, workspaceId);
+    inputMap.put(WorkspaceFlightMapKeys.TARGET_SHARD, target);
+    workingMap = new FlightMap();
+    flightContext = mock(FlightContext.class);
+    when(flightContext.getInputParameters()).thenReturn(inputMap);
+    when(flightContext.getWorkingMap()).thenReturn(workingMap);
+  }
+
+  private MoveWorkspaceShardStep stepFailingOnce(RuntimeException failure) {
+    WorkspaceShardMover failingMover = spy(mover);
+    doThrow(failure).doCallRealMethod().when(failingMover).moveWorkspace(any(), anyInt(), anyInt());
+    return new MoveWorkspaceShardStep(failingMover, shardRouter);
+  }
+
+  @Test
+  public void databaseFailureIsRetriedFromTheRecordedSource() throws Exception {
+    MoveWorkspaceShardStep step =
+        stepFailingOnce(new TransientDataAccessResourceException("primary unavailable"));
+
+    StepResult failed = step.doStep(flightContext);
+    assertThat(failed.getStepStatus(), equalTo(StepStatus.STEP_RESULT_FAILURE_RETRY));
+    assertThat(workingMap.get(WorkspaceFlightMapKeys.SOURCE_SHARD, Integer.class), equalTo(source));
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(source));
+
+    StepResult retried = step.doStep(flightContext);
+    assertThat(retried.getStepStatus(), equalTo(StepStatus.STEP_RESULT_SUCCESS));
+    assertThat(workingMap.get(WorkspaceFlightMapKeys.MOVED_ROWS, Integer.class), equalTo(1));
+    shardRouter.invalidatePlacement(workspaceId.toString());
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(target));
+  }
+
+  @Test
+  public void undoAfterAFailedMoveLeavesTheWorkspaceReadable() throws Exception {
+    MoveWorkspaceShardStep step = stepFailingOnce(new IllegalStateException("move failed"));
+
+    assertThrows(IllegalStateException.class, () -> step.doStep(flightContext));
+    StepResult undone = step.undoStep(flightContext);
+
+    assertThat(undone.getStepStatus(), equalTo(StepStatus.STEP_RESULT_SUCCESS));
+    assertThat(shardRouter.shardFor(workspaceId).getIndex(), equalTo(source));
+    assertThat(workspaceDao.getWorkspace(workspaceId.toString()).getId(), equalTo(workspaceId));
+  }
+}
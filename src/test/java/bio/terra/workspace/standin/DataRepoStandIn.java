@@ -0,0 +1,56 @@
+package bio.terra.workspace.standin;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for the Data Repo endpoint the service calls, retrieveSnapshot. Every snapshot exists
+ * unless it has been marked missing, so data references can be created with any snapshot id. Point
+ * a data reference's instance at {@link #getBasePath}.
+ */
+public class DataRepoStandIn extends StandInServer {
+  private static final String SNAPSHOTS_PREFIX = "/api/repository/v1/snapshots/";
+
+  private final Set<String> missingSnapshots = ConcurrentHashMap.newKeySet();
+
+  public DataRepoStandIn(long seed) {
+    super("datarepo", seed);
+  }
+
+  public void markMissing(String snapshotId) {
+    missingSnapshots.add(snapshotId);
+  }
+
+  @Override
+  protected void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    if (!exchange.getRequestMethod().equals("GET")
+        || !path.startsWith(SNAPSHOTS_PREFIX)
+        || path.indexOf('/', SNAPSHOTS_PREFIX.length()) >= 0) {
+      sendError(exchange, 404, "No route for " + exchange.getRequestMethod() + " " + path);
+      return;
+    }
+    if (bearerToken(exchange) == null) {
+      sendError(exchange, 401, "No bearer token");
+      return;
+    }
+    String snapshotId = path.substring(SNAPSHOTS_PREFIX.length());
+    if (missingSnapshots.contains(snapshotId)) {
+      sendError(exchange, 404, "Snapshot not found: " + snapshotId);
+      return;
+    }
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("id", snapshotId);
+    snapshot.put("name", "standin_" + snapshotId.replace('-', '_'));
+    snapshot.put("description", "Data Repo stand-in snapshot");
+    snapshot.put("createdDate", "2020-01-01T00:00:00Z");
+    snapshot.put("source", Collections.emptyList());
+    snapshot.put("tables", Collections.emptyList());
+    sendJson(exchange, 200, snapshot);
+  }
+}
@@ -0,0 +1,96 @@
+package bio.terra.workspace.standin;
+
+import java.util.Properties;
+
+/**
+ * The misbehaviour a stand-in injects: a delay before every answer, a share of requests that fail
+ * with an error status, and a request rate above which requests are turned away with a 429.
+ *
+ * <p>Profiles are immutable; change a running stand-in's behaviour by giving it a new one.
+ */
+public class FaultProfile {
+  public static final FaultProfile NONE = new FaultProfile(LatencyDistribution.NONE, 0, 500, 0);
+
+  private final LatencyDistribution latency;
+  private final double errorRate;
+  private final int errorStatus;
+  private final int maxRequestsPerSecond;
+
+  private FaultProfile(
+      LatencyDistribution latency, double errorRate, int errorStatus, int maxRequestsPerSecond) {
+    if (errorRate < 0 || errorRate > 1) {
+      throw new IllegalArgumentException("errorRate must be between 0 and 1");
+    }
+    this.latency = latency;
+    this.errorRate = errorRate;
+    this.errorStatus = errorStatus;
+    this.maxRequestsPerSecond = maxRequestsPerSecond;
+  }
+
+  /**
+   * Read a profile from properties under the prefix: {@code latency} (see {@link
+   * LatencyDistribution#parse}), {@code errorRate}, {@code errorStatus} and {@code
+   * maxRequestsPerSecond}. Missing properties keep the defaults of {@link #NONE}.
+   */
+  public static FaultProfile fromProperties(Properties properties, String prefix) {
+    FaultProfile profile = NONE;
+    String latency = properties.getProperty(prefix + "latency");
+    if (latency != null) {
+      profile = profile.latency(LatencyDistribution.parse(latency));
+    }
+    String errorRate = properties.getProperty(prefix + "errorRate");
+    if (errorRate != null) {
+      profile = profile.errorRate(Double.parseDouble(errorRate));
+    }
+    String errorStatus = properties.getProperty(prefix + "errorStatus");
+    if (errorStatus != null) {
+      profile = profile.errorStatus(Integer.parseInt(errorStatus));
+    }
+    String maxRequestsPerSecond = properties.getProperty(prefix + "maxRequestsPerSecond");
+    if (maxRequestsPerSecond != null) {
+      profile = profile.maxRequestsPerSecond(Integer.parseInt(maxRequestsPerSecond));
+    }
+    return profile;
+  }
+
+  public FaultProfile latency(LatencyDistribution latency) {
+    return new FaultProfile(latency, errorRate, errorStatus, maxRequestsPerSecond);
+  }
+
+  /** Share of requests, from 0 to 1, that fail with the error status. */
+  public FaultProfile errorRate(double errorRate) {
+    return new FaultProfile(latency, errorRate, errorStatus, maxRequestsPerSecond);
+  }
+
+  public FaultProfile errorStatus(int errorStatus) {
+    return new FaultProfile(latency, errorRate, errorStatus, maxRequestsPerSecond);
+  }
+
+  /** Requests per second allowed before the rest get a 429; 0 means no limit. */
+  public FaultProfile maxRequestsPerSecond(int maxRequestsPerSecond) {
+    return new FaultProfile(latency, errorRate, errorStatus, maxRequestsPerSecond);
+  }
+
+  public LatencyDistribution getLatency() {
+    return latency;
+  }
+
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public int getErrorStatus() {
+    return errorStatus;
+  }
+
+  public int getMaxRequestsPerSecond() {
+    return maxRequestsPerSecond;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "latency %s, errorRate %s (status %d), maxRequestsPerSecond %d",
+        latency, errorRate, errorStatus, maxRequestsPerSecond);
+  }
+}
@@ -0,0 +1,96 @@
+package bio.terra.workspace.standin;
+
+import java.util.Random;
+
+/**
+ * How long a stand-in takes to answer. Specs are written as {@code fixed:MS}, {@code
+ * uniform:MIN_MS:MAX_MS} or {@code lognormal:MEDIAN_MS:P99_MS}; the last matches the long tail of
+ * a real service better than the others.
+ */
+public abstract class LatencyDistribution {
+  // The 99th percentile of the standard normal distribution.
+  private static final double Z_99 = 2.3263;
+
+  public static final LatencyDistribution NONE = fixed(0);
+
+  /** A delay, in milliseconds, drawn from the distribution. */
+  public abstract long sampleMillis(Random random);
+
+  public static LatencyDistribution fixed(long millis) {
+    return new LatencyDistribution() {
+      @Override
+      public long sampleMillis(Random random) {
+        return millis;
+      }
+
+      @Override
+      public String toString() {
+        return "fixed:" + millis;
+      }
+    };
+  }
+
+  public static LatencyDistribution uniform(long minMillis, long maxMillis) {
+    if (maxMillis < minMillis) {
+      throw new IllegalArgumentException("uniform latency max is below its min");
+    }
+    return new LatencyDistribution() {
+      @Override
+      public long sampleMillis(Random random) {
+        return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+      }
+
+      @Override
+      public String toString() {
+        return "uniform:" + minMillis + ":" + maxMillis;
+      }
+    };
+  }
+
+  public static LatencyDistribution logNormal(long medianMillis, long p99Millis) {
+    if (medianMillis <= 0 || p99Millis < medianMillis) {
+      throw new IllegalArgumentException("lognormal latency needs 0 < median <= p99");
+    }
+    double mu = Math.log(medianMillis);
+    double sigma = (Math.log(p99Millis) - mu) / Z_99;
+    return new LatencyDistribution() {
+      @Override
+      public long sampleMillis(Random random) {
+        return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+      }
+
+      @Override
+      public String toString() {
+        return "lognormal:" + medianMillis + ":" + p99Millis;
+      }
+    };
+  }
+
+  public static LatencyDistribution parse(String spec) {
+    String[] parts = spec.trim().split(":");
+    try {
+      switch (parts[0]) {
+        case "fixed":
+          if (parts.length == 2) {
+            return fixed(Long.parseLong(parts[1]));
+          }
+          break;
+        case "uniform":
+          if (parts.length == 3) {
+            return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+          }
+          break;
+        case "lognormal":
+          if (parts.length == 3) {
+            return logNormal(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+          }
+          break;
+        default:
+          break;
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Bad latency spec: " + spec, e);
+    }
+    throw new IllegalArgumentException("Bad latency spec: " + spec);
+  }
+}
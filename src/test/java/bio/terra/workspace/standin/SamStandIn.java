@@ -0,0 +1,257 @@
+package bio.terra.workspace.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stands in for the Sam endpoints the service calls: status, and creating, deleting, listing and
+ * checking actions on resources and reading their policies.
+ *
+ * <p>There are no real users. The bearer token is taken as the caller's email, so a load test can
+ * act as any number of users by picking tokens. Resources created with defaults get owner, writer
+ * and reader policies with the caller as the only owner; actions come from the roles using the
+ * same table as the service's ACL mirror defaults. Unlike Sam, anyone may read a resource's
+ * policies, so the ACL mirror can run with any token.
+ */
+public class SamStandIn extends StandInServer {
+  private static final String RESOURCES_PREFIX = "/api/resources/v1/";
+  private static final Map<String, List<String>> ROLE_ACTIONS = new HashMap<>();
+
+  static {
+    ROLE_ACTIONS.put("owner", Arrays.asList("read", "write", "delete"));
+    ROLE_ACTIONS.put("writer", Arrays.asList("read", "write"));
+    ROLE_ACTIONS.put("reader", Collections.singletonList("read"));
+  }
+
+  // Keyed by resource type, then resource id.
+  private final Map<String, Map<String, Resource>> resources = new ConcurrentHashMap<>();
+
+  public SamStandIn(long seed) {
+    super("sam", seed);
+  }
+
+  /** Add the email to a policy of an existing resource, as sharing it in Sam would. */
+  public void addMember(String type, String resourceId, String policyName, String email) {
+    Resource resource = resourcesOf(type).get(resourceId);
+    if (resource == null) {
+      throw new IllegalArgumentException("No " + type + " " + resourceId);
+    }
+    synchronized (resource) {
+      resource
+          .policies
+          .computeIfAbsent(policyName, p -> new Policy())
+          .memberEmails
+          .add(email.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  public int getResourceCount(String type) {
+    return resourcesOf(type).size();
+  }
+
+  @Override
+  protected void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String method = exchange.getRequestMethod();
+    if (path.equals("/status") && method.equals("GET")) {
+      Map<String, Object> status = new LinkedHashMap<>();
+      status.put("ok", true);
+      status.put("systems", Collections.emptyMap());
+      sendJson(exchange, 200, status);
+      return;
+    }
+    if (!path.startsWith(RESOURCES_PREFIX)) {
+      sendError(exchange, 404, "No route for " + path);
+      return;
+    }
+    String token = bearerToken(exchange);
+    if (token == null || token.isEmpty()) {
+      sendError(exchange, 401, "No bearer token");
+      return;
+    }
+    String caller = token.toLowerCase(Locale.ROOT);
+    String[] parts = path.substring(RESOURCES_PREFIX.length()).split("/");
+    String route = method + " " + parts.length;
+    switch (route) {
+      case "GET 1":
+        listResourcesAndPolicies(exchange, parts[0], caller);
+        return;
+      case "POST 1":
+        createResource(exchange, parts[0], readJson(exchange, JsonNode.class), caller);
+        return;
+      case "POST 2":
+        createResourceWithDefaults(exchange, parts[0], parts[1], caller);
+        return;
+      case "DELETE 2":
+        deleteResource(exchange, parts[0], parts[1], caller);
+        return;
+      case "GET 3":
+        if (parts[2].equals("policies")) {
+          listResourcePolicies(exchange, parts[0], parts[1]);
+          return;
+        }
+        break;
+      case "GET 4":
+        if (parts[2].equals("action")) {
+          Resource resource = resourcesOf(parts[0]).get(parts[1]);
+          sendJson(exchange, 200, resource != null && resource.allows(caller, parts[3]));
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    sendError(exchange, 404, "No route for " + method + " " + path);
+  }
+
+  private void listResourcesAndPolicies(HttpExchange exchange, String type, String caller)
+      throws IOException {
+    List<Map<String, Object>> entries = new ArrayList<>();
+    for (Map.Entry<String, Resource> resource : resourcesOf(type).entrySet()) {
+      synchronized (resource.getValue()) {
+        for (Map.Entry<String, Policy> policy : resource.getValue().policies.entrySet()) {
+          if (policy.getValue().memberEmails.contains(caller)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("resourceId", resource.getKey());
+            entry.put("accessPolicyName", policy.getKey());
+            entries.add(entry);
+          }
+        }
+      }
+    }
+    sendJson(exchange, 200, entries);
+  }
+
+  private void createResource(HttpExchange exchange, String type, JsonNode request, String caller)
+      throws IOException {
+    String resourceId = request.path("resourceId").asText(null);
+    if (resourceId == null) {
+      sendError(exchange, 400, "resourceId is required");
+      return;
+    }
+    Resource resource = new Resource();
+    Iterator<Map.Entry<String, JsonNode>> policies = request.path("policies").fields();
+    while (policies.hasNext()) {
+      Map.Entry<String, JsonNode> entry = policies.next();
+      Policy policy = new Policy();
+      entry.getValue().path("memberEmails").forEach(e -> policy.memberEmails.add(lower(e)));
+      entry.getValue().path("actions").forEach(a -> policy.actions.add(a.asText()));
+      entry.getValue().path("roles").forEach(r -> policy.roles.add(r.asText()));
+      resource.policies.put(entry.getKey(), policy);
+    }
+    if (!resource.allows(caller, "delete")) {
+      // Sam makes the creator an owner of a resource nobody could otherwise manage.
+      resource.policies.computeIfAbsent("owner", p -> new Policy()).memberEmails.add(caller);
+    }
+    create(exchange, type, resourceId, resource);
+  }
+
+  private void createResourceWithDefaults(
+      HttpExchange exchange, String type, String resourceId, String caller) throws IOException {
+    Resource resource = new Resource();
+    for (String role : ROLE_ACTIONS.keySet()) {
+      Policy policy = new Policy();
+      policy.roles.add(role);
+      resource.policies.put(role, policy);
+    }
+    resource.policies.get("owner").memberEmails.add(caller);
+    create(exchange, type, resourceId, resource);
+  }
+
+  private void create(HttpExchange exchange, String type, String resourceId, Resource resource)
+      throws IOException {
+    if (resourcesOf(type).putIfAbsent(resourceId, resource) != null) {
+      sendError(exchange, 409, type + " " + resourceId + " already exists");
+      return;
+    }
+    sendEmpty(exchange, 204);
+  }
+
+  private void deleteResource(HttpExchange exchange, String type, String resourceId, String caller)
+      throws IOException {
+    Resource resource = resourcesOf(type).get(resourceId);
+    if (resource == null) {
+      sendError(exchange, 404, type + " " + resourceId + " not found");
+      return;
+    }
+    if (!resource.allows(caller, "delete")) {
+      sendError(exchange, 403, "You may not delete " + type + " " + resourceId);
+      return;
+    }
+    resourcesOf(type).remove(resourceId, resource);
+    sendEmpty(exchange, 204);
+  }
+
+  private void listResourcePolicies(HttpExchange exchange, String type, String resourceId)
+      throws IOException {
+    Resource resource = resourcesOf(type).get(resourceId);
+    if (resource == null) {
+      sendError(exchange, 404, type + " " + resourceId + " not found");
+      return;
+    }
+    List<Map<String, Object>> entries = new ArrayList<>();
+    synchronized (resource) {
+      for (Map.Entry<String, Policy> policy : resource.policies.entrySet()) {
+        Map<String, Object> membership = new LinkedHashMap<>();
+        membership.put("memberEmails", new ArrayList<>(policy.getValue().memberEmails));
+        membership.put("actions", new ArrayList<>(policy.getValue().actions));
+        membership.put("roles", new ArrayList<>(policy.getValue().roles));
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("policyName", policy.getKey());
+        entry.put("policy", membership);
+        entry.put("email", policy.getKey() + "@" + resourceId + ".standin");
+        entries.add(entry);
+      }
+    }
+    sendJson(exchange, 200, entries);
+  }
+
+  private Map<String, Resource> resourcesOf(String type) {
+    return resources.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+  }
+
+  private static String lower(JsonNode email) {
+    return email.asText().toLowerCase(Locale.ROOT);
+  }
+
+  private static class Resource {
+    // Guarded by the resource once it is published.
+    private final Map<String, Policy> policies = new LinkedHashMap<>();
+
+    synchronized boolean allows(String email, String action) {
+      for (Policy policy : policies.values()) {
+        if (!policy.memberEmails.contains(email)) {
+          continue;
+        }
+        if (policy.actions.contains(action)) {
+          return true;
+        }
+        for (String role : policy.roles) {
+          if (ROLE_ACTIONS.getOrDefault(role, Collections.emptyList()).contains(action)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class Policy {
+    private final Set<String> memberEmails = new HashSet<>();
+    private final Set<String> actions = new HashSet<>();
+    private final Set<String> roles = new HashSet<>();
+  }
+}
@@ -0,0 +1,72 @@
+package bio.terra.workspace.standin;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs the Sam and Data Repo stand-ins until the process is stopped. Settings are read from the
+ * properties file given as the only argument, if any, overridden by system properties:
+ *
+ * <pre>
+ * standin.seed=1
+ * standin.threads=200
+ * standin.sam.port=8090
+ * standin.sam.latency=lognormal:20:250
+ * standin.sam.errorRate=0.001
+ * standin.sam.maxRequestsPerSecond=0
+ * standin.datarepo.port=8091
+ * standin.datarepo.latency=uniform:30:80
+ * </pre>
+ *
+ * Start the service with sam.basePath set to the printed Sam URL, and use the Data Repo URL as the
+ * instance of data references.
+ */
+public class StandInMain {
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Properties properties = new Properties();
+    if (args.length > 0) {
+      try (InputStream in = new FileInputStream(args[0])) {
+        properties.load(in);
+      }
+    }
+    properties.putAll(System.getProperties());
+
+    long seed = Long.parseLong(properties.getProperty("standin.seed", "1"));
+    int threads = Integer.parseInt(properties.getProperty("standin.threads", "200"));
+
+    SamStandIn sam = new SamStandIn(seed);
+    sam.setFaultProfile(FaultProfile.fromProperties(properties, "standin.sam."));
+    sam.start(Integer.parseInt(properties.getProperty("standin.sam.port", "8090")), threads);
+
+    DataRepoStandIn dataRepo = new DataRepoStandIn(seed + 1);
+    dataRepo.setFaultProfile(FaultProfile.fromProperties(properties, "standin.datarepo."));
+    dataRepo.start(
+        Integer.parseInt(properties.getProperty("standin.datarepo.port", "8091")), threads);
+
+    System.out.println("Sam stand-in at " + sam.getBasePath() + ": " + sam.getFaultProfile());
+    System.out.println(
+        "Data Repo stand-in at " + dataRepo.getBasePath() + ": " + dataRepo.getFaultProfile());
+
+    CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  sam.close();
+                  dataRepo.close();
+                  System.out.printf(
+                      "Sam: %d requests, %d throttled, %d failed by injection%n",
+                      sam.getRequestCount(), sam.getThrottledCount(), sam.getInjectedErrorCount());
+                  System.out.printf(
+                      "Data Repo: %d requests, %d throttled, %d failed by injection%n",
+                      dataRepo.getRequestCount(),
+                      dataRepo.getThrottledCount(),
+                      dataRepo.getInjectedErrorCount());
+                  stopped.countDown();
+                }));
+    stopped.await();
+  }
+}
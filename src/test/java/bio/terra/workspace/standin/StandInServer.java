@@ -0,0 +1,198 @@
+package bio.terra.workspace.standin;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process HTTP server standing in for a dependency, so the service can be run and measured
+ * without calling shared instances. Every request first goes through the current {@link
+ * FaultProfile}: it may be throttled with a 429, delayed, or failed with the error status, and only
+ * then reaches {@link #handle}.
+ *
+ * <p>Each request is served on its own pool thread, so injected latency holds a thread the way a
+ * slow dependency would, not the whole server.
+ */
+public abstract class StandInServer implements AutoCloseable {
+  protected static final ObjectMapper objectMapper = new ObjectMapper();
+
+  static {
+    // The JDK server writes headers and body separately; with Nagle's algorithm on, the body then
+    // waits for the client's delayed ACK, adding about 40ms to every response. This must be set
+    // before the first server is created.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final String name;
+  private final Random random;
+  private volatile FaultProfile faultProfile = FaultProfile.NONE;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  // The throttling window, guarded by this.
+  private long windowSecond;
+  private int windowCount;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong throttledCount = new AtomicLong();
+  private final AtomicLong injectedErrorCount = new AtomicLong();
+
+  protected StandInServer(String name, long seed) {
+    this.name = name;
+    this.random = new Random(seed);
+  }
+
+  /** Answer a request that got past the fault profile. */
+  protected abstract void handle(HttpExchange exchange) throws IOException;
+
+  /** Start listening on the port on localhost; 0 picks a free port. */
+  public synchronized StandInServer start(int port, int threads) throws IOException {
+    if (server != null) {
+      throw new IllegalStateException(name + " stand-in is already started");
+    }
+    AtomicInteger threadCount = new AtomicInteger();
+    executor =
+        Executors.newFixedThreadPool(
+            threads,
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, name + "-standin-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), threads);
+    server.setExecutor(executor);
+    server.createContext("/", this::serve);
+    server.start();
+    return this;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+    }
+  }
+
+  /** The URL to configure the service with, such as sam.basePath. */
+  public String getBasePath() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public FaultProfile getFaultProfile() {
+    return faultProfile;
+  }
+
+  public void setFaultProfile(FaultProfile faultProfile) {
+    this.faultProfile = faultProfile;
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getThrottledCount() {
+    return throttledCount.get();
+  }
+
+  public long getInjectedErrorCount() {
+    return injectedErrorCount.get();
+  }
+
+  private void serve(HttpExchange exchange) throws IOException {
+    try {
+      requestCount.incrementAndGet();
+      FaultProfile profile = faultProfile;
+      if (isThrottled(profile)) {
+        throttledCount.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 429, "Too many requests");
+        return;
+      }
+      long delayMillis = profile.getLatency().sampleMillis(random);
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+      if (profile.getErrorRate() > 0 && random.nextDouble() < profile.getErrorRate()) {
+        injectedErrorCount.incrementAndGet();
+        sendError(exchange, profile.getErrorStatus(), "Injected fault");
+        return;
+      }
+      handle(exchange);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      sendError(exchange, 500, String.valueOf(e.getMessage()));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private synchronized boolean isThrottled(FaultProfile profile) {
+    if (profile.getMaxRequestsPerSecond() <= 0) {
+      return false;
+    }
+    long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    if (second != windowSecond) {
+      windowSecond = second;
+      windowCount = 0;
+    }
+    return ++windowCount > profile.getMaxRequestsPerSecond();
+  }
+
+  /** The bearer token of the request, or null if it has none. */
+  protected static String bearerToken(HttpExchange exchange) {
+    String header = exchange.getRequestHeaders().getFirst("Authorization");
+    if (header == null || !header.startsWith("Bearer ")) {
+      return null;
+    }
+    return header.substring("Bearer ".length()).trim();
+  }
+
+  protected static <T> T readJson(HttpExchange exchange, Class<T> type) throws IOException {
+    try (InputStream body = exchange.getRequestBody()) {
+      return objectMapper.readValue(body, type);
+    }
+  }
+
+  protected static void sendJson(HttpExchange exchange, int status, Object body)
+      throws IOException {
+    byte[] bytes = objectMapper.writeValueAsBytes(body);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  protected static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+    exchange.sendResponseHeaders(status, -1);
+  }
+
+  /** An error in the shape both Sam and Data Repo use: a message and a status code. */
+  protected void sendError(HttpExchange exchange, int status, String message) throws IOException {
+    ErrorBody body = new ErrorBody();
+    body.message = message;
+    body.statusCode = status;
+    body.source = name + "-standin";
+    sendJson(exchange, status, body);
+  }
+
+  private static class ErrorBody {
+    public String message;
+    public int statusCode;
+    public String source;
+  }
+}
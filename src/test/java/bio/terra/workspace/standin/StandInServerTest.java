@@ -0,0 +1,127 @@
+package bio.terra.workspace.standin;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.datarepo.api.RepositoryApi;
+import bio.terra.workspace.common.utils.SamUtils;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import org.broadinstitute.dsde.workbench.client.sam.ApiClient;
+import org.broadinstitute.dsde.workbench.client.sam.ApiException;
+import org.broadinstitute.dsde.workbench.client.sam.api.ResourcesApi;
+import org.broadinstitute.dsde.workbench.client.sam.model.ResourceAndAccessPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Checks the stand-ins against the same generated clients the service uses. */
+@Tag("unit")
+public class StandInServerTest {
+  private static final String OWNER = "owner@example.com";
+  private static final String READER = "reader@example.com";
+
+  private SamStandIn sam;
+  private DataRepoStandIn dataRepo;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    sam = new SamStandIn(1);
+    sam.start(0, 4);
+    dataRepo = new DataRepoStandIn(2);
+    dataRepo.start(0, 4);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    sam.close();
+    dataRepo.close();
+  }
+
+  @Test
+  public void samAuthorizesByPolicy() throws Exception {
+    String workspace = "11111111-2222-3333-4444-555555555555";
+    resourcesApi(OWNER).createResourceWithDefaults(SamUtils.SAM_WORKSPACE_RESOURCE, workspace);
+    sam.addMember(SamUtils.SAM_WORKSPACE_RESOURCE, workspace, "reader", READER);
+
+    ResourcesApi reader = resourcesApi(READER);
+    assertThat(
+        reader.resourceAction(SamUtils.SAM_WORKSPACE_RESOURCE, workspace, "read"), equalTo(true));
+    assertThat(
+        reader.resourceAction(SamUtils.SAM_WORKSPACE_RESOURCE, workspace, "delete"),
+        equalTo(false));
+    assertThat(
+        reader.listResourcesAndPolicies(SamUtils.SAM_WORKSPACE_RESOURCE).stream()
+            .map(ResourceAndAccessPolicy::getResourceId)
+            .collect(Collectors.toList()),
+        equalTo(Collections.singletonList(workspace)));
+    assertThat(
+        reader.listResourcePolicies(SamUtils.SAM_WORKSPACE_RESOURCE, workspace).size(),
+        equalTo(3));
+
+    ApiException forbidden =
+        assertThrows(
+            ApiException.class,
+            () -> reader.deleteResource(SamUtils.SAM_WORKSPACE_RESOURCE, workspace));
+    assertThat(forbidden.getCode(), equalTo(403));
+    resourcesApi(OWNER).deleteResource(SamUtils.SAM_WORKSPACE_RESOURCE, workspace);
+    assertThat(sam.getResourceCount(SamUtils.SAM_WORKSPACE_RESOURCE), equalTo(0));
+  }
+
+  @Test
+  public void injectedErrorsAndThrottling() {
+    sam.setFaultProfile(FaultProfile.NONE.errorRate(1).errorStatus(503));
+    ApiException failed =
+        assertThrows(
+            ApiException.class,
+            () -> resourcesApi(OWNER).resourceAction(SamUtils.SAM_WORKSPACE_RESOURCE, "w", "read"));
+    assertThat(failed.getCode(), equalTo(503));
+    assertThat(sam.getInjectedErrorCount(), equalTo(1L));
+
+    // A limit of one a second lets through at most one of two back-to-back requests.
+    sam.setFaultProfile(FaultProfile.NONE.maxRequestsPerSecond(1));
+    ResourcesApi owner = resourcesApi(OWNER);
+    int throttled = 0;
+    for (int i = 0; i < 3; i++) {
+      try {
+        owner.resourceAction(SamUtils.SAM_WORKSPACE_RESOURCE, "w", "read");
+      } catch (ApiException e) {
+        assertThat(e.getCode(), equalTo(429));
+        throttled++;
+      }
+    }
+    assertThat(sam.getThrottledCount(), equalTo((long) throttled));
+    assertThat(throttled >= 1, equalTo(true));
+  }
+
+  @Test
+  public void dataRepoFindsSnapshotsUnlessMissing() throws Exception {
+    bio.terra.datarepo.client.ApiClient client = new bio.terra.datarepo.client.ApiClient();
+    client.setAccessToken(OWNER);
+    RepositoryApi repositoryApi = new RepositoryApi(client.setBasePath(dataRepo.getBasePath()));
+
+    assertThat(repositoryApi.retrieveSnapshot("present").getId(), equalTo("present"));
+    dataRepo.markMissing("gone");
+    bio.terra.datarepo.client.ApiException missing =
+        assertThrows(
+            bio.terra.datarepo.client.ApiException.class,
+            () -> repositoryApi.retrieveSnapshot("gone"));
+    assertThat(missing.getCode(), equalTo(404));
+  }
+
+  @Test
+  public void latencySpecsParse() {
+    assertThat(LatencyDistribution.parse("fixed:5").toString(), equalTo("fixed:5"));
+    assertThat(
+        LatencyDistribution.parse("lognormal:20:250").toString(), equalTo("lognormal:20:250"));
+    assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.parse("gamma:1"));
+  }
+
+  private ResourcesApi resourcesApi(String email) {
+    ApiClient client = new ApiClient();
+    client.setAccessToken(email);
+    return new ResourcesApi(client.setBasePath(sam.getBasePath()));
+  }
+}